@@ -14,6 +14,7 @@ import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.type.DeclaredType;
 
+import com.qrmedia.commons.lang.model.ElementIndex;
 import com.qrmedia.commons.lang.model.ElementUtils;
 import com.qrmedia.pattern.compositeannotation.annotation.CompositeAnnotation;
 import com.qrmedia.pattern.compositeannotation.annotation.LeafAnnotation;
@@ -39,12 +40,15 @@ class CompositeAnnotationElementValidator extends AbstractElementValidator {
      * @param leafValidators    leaf validators for leaf annotation elements; must contain validators
      *                          for <em>at least</em> the leaf annotations defined in the given
      *                          composite  
+     * @param elementIndex an index of the elements of the current round
      */
     CompositeAnnotationElementValidator(TypeElement element,
-            Map<Element, LeafAnnotationElementValidator> leafValidators) {
+            Map<Element, LeafAnnotationElementValidator> leafValidators, 
+            ElementIndex elementIndex) {
         assert ((element != null) && (element.getAnnotation(CompositeAnnotation.class) != null)
                 && ElementUtils.isAnnotation(element)) : element;
         assert (leafValidators != null);
+        assert (elementIndex != null);
         
         // the composite must have RUNTIME retention (note that getRetention returns a non-null value)
         if (!ElementUtils.getRetention(element).equals(RetentionPolicy.RUNTIME)) {
@@ -53,7 +57,7 @@ class CompositeAnnotationElementValidator extends AbstractElementValidator {
         }
         
         for (Element leafAnnotationElement 
-                : ElementUtils.getAnnotatedEnclosedElements(element, LeafAnnotation.class)) {
+                : elementIndex.getAnnotatedEnclosedElements(element, LeafAnnotation.class)) {
             assert (leafValidators.containsKey(leafAnnotationElement)) 
             : new Object[] { leafValidators, leafAnnotationElement };
             
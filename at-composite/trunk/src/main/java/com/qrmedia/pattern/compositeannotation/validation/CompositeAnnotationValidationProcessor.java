@@ -24,6 +24,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic.Kind;
 
+import com.qrmedia.commons.lang.model.ElementIndex;
 import com.qrmedia.commons.lang.model.ElementUtils;
 import com.qrmedia.pattern.compositeannotation.annotation.CompositeAnnotation;
 import com.qrmedia.pattern.compositeannotation.annotation.LeafAnnotation;
@@ -99,6 +100,9 @@ public class CompositeAnnotationValidationProcessor extends AbstractProcessor {
         Messager messager = processingEnv.getMessager();
         Types typeUtils = processingEnv.getTypeUtils();
         
+        // elements are only valid for the current round
+        ElementIndex elementIndex = new ElementIndex();
+        
         Set<TypeElement> compositeAnnotations = getCompositeAnnotations(annotations, roundEnv);
         
         Map<Element, LeafAnnotationElementValidator> leafValidators = 
@@ -110,9 +114,10 @@ public class CompositeAnnotationValidationProcessor extends AbstractProcessor {
          * (e.g. in composite annotations in libraries).
          * Note that leaf annotations are only allowed on methods.
          */
-        for (ExecutableElement element : getLeafAnnotations(compositeAnnotations, roundEnv)) {
-            LeafAnnotationElementValidator leafValidator = 
-                new LeafAnnotationElementValidator(element, typeUtils, processingEnv.getElementUtils());
+        for (ExecutableElement element 
+                : getLeafAnnotations(compositeAnnotations, roundEnv, elementIndex)) {
+            LeafAnnotationElementValidator leafValidator = new LeafAnnotationElementValidator(
+                    element, typeUtils, processingEnv.getElementUtils(), elementIndex);
             leafValidators.put(element, leafValidator);
             
             if (!leafValidator.isValid()) {
@@ -125,7 +130,8 @@ public class CompositeAnnotationValidationProcessor extends AbstractProcessor {
         for (Element element : compositeAnnotations) {
             assert (element instanceof TypeElement) : element;
             CompositeAnnotationElementValidator compositeValidator = 
-                new CompositeAnnotationElementValidator((TypeElement) element, leafValidators);
+                new CompositeAnnotationElementValidator((TypeElement) element, leafValidators, 
+                        elementIndex);
             
             if (!compositeValidator.isValid()) {
                 addErrors(messager, element, compositeValidator.getErrorMessages());
@@ -191,14 +197,14 @@ public class CompositeAnnotationValidationProcessor extends AbstractProcessor {
 
     @SuppressWarnings("unchecked")
     private static Set<ExecutableElement> getLeafAnnotations(Set<TypeElement> compositeAnnotations,
-            RoundEnvironment roundEnv) {
+            RoundEnvironment roundEnv, ElementIndex elementIndex) {
         Set<ExecutableElement> leafAnnotations = new HashSet<ExecutableElement>();
         
         // first, get all the leaf annotations that are members of composites
         for (TypeElement compositeAnnotation : compositeAnnotations) {
             
             for (Element leafAnnotationElement 
-                    : ElementUtils.getAnnotatedEnclosedElements(compositeAnnotation, LeafAnnotation.class)) {
+                    : elementIndex.getAnnotatedEnclosedElements(compositeAnnotation, LeafAnnotation.class)) {
                 // leaf annotations are only allowed on methods
                 assert (leafAnnotationElement instanceof ExecutableElement) : leafAnnotationElement;
                 leafAnnotations.add((ExecutableElement) leafAnnotationElement);
@@ -18,6 +18,7 @@ import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 
+import com.qrmedia.commons.lang.model.ElementIndex;
 import com.qrmedia.commons.lang.model.ElementUtils;
 import com.qrmedia.pattern.compositeannotation.annotation.CompositeAnnotation;
 import com.qrmedia.pattern.compositeannotation.annotation.LeafAnnotation;
@@ -47,14 +48,17 @@ class LeafAnnotationElementValidator extends AbstractElementValidator {
      *            the element carrying the leaf annotation
      * @param typeUtils a type utility for the current processing environment           
      * @param elementUtils an element utility for the current processing environment
+     * @param elementIndex an index of the elements of the current round
      * @see ProcessingEnvironment#getTypeUtils()
      * @see ProcessingEnvironment#getElementUtils()
      */
-    LeafAnnotationElementValidator(ExecutableElement element, Types typeUtils, Elements elementUtils) {
+    LeafAnnotationElementValidator(ExecutableElement element, Types typeUtils, Elements elementUtils,
+            ElementIndex elementIndex) {
     	assert ((element != null) && (element.getAnnotation(LeafAnnotation.class) != null)
     		&& ElementUtils.isMethod(element)) : element;
     	assert (typeUtils != null);
     	assert (elementUtils != null);
+    	assert (elementIndex != null);
     	
         // the method must be a member of a composite annotation
     	Element enclosingElement = element.getEnclosingElement();
@@ -92,8 +96,8 @@ class LeafAnnotationElementValidator extends AbstractElementValidator {
          */
         TypeElement leafAnnotationElement = elementUtils.getTypeElement(LeafAnnotation.class.getName());
         AnnotationValue leafAnnotationFactoryClassValue = 
-            ElementUtils.getAnnotationMirror(element, leafAnnotationElement).getElementValues()
-            .get(ElementUtils.getEnclosedElement(leafAnnotationElement, FACTORY_CLASS_MEMBER_NAME));
+            elementIndex.getAnnotationMirror(element, leafAnnotationElement).getElementValues()
+            .get(elementIndex.getEnclosedElement(leafAnnotationElement, FACTORY_CLASS_MEMBER_NAME));
         
         // "getElementValues" does not return implicitly set (i.e. default) values
         if (leafAnnotationFactoryClassValue != null) {
@@ -114,7 +118,7 @@ class LeafAnnotationElementValidator extends AbstractElementValidator {
             }
             
             // the element for a DeclaredType is a TypeElement
-            if (!ElementUtils.hasPublicNoargConstructor(leafAnnotationFactoryClass.asElement())) {
+            if (!elementIndex.hasPublicNoargConstructor(leafAnnotationFactoryClass.asElement())) {
                 errorMessages.add("Custom factory class " 
                         + leafAnnotationFactoryClass.asElement().getSimpleName() 
                         + " has no public, no-argument constructor");
@@ -3,15 +3,21 @@
  */
 package com.qrmedia.pattern.compositeannotation.validation;
 
+import static org.junit.Assert.assertTrue;
+
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
 import javax.tools.Diagnostic.Kind;
 
 import org.junit.Test;
 
 import com.qrmedia.commons.test.annotation.processing.AbstractAnnotationProcessorTest;
+import com.qrmedia.pattern.compositeannotation.example.annotation.TargetRetentionLeafCompositeAnnotation;
 import com.qrmedia.pattern.compositeannotation.validation.sample.InvalidCompositeAnnotationInconsistentTarget;
 import com.qrmedia.pattern.compositeannotation.validation.sample.InvalidCompositeAnnotationInvalidRetention;
 import com.qrmedia.pattern.compositeannotation.validation.sample.InvalidCompositeAnnotationNonuniqueLeafAnnotationTypes;
@@ -97,4 +103,32 @@ public class CompositeAnnotationValidationProcessorTest extends
         assertCompilationSuccessful(compileTestCase(ValidCompositeAnnotation.class));
     }
 
+    @Test
+    public void validCompositeAnnotation_customFactory() {
+        assertCompilationSuccessful(
+                compileTestCase(TargetRetentionLeafCompositeAnnotation.class));
+    }
+
+    @Test
+    public void compositeAnnotationsInSameRound() {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compileTestCase(
+                InvalidLeafAnnotationInvalidCustomFactories.class,
+                TargetRetentionLeafCompositeAnnotation.class, ValidCompositeAnnotation.class);
+
+        assertCompilationReturned(new Kind[] { Kind.ERROR, Kind.ERROR }, new long[] { 26, 30 },
+                diagnostics);
+
+        // the validators share the index of the round, but only the invalid composite is reported
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics) {
+
+            if (diagnostic.getKind().equals(Kind.ERROR)) {
+                assertTrue(diagnostic.getSource().toUri().getPath().endsWith(
+                        InvalidLeafAnnotationInvalidCustomFactories.class.getSimpleName() 
+                        + ".java"));
+            }
+
+        }
+
+    }
+
 }
@@ -3,7 +3,12 @@
  */
 package com.qrmedia.commons.bean.businessobject;
 
+import java.beans.PropertyDescriptor;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.apache.commons.beanutils.MethodUtils;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
@@ -11,6 +16,12 @@ import com.qrmedia.commons.bean.businessobject.annotation.BusinessField;
 
 /**
  * Describes a field annotated with {@link BusinessField @BusinessField} in a business object.
+ * <p>
+ * The field's value is read using its bean property getter, as for 
+ * {@link PropertyUtils#getSimpleProperty(Object, String)}. The getter is looked up once for 
+ * the class of the business object and then invoked directly, so that repeated
+ * <code>equals</code> and <code>hashCode</code> evaluations do not incur the cost of the
+ * property lookup.
  * 
  * @author anph
  * @see BusinessObjectDescriptor
@@ -21,6 +32,12 @@ class BusinessFieldDescriptor {
     private Field businessField;
     private BusinessField businessFieldAnnotation;
     
+    /*
+     * The getter for the class of the business object most recently passed to getValue.
+     * Descriptors are cached per business object class, so this will almost always hit.
+     */
+    private volatile ReadMethod readMethod;
+    
     /**
      * Retrieves this field's value from the given object.
      * <p>
@@ -32,19 +49,55 @@ class BusinessFieldDescriptor {
      *                                field cannot be accessed
      */
     Object getValue(Object businessObject) throws IllegalArgumentException {
+        ReadMethod cachedReadMethod = readMethod;
+        
+        if ((cachedReadMethod == null) 
+                || (cachedReadMethod.beanClass != businessObject.getClass())) {
+            cachedReadMethod = getReadMethod(businessObject);
+            readMethod = cachedReadMethod;
+        }
+        
+        try {
+            return cachedReadMethod.getter.invoke(businessObject);
+        } catch (InvocationTargetException exception) {
+            throw new IllegalArgumentException("Unable to retrieve value for field '"
+                    + businessField.getName() + "'", exception.getCause());
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to retrieve value for field '"
+                    + businessField.getName() + "'", exception);
+        }
+        
+    }
+    
+    private ReadMethod getReadMethod(Object businessObject) {
         
         if (!(businessField.getDeclaringClass().isAssignableFrom(businessObject.getClass()))) {
             throw new IllegalArgumentException(businessObject + " is not an instance of " 
                                                + businessField.getDeclaringClass());
         }
         
+        PropertyDescriptor propertyDescriptor;
+        
         try {
-            return PropertyUtils.getSimpleProperty(businessObject, businessField.getName());
+            propertyDescriptor = 
+                PropertyUtils.getPropertyDescriptor(businessObject, businessField.getName());
         } catch (Exception exception) {
             throw new IllegalArgumentException("Unable to retrieve value for field '"
                     + businessField.getName() + "'", exception);
         }
         
+        // as for PropertyUtils.getSimpleProperty, only *public* getters are used
+        Method getter = ((propertyDescriptor != null) 
+                         ? MethodUtils.getAccessibleMethod(propertyDescriptor.getReadMethod())
+                         : null);
+        
+        if (getter == null) {
+            throw new IllegalArgumentException("Unable to retrieve value for field '"
+                    + businessField.getName() + "': no accessible getter found in " 
+                    + businessObject.getClass());
+        }
+        
+        return new ReadMethod(businessObject.getClass(), getter);
     }
     
     /**
@@ -96,4 +149,16 @@ class BusinessFieldDescriptor {
         return businessField;
     }
 
+    // immutable, so it can be safely published via the volatile field
+    private static class ReadMethod {
+        private final Class<?> beanClass;
+        private final Method getter;
+        
+        private ReadMethod(Class<?> beanClass, Method getter) {
+            this.beanClass = beanClass;
+            this.getter = getter;
+        }
+        
+    }
+    
 }
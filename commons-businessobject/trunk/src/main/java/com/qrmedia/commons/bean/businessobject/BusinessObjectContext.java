@@ -3,14 +3,15 @@
  */
 package com.qrmedia.commons.bean.businessobject;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A cache of <code>{@link BusinessObjectDescriptor}</code>s.
  * <p>
- * Thread-safe as long as there are not two different classes with the same (full) name in
- * the environment in which the <code>BusinessObjectUtils</code> are used.
+ * Thread-safe. Descriptors are created at most once per class, unless two threads request
+ * the descriptor of a class not yet in the cache at the same time, in which case the 
+ * descriptor of the first to finish is kept.
  *  
  * @author anph
  * @see BusinessObjectUtils
@@ -18,8 +19,8 @@ import java.util.Map;
  *
  */
 class BusinessObjectContext {
-    private static final Map<Class<?>, BusinessObjectDescriptor> BUSINESS_OBJECT_DESCRIPTORS = 
-        new HashMap<Class<?>, BusinessObjectDescriptor>();
+    private static final ConcurrentMap<Class<?>, BusinessObjectDescriptor> 
+        BUSINESS_OBJECT_DESCRIPTORS = new ConcurrentHashMap<Class<?>, BusinessObjectDescriptor>();
     
     /**
      * Gets a descriptor for the given business object class.
@@ -30,13 +31,42 @@ class BusinessObjectContext {
      * @return  a descriptor for the given business object class
      */
     static BusinessObjectDescriptor getDescriptor(Class<?> businessObjectClass) {
+        BusinessObjectDescriptor descriptor = BUSINESS_OBJECT_DESCRIPTORS.get(businessObjectClass);
         
-        if (!BUSINESS_OBJECT_DESCRIPTORS.containsKey(businessObjectClass)) {
-            BUSINESS_OBJECT_DESCRIPTORS.put(businessObjectClass, 
-                    BusinessObjectDescriptor.forBusinessObjectClass(businessObjectClass));
+        if (descriptor == null) {
+            descriptor = BusinessObjectDescriptor.forBusinessObjectClass(businessObjectClass);
+            
+            BusinessObjectDescriptor existingDescriptor = 
+                BUSINESS_OBJECT_DESCRIPTORS.putIfAbsent(businessObjectClass, descriptor);
+            
+            if (existingDescriptor != null) {
+                descriptor = existingDescriptor;
+            }
+            
         }
         
-        return BUSINESS_OBJECT_DESCRIPTORS.get(businessObjectClass);
+        return descriptor;
+    }
+    
+    /**
+     * Gets a descriptor for the given class, if it is a business object class.
+     * <p>
+     * Only checks if the class is a business object class if no descriptor is cached, so 
+     * is cheaper than {@link BusinessObjectDescriptor#isBusinessObject(Class)} followed by
+     * {@link #getDescriptor(Class)} for business object classes.
+     * 
+     * @param objectClass   the class whose descriptor is required
+     * @return  a descriptor for the given class, or <code>null</code> if the class is not
+     *          a business object class
+     */
+    static BusinessObjectDescriptor findDescriptor(Class<?> objectClass) {
+        BusinessObjectDescriptor descriptor = BUSINESS_OBJECT_DESCRIPTORS.get(objectClass);
+        
+        if ((descriptor == null) && BusinessObjectDescriptor.isBusinessObject(objectClass)) {
+            descriptor = getDescriptor(objectClass);
+        }
+        
+        return descriptor;
     }
     
 }
@@ -4,11 +4,13 @@
 package com.qrmedia.commons.bean.businessobject;
 
 import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import com.qrmedia.commons.bean.businessobject.annotation.BusinessField;
 import com.qrmedia.commons.bean.businessobject.annotation.BusinessObject;
@@ -22,6 +24,11 @@ import com.qrmedia.commons.lang.ClassUtils;
  * If, for instance, a class declares a business field &quot;foo&quot;, and one of its 
  * superclasses <i>also</i> contains a business field &quot;foo&quot;, only one of these will
  * be picked up (and there is no guarantee which one that will be).
+ * <p>
+ * In addition to the maps of business fields, the descriptor holds the fields relevant 
+ * for <code>equals</code>, <code>hashCode</code> and <code>toString</code> as arrays 
+ * <u>sorted by field name</u>, so that instances of different classes with the same 
+ * business fields can be compared field by field without any map lookups.
  * 
  * @author anph
  * @since 8 Jul 2008
@@ -40,6 +47,13 @@ class BusinessObjectDescriptor {
         new HashMap<String, BusinessFieldDescriptor>();
     private Map<String, BusinessFieldDescriptor> businessFieldsRelevantForToString = 
         new HashMap<String, BusinessFieldDescriptor>();    
+    
+    // the same fields, sorted by name, for the equals, hashCode and toString evaluations
+    private Class<?>[] equivalentClassArray;
+    private String[] businessFieldNamesRelevantForEquals;
+    private BusinessFieldDescriptor[] sortedBusinessFieldsRelevantForEquals;
+    private BusinessFieldDescriptor[] sortedBusinessFieldsRelevantForHashCode;
+    private BusinessFieldDescriptor[] sortedBusinessFieldsRelevantForToString;
 
     /**
      * Generates a descriptor for the given business object. 
@@ -84,9 +98,28 @@ class BusinessObjectDescriptor {
             
         }
         
+        descriptor.equivalentClassArray = 
+            descriptor.equivalentClasses.toArray(new Class<?>[descriptor.equivalentClasses.size()]);
+        descriptor.businessFieldNamesRelevantForEquals = 
+            new TreeMap<String, BusinessFieldDescriptor>(descriptor.businessFieldsRelevantForEquals)
+            .keySet().toArray(new String[descriptor.businessFieldsRelevantForEquals.size()]);
+        descriptor.sortedBusinessFieldsRelevantForEquals = 
+            sortByName(descriptor.businessFieldsRelevantForEquals);
+        descriptor.sortedBusinessFieldsRelevantForHashCode = 
+            sortByName(descriptor.businessFieldsRelevantForHashCode);
+        descriptor.sortedBusinessFieldsRelevantForToString = 
+            sortByName(descriptor.businessFieldsRelevantForToString);
         return descriptor;
     }
     
+    private static BusinessFieldDescriptor[] sortByName(
+            Map<String, BusinessFieldDescriptor> businessFields) {
+        Collection<BusinessFieldDescriptor> sortedBusinessFields = 
+            new TreeMap<String, BusinessFieldDescriptor>(businessFields).values();
+        return sortedBusinessFields.toArray(
+                new BusinessFieldDescriptor[sortedBusinessFields.size()]);
+    }
+    
     /**
      * Checks if the class or any of its superclasses are annotated as business objects.
      * 
@@ -170,6 +203,48 @@ class BusinessObjectDescriptor {
         return equivalentClasses.isEmpty();
     }
     
+    /**
+     * Checks if instances of the given class may be equal to business objects of this class,
+     * i.e. if the class is one of the {@link #getEquivalentClasses() equivalent classes}
+     * or a subclass of one of these.
+     * 
+     * @param objectClass   the class to check
+     * @return  <code>true</code> iff the class is {@link #ignoreClass() ignored} or is 
+     *          assignable to one of the equivalent classes
+     */
+    boolean isEquivalentClass(Class<?> objectClass) {
+        
+        if (equivalentClassArray.length == 0) {
+            return true;
+        }
+        
+        for (Class<?> equivalentClass : equivalentClassArray) {
+            
+            if (equivalentClass.isAssignableFrom(objectClass)) {
+                return true;
+            }
+            
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Checks if business objects of this class and the given descriptor's class have the
+     * same business fields relevant for <code>equals</code>, by name.
+     * <p>
+     * If so, the {@link #getSortedBusinessFieldsRelevantForEquals() sorted fields} of both
+     * descriptors correspond to each other index by index.
+     * 
+     * @param other the descriptor to compare
+     * @return  <code>true</code> iff both descriptors have business fields relevant for 
+     *          <code>equals</code> with the same names
+     */
+    boolean hasSameBusinessFieldsRelevantForEquals(BusinessObjectDescriptor other) {
+        return ((this == other) || Arrays.equals(businessFieldNamesRelevantForEquals, 
+                                                 other.businessFieldNamesRelevantForEquals));
+    }
+    
     /* Getter(s) and setter(s) */
     
     /**
@@ -223,4 +298,28 @@ class BusinessObjectDescriptor {
         return businessFieldsRelevantForToString;
     }
 
+    /**
+     * @return the business fields relevant for <code>equals</code>, sorted by name. 
+     *         Not to be modified. 
+     */
+    BusinessFieldDescriptor[] getSortedBusinessFieldsRelevantForEquals() {
+        return sortedBusinessFieldsRelevantForEquals;
+    }
+
+    /**
+     * @return the business fields relevant for <code>hashCode</code>, sorted by name. 
+     *         Not to be modified. 
+     */
+    BusinessFieldDescriptor[] getSortedBusinessFieldsRelevantForHashCode() {
+        return sortedBusinessFieldsRelevantForHashCode;
+    }
+
+    /**
+     * @return the business fields relevant for <code>toString</code>, sorted by name. 
+     *         Not to be modified. 
+     */
+    BusinessFieldDescriptor[] getSortedBusinessFieldsRelevantForToString() {
+        return sortedBusinessFieldsRelevantForToString;
+    }
+
 }
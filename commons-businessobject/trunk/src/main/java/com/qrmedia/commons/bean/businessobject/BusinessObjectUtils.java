@@ -3,23 +3,24 @@
  */
 package com.qrmedia.commons.bean.businessobject;
 
-import static com.qrmedia.commons.bean.businessobject.BusinessObjectDescriptor.isBusinessObject;
-
-import java.util.Collection;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.math.BigDecimal;
 
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 import com.qrmedia.commons.bean.businessobject.annotation.BusinessObject;
-import com.qrmedia.commons.lang.ClassUtils;
 
 /**
  * An optimized version of the <a href="http://code.google.com/p/simplestuff/">SimpleStuff</a> 
  * utility that provides a fail-fast <code>equals<code> implementation that can also deal with 
  * <code>null</code> arguments.
+ * <p>
+ * The business fields of each class are determined once and held, sorted by name, by the
+ * class' <code>BusinessObjectDescriptor</code>. <code>equals</code> and <code>hashCode</code> 
+ * evaluate these fields in order using their cached getters, without creating any builders 
+ * or iterators (except for array-valued fields). The hash codes are those computed by a 
+ * {@link HashCodeBuilder} with the default initial and multiplier values.
  * 
  * @author anph
  * @since 7 Jul 2008
@@ -47,7 +48,12 @@ public class BusinessObjectUtils {
         Class<? extends Object> firstBeanClass = firstBean.getClass();
         Class<? extends Object> secondBeanClass = secondBean.getClass();
 
-        if (!isBusinessObject(firstBeanClass) || !isBusinessObject(secondBeanClass)) {
+        BusinessObjectDescriptor firstBeanDescriptor = 
+            BusinessObjectContext.findDescriptor(firstBeanClass);
+        BusinessObjectDescriptor secondBeanDescriptor = 
+            BusinessObjectContext.findDescriptor(secondBeanClass);
+        
+        if ((firstBeanDescriptor == null) || (secondBeanDescriptor == null)) {
             return false;
         }
         
@@ -55,21 +61,8 @@ public class BusinessObjectUtils {
          * If either of the objects specifies permitted equivalent classes, the other object
          * must be an instance of one of these, or one of their subclasses. 
          */
-        BusinessObjectDescriptor firstBeanDescriptor = 
-            BusinessObjectContext.getDescriptor(firstBeanClass);
-        Collection<Class<?>> firstBeanEquivalentClasses = firstBeanDescriptor.getEquivalentClasses();
-        
-        if (!firstBeanDescriptor.ignoreClass()
-                && !ClassUtils.isAnyAssignableFrom(firstBeanEquivalentClasses, secondBeanClass)) {
-            return false;
-        }
-            
-        BusinessObjectDescriptor secondBeanDescriptor = 
-            BusinessObjectContext.getDescriptor(secondBeanClass);
-        Collection<Class<?>> secondBeanEquivalentClasses = secondBeanDescriptor.getEquivalentClasses();
-        
-        if (!secondBeanDescriptor.ignoreClass() 
-                && !ClassUtils.isAnyAssignableFrom(secondBeanEquivalentClasses, firstBeanClass)) {
+        if (!firstBeanDescriptor.isEquivalentClass(secondBeanClass)
+                || !secondBeanDescriptor.isEquivalentClass(firstBeanClass)) {
             return false;
         }
         
@@ -78,31 +71,26 @@ public class BusinessObjectUtils {
          * classes!) to ensure true is returned iff we really have two objects with identical
          * business fields (which of course also have to have the same values).
          */
-        Map<String, BusinessFieldDescriptor> firstBeanBusinessFieldsRelevantForEquals = 
-            firstBeanDescriptor.getBusinessFieldsRelevantForEquals();
-        Map<String, BusinessFieldDescriptor> secondBeanBusinessFieldsRelevantForEquals = 
-            secondBeanDescriptor.getBusinessFieldsRelevantForEquals();
-        
-        if (!firstBeanBusinessFieldsRelevantForEquals.keySet().equals(
-                secondBeanBusinessFieldsRelevantForEquals.keySet())) {
+        if (!firstBeanDescriptor.hasSameBusinessFieldsRelevantForEquals(secondBeanDescriptor)) {
             return false;
         }
         
+        /*
+         * The descriptor for the first bean's property can *not* be used to retrieve the
+         * value from the second bean since, even though the properties have the same *name*,
+         * they may be declared in different *classes*. Since both arrays are sorted by
+         * name, the descriptors at the same index describe properties with the same name.
+         */
+        BusinessFieldDescriptor[] firstBeanBusinessFieldsRelevantForEquals = 
+            firstBeanDescriptor.getSortedBusinessFieldsRelevantForEquals();
+        BusinessFieldDescriptor[] secondBeanBusinessFieldsRelevantForEquals = 
+            secondBeanDescriptor.getSortedBusinessFieldsRelevantForEquals();
+        
         // compare properties, failing as soon one is found that does not match
-        EqualsBuilder equalsBuilder = new EqualsBuilder();
-        
-        for (Entry<String, BusinessFieldDescriptor> fieldRelevantForEquals 
-                : firstBeanBusinessFieldsRelevantForEquals.entrySet()) {
-            /*
-             * The descriptor for the first bean's property can *not* be used to retrieve the
-             * value from the second bean since, even though the properties have the same *name*,
-             * they may be declared in different *classes*. 
-             */
-            equalsBuilder.append(fieldRelevantForEquals.getValue().getValue(firstBean),
-                                 secondBeanBusinessFieldsRelevantForEquals
-                                 .get(fieldRelevantForEquals.getKey()).getValue(secondBean));
+        for (int i = 0; i < firstBeanBusinessFieldsRelevantForEquals.length; i++) {
             
-            if (!equalsBuilder.isEquals()) {
+            if (!valuesEqual(firstBeanBusinessFieldsRelevantForEquals[i].getValue(firstBean),
+                    secondBeanBusinessFieldsRelevantForEquals[i].getValue(secondBean))) {
                 return false;
             }
             
@@ -110,6 +98,30 @@ public class BusinessObjectUtils {
         
         return true;
     }
+    
+    // as for EqualsBuilder.append(Object, Object), including its BigDecimal handling
+    private static boolean valuesEqual(Object firstValue, Object secondValue) {
+        
+        if (firstValue == secondValue) {
+            return true;
+        }
+        
+        if ((firstValue == null) || (secondValue == null)) {
+            return false;
+        }
+        
+        // BigDecimals of different scale, e.g. 1.0 and 1.00, are equal
+        if ((firstValue instanceof BigDecimal) && (secondValue instanceof BigDecimal)) {
+            return (((BigDecimal) firstValue).compareTo((BigDecimal) secondValue) == 0);
+        }
+        
+        if (!firstValue.getClass().isArray()) {
+            return firstValue.equals(secondValue);
+        }
+        
+        // rare enough not to be worth duplicating EqualsBuilder's array handling
+        return new EqualsBuilder().append(firstValue, secondValue).isEquals();
+    }
 
 
     /**
@@ -143,32 +155,59 @@ public class BusinessObjectUtils {
      * *not*, yet their hash codes are supposed to be equal. QED.
      */
     public static int hashCode(Object bean) {
-        validateBusinessObject(bean);
+        BusinessFieldDescriptor[] fieldsRelevantForHashCode = 
+            getDescriptor(bean).getSortedBusinessFieldsRelevantForHashCode();
+        
+        // the initial and multiplier values used by a default HashCodeBuilder
+        int hashCode = 17;
         
+        for (BusinessFieldDescriptor fieldRelevantForHashCodeDescriptor 
+                : fieldsRelevantForHashCode) {
+            Object value = fieldRelevantForHashCodeDescriptor.getValue(bean);
+            
+            if (value == null) {
+                hashCode *= 37;
+            } else if (!value.getClass().isArray()) {
+                hashCode = (hashCode * 37) + value.hashCode();
+            } else {
+                
+                // rare enough not to be worth duplicating HashCodeBuilder's array handling
+                return hashCodeUsingBuilder(bean, fieldsRelevantForHashCode);
+            }
+            
+        }
+        
+        return hashCode;
+    }
+    
+    private static int hashCodeUsingBuilder(Object bean, 
+            BusinessFieldDescriptor[] fieldsRelevantForHashCode) {
         HashCodeBuilder hashCodeBuilder = new HashCodeBuilder();
         
         for (BusinessFieldDescriptor fieldRelevantForHashCodeDescriptor 
-                : BusinessObjectContext.getDescriptor(bean.getClass())
-                  .getBusinessFieldsRelevantForHashCode().values()) {
+                : fieldsRelevantForHashCode) {
             hashCodeBuilder.append(fieldRelevantForHashCodeDescriptor.getValue(bean));
         }
         
         return hashCodeBuilder.toHashCode();
     }
 
-    private static void validateBusinessObject(Object bean) {
+    private static BusinessObjectDescriptor getDescriptor(Object bean) {
         
         if (bean == null) {
             throw new IllegalArgumentException("A non-null business object is expected");
         }
         
-        if (!isBusinessObject(bean.getClass())) {
+        BusinessObjectDescriptor descriptor = BusinessObjectContext.findDescriptor(bean.getClass());
+        
+        if (descriptor == null) {
             
             // Careful! Can't use "bean" in the error message since that would call toString!
             throw new IllegalArgumentException("The object's " + bean.getClass() 
                                                + " is not a business object class");            
         }
         
+        return descriptor;
     }
     
 
@@ -182,15 +221,14 @@ public class BusinessObjectUtils {
      * @see Object#toString()
      */
     public static String toString(Object bean) {
-        validateBusinessObject(bean);
+        BusinessObjectDescriptor descriptor = getDescriptor(bean);
         
         ToStringBuilder toStringBuilder = new ToStringBuilder(bean);
         
-        for (Entry<String, BusinessFieldDescriptor> fieldRelevantForToString 
-                : BusinessObjectContext.getDescriptor(bean.getClass())
-                  .getBusinessFieldsRelevantForToString().entrySet()) {
-            toStringBuilder.append(fieldRelevantForToString.getKey(),
-                                   fieldRelevantForToString.getValue().getValue(bean));
+        for (BusinessFieldDescriptor fieldRelevantForToString 
+                : descriptor.getSortedBusinessFieldsRelevantForToString()) {
+            toStringBuilder.append(fieldRelevantForToString.getBusinessField().getName(),
+                                   fieldRelevantForToString.getValue(bean));
         }
         
         return toStringBuilder.toString();
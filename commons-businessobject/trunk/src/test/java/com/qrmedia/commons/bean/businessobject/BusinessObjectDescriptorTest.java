@@ -3,6 +3,7 @@
  */
 package com.qrmedia.commons.bean.businessobject;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -59,6 +60,29 @@ public class BusinessObjectDescriptorTest {
                 Arrays.asList("property1", "property2"), 
                 descriptor.getBusinessFieldsRelevantForToString().keySet()));        
     }
+    
+    @Test
+    public void forBusinessObject_sortedBusinessFields() {
+        BusinessObjectDescriptor descriptor = 
+            BusinessObjectDescriptor.forBusinessObjectClass(StubBusinessObject.class);
+        
+        assertArrayEquals(new String[] { "property1", "property3" }, 
+                getNames(descriptor.getSortedBusinessFieldsRelevantForEquals()));
+        assertArrayEquals(new String[] { "property1", "property3" }, 
+                getNames(descriptor.getSortedBusinessFieldsRelevantForHashCode()));
+        assertArrayEquals(new String[] { "property1", "property2" }, 
+                getNames(descriptor.getSortedBusinessFieldsRelevantForToString()));
+    }
+    
+    private static String[] getNames(BusinessFieldDescriptor[] businessFields) {
+        String[] names = new String[businessFields.length];
+        
+        for (int i = 0; i < businessFields.length; i++) {
+            names[i] = businessFields[i].getBusinessField().getName();
+        }
+        
+        return names;
+    }
 
     @BusinessObject
     private static class StubParentBusinessObject {
@@ -148,4 +172,33 @@ public class BusinessObjectDescriptorTest {
                 .getEquivalentClasses()));
     }
     
+    private static class StubRestrictedBusinessObject extends StubBusinessObject {}
+    
+    @Test
+    public void isEquivalentClass() {
+        BusinessObjectDescriptor descriptor = 
+            BusinessObjectDescriptor.forBusinessObjectClass(StubClassRestrictingBusinessObject.class);
+        
+        assertTrue(descriptor.isEquivalentClass(StubClassRestrictingBusinessObject.class));
+        assertTrue(descriptor.isEquivalentClass(StubRestrictedBusinessObject.class));
+        assertFalse(descriptor.isEquivalentClass(StubClassIgnoringBusinessObject.class));
+    }
+    
+    @Test
+    public void isEquivalentClass_ignoreClass() {
+        assertTrue(BusinessObjectDescriptor.forBusinessObjectClass(StubClassIgnoringBusinessObject.class)
+                   .isEquivalentClass(Object.class));
+    }
+    
+    @Test
+    public void hasSameBusinessFieldsRelevantForEquals() {
+        BusinessObjectDescriptor descriptor = 
+            BusinessObjectDescriptor.forBusinessObjectClass(StubBusinessObject.class);
+        
+        assertTrue(descriptor.hasSameBusinessFieldsRelevantForEquals(
+                BusinessObjectDescriptor.forBusinessObjectClass(StubRestrictedBusinessObject.class)));
+        assertFalse(descriptor.hasSameBusinessFieldsRelevantForEquals(
+                BusinessObjectDescriptor.forBusinessObjectClass(StubParentBusinessObject.class)));
+    }
+    
 }
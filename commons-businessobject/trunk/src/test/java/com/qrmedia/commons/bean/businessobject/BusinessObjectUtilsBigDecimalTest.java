@@ -0,0 +1,55 @@
+/*
+ * @(#)BusinessObjectUtilsBigDecimalTest.java     19 Oct 2026
+ */
+package com.qrmedia.commons.bean.businessobject;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.Test;
+
+import com.qrmedia.commons.bean.businessobject.annotation.BusinessField;
+import com.qrmedia.commons.bean.businessobject.annotation.BusinessObject;
+
+/**
+ * Unit tests for the comparison of {@link BigDecimal} business fields by the 
+ * {@link BusinessObjectUtils}. Not part of the {@link BusinessObjectUtilsTest} data since
+ * {@code BigDecimals} that are equal but of different scale have different hash codes.
+ * 
+ * @author aphillips
+ * @since 19 Oct 2026
+ *
+ */
+public class BusinessObjectUtilsBigDecimalTest {
+
+    @BusinessObject
+    public static class StubBusinessObject6 { 
+        
+        @BusinessField
+        private BigDecimal property;
+        
+        public StubBusinessObject6(String property) {
+            this.property = new BigDecimal(property);
+        }
+        
+        public BigDecimal getProperty() {
+            return property;
+        }
+        
+    }
+    
+    @Test
+    public void equals_differentScale() {
+        assertTrue(BusinessObjectUtils.equals(new StubBusinessObject6("1.0"), 
+                new StubBusinessObject6("1.00")));
+    }
+    
+    @Test
+    public void equals_differentValue() {
+        assertFalse(BusinessObjectUtils.equals(new StubBusinessObject6("1.0"), 
+                new StubBusinessObject6("1.01")));
+    }
+    
+}
@@ -74,6 +74,18 @@ public class BusinessObjectUtilsTest {
     
     public static class StubBusinessObject4 extends StubBusinessObject3 {}    
     
+    @BusinessObject
+    public static class StubBusinessObject5 { 
+        
+        @BusinessField
+        private int[] property;
+        
+        public int[] getProperty() {
+            return property;
+        }
+        
+    }
+    
     @Parameters
     public static Collection<Object[]> data() {
         List<Object[]> data = new ArrayList<Object[]>();
@@ -96,6 +108,13 @@ public class BusinessObjectUtilsTest {
         data.add(new Object[] { new StubBusinessObject3(), new StubBusinessObject1(), false, 
                                 Arrays.asList("property"), null });   
         
+        // array-valued business fields are compared element by element
+        StubBusinessObject5 stubBusinessObject9 = new StubBusinessObject5();
+        stubBusinessObject9.property = new int[] { 7 };
+        StubBusinessObject5 stubBusinessObject10 = new StubBusinessObject5();
+        stubBusinessObject10.property = new int[] { 8 };
+        data.add(new Object[] { stubBusinessObject9, stubBusinessObject10, false, null, null });
+        
         // some equal objects
         data.add(new Object[] { null, null, true, null, null});
         data.add(new Object[] { new StubBusinessObject(), new StubBusinessObject(), true, null, 
@@ -132,6 +151,12 @@ public class BusinessObjectUtilsTest {
         data.add(new Object[] { new StubBusinessObject3(), new StubBusinessObject4(), true, 
                                 Arrays.asList("property"), null });
         
+        StubBusinessObject5 stubBusinessObject11 = new StubBusinessObject5();
+        stubBusinessObject11.property = new int[] { value };
+        StubBusinessObject5 stubBusinessObject12 = new StubBusinessObject5();
+        stubBusinessObject12.property = new int[] { value };
+        data.add(new Object[] { stubBusinessObject11, stubBusinessObject12, true, null, null });
+        
         return data;
     }
     
@@ -0,0 +1,351 @@
+/*
+ * @(#)AnnotatedMembersIndex.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the annotated fields and methods <em>declared</em> by a class in the index 
+ * written at build time by the {@link com.qrmedia.commons.lang.model.AnnotatedMembersIndexProcessor},
+ * rather than reflectively inspecting the annotations of every member.
+ * <p>
+ * The index of a class is the resource {@code META-INF/commons-lang/annotated-members/<class name>}
+ * in the same classpath entry (directory or JAR) as the class file. Indexes in other entries, 
+ * e.g. of a different version of the class, are ignored. Each line of the index has one of the 
+ * forms
+ * 
+ * <pre>
+ * &lt;annotation type&gt;
+ * &lt;annotation type&gt; field &lt;field name&gt;
+ * &lt;annotation type&gt; method &lt;method name&gt;(&lt;parameter type&gt;,...)
+ * </pre>
+ * 
+ * where the first form records that the class was indexed for the annotation type, and all
+ * type names are as returned by {@link Class#getName()}. Text following a {@code #} is ignored.
+ * <p>
+ * A class is only indexed for the annotation types that were configured when it was compiled.
+ * For all other classes and annotation types, for classes whose class file cannot be located,
+ * and for classes whose index is malformed or refers to members they do not declare (e.g. 
+ * because the index is stale), the lookup methods return {@code null} and callers should 
+ * fall back to reflection.
+ * <p>
+ * Each class' index is read once and cached, and the {@link Field} and {@link Method} objects
+ * returned are shared by all callers and must not be modified. As for the {@link ClassUtils}
+ * metadata cache, classes are only weakly referenced, but the cache may be 
+ * {@link #clearCache(ClassLoader) cleared} for a discarded class loader.
+ * 
+ * @author aphillips
+ * @see ClassUtils#getAllAnnotatedDeclaredFields(Class, Class)
+ * @see ClassUtils#getAnnotatedMethods(Class, Class)
+ * @since 18 Oct 2026
+ *
+ */
+public final class AnnotatedMembersIndex {
+    public static final String INDEX_RESOURCE_DIR = "META-INF/commons-lang/annotated-members";
+    public static final Charset INDEX_CHARSET = Charset.forName("UTF-8");
+    public static final String FIELD_ENTRY = "field";
+    public static final String METHOD_ENTRY = "method";
+    private static final char COMMENT_CHARACTER = '#';
+    private static final String ENTRY_SEPARATOR = " ";
+    
+    // annotation type name -> indexed members
+    private static final ClassCache<Map<String, IndexedMembers>> INDEXES = 
+        new ClassCache<Map<String, IndexedMembers>>();
+    private static final Map<String, IndexedMembers> NO_INDEX = Collections.emptyMap();
+    
+    private static class IndexedMembers {
+        private final List<Field> fields;
+        private final List<Method> methods;
+        
+        private IndexedMembers(List<Field> fields, List<Method> methods) {
+            this.fields = unmodifiableList(fields);
+            this.methods = unmodifiableList(methods);
+        }
+        
+    }
+    
+    // the member names listed for an annotation type, in the order of the index
+    private static class IndexEntries {
+        private final List<String> fieldNames = new ArrayList<String>();
+        private final List<String> methodSignatures = new ArrayList<String>();
+    }
+    
+    /**
+     * Returns the fields declared by the given class that are annotated with an annotation 
+     * of the given type, as recorded in the class' index.
+     * 
+     * @param clazz     the class whose fields should be returned
+     * @param annotationType    the type of annotation required
+     * @return  the annotated fields declared by the class, in declaration order, or 
+     *          {@code null} if the class is not indexed for the annotation type
+     * @throws IllegalArgumentException if {@code clazz} or {@code annotationType} is {@code null}
+     */
+    public static List<Field> getAnnotatedDeclaredFields(Class<?> clazz, 
+            Class<? extends Annotation> annotationType) {
+        checkNotNull("'clazz' and 'annotationType' may not be null", clazz, annotationType);
+        
+        IndexedMembers members = getIndex(clazz).get(annotationType.getName());
+        return ((members != null) ? members.fields : null);
+    }
+    
+    /**
+     * Returns the methods declared by the given class that are annotated with an annotation 
+     * of the given type, as recorded in the class' index.
+     * 
+     * @param clazz     the class whose methods should be returned
+     * @param annotationType    the type of annotation required
+     * @return  the annotated methods declared by the class, or {@code null} if the class is 
+     *          not indexed for the annotation type
+     * @throws IllegalArgumentException if {@code clazz} or {@code annotationType} is {@code null}
+     */
+    public static List<Method> getAnnotatedDeclaredMethods(Class<?> clazz, 
+            Class<? extends Annotation> annotationType) {
+        checkNotNull("'clazz' and 'annotationType' may not be null", clazz, annotationType);
+        
+        IndexedMembers members = getIndex(clazz).get(annotationType.getName());
+        return ((members != null) ? members.methods : null);
+    }
+    
+    /**
+     * Discards all cached indexes.
+     */
+    public static void clearCache() {
+        INDEXES.clear();
+    }
+    
+    /**
+     * Discards the cached indexes of all classes loaded by the given class loader.
+     * 
+     * @param classLoader the class loader whose classes should no longer be referenced
+     *                    by the cache. May be {@code null}, denoting the bootstrap class loader.
+     */
+    public static void clearCache(ClassLoader classLoader) {
+        INDEXES.removeClassesLoadedBy(classLoader);
+    }
+    
+    private static Map<String, IndexedMembers> getIndex(Class<?> clazz) {
+        Map<String, IndexedMembers> index = INDEXES.get(clazz);
+        
+        if (index == null) {
+            Map<String, IndexedMembers> newIndex = readIndex(clazz);
+            index = INDEXES.putIfAbsent(clazz, newIndex);
+            
+            if (index == null) {
+                index = newIndex;
+            }
+            
+        }
+        
+        return index;
+    }
+    
+    private static Map<String, IndexedMembers> readIndex(Class<?> clazz) {
+        ClassLoader classLoader = clazz.getClassLoader();
+        
+        // classes loaded by the bootstrap class loader and primitive types are not indexed
+        if (classLoader == null) {
+            return NO_INDEX;
+        }
+        
+        String resourceName = INDEX_RESOURCE_DIR + '/' + clazz.getName();
+        Map<String, IndexEntries> entries;
+        
+        try {
+            URL indexResource = findIndexResource(clazz, classLoader, resourceName);
+            
+            if (indexResource == null) {
+                return NO_INDEX;
+            }
+            
+            entries = readEntries(indexResource);
+        } catch (IOException exception) {
+            // e.g. a FileNotFoundException if there is no index; the index is only an optimization
+            return NO_INDEX;
+        }
+        
+        return ((entries != null) ? resolveEntries(clazz, entries) : NO_INDEX);
+    }
+    
+    /*
+     * Only accepts the index in the classpath entry the class was loaded from, which is 
+     * determined from the location of the class file, so the rest of the classpath is never
+     * searched. Returns null if the class file cannot be located; opening the returned
+     * location fails if there is no index there.
+     */
+    private static URL findIndexResource(Class<?> clazz, ClassLoader classLoader, 
+            String resourceName) throws IOException {
+        String classFileName = clazz.getName().replace('.', '/') + ".class";
+        URL classFile = classLoader.getResource(classFileName);
+        
+        if (classFile == null) {
+            return null;
+        }
+        
+        String classFileLocation = classFile.toExternalForm();
+        
+        if (!classFileLocation.endsWith(classFileName)) {
+            return null;
+        }
+        
+        return new URL(classFileLocation.substring(0, 
+                classFileLocation.length() - classFileName.length()) + resourceName);
+    }
+    
+    // returns null if the index is malformed
+    private static Map<String, IndexEntries> readEntries(URL indexResource) throws IOException {
+        Map<String, IndexEntries> entries = new HashMap<String, IndexEntries>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(indexResource.openStream(), INDEX_CHARSET));
+        
+        try {
+            
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                int commentStart = line.indexOf(COMMENT_CHARACTER);
+                String entry = ((commentStart >= 0) ? line.substring(0, commentStart) : line).trim();
+                
+                if (entry.length() == 0) {
+                    continue;
+                }
+                
+                String[] tokens = entry.split(ENTRY_SEPARATOR);
+                
+                if ((tokens.length != 1) && (tokens.length != 3)) {
+                    return null;
+                }
+                
+                IndexEntries annotationEntries = entries.get(tokens[0]);
+                
+                if (annotationEntries == null) {
+                    annotationEntries = new IndexEntries();
+                    entries.put(tokens[0], annotationEntries);
+                }
+                
+                if (tokens.length == 1) {
+                    continue;
+                } else if (tokens[1].equals(FIELD_ENTRY)) {
+                    annotationEntries.fieldNames.add(tokens[2]);
+                } else if (tokens[1].equals(METHOD_ENTRY)) {
+                    annotationEntries.methodSignatures.add(tokens[2]);
+                } else {
+                    return null;
+                }
+                
+            }
+            
+        } finally {
+            reader.close();
+        }
+        
+        return entries;
+    }
+    
+    private static Map<String, IndexedMembers> resolveEntries(Class<?> clazz, 
+            Map<String, IndexEntries> entries) {
+        Map<String, IndexedMembers> index = new HashMap<String, IndexedMembers>(entries.size());
+        Map<String, Method> declaredMethods = null;
+        
+        for (Map.Entry<String, IndexEntries> annotationEntries : entries.entrySet()) {
+            List<String> fieldNames = annotationEntries.getValue().fieldNames;
+            List<Field> fields = new ArrayList<Field>(fieldNames.size());
+            
+            for (String fieldName : fieldNames) {
+                
+                try {
+                    fields.add(clazz.getDeclaredField(fieldName));
+                } catch (NoSuchFieldException exception) {
+                    // a stale index
+                    return NO_INDEX;
+                }
+                
+            }
+            
+            List<String> methodSignatures = annotationEntries.getValue().methodSignatures;
+            List<Method> methods = new ArrayList<Method>(methodSignatures.size());
+            
+            for (String methodSignature : methodSignatures) {
+                
+                if (declaredMethods == null) {
+                    declaredMethods = getDeclaredMethodsBySignature(clazz);
+                }
+                
+                Method method = declaredMethods.get(methodSignature);
+                
+                // a stale index
+                if (method == null) {
+                    return NO_INDEX;
+                }
+                
+                methods.add(method);
+            }
+            
+            index.put(annotationEntries.getKey(), new IndexedMembers(fields, methods));
+        }
+        
+        return index;
+    }
+    
+    private static Map<String, Method> getDeclaredMethodsBySignature(Class<?> clazz) {
+        Map<String, Method> methods = new HashMap<String, Method>();
+        
+        for (Method method : clazz.getDeclaredMethods()) {
+            
+            // bridge methods do not appear in the source, so are never indexed
+            if (!method.isBridge()) {
+                methods.put(getSignature(method), method);
+            }
+            
+        }
+        
+        return methods;
+    }
+    
+    private static String getSignature(Method method) {
+        StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        
+        for (int i = 0; i < parameterTypes.length; i++) {
+            
+            if (i > 0) {
+                signature.append(',');
+            }
+            
+            signature.append(parameterTypes[i].getName());
+        }
+        
+        return signature.append(')').toString();
+    }
+    
+}
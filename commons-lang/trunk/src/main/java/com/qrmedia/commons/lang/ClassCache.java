@@ -0,0 +1,215 @@
+/*
+ * @(#)ClassCache.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A concurrent cache of values computed for {@link Class Classes}, in the manner of a
+ * {@link java.util.WeakHashMap}, that does not prevent the classes, or their class loaders,
+ * from being garbage collected.
+ * <p>
+ * Classes are <u>weakly</u> referenced and compared by identity. Since cached values
+ * typically reference the class they were computed for (e.g. as the declaring class of
+ * cached fields), values are <u>softly</u> referenced: a strongly referenced value would
+ * keep its class reachable forever. Entries may therefore disappear when memory is short,
+ * in which case callers simply compute the value again.
+ * <p>
+ * Entries whose class or value has been collected are purged when values are added.
+ * <p>
+ * Instances are thread-safe.
+ *
+ * @param <V> the type of the cached values
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public final class ClassCache<V> {
+    private final ConcurrentMap<ClassKey, ValueReference<V>> entries =
+        new ConcurrentHashMap<ClassKey, ValueReference<V>>();
+    private final ReferenceQueue<Object> clearedReferences = new ReferenceQueue<Object>();
+
+    /**
+     * @param clazz the (non-<code>null</code>) class whose value is required
+     * @return  the value cached for the class, or <code>null</code> if there is no value
+     *          or it has been collected
+     */
+    public V get(Class<?> clazz) {
+        checkNotNull("'clazz' may not be null", clazz);
+
+        ValueReference<V> valueReference = entries.get(new ClassKey(clazz, null));
+        return ((valueReference != null) ? valueReference.get() : null);
+    }
+
+    /**
+     * Caches the value for the given class unless a value is already cached for it, in the
+     * manner of {@link ConcurrentMap#putIfAbsent(Object, Object)}.
+     *
+     * @param clazz the (non-<code>null</code>) class for which the value was computed
+     * @param value the (non-<code>null</code>) value to cache
+     * @return  the value already cached for the class, or <code>null</code> if the given
+     *          value was cached
+     */
+    public V putIfAbsent(Class<?> clazz, V value) {
+        checkNotNull("'clazz' and 'value' may not be null", clazz, value);
+        purgeClearedEntries();
+
+        ClassKey key = new ClassKey(clazz, clearedReferences);
+        ValueReference<V> valueReference = new ValueReference<V>(key, value, clearedReferences);
+
+        while (true) {
+            ValueReference<V> existingValueReference = entries.putIfAbsent(key, valueReference);
+
+            if (existingValueReference == null) {
+                return null;
+            }
+
+            V existingValue = existingValueReference.get();
+
+            if (existingValue != null) {
+                return existingValue;
+            }
+
+            // the existing value has been collected, so replace it
+            if (entries.replace(key, existingValueReference, valueReference)) {
+                return null;
+            }
+
+        }
+
+    }
+
+    /**
+     * @return the values currently cached, in no particular order
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<V>(entries.size());
+
+        for (ValueReference<V> valueReference : entries.values()) {
+            V value = valueReference.get();
+
+            if (value != null) {
+                values.add(value);
+            }
+
+        }
+
+        return values;
+    }
+
+    /**
+     * Discards the values cached for classes loaded by the given class loader.
+     *
+     * @param classLoader the class loader whose classes should be removed. May be
+     *                    {@code null}, denoting the bootstrap class loader.
+     */
+    public void removeClassesLoadedBy(ClassLoader classLoader) {
+
+        for (Iterator<ClassKey> keys = entries.keySet().iterator(); keys.hasNext();) {
+            Class<?> clazz = keys.next().get();
+
+            if ((clazz != null) && (clazz.getClassLoader() == classLoader)) {
+                keys.remove();
+            }
+
+        }
+
+        purgeClearedEntries();
+    }
+
+    /**
+     * Discards all cached values.
+     */
+    public void clear() {
+        entries.clear();
+        purgeClearedEntries();
+    }
+
+    // the queue holds both collected classes and collected values
+    private void purgeClearedEntries() {
+        Reference<?> clearedReference;
+
+        while ((clearedReference = clearedReferences.poll()) != null) {
+
+            if (clearedReference instanceof ValueReference<?>) {
+                ValueReference<?> valueReference = (ValueReference<?>) clearedReference;
+                entries.remove(valueReference.key, valueReference);
+            } else {
+                entries.remove(clearedReference);
+            }
+
+        }
+
+    }
+
+    // equal to another key for the same class; a cleared key is only equal to itself
+    private static class ClassKey extends WeakReference<Class<?>> {
+        private final int hashCode;
+
+        private ClassKey(Class<?> clazz, ReferenceQueue<Object> queue) {
+            super(clazz, queue);
+            hashCode = System.identityHashCode(clazz);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj) {
+                return true;
+            }
+
+            if (!(obj instanceof ClassKey)) {
+                return false;
+            }
+
+            Class<?> clazz = get();
+            return ((clazz != null) && (clazz == ((ClassKey) obj).get()));
+        }
+
+    }
+
+    // remembers its key so that the entry can be removed once the value is collected
+    private static class ValueReference<V> extends SoftReference<V> {
+        private final ClassKey key;
+
+        private ValueReference(ClassKey key, V value, ReferenceQueue<Object> queue) {
+            super(value, queue);
+            this.key = key;
+        }
+
+    }
+
+}
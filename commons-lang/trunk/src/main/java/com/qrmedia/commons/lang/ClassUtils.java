@@ -22,10 +22,12 @@ package com.qrmedia.commons.lang;
 
 import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
 import static java.util.Arrays.asList;
-import static java.util.Collections.singleton;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
@@ -37,19 +39,129 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Utility methods for dealing with {@link Class Classes}.
+ * <p>
+ * The results of the type hierarchy methods ({@link #getSuperclassChain(Class, Class)},
+ * {@link #getAllDeclaredFields(Class)}, {@link #getAnnotatedMethods(Class, Class)} etc.) are
+ * computed once per class and cached, and are returned as <u>unmodifiable</u> collections.
+ * The {@link Field} and {@link Method} objects returned are shared by all callers and
+ * <u>must not be modified</u>, e.g. by calling {@link Field#setAccessible(boolean)}: 
+ * callers that need to do so should obtain their own copy, e.g. via 
+ * {@link Class#getDeclaredField(String)}.
+ * <p>
+ * Annotated fields and methods are looked up in the {@link AnnotatedMembersIndex} generated
+ * at build time, if available, and only found by reflection for classes that are not indexed.
+ * <p>
+ * Cached classes are only weakly referenced (see {@link ClassCache}), so the cache does
+ * not prevent discarded class loaders, e.g. of redeployed applications or plugins, from
+ * being garbage collected. The cache may nevertheless be 
+ * {@link #clearMetadataCache(ClassLoader) cleared} for a discarded loader to release its
+ * entries immediately.
  * 
  * @author anph
  * @since 9 Feb 2009
  *
  */
 public class ClassUtils {
+    private static final ClassCache<ClassMetadata> METADATA_CACHE = 
+        new ClassCache<ClassMetadata>();
+    
+    // the precomputed results for a class, keyed by the other argument of the method
+    private static class ClassMetadata {
+        private final ConcurrentMap<Class<?>, List<?>> superclassChain = 
+            new ConcurrentHashMap<Class<?>, List<?>>();
+        private final ConcurrentMap<Class<?>, SuperclassChains<?>> superclassChains = 
+            new ConcurrentHashMap<Class<?>, SuperclassChains<?>>();
+        private final ConcurrentMap<Class<?>, List<Field>> allDeclaredFields = 
+            new ConcurrentHashMap<Class<?>, List<Field>>();
+        private final ConcurrentMap<Class<?>, List<Field>> allAnnotatedDeclaredFields = 
+            new ConcurrentHashMap<Class<?>, List<Field>>();
+        private final ConcurrentMap<Class<?>, Set<Method>> annotatedMethods = 
+            new ConcurrentHashMap<Class<?>, Set<Method>>();
+        private final ConcurrentMap<Class<?>, List<Class<?>>> actualTypeArguments = 
+            new ConcurrentHashMap<Class<?>, List<Class<?>>>();
+        private final ConcurrentMap<Class<?>, Type> genericSupertypes = 
+            new ConcurrentHashMap<Class<?>, Type>();
+        
+        private void removeKeysLoadedBy(ClassLoader classLoader) {
+            for (ConcurrentMap<Class<?>, ?> results : Arrays.<ConcurrentMap<Class<?>, ?>>asList(
+                    superclassChain, superclassChains, allDeclaredFields, 
+                    allAnnotatedDeclaredFields, annotatedMethods, actualTypeArguments, 
+                    genericSupertypes)) {
+                ClassUtils.removeKeysLoadedBy(results, classLoader);
+            }
+        }
+    }
+    
+    private static ClassMetadata getMetadata(Class<?> clazz) {
+        ClassMetadata metadata = METADATA_CACHE.get(clazz);
+        
+        if (metadata == null) {
+            ClassMetadata newMetadata = new ClassMetadata();
+            metadata = METADATA_CACHE.putIfAbsent(clazz, newMetadata);
+            
+            if (metadata == null) {
+                metadata = newMetadata;
+            }
+            
+        }
+        
+        return metadata;
+    }
+    
+    // concurrent callers may compute the result more than once, but will all get the same result
+    private static <V> V cacheIfAbsent(ConcurrentMap<Class<?>, V> results, Class<?> key, 
+            V result) {
+        V existingResult = results.putIfAbsent(key, result);
+        return ((existingResult != null) ? existingResult : result);
+    }
+    
+    private static void removeKeysLoadedBy(Map<Class<?>, ?> results, ClassLoader classLoader) {
+        
+        for (Iterator<Class<?>> keys = results.keySet().iterator(); keys.hasNext();) {
+            
+            if (keys.next().getClassLoader() == classLoader) {
+                keys.remove();
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Discards all cached type hierarchy information, including the cached
+     * {@link AnnotatedMembersIndex annotated members indexes}.
+     */
+    public static void clearMetadataCache() {
+        METADATA_CACHE.clear();
+        AnnotatedMembersIndex.clearCache();
+    }
+    
+    /**
+     * Discards all cached type hierarchy information, including the cached
+     * {@link AnnotatedMembersIndex annotated members indexes}, relating to classes loaded 
+     * by the given class loader.
+     * 
+     * @param classLoader the class loader whose classes should no longer be referenced
+     *                    by the cache. May be {@code null}, denoting the bootstrap class loader.
+     */
+    public static void clearMetadataCache(ClassLoader classLoader) {
+        METADATA_CACHE.removeClassesLoadedBy(classLoader);
+        AnnotatedMembersIndex.clearCache(classLoader);
+        
+        for (ClassMetadata metadata : METADATA_CACHE.values()) {
+            metadata.removeKeysLoadedBy(classLoader);
+        }
+        
+    }
 
     /**
      * Returns <u>one</u> of the possible chains of superclasses and/or interfaces joining the
@@ -69,10 +181,32 @@ public class ClassUtils {
      * @throws IllegalArgumentException if either argument is null    
      * @see #getSuperclassChains(Class, Class)    
      */
+    @SuppressWarnings("unchecked")
     public static <S> List<Class<? extends S>> getSuperclassChain(Class<? extends S> clazz, 
             Class<S> superclass) {
-        Set<List<Class<? extends S>>> superclassChains = getSuperclassChainsInternal(clazz, superclass, true);
-        return (superclassChains.isEmpty() ? null : superclassChains.iterator().next());
+        checkNotNull("'clazz' and 'superclass' may not be non-null", clazz, superclass);
+        
+        if (!superclass.isAssignableFrom(clazz)) {
+            return null;
+        }
+        
+        ConcurrentMap<Class<?>, List<?>> superclassChainCache = getMetadata(clazz).superclassChain;
+        List<Class<? extends S>> superclassChain = 
+            (List<Class<? extends S>>) superclassChainCache.get(superclass);
+        
+        if (superclassChain == null) {
+            superclassChain = getSuperclassChainsInternal(clazz, superclass).getFirstChain();
+            
+            // interfaces are subclasses of Object, but not linked to it by a superclass chain
+            if (superclassChain == null) {
+                return null;
+            }
+            
+            superclassChain = (List<Class<? extends S>>) cacheIfAbsent(superclassChainCache, 
+                    superclass, superclassChain);
+        }
+        
+        return superclassChain;
     }
     
     /**
@@ -104,6 +238,9 @@ public class ClassUtils {
      * both <code>[Baz.class, Bar1.class, Foo.class]</code> and <code>[Baz.class, Bar2.class, Foo.class]</code>
      * are valid inheritance chains, and the method returns both.
      * <p>
+     * Since the number of chains may grow exponentially with the depth of the hierarchy, the 
+     * chains are not precomputed but enumerated when iterating over the returned set.
+     * <p>
      * If <code>superclass</code> is <i>not</i> a superclass or -interface of <code>class</code>,
      * the method returns an empty set. This may happen (in spite of the signature) if the 
      * method is called with non-generic arguments.
@@ -118,85 +255,24 @@ public class ClassUtils {
      * @see #getSuperclassChain(Class, Class)      
      */
     public static <S> Set<List<Class<? extends S>>> getSuperclassChains(Class<? extends S> clazz, Class<S> superclass) {
-        return getSuperclassChainsInternal(clazz, superclass, false);
-    }
-    
-    private static <S> Set<List<Class<? extends S>>> getSuperclassChainsInternal(Class<? extends S> clazz, 
-            Class<S> superclass, boolean oneChainSufficient) {
         checkNotNull("'clazz' and 'superclass' may not be non-null", clazz, superclass);
-        
-        if (!superclass.isAssignableFrom(clazz)) {
-            return Collections.emptySet();
-        }
-        
-        // interfaces only need to be considered if the superclass is an interface
-        return getSuperclassSubchains(clazz, superclass, oneChainSufficient, 
-                superclass.isInterface());
+        return getSuperclassChainsInternal(clazz, superclass);
     }
     
-    // recursive method: gets the subchains from the given class to the target class
     @SuppressWarnings("unchecked")
-    private static <S> Set<List<Class<? extends S>>> getSuperclassSubchains(
-            Class<? extends S> subclass, Class<S> superclass, boolean oneChainSufficient, 
-            boolean considerInterfaces) {
-        
-        // base case: the subclass *is* the target class
-        if (subclass.equals(superclass)) {
-            
-            // since the list will be built from the *head*, a linked list is a good choice
-            List<Class<? extends S>> subchain = new LinkedList<Class<? extends S>>();
-            subchain.add(subclass);
-            return singleton(subchain);
-        }
-        
-        // recursive case: get all superclasses and, if required, interfaces and recurse
-        Set<Class<? extends S>> supertypes = new HashSet<Class<? extends S>>();
-        
-        Class<? extends S> immediateSuperclass = (Class<? extends S>) subclass.getSuperclass();
-        
-        // interfaces and Object don't have a superclass
-        if (immediateSuperclass != null) {
-            supertypes.add(immediateSuperclass);
-        }
-        
-        if (considerInterfaces) {
-            supertypes.addAll(asList((Class<? extends S>[]) subclass.getInterfaces()));
-        }
-        
-        Set<List<Class<? extends S>>> subchains = new HashSet<List<Class<? extends S>>>();
-        
-        for (Class<? extends S> supertype : supertypes) {
-            Set<List<Class<? extends S>>> subchainsFromSupertype = 
-                getSuperclassSubchains(supertype, superclass, oneChainSufficient, 
-                        considerInterfaces);
-            
-            // each chain from the supertype results in a chain [current, subchain-from-super]
-            if (!subchainsFromSupertype.isEmpty()) {
-                
-                if (oneChainSufficient) {
-                    ClassUtils.<S>addSubchain(subchains, subclass, 
-                            subchainsFromSupertype.iterator().next());
-                    return subchains;
-                } else {
-                    
-                    for (List<Class<? extends S>> subchainFromSupertype : subchainsFromSupertype) {
-                        ClassUtils.<S>addSubchain(subchains, subclass, subchainFromSupertype);
-                    }
-                    
-                }
-                
-            }
-            
+    private static <S> SuperclassChains<S> getSuperclassChainsInternal(Class<? extends S> clazz, 
+            Class<S> superclass) {
+        ConcurrentMap<Class<?>, SuperclassChains<?>> superclassChainsCache = 
+            getMetadata(clazz).superclassChains;
+        SuperclassChains<S> superclassChains = 
+            (SuperclassChains<S>) superclassChainsCache.get(superclass);
+        
+        if (superclassChains == null) {
+            superclassChains = (SuperclassChains<S>) cacheIfAbsent(superclassChainsCache, 
+                    superclass, new SuperclassChains<S>(clazz, superclass));
         }
         
-        return subchains;
-    }
-
-    // adds the class to the beginning of the subchain and stores this extended subchain
-    private static <T> void addSubchain(Set<List<Class<? extends T>>> subchains, 
-            Class<? extends T> clazz, List<Class<? extends T>> subchainFromSupertype) {
-        subchainFromSupertype.add(0, clazz);
-        subchains.add(subchainFromSupertype);
+        return superclassChains;
     }
 
     /**
@@ -279,10 +355,21 @@ public class ClassUtils {
      */
     public static <T> List<Field> getAllDeclaredFields(Class<T> clazz, 
             Class<? super T> superclass) {
-        final List<Field> fields = new ArrayList<Field>();
+        checkNotNull("'clazz' and 'superclass' may not be non-null", clazz, superclass);
+        
+        ConcurrentMap<Class<?>, List<Field>> allDeclaredFieldsCache = 
+            getMetadata(clazz).allDeclaredFields;
+        List<Field> fields = allDeclaredFieldsCache.get(superclass);
         
-        for (Class<?> immediateSuperclass : getSuperclassChain(clazz, superclass)) {
-            fields.addAll(Arrays.asList(immediateSuperclass.getDeclaredFields()));
+        if (fields == null) {
+            List<Field> declaredFields = new ArrayList<Field>();
+            
+            for (Class<?> immediateSuperclass : getSuperclassChain(clazz, superclass)) {
+                declaredFields.addAll(Arrays.asList(immediateSuperclass.getDeclaredFields()));
+            }
+            
+            fields = cacheIfAbsent(allDeclaredFieldsCache, superclass, 
+                    unmodifiableList(declaredFields));
         }
         
         return fields;
@@ -303,14 +390,34 @@ public class ClassUtils {
             Class<? extends Annotation> annotationType) {
         checkNotNull("All arguments must be non-null", clazz, annotationType);
         
-        final List<Field> annotatedFields = new ArrayList<Field>();
+        ConcurrentMap<Class<?>, List<Field>> annotatedFieldsCache = 
+            getMetadata(clazz).allAnnotatedDeclaredFields;
+        List<Field> annotatedFields = annotatedFieldsCache.get(annotationType);
         
-        for (Field field : getAllDeclaredFields(clazz)) {
+        if (annotatedFields == null) {
+            List<Field> annotatedDeclaredFields = new ArrayList<Field>();
             
-            if (field.isAnnotationPresent(annotationType)) {
-                annotatedFields.add(field);
+            for (Class<?> declaringClass : getSuperclassChain(clazz, Object.class)) {
+                List<Field> indexedFields = 
+                    AnnotatedMembersIndex.getAnnotatedDeclaredFields(declaringClass, annotationType);
+                
+                if (indexedFields != null) {
+                    annotatedDeclaredFields.addAll(indexedFields);
+                    continue;
+                }
+                
+                for (Field field : declaringClass.getDeclaredFields()) {
+                    
+                    if (field.isAnnotationPresent(annotationType)) {
+                        annotatedDeclaredFields.add(field);
+                    }
+                    
+                }
+                
             }
             
+            annotatedFields = cacheIfAbsent(annotatedFieldsCache, annotationType, 
+                    unmodifiableList(annotatedDeclaredFields));
         }
         
         return annotatedFields;
@@ -331,22 +438,41 @@ public class ClassUtils {
         
         // perhaps this case should throw an exception, but an empty list also seems sensible 
         if (annotationType == null) {
-            return new HashSet<Method>();
+            return Collections.emptySet();
         }
         
-        Set<Method> annotatedMethods = new HashSet<Method>();
+        ConcurrentMap<Class<?>, Set<Method>> annotatedMethodsCache = 
+            getMetadata(clazz).annotatedMethods;
+        Set<Method> annotatedMethods = annotatedMethodsCache.get(annotationType);
         
-        for (Method method : clazz.getMethods()) {
+        if (annotatedMethods == null) {
+            Set<Method> methods = new HashSet<Method>();
             
-            if (method.isAnnotationPresent(annotationType)) {
-                annotatedMethods.add(method);
+            for (Method method : clazz.getMethods()) {
+                
+                if (isAnnotationPresent(method, annotationType)) {
+                    methods.add(method);
+                }
+                
             }
             
+            annotatedMethods = cacheIfAbsent(annotatedMethodsCache, annotationType, 
+                    unmodifiableSet(methods));
         }
         
         return annotatedMethods;
     }
     
+    // consults the declaring class' index, if available
+    private static boolean isAnnotationPresent(Method method, 
+            Class<? extends Annotation> annotationType) {
+        List<Method> indexedMethods = (method.isBridge() ? null 
+                : AnnotatedMembersIndex.getAnnotatedDeclaredMethods(method.getDeclaringClass(), 
+                        annotationType));
+        return ((indexedMethods != null) ? indexedMethods.contains(method) 
+                                         : method.isAnnotationPresent(annotationType));
+    }
+    
     /**
      * Retrieves the type arguments of a class when regarded as an subclass of the
      * given typed superclass or interface. The order of the runtime type classes matches the order
@@ -361,13 +487,14 @@ public class ClassUtils {
      * </pre>
      * 
      * and a <code>typedClass</code> argument of <code>Baz.class</code>, the method should return
-     * <p>
      * <ul>
      * <li><code>[String, Long]</code> for a <code>typedSuperclass</code> argument of <code>Foo.class</code>,
      *     and
      * <li><code>[Long]</code> if <code>typedSuperclass</code> is <code>Bar.class</code>.
      * </ul>
-     * For type parameters that cannot be determined, <code>null</code> is returned.
+     * For type parameters that cannot be determined, <code>null</code> is returned. Type
+     * arguments that are parameterized types are returned as their raw types, and generic
+     * arrays as the corresponding array classes.
      * <p>
      * <b>Note:</b> It is <u>not</u> possible to retrieve type information that is not available
      * in the (super)class hierarchy at <u>compile</u>-time. Calling 
@@ -401,166 +528,221 @@ public class ClassUtils {
         if (!typedSuperclass.isAssignableFrom(typedClass)) {
             return null;
         }
-
-        TypeVariable<?>[] typedClassTypeParams = typedSuperclass.getTypeParameters();
         
-        // if the class has no parameters, return
-        if (typedClassTypeParams.length == 0) {
-            return new ArrayList<Class<?>>(0);
+        ConcurrentMap<Class<?>, List<Class<?>>> actualTypeArgumentsCache = 
+            getMetadata(typedClass).actualTypeArguments;
+        List<Class<?>> actualTypeArguments = actualTypeArgumentsCache.get(typedSuperclass);
+        
+        if (actualTypeArguments == null) {
+            actualTypeArguments = cacheIfAbsent(actualTypeArgumentsCache, typedSuperclass, 
+                    unmodifiableList(resolveActualTypeArguments(typedClass, typedSuperclass)));
         }
         
-        /*
-         * It would be nice if the parent class simply "aggregated" all the type variable
-         * assignments that happen in subclasses. In other words, it would be nice if, in the
-         * example in the JavaDoc, new Baz().getClass().getSuperclass().getGenericSuperclass()
-         * would return [String, Long] as actual type arguments.
-         * Unfortunately, though, it returns [String, W], because the assignment of Long to W
-         * isn't accessible to Bar. W's value is available from new Baz().getClass().getGenericSuperclass(),
-         * and must be "remembered" as we traverse the object hierarchy.
-         * Note, though, that the "variable substitution" of W (the variable used in Bar) for V (the
-         * equivalent variable in Foo) *is* propagated, but only to the immediate parent!
-         */
-        Map<TypeVariable<?>, Class<?>> typeAssignments = 
-            new HashMap<TypeVariable<?>, Class<?>>(typedClassTypeParams.length);
+        return actualTypeArguments;
+    }
+    
+    private static <S> List<Class<?>> resolveActualTypeArguments(Class<? extends S> typedClass,
+            Class<S> typedSuperclass) {
+        List<Type> resolvedTypeArguments = getResolvedTypeArguments(typedClass, typedSuperclass);
+        List<Class<?>> actualTypeArguments = new ArrayList<Class<?>>(resolvedTypeArguments.size());
         
-        /*
-         * Get one possible path from the typed class to the typed superclass. For classes, there
-         * is only one (the superclass chain), but for interfaces there may be multiple. We only
-         * need one, however (and it doesn't matter which one) since the compiler does not allow
-         * inheritance chains with conflicting generic type information.
-         */
-        List<Class<? extends S>> superclassChain = getSuperclassChain(typedClass, typedSuperclass);
+        for (Type resolvedTypeArgument : resolvedTypeArguments) {
+            actualTypeArguments.add(isResolved(resolvedTypeArgument) 
+                                    ? GenericTypes.getErasure(resolvedTypeArgument) : null);
+        }
         
-        assert (superclassChain != null) : Arrays.<Class<?>>asList(typedSuperclass, typedClass);
+        return actualTypeArguments;
+    }
+    
+    // type arguments are unresolved if they are or contain type variables at the "top level"
+    private static boolean isResolved(Type type) {
         
-        /*
-         * The list is ordered so that successive elements are immediate superclasses. The iteration
-         * stops with the class whose *superclass* is the last element, because type information
-         * is collected from the superclass.
-         */
-        for (int i = 0; i < superclassChain.size() - 1; i++) {
-            collectAssignments(superclassChain.get(i), superclassChain.get(i + 1), typeAssignments);
+        if (type instanceof TypeVariable) {
+            return false;
+        } else if (type instanceof GenericArrayType) {
+            return isResolved(((GenericArrayType) type).getGenericComponentType());
+        } else {
+            return true;
         }
         
-        // will contain null for entries for which no class could be resolved
-        return getActualAssignments(typedClassTypeParams, typeAssignments);
     }
-
-    private static void collectAssignments(Class<?> clazz, Class<?> supertype,
-            Map<TypeVariable<?>, Class<?>> typeAssignments) {
-        TypeVariable<?>[] typeParameters = supertype.getTypeParameters();
+    
+    /**
+     * Retrieves the type arguments of a class when regarded as an subclass of the given 
+     * typed superclass or interface, as {@link Type Types}. The order of the types 
+     * matches the order of the type variables in the declaration of the typed superclass 
+     * or interface.
+     * <p>
+     * Unlike {@link #getActualTypeArguments(Class, Class)}, this method returns the full 
+     * types of the arguments, including parameterized types, wildcards and generic arrays. 
+     * Type variables that cannot be resolved, e.g. those declared by the typed class itself,
+     * are returned as {@link TypeVariable TypeVariables}. 
+     * <p>
+     * For example, for the classes
+     * 
+     * <pre>
+     * class Foo&lt;U, V&gt; {}
+     * class Bar&lt;W&gt; extends Foo&lt;List&lt;? extends W&gt;, W[]&gt; {}
+     * class Baz&lt;X&gt; extends Bar&lt;X&gt;
+     * </pre>
+     * 
+     * and a <code>typedSuperclass</code> argument of <code>Foo.class</code>, the method
+     * returns <code>[List&lt;? extends X&gt;, X[]]</code> for a <code>typedClass</code>
+     * argument of <code>Baz.class</code>.
+     * 
+     * @param <S>       the type of the object
+     * @param typedClass the class for which type information is required
+     * @param typedSuperclass the typed class or interface of which the object is to be regarded a 
+     *                        subclass
+     * @return  the type arguments for the given class when regarded as a subclass of the
+     *          given typed superclass, in the order defined in the superclass. If
+     *          {@code class} is not a subclass of {@code superclass}, returns {@code null}.
+     * @throws IllegalArgumentException if <code>typedSuperclass</code> or <code>typedClass</code> 
+     *                                  is <code>null</code>
+     * @see #getGenericSupertype(Class, Class)
+     */
+    public static <S> List<Type> getResolvedTypeArguments(Class<? extends S> typedClass,
+            Class<S> typedSuperclass) {
+        Type genericSupertype = getGenericSupertype(typedClass, typedSuperclass);
         
-        // the superclass is not necessarily a generic class
-        if (typeParameters.length == 0) {
-            return;
+        if (genericSupertype == null) {
+            return null;
         }
         
-        Type[] actualTypeAttributes = getActualTypeAttributes(clazz, supertype);
-
-        assert (typeParameters.length == actualTypeAttributes.length) 
-        : Arrays.asList(typeParameters, typeAssignments);
+        return ((genericSupertype instanceof ParameterizedType)
+                ? unmodifiableList(asList(((ParameterizedType) genericSupertype).getActualTypeArguments()))
+                : Collections.<Type>emptyList());
+    }
+    
+    /**
+     * Retrieves the given superclass or interface of a class as a generic type, with the 
+     * type variables of the superclass replaced by the type arguments specified in the 
+     * class hierarchy. 
+     * <p>
+     * For instance, for
+     * 
+     * <pre>
+     * class Foo&lt;U, V&gt; {}
+     * class Bar&lt;W&gt; extends Foo&lt;String, W&gt; {}
+     * class Baz extends Bar&lt;Map&lt;String, Long&gt;&gt;
+     * </pre>
+     * 
+     * <code>getGenericSupertype(Baz.class, Foo.class)</code> returns the parameterized type
+     * <code>Foo&lt;String, Map&lt;String, Long&gt;&gt;</code>. Type variables that cannot be
+     * resolved are left as they are. If a class in the hierarchy extends or implements a
+     * <i>raw</i> type, the type arguments of that type are not known and hence remain
+     * unresolved.
+     * <p>
+     * The result is computed once for each pair of class and superclass. Intermediate 
+     * results for the classes in the hierarchy are cached, too, and shared by subsequent
+     * calls for other subclasses.
+     * 
+     * @param clazz     the class for which type information is required
+     * @param supertype the superclass or -interface that is to be returned as a generic type
+     * @return the supertype as seen from the class, which is a {@link ParameterizedType} if 
+     *         the supertype is generic and the supertype itself otherwise. If 
+     *         {@code supertype} is not a superclass or -interface of {@code clazz}, returns 
+     *         {@code null}.
+     * @throws IllegalArgumentException if either argument is <code>null</code>
+     * @see #getResolvedTypeArguments(Class, Class)
+     */
+    public static Type getGenericSupertype(Class<?> clazz, Class<?> supertype) {
+        checkNotNull("All arguments must be non-null", clazz, supertype);
         
-        // matches up type parameters with their actual assignments, assuming the order is the same!
-        for (int i = 0; i < actualTypeAttributes.length; i++) {
-            Type type = actualTypeAttributes[i];
-            
-            /*
-             * type will be a Class or ParameterizedType if the actual type is known, 
-             * and a TypeVariable if not.
-             */
-            if (type instanceof Class) {
-                typeAssignments.put(typeParameters[i], (Class<?>) type);
-            } else if (type instanceof ParameterizedType) {
-                assert (((ParameterizedType) type).getRawType() instanceof Class) : type;
-                typeAssignments.put(typeParameters[i], 
-                        (Class<?>) ((ParameterizedType) type).getRawType());
-            } else {
-                assert (type instanceof TypeVariable<?>) : type;
-                
-                /*
-                 * The actual type arguments consist of classes and type variables from the
-                 * immediate child class. So if the type assignment mapping is updated to
-                 * contain the mapping of all type variables of the *current* class to
-                 * their classes, then these can be used in the *next* iteration to resolve
-                 * any variable "left over" from this round.
-                 * 
-                 * Any variables that cannot be resolved in this round are not resolvable, otherwise
-                 * the would have been resolved in the previous round.
-                 */
-                if (typeAssignments.containsKey(type)) {
-                    typeAssignments.put(typeParameters[i], typeAssignments.get(type));
-                }
-                
-            }
-            
+        if (!supertype.isAssignableFrom(clazz)) {
+            return null;
         }
-
+        
+        ConcurrentMap<Class<?>, Type> genericSupertypesCache = getMetadata(clazz).genericSupertypes;
+        Type genericSupertype = genericSupertypesCache.get(supertype);
+        
+        if (genericSupertype == null) {
+            genericSupertype = cacheIfAbsent(genericSupertypesCache, supertype, 
+                    resolveGenericSupertype(clazz, supertype));
+        }
+        
+        return genericSupertype;
     }
     
-    private static Type[] getActualTypeAttributes(Class<?> clazz, Class<?> supertype) {
+    @SuppressWarnings("unchecked")
+    private static Type resolveGenericSupertype(Class<?> clazz, Class<?> supertype) {
+        
+        if (clazz.equals(supertype)) {
+            return GenericTypes.getSelfType(clazz);
+        }
+        
+        /*
+         * Get one possible path from the class to the supertype. For classes, there is only 
+         * one (the superclass chain), but for interfaces there may be multiple. We only
+         * need one, however (and it doesn't matter which one) since the compiler does not allow
+         * inheritance chains with conflicting generic type information.
+         */
+        List<Class<?>> superclassChain = 
+            getSuperclassChain((Class<Object>) clazz, (Class<Object>) supertype);
+        
+        // interfaces are subclasses of Object, but not linked to it by a superclass chain
+        if (superclassChain == null) {
+            return supertype;
+        }
+        
+        /*
+         * The supertype as seen from the immediate supertype on the chain is resolved
+         * (and cached) recursively, and the type variables of the immediate supertype are 
+         * then replaced by the type arguments this class assigns to them.
+         */
+        Class<?> immediateSupertype = superclassChain.get(1);
+        Type genericSupertype = getGenericSupertype(immediateSupertype, supertype);
+        Type genericImmediateSupertype = getGenericImmediateSupertype(clazz, immediateSupertype);
+        
         /*
-         * The superclass is not necessarily a ParameterizedType even if it has type
+         * The immediate supertype is not necessarily a ParameterizedType even if it has type
          * parameters! This happens if a user fails to specify type parameters for a
          * class and ignores the warning, e.g.
          * 
          * class MyList extends ArrayList
          * 
-         * In this case, the superclass ArrayList.class has one type parameter, but
-         * MyList.class.getGenericSuperclass() returns a simple type object!
-         * 
-         * In this case, no type assignments take place, so the actual arguments are
-         * simply the type parameters.
-         */    
-        Type genericSupertype = tryGetGenericSupertype(clazz, supertype);
-        return ((genericSupertype instanceof ParameterizedType)
-                ? ((ParameterizedType) genericSupertype).getActualTypeArguments()
-                : supertype.getTypeParameters());        
+         * In this case, no type assignments take place.
+         */
+        if (!(genericImmediateSupertype instanceof ParameterizedType)) {
+            return genericSupertype;
+        }
+        
+        TypeVariable<?>[] typeParameters = immediateSupertype.getTypeParameters();
+        Type[] actualTypeArguments = 
+            ((ParameterizedType) genericImmediateSupertype).getActualTypeArguments();
+        
+        assert (typeParameters.length == actualTypeArguments.length) 
+        : Arrays.asList(typeParameters, actualTypeArguments);
+        
+        Map<TypeVariable<?>, Type> typeAssignments = 
+            new HashMap<TypeVariable<?>, Type>(typeParameters.length);
+        
+        // matches up type parameters with their actual assignments, assuming the order is the same!
+        for (int i = 0; i < typeParameters.length; i++) {
+            typeAssignments.put(typeParameters[i], actualTypeArguments[i]);
+        }
+        
+        return GenericTypes.substitute(genericSupertype, typeAssignments);
     }
     
-    private static Type tryGetGenericSupertype(Class<?> clazz, Class<?> supertype) {
+    // the generic form of the given *immediate* superclass or -interface of the class
+    private static Type getGenericImmediateSupertype(Class<?> clazz, Class<?> immediateSupertype) {
         
-        if (!supertype.isInterface()) {
+        if (immediateSupertype.equals(clazz.getSuperclass())) {
             return clazz.getGenericSuperclass();
-        } else {
-            Type[] genericInterfaces = clazz.getGenericInterfaces();
+        } 
+        
+        // there is no guarantee that *all* the interfaces are generic
+        for (Type interfaceType : clazz.getGenericInterfaces()) {
             
-            for (int i = 0; i < genericInterfaces.length; i++) {
-                Type interfaceType = genericInterfaces[i]; 
-                
-                // there is no guarantee that *all* the interfaces are generic
-                if ((interfaceType instanceof ParameterizedType) 
-                        && (((ParameterizedType) interfaceType).getRawType().equals(supertype))) {
-                    return interfaceType;
-                } else {
-                    assert (interfaceType instanceof Class) : interfaceType;
-                    
-                    if (interfaceType.equals(supertype)) {
-                        return interfaceType;
-                    }   
-                    
-                }
-                
+            if (immediateSupertype.equals(GenericTypes.getErasure(interfaceType))) {
+                return interfaceType;
             }
             
         }
         
         throw new AssertionError("Unable to find generic superclass information for class '"
-                                 + clazz + "' and superclass/-interface '" + supertype + "'");
+                                 + clazz + "' and superclass/-interface '" + immediateSupertype + "'");
     }
-
-    private static List<Class<?>> getActualAssignments(
-            TypeVariable<?>[] typedClassTypeParams,
-            Map<TypeVariable<?>, Class<?>> typeAssignments) {
-        int numTypedClassTypeParams = typedClassTypeParams.length;
-        List<Class<?>> actualAssignments = 
-            new ArrayList<Class<?>>(numTypedClassTypeParams);
-        
-        // for entries that could not be resolved, null should be returned
-        for (int i = 0; i < numTypedClassTypeParams; i++) {
-            actualAssignments.add(typeAssignments.get(typedClassTypeParams[i]));
-        }
-        
-        return actualAssignments;
-    }    
     
 }
\ No newline at end of file
@@ -0,0 +1,342 @@
+/*
+ * @(#)GenericTypes.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Substitution of type variables in {@link Type Types}, used by 
+ * {@link ClassUtils#getGenericSupertype(Class, Class)} to resolve the type arguments of
+ * supertypes.
+ * <p>
+ * The parameterized, generic array and wildcard types created are equal to (and have the
+ * same hash codes as) the corresponding types returned by the reflection API.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ClassUtils#getGenericSupertype(Class, Class)
+ *
+ */
+final class GenericTypes {
+    
+    private GenericTypes() {
+        // not to be instantiated
+    }
+    
+    /**
+     * @return  the type of the given generic class with its own type variables as arguments,
+     *          e.g. <code>Foo&lt;U, V&gt;</code> for <code>Foo.class</code>, or the class 
+     *          itself if it is not generic
+     */
+    static Type getSelfType(Class<?> clazz) {
+        TypeVariable<?>[] typeParameters = clazz.getTypeParameters();
+        return ((typeParameters.length == 0) 
+                ? clazz 
+                : new ParameterizedTypeImpl(clazz, typeParameters, clazz.getDeclaringClass()));
+    }
+    
+    /**
+     * Replaces all occurrences of the type variables in the given map with their
+     * assigned types. Type variables not in the map are left as they are.
+     * 
+     * @param type      the type in which to substitute type variables
+     * @param typeAssignments   the types assigned to type variables
+     * @return  the type with the type variables replaced, or the type itself if no variables
+     *          were replaced
+     */
+    static Type substitute(Type type, Map<TypeVariable<?>, Type> typeAssignments) {
+        
+        if (type instanceof Class) {
+            return type;
+        } else if (type instanceof TypeVariable) {
+            Type assignedType = typeAssignments.get(type);
+            return ((assignedType != null) ? assignedType : type);
+        } else if (type instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) type;
+            Type[] actualTypeArguments = 
+                substitute(parameterizedType.getActualTypeArguments(), typeAssignments);
+            Type ownerType = ((parameterizedType.getOwnerType() != null) 
+                              ? substitute(parameterizedType.getOwnerType(), typeAssignments)
+                              : null);
+            
+            if ((actualTypeArguments == null) 
+                    && (ownerType == parameterizedType.getOwnerType())) {
+                return type;
+            }
+            
+            return new ParameterizedTypeImpl((Class<?>) parameterizedType.getRawType(), 
+                    ((actualTypeArguments != null) 
+                     ? actualTypeArguments : parameterizedType.getActualTypeArguments()), 
+                    ownerType);
+        } else if (type instanceof GenericArrayType) {
+            Type componentType = ((GenericArrayType) type).getGenericComponentType();
+            Type actualComponentType = substitute(componentType, typeAssignments);
+            
+            if (actualComponentType == componentType) {
+                return type;
+            }
+            
+            // as for the reflection API, arrays of non-generic types are represented by classes
+            return ((actualComponentType instanceof Class) 
+                    ? Array.newInstance((Class<?>) actualComponentType, 0).getClass()
+                    : new GenericArrayTypeImpl(actualComponentType));
+        } else {
+            assert (type instanceof WildcardType) : type;
+            WildcardType wildcardType = (WildcardType) type;
+            Type[] upperBounds = substitute(wildcardType.getUpperBounds(), typeAssignments);
+            Type[] lowerBounds = substitute(wildcardType.getLowerBounds(), typeAssignments);
+            
+            if ((upperBounds == null) && (lowerBounds == null)) {
+                return type;
+            }
+            
+            return new WildcardTypeImpl(
+                    ((upperBounds != null) ? upperBounds : wildcardType.getUpperBounds()), 
+                    ((lowerBounds != null) ? lowerBounds : wildcardType.getLowerBounds()));
+        }
+        
+    }
+    
+    // returns null if none of the types was changed by the substitution
+    private static Type[] substitute(Type[] types, Map<TypeVariable<?>, Type> typeAssignments) {
+        Type[] actualTypes = null;
+        
+        for (int i = 0; i < types.length; i++) {
+            Type actualType = substitute(types[i], typeAssignments);
+            
+            // the array may be e.g. a TypeVariable[], so cannot simply be cloned
+            if ((actualType != types[i]) && (actualTypes == null)) {
+                actualTypes = new Type[types.length];
+                System.arraycopy(types, 0, actualTypes, 0, types.length);
+            }
+            
+            if (actualTypes != null) {
+                actualTypes[i] = actualType;
+            }
+            
+        }
+        
+        return actualTypes;
+    }
+    
+    /**
+     * @return the erasure of the given type, e.g. <code>List</code> for 
+     *         <code>List&lt;String&gt;</code> or the erasure of the first bound of a type 
+     *         variable
+     */
+    static Class<?> getErasure(Type type) {
+        
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return Array.newInstance(
+                    getErasure(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        } else if (type instanceof TypeVariable) {
+            return getErasure(((TypeVariable<?>) type).getBounds()[0]);
+        } else {
+            assert (type instanceof WildcardType) : type;
+            return getErasure(((WildcardType) type).getUpperBounds()[0]);
+        }
+        
+    }
+    
+    private static boolean equal(Object obj1, Object obj2) {
+        return ((obj1 == null) ? (obj2 == null) : obj1.equals(obj2));
+    }
+    
+    private static int hashCode(Object obj) {
+        return ((obj != null) ? obj.hashCode() : 0);
+    }
+    
+    private static String toString(Type type) {
+        return ((type instanceof Class) ? ((Class<?>) type).getName() : type.toString());
+    }
+    
+    private static class ParameterizedTypeImpl implements ParameterizedType {
+        private final Class<?> rawType;
+        private final Type[] actualTypeArguments;
+        private final Type ownerType;
+        
+        private ParameterizedTypeImpl(Class<?> rawType, Type[] actualTypeArguments, 
+                Type ownerType) {
+            this.rawType = rawType;
+            this.actualTypeArguments = actualTypeArguments;
+            this.ownerType = ownerType;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.ParameterizedType#getActualTypeArguments()
+         */
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.ParameterizedType#getOwnerType()
+         */
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.ParameterizedType#getRawType()
+         */
+        public Type getRawType() {
+            return rawType;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            
+            if (this == obj) {
+                return true;
+            }
+            
+            if (!(obj instanceof ParameterizedType)) {
+                return false;
+            }
+            
+            ParameterizedType other = (ParameterizedType) obj;
+            return (rawType.equals(other.getRawType()) 
+                    && equal(ownerType, other.getOwnerType())
+                    && Arrays.equals(actualTypeArguments, other.getActualTypeArguments()));
+        }
+        
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(actualTypeArguments) ^ GenericTypes.hashCode(ownerType) 
+                    ^ rawType.hashCode());
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder typeName = new StringBuilder(rawType.getName()).append('<');
+            
+            for (int i = 0; i < actualTypeArguments.length; i++) {
+                
+                if (i > 0) {
+                    typeName.append(", ");
+                }
+                
+                typeName.append(GenericTypes.toString(actualTypeArguments[i]));
+            }
+            
+            return typeName.append('>').toString();
+        }
+        
+    }
+    
+    private static class GenericArrayTypeImpl implements GenericArrayType {
+        private final Type genericComponentType;
+        
+        private GenericArrayTypeImpl(Type genericComponentType) {
+            this.genericComponentType = genericComponentType;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.GenericArrayType#getGenericComponentType()
+         */
+        public Type getGenericComponentType() {
+            return genericComponentType;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            return ((obj instanceof GenericArrayType) 
+                    && genericComponentType.equals(
+                            ((GenericArrayType) obj).getGenericComponentType()));
+        }
+        
+        @Override
+        public int hashCode() {
+            return genericComponentType.hashCode();
+        }
+        
+        @Override
+        public String toString() {
+            return GenericTypes.toString(genericComponentType) + "[]";
+        }
+        
+    }
+    
+    private static class WildcardTypeImpl implements WildcardType {
+        private final Type[] upperBounds;
+        private final Type[] lowerBounds;
+        
+        private WildcardTypeImpl(Type[] upperBounds, Type[] lowerBounds) {
+            this.upperBounds = upperBounds;
+            this.lowerBounds = lowerBounds;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.WildcardType#getLowerBounds()
+         */
+        public Type[] getLowerBounds() {
+            return lowerBounds.clone();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.WildcardType#getUpperBounds()
+         */
+        public Type[] getUpperBounds() {
+            return upperBounds.clone();
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            
+            if (!(obj instanceof WildcardType)) {
+                return false;
+            }
+            
+            WildcardType other = (WildcardType) obj;
+            return (Arrays.equals(upperBounds, other.getUpperBounds()) 
+                    && Arrays.equals(lowerBounds, other.getLowerBounds()));
+        }
+        
+        @Override
+        public int hashCode() {
+            return (Arrays.hashCode(upperBounds) ^ Arrays.hashCode(lowerBounds));
+        }
+        
+        @Override
+        public String toString() {
+            
+            if (lowerBounds.length > 0) {
+                return "? super " + GenericTypes.toString(lowerBounds[0]);
+            }
+            
+            return (upperBounds[0].equals(Object.class) 
+                    ? "?" : "? extends " + GenericTypes.toString(upperBounds[0]));
+        }
+        
+    }
+    
+}
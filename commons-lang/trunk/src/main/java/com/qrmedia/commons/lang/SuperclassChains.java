@@ -0,0 +1,283 @@
+/*
+ * @(#)SuperclassChains.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The superclass chains linking a class to one of its superclasses or -interfaces, as 
+ * returned by {@link ClassUtils#getSuperclassChains(Class, Class)}.
+ * <p>
+ * Rather than materializing every chain, which for hierarchies of interfaces with many
+ * shared supertypes may be exponential in the number of types, the supertypes that are
+ * on a chain are determined once and the chains are enumerated when iterating over the set.
+ * Each supertype is examined only once. 
+ * <p>
+ * The set and the chains it contains are unmodifiable.
+ * 
+ * @param <S> the type of the superclass at the &quot;end&quot; of the chains
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ClassUtils#getSuperclassChains(Class, Class)
+ *
+ */
+final class SuperclassChains<S> extends AbstractSet<List<Class<? extends S>>> {
+    private final Class<? extends S> subclass;
+    private final Class<S> superclass;
+    
+    // interfaces only need to be considered if the superclass is an interface
+    private final boolean considerInterfaces;
+    
+    /*
+     * The immediate supertypes of each type on a chain (apart from the superclass) that are 
+     * themselves on a chain.
+     */
+    private final Map<Class<?>, List<Class<? extends S>>> chainSupertypes = 
+        new HashMap<Class<?>, List<Class<? extends S>>>();
+    private final int size;
+    
+    SuperclassChains(Class<? extends S> subclass, Class<S> superclass) {
+        this.subclass = subclass;
+        this.superclass = superclass;
+        considerInterfaces = superclass.isInterface();
+        size = (int) Math.min(countChains(subclass, new HashMap<Class<?>, Long>()), 
+                Integer.MAX_VALUE);
+    }
+    
+    // gets the number of chains from the given type to the superclass, saturating at Long.MAX_VALUE
+    @SuppressWarnings("unchecked")
+    private long countChains(Class<? extends S> type, Map<Class<?>, Long> chainCounts) {
+        Long chainCount = chainCounts.get(type);
+        
+        if (chainCount != null) {
+            return chainCount;
+        }
+        
+        long count = 0;
+        
+        if (type.equals(superclass)) {
+            count = 1;
+        } else {
+            List<Class<? extends S>> supertypes = new ArrayList<Class<? extends S>>();
+            
+            // interfaces and Object don't have a superclass
+            if (type.getSuperclass() != null) {
+                supertypes.add((Class<? extends S>) type.getSuperclass());
+            }
+            
+            if (considerInterfaces) {
+                
+                for (Class<?> implementedInterface : type.getInterfaces()) {
+                    supertypes.add((Class<? extends S>) implementedInterface);
+                }
+                
+            }
+            
+            List<Class<? extends S>> typeChainSupertypes = new ArrayList<Class<? extends S>>();
+            
+            for (Class<? extends S> supertype : supertypes) {
+                
+                if (!superclass.isAssignableFrom(supertype)) {
+                    continue;
+                }
+                
+                long supertypeChainCount = countChains(supertype, chainCounts);
+                
+                if (supertypeChainCount > 0) {
+                    typeChainSupertypes.add(supertype);
+                    count = ((count > Long.MAX_VALUE - supertypeChainCount) 
+                             ? Long.MAX_VALUE : count + supertypeChainCount);
+                }
+                
+            }
+            
+            if (count > 0) {
+                chainSupertypes.put(type, typeChainSupertypes);
+            }
+            
+        }
+        
+        chainCounts.put(type, count);
+        return count;
+    }
+    
+    /**
+     * @return <u>one</u> of the chains in this set, or {@code null} if the set is empty
+     */
+    List<Class<? extends S>> getFirstChain() {
+        
+        if (isEmpty()) {
+            return null;
+        }
+        
+        List<Class<? extends S>> chain = new ArrayList<Class<? extends S>>();
+        Class<? extends S> type = subclass;
+        chain.add(type);
+        
+        while (!type.equals(superclass)) {
+            type = chainSupertypes.get(type).get(0);
+            chain.add(type);
+        }
+        
+        return unmodifiableList(chain);
+    }
+    
+    /**
+     * @return the number of chains in this set, or {@link Integer#MAX_VALUE} if there are
+     *         more than {@code Integer.MAX_VALUE} chains
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public boolean contains(Object object) {
+        
+        if (!(object instanceof List) || ((List<?>) object).isEmpty()) {
+            return false;
+        }
+        
+        Iterator<?> types = ((List<?>) object).iterator();
+        Object type = types.next();
+        
+        if (!type.equals(subclass)) {
+            return false;
+        }
+        
+        while (types.hasNext()) {
+            List<Class<? extends S>> typeChainSupertypes = chainSupertypes.get(type);
+            type = types.next();
+            
+            if ((typeChainSupertypes == null) || !typeChainSupertypes.contains(type)) {
+                return false;
+            }
+            
+        }
+        
+        return type.equals(superclass);
+    }
+    
+    @Override
+    public Iterator<List<Class<? extends S>>> iterator() {
+        return new ChainIterator();
+    }
+    
+    /**
+     * Enumerates the chains by depth-first traversal of the supertypes on a chain.
+     * 
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class ChainIterator implements Iterator<List<Class<? extends S>>> {
+        
+        // the chain being traversed and the remaining supertypes of each of its elements
+        private final List<Class<? extends S>> chain = new ArrayList<Class<? extends S>>();
+        private final List<Iterator<Class<? extends S>>> remainingSupertypes = 
+            new ArrayList<Iterator<Class<? extends S>>>();
+        private List<Class<? extends S>> nextChain;
+        
+        private ChainIterator() {
+            
+            if (subclass.equals(superclass)) {
+                nextChain = Collections.<Class<? extends S>>singletonList(subclass);
+            } else if (chainSupertypes.containsKey(subclass)) {
+                push(subclass);
+                nextChain = findNextChain();
+            }
+            
+        }
+        
+        private void push(Class<? extends S> type) {
+            chain.add(type);
+            remainingSupertypes.add(chainSupertypes.get(type).iterator());
+        }
+        
+        private List<Class<? extends S>> findNextChain() {
+            
+            while (!remainingSupertypes.isEmpty()) {
+                int last = remainingSupertypes.size() - 1;
+                Iterator<Class<? extends S>> supertypes = remainingSupertypes.get(last);
+                
+                if (!supertypes.hasNext()) {
+                    remainingSupertypes.remove(last);
+                    chain.remove(last);
+                    continue;
+                }
+                
+                Class<? extends S> supertype = supertypes.next();
+                
+                if (supertype.equals(superclass)) {
+                    List<Class<? extends S>> foundChain = 
+                        new ArrayList<Class<? extends S>>(chain.size() + 1);
+                    foundChain.addAll(chain);
+                    foundChain.add(supertype);
+                    return unmodifiableList(foundChain);
+                }
+                
+                // every type with chain supertypes is on a chain, so there are no dead ends
+                push(supertype);
+            }
+            
+            return null;
+        }
+        
+        /* (non-Javadoc)
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+            return (nextChain != null);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#next()
+         */
+        public List<Class<? extends S>> next() {
+            
+            if (nextChain == null) {
+                throw new NoSuchElementException();
+            }
+            
+            List<Class<? extends S>> currentChain = nextChain;
+            nextChain = findNextChain();
+            return currentChain;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+            throw new UnsupportedOperationException("Superclass chains are unmodifiable");
+        }
+        
+    }
+    
+}
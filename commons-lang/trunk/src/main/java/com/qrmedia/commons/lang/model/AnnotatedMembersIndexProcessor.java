@@ -0,0 +1,299 @@
+/*
+ * @(#)AnnotatedMembersIndexProcessor.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang.model;
+
+import static com.qrmedia.commons.lang.AnnotatedMembersIndex.FIELD_ENTRY;
+import static com.qrmedia.commons.lang.AnnotatedMembersIndex.METHOD_ENTRY;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import javax.tools.Diagnostic.Kind;
+
+import com.qrmedia.commons.lang.AnnotatedMembersIndex;
+import com.qrmedia.commons.lang.ClassUtils;
+
+/**
+ * Writes an index of the fields and methods declared by each compiled class that are 
+ * annotated with one of a set of annotation types, for use by the {@link AnnotatedMembersIndex}.
+ * This avoids reflectively inspecting the annotations of every member at runtime, e.g. in 
+ * {@link ClassUtils#getAnnotatedMethods(Class, Class)}.
+ * <p>
+ * For each class in the current compilation, a resource 
+ * {@code META-INF/commons-lang/annotated-members/<class name>} is written to the class 
+ * output directory. The resource is written even if the class declares no annotated members,
+ * so that lookups for the class need not fall back to reflection.
+ * 
+ * <h2>Usage</h2>
+ * 
+ * The annotation types are specified as a comma-separated list of fully-qualified names 
+ * using the {@value #INDEXED_ANNOTATIONS_OPTION} option, e.g. 
+ * {@code -Acommons.lang.indexedAnnotations=javax.persistence.Id,javax.persistence.Version}.
+ * Only annotation types with runtime retention are indexed. The processor is registered in
+ * the commons-lang JAR's {@code META-INF/services}, so it will be invoked automatically if 
+ * the JAR is on the compilation classpath. If the option is not specified, no indexes are
+ * written.
+ * <p>
+ * Local and anonymous classes are not indexed. As the processor uses the 
+ * {@link javax.annotation.processing.Processor} API, it requires Java 6.
+ * 
+ * @author aphillips
+ * @see AnnotatedMembersIndex
+ * @since 18 Oct 2026
+ *
+ */
+public class AnnotatedMembersIndexProcessor extends AbstractProcessor {
+    public static final String INDEXED_ANNOTATIONS_OPTION = "commons.lang.indexedAnnotations";
+    
+    // resolved in the first round
+    private List<TypeElement> indexedAnnotations;
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedOptions()
+     */
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Collections.singleton(INDEXED_ANNOTATIONS_OPTION);
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedAnnotationTypes()
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // every compiled class is indexed, whether or not it uses the annotations
+        return (processingEnv.getOptions().containsKey(INDEXED_ANNOTATIONS_OPTION) 
+                ? Collections.singleton("*") : Collections.<String>emptySet());
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        // only declared members and their annotations are inspected
+        return SourceVersion.latestSupported();
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        
+        if (indexedAnnotations == null) {
+            indexedAnnotations = getIndexedAnnotations();
+        }
+        
+        if (!indexedAnnotations.isEmpty()) {
+            ElementIndex elementIndex = new ElementIndex();
+            
+            for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+                writeIndexes(type, elementIndex);
+            }
+            
+        }
+        
+        // others may be interested in the annotations, too
+        return false;
+    }
+    
+    private List<TypeElement> getIndexedAnnotations() {
+        List<TypeElement> annotationElements = new ArrayList<TypeElement>();
+        String annotationNames = processingEnv.getOptions().get(INDEXED_ANNOTATIONS_OPTION);
+        
+        if (annotationNames == null) {
+            return annotationElements;
+        }
+        
+        for (String annotationName : annotationNames.split(",")) {
+            annotationName = annotationName.trim();
+            
+            if (annotationName.length() == 0) {
+                continue;
+            }
+            
+            TypeElement annotationElement = 
+                processingEnv.getElementUtils().getTypeElement(annotationName);
+            
+            if (!ElementUtils.isAnnotation(annotationElement)) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, String.format(
+                        "'%s' is not an annotation type and will not be indexed", annotationName));
+            } else if (ElementUtils.getRetention(annotationElement) != RetentionPolicy.RUNTIME) {
+                processingEnv.getMessager().printMessage(Kind.WARNING, String.format(
+                        "Annotation type '%s' does not have runtime retention and will not be indexed", 
+                        annotationName));
+            } else {
+                annotationElements.add(annotationElement);
+            }
+            
+        }
+        
+        return annotationElements;
+    }
+    
+    // writes the indexes of the type and its member types
+    private void writeIndexes(TypeElement type, ElementIndex elementIndex) {
+        List<String> entries = new ArrayList<String>();
+        
+        for (TypeElement annotationElement : indexedAnnotations) {
+            String annotationName = getBinaryName(annotationElement);
+            entries.add(annotationName);
+            
+            for (Element member : elementIndex.getAnnotatedEnclosedElements(type, annotationElement)) {
+                ElementKind kind = member.getKind();
+                
+                if (kind.isField()) {
+                    entries.add(annotationName + ' ' + FIELD_ENTRY + ' ' + member.getSimpleName());
+                } else if (kind == ElementKind.METHOD) {
+                    entries.add(annotationName + ' ' + METHOD_ENTRY + ' ' 
+                            + getSignature((ExecutableElement) member));
+                }
+                
+            }
+            
+        }
+        
+        writeIndex(type, entries);
+        
+        for (TypeElement memberType : ElementFilter.typesIn(type.getEnclosedElements())) {
+            writeIndexes(memberType, elementIndex);
+        }
+        
+    }
+    
+    private void writeIndex(TypeElement type, List<String> entries) {
+        String resourceName = AnnotatedMembersIndex.INDEX_RESOURCE_DIR + '/' + getBinaryName(type);
+        
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", resourceName, type);
+            Writer writer = new OutputStreamWriter(resource.openOutputStream(), 
+                    AnnotatedMembersIndex.INDEX_CHARSET);
+            
+            try {
+                writer.write("# generated by " + AnnotatedMembersIndexProcessor.class.getName() + '\n');
+                
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.write('\n');
+                }
+                
+            } finally {
+                writer.close();
+            }
+            
+        } catch (IOException exception) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, String.format(
+                    "Unable to write annotated members index '%s' due to: %s", resourceName, 
+                    exception.getMessage()), type);
+        }
+        
+    }
+    
+    private String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+    // <method name>(<parameter class name>,...), matching the runtime method
+    private String getSignature(ExecutableElement method) {
+        StringBuilder signature = new StringBuilder(method.getSimpleName()).append('(');
+        List<? extends VariableElement> parameters = method.getParameters();
+        
+        for (int i = 0; i < parameters.size(); i++) {
+            
+            if (i > 0) {
+                signature.append(',');
+            }
+            
+            signature.append(getClassName(
+                    processingEnv.getTypeUtils().erasure(parameters.get(i).asType())));
+        }
+        
+        return signature.append(')').toString();
+    }
+    
+    // the name of the (erased) type as returned by Class.getName()
+    private String getClassName(TypeMirror type) {
+        
+        switch (type.getKind()) {
+        case ARRAY:
+            return '[' + getDescriptor(((ArrayType) type).getComponentType());
+        case DECLARED:
+            return getBinaryName((TypeElement) ((DeclaredType) type).asElement());
+        default:
+            return (type.getKind().isPrimitive() ? type.getKind().name().toLowerCase(Locale.ENGLISH) 
+                                                 : type.toString());
+        }
+        
+    }
+    
+    private String getDescriptor(TypeMirror type) {
+        
+        switch (type.getKind()) {
+        case ARRAY:
+            return '[' + getDescriptor(((ArrayType) type).getComponentType());
+        case DECLARED:
+            return 'L' + getBinaryName((TypeElement) ((DeclaredType) type).asElement()) + ';';
+        case BOOLEAN:
+            return "Z";
+        case BYTE:
+            return "B";
+        case CHAR:
+            return "C";
+        case SHORT:
+            return "S";
+        case INT:
+            return "I";
+        case LONG:
+            return "J";
+        case FLOAT:
+            return "F";
+        case DOUBLE:
+            return "D";
+        default:
+            return type.toString();
+        }
+        
+    }
+    
+}
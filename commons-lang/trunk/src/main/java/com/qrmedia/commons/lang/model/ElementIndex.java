@@ -0,0 +1,360 @@
+/*
+ * @(#)ElementIndex.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang.model;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * An index of the enclosed elements and annotations of {@link Element Elements}, for
+ * processors that repeatedly query the same elements.
+ * <p>
+ * Offers the same lookups as the corresponding {@link ElementUtils} methods, but each 
+ * element's {@link Element#getEnclosedElements() enclosed elements} and 
+ * {@link Element#getAnnotationMirrors() annotations} are scanned only once, when the 
+ * element is first queried. Subsequent lookups by name, kind or annotation type are map
+ * lookups.
+ * <p>
+ * Since elements are only valid for a single {@link RoundEnvironment round} of processing,
+ * an index should be created for each round and discarded at the end of the round. This 
+ * class is <u>not</u> thread-safe.
+ * 
+ * @author aphillips
+ * @see ElementUtils
+ * @since 18 Oct 2026
+ *
+ */
+public final class ElementIndex {
+    private final Map<Element, IndexedElement> indexedElements = 
+        new HashMap<Element, IndexedElement>();
+    
+    private IndexedElement getIndexedElement(Element element) {
+        IndexedElement indexedElement = indexedElements.get(element);
+        
+        if (indexedElement == null) {
+            indexedElement = new IndexedElement(element);
+            indexedElements.put(element, indexedElement);
+        }
+        
+        return indexedElement;
+    }
+    
+    /**
+     * @param element   the element to be checked
+     * @return  {@code true} iff the element has a public, no-argument constructor
+     * @see ElementUtils#hasPublicNoargConstructor(Element)
+     */
+    public boolean hasPublicNoargConstructor(Element element) {
+        return ((element != null) && getIndexedElement(element).hasPublicNoargConstructor());
+    }
+    
+    /**
+     * Gets the {@link AnnotationMirror} corresponding to the given annotation type, if present.
+     * 
+     * @param element   the annotated element
+     * @param annotationElement the (element corresponding to the) type of annotation to be returned 
+     * @return  the annotation mirror for the element's annotation of the requested type, or
+     *          {@code null} if none is found
+     * @see ElementUtils#getAnnotationMirror(Element, TypeElement)
+     */
+    public AnnotationMirror getAnnotationMirror(Element element, TypeElement annotationElement) {
+        
+        if ((element == null) || (annotationElement == null)) {
+            return null;
+        }
+        
+        return getIndexedElement(element).getAnnotationMirrors().get(annotationElement);
+    }
+    
+    /**
+     * @param element     the element
+     * @param enclosedElementName        the name of the enclosed element required
+     * @return  the enclosed element of the given name, or {@code null} if not found. If 
+     *          there are multiple enclosed elements of the given name, e.g. overloaded 
+     *          methods, the first is returned.
+     * @see ElementUtils#getEnclosedElement(Element, String)
+     */
+    public Element getEnclosedElement(Element element, String enclosedElementName) {
+        
+        if ((element == null) || (enclosedElementName == null)) {
+            return null;
+        }
+        
+        return getIndexedElement(element).getEnclosedElementsByName().get(enclosedElementName);
+    }
+    
+    /**
+     * @param element   the element
+     * @param kind      the kind of the enclosed elements required
+     * @return  the enclosed elements of the given element of the requested kind, in the order
+     *          returned by {@link Element#getEnclosedElements()}
+     */
+    public List<Element> getEnclosedElements(Element element, ElementKind kind) {
+        
+        if ((element == null) || (kind == null)) {
+            return Collections.emptyList();
+        }
+        
+        return getElements(getIndexedElement(element).getEnclosedElementsByKind(), kind);
+    }
+    
+    /**
+     * @param element   the element
+     * @param annotationType the type (class) of the annotation to be searched for
+     * @return  the enclosed elements of the given element that are annotated with the requested
+     *          annotation, in the order returned by {@link Element#getEnclosedElements()}
+     * @see ElementUtils#getAnnotatedEnclosedElements(Element, Class)
+     */
+    public List<Element> getAnnotatedEnclosedElements(Element element,
+            Class<? extends Annotation> annotationType) {
+        
+        if ((element == null) || (annotationType == null)) {
+            return Collections.emptyList();
+        }
+        
+        return getIndexedElement(element).getAnnotatedEnclosedElements(annotationType);
+    }
+    
+    /**
+     * @param element   the element
+     * @param annotationElement the (element corresponding to the) type of annotation to be 
+     *                          searched for
+     * @return  the enclosed elements of the given element that are annotated with the requested
+     *          annotation, in the order returned by {@link Element#getEnclosedElements()}. Only
+     *          annotations directly present on the enclosed elements are considered.
+     */
+    public List<Element> getAnnotatedEnclosedElements(Element element,
+            TypeElement annotationElement) {
+        
+        if ((element == null) || (annotationElement == null)) {
+            return Collections.emptyList();
+        }
+        
+        return getElements(getIndexedElement(element).getEnclosedElementsByAnnotation(), 
+                annotationElement.getQualifiedName().toString());
+    }
+    
+    private static <K> List<Element> getElements(Map<K, List<Element>> elements, K key) {
+        List<Element> matchingElements = elements.get(key);
+        return ((matchingElements != null) ? matchingElements : Collections.<Element>emptyList());
+    }
+    
+    private static <K> void addElement(Map<K, List<Element>> elements, K key, Element element) {
+        List<Element> keyElements = elements.get(key);
+        
+        if (keyElements == null) {
+            keyElements = new ArrayList<Element>();
+            elements.put(key, keyElements);
+        }
+        
+        keyElements.add(element);
+    }
+    
+    // freezes the lists of elements once the index is complete
+    private static <K> void makeUnmodifiable(Map<K, List<Element>> elements) {
+        
+        for (Map.Entry<K, List<Element>> keyElements : elements.entrySet()) {
+            keyElements.setValue(Collections.unmodifiableList(keyElements.getValue()));
+        }
+        
+    }
+    
+    /**
+     * The lookups for a single element, each computed when first required.
+     * 
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private static class IndexedElement {
+        private final Element element;
+        
+        private Map<TypeElement, AnnotationMirror> annotationMirrors;
+        private Map<String, Element> enclosedElementsByName;
+        private Map<ElementKind, List<Element>> enclosedElementsByKind;
+        
+        // keyed by the qualified name of the annotation type
+        private Map<String, List<Element>> enclosedElementsByAnnotation;
+        
+        // only used for @Inherited annotations, which have to be looked up per type
+        private Map<Class<? extends Annotation>, List<Element>> enclosedElementsByInheritedAnnotation;
+        private Boolean hasPublicNoargConstructor;
+        
+        private IndexedElement(Element element) {
+            this.element = element;
+        }
+        
+        private Map<TypeElement, AnnotationMirror> getAnnotationMirrors() {
+            
+            if (annotationMirrors == null) {
+                annotationMirrors = new HashMap<TypeElement, AnnotationMirror>();
+                
+                for (AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+                    TypeElement annotationElement = 
+                        (TypeElement) annotationMirror.getAnnotationType().asElement();
+                    
+                    if (!annotationMirrors.containsKey(annotationElement)) {
+                        annotationMirrors.put(annotationElement, annotationMirror);
+                    }
+                    
+                }
+                
+            }
+            
+            return annotationMirrors;
+        }
+        
+        private Map<String, Element> getEnclosedElementsByName() {
+            
+            if (enclosedElementsByName == null) {
+                enclosedElementsByName = new HashMap<String, Element>();
+                
+                for (Element enclosedElement : element.getEnclosedElements()) {
+                    String enclosedElementName = enclosedElement.getSimpleName().toString();
+                    
+                    // as for ElementUtils, the first element with the name is returned
+                    if (!enclosedElementsByName.containsKey(enclosedElementName)) {
+                        enclosedElementsByName.put(enclosedElementName, enclosedElement);
+                    }
+                    
+                }
+                
+            }
+            
+            return enclosedElementsByName;
+        }
+        
+        private Map<ElementKind, List<Element>> getEnclosedElementsByKind() {
+            
+            if (enclosedElementsByKind == null) {
+                enclosedElementsByKind = 
+                    new EnumMap<ElementKind, List<Element>>(ElementKind.class);
+                
+                for (Element enclosedElement : element.getEnclosedElements()) {
+                    addElement(enclosedElementsByKind, enclosedElement.getKind(), enclosedElement);
+                }
+                
+                makeUnmodifiable(enclosedElementsByKind);
+            }
+            
+            return enclosedElementsByKind;
+        }
+        
+        private Map<String, List<Element>> getEnclosedElementsByAnnotation() {
+            
+            if (enclosedElementsByAnnotation == null) {
+                enclosedElementsByAnnotation = new HashMap<String, List<Element>>();
+                
+                for (Element enclosedElement : element.getEnclosedElements()) {
+                    
+                    for (AnnotationMirror annotationMirror : enclosedElement.getAnnotationMirrors()) {
+                        String annotationName = ((TypeElement) annotationMirror.getAnnotationType()
+                                                 .asElement()).getQualifiedName().toString();
+                        List<Element> annotatedElements = 
+                            enclosedElementsByAnnotation.get(annotationName);
+                        
+                        // repeated annotations of the same type are not valid, but may occur
+                        if ((annotatedElements == null) 
+                                || (annotatedElements.get(annotatedElements.size() - 1) 
+                                    != enclosedElement)) {
+                            addElement(enclosedElementsByAnnotation, annotationName, 
+                                    enclosedElement);
+                        }
+                        
+                    }
+                    
+                }
+                
+                makeUnmodifiable(enclosedElementsByAnnotation);
+            }
+            
+            return enclosedElementsByAnnotation;
+        }
+        
+        private List<Element> getAnnotatedEnclosedElements(
+                Class<? extends Annotation> annotationType) {
+            
+            /*
+             * Element.getAnnotation, as used by ElementUtils, also returns @Inherited annotations 
+             * of superclasses, which are not included in the annotation mirrors.
+             */
+            if (!annotationType.isAnnotationPresent(Inherited.class)) {
+                return getElements(getEnclosedElementsByAnnotation(), 
+                        annotationType.getCanonicalName());
+            }
+            
+            if (enclosedElementsByInheritedAnnotation == null) {
+                enclosedElementsByInheritedAnnotation = 
+                    new HashMap<Class<? extends Annotation>, List<Element>>();
+            }
+            
+            List<Element> annotatedEnclosedElements = 
+                enclosedElementsByInheritedAnnotation.get(annotationType);
+            
+            if (annotatedEnclosedElements == null) {
+                annotatedEnclosedElements = Collections.unmodifiableList(
+                        ElementUtils.getAnnotatedEnclosedElements(element, annotationType));
+                enclosedElementsByInheritedAnnotation.put(annotationType, 
+                        annotatedEnclosedElements);
+            }
+            
+            return annotatedEnclosedElements;
+        }
+        
+        private boolean hasPublicNoargConstructor() {
+            
+            if (hasPublicNoargConstructor == null) {
+                hasPublicNoargConstructor = Boolean.FALSE;
+                
+                for (Element constructor 
+                        : getElements(getEnclosedElementsByKind(), ElementKind.CONSTRUCTOR)) {
+                    
+                    // an element of type CONSTRUCTOR is an ExecutableElement
+                    if (constructor.getModifiers().contains(Modifier.PUBLIC)
+                            && ((ExecutableElement) constructor).getParameters().isEmpty()) {
+                        hasPublicNoargConstructor = Boolean.TRUE;
+                        break;
+                    }
+                    
+                }
+                
+            }
+            
+            return hasPublicNoargConstructor;
+        }
+        
+    }
+    
+}
@@ -0,0 +1,198 @@
+/*
+ * @(#)InstanceFieldPlan.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.reflect;
+
+import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * All the <i>instance</i> fields of a class, including those declared in its parent 
+ * classes, made accessible once when the plan is created.
+ * <p>
+ * Used to copy the state of one object to another of the same class, or to take a
+ * snapshot of the state of an object and restore it later, with a single loop over
+ * the fields. Fields hidden by subclass fields of the same name are included, since 
+ * they also hold state. Copies are <u>shallow</u>, i.e. the values of the fields are
+ * not themselves copied.
+ * <p>
+ * Instances are immutable and thread-safe.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ReflectionUtils#getInstanceFieldPlan(Class)
+ *
+ */
+public final class InstanceFieldPlan {
+    private final Class<?> targetClass;
+    private final Field[] fields;
+    
+    InstanceFieldPlan(Class<?> targetClass) {
+        this.targetClass = targetClass;
+        
+        List<Field> instanceFields = new ArrayList<Field>();
+        
+        // the loop will be exited if the current class is Object.class
+        for (Class<?> currentClass = targetClass; currentClass != null; 
+             currentClass = currentClass.getSuperclass()) {
+            
+            for (Field field : currentClass.getDeclaredFields()) {
+                
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    instanceFields.add(field);
+                }
+                
+            }
+            
+        }
+        
+        fields = instanceFields.toArray(new Field[instanceFields.size()]);
+    }
+    
+    /**
+     * Copies the values of all the instance fields of the source object to the target,
+     * without boxing primitive values.
+     * 
+     * @param source    the (non-<code>null</code>) object whose fields should be copied
+     * @param target    the (non-<code>null</code>) object to which the fields should be copied
+     * @throws IllegalArgumentException if either object is <code>null</code> or not an
+     *                                  instance of the plan's class
+     * @throws IllegalAccessException if a field cannot be accessed
+     */
+    public void copy(Object source, Object target) throws IllegalAccessException {
+        checkInstance(source);
+        checkInstance(target);
+        
+        for (Field field : fields) {
+            Class<?> type = field.getType();
+            
+            if (!type.isPrimitive()) {
+                field.set(target, field.get(source));
+            } else if (type == int.class) {
+                field.setInt(target, field.getInt(source));
+            } else if (type == long.class) {
+                field.setLong(target, field.getLong(source));
+            } else if (type == boolean.class) {
+                field.setBoolean(target, field.getBoolean(source));
+            } else if (type == double.class) {
+                field.setDouble(target, field.getDouble(source));
+            } else if (type == float.class) {
+                field.setFloat(target, field.getFloat(source));
+            } else if (type == short.class) {
+                field.setShort(target, field.getShort(source));
+            } else if (type == byte.class) {
+                field.setByte(target, field.getByte(source));
+            } else {
+                assert (type == char.class) : type;
+                field.setChar(target, field.getChar(source));
+            }
+            
+        }
+        
+    }
+    
+    /**
+     * Retrieves the values of all the instance fields of the given object, in the order
+     * of the {@link #getFields() fields}. Primitive values are boxed.
+     * 
+     * @param source    the (non-<code>null</code>) object whose field values are required
+     * @return  the values of the instance fields of the object
+     * @throws IllegalArgumentException if the object is <code>null</code> or not an
+     *                                  instance of the plan's class
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @see #restore(Object, Object[])
+     */
+    public Object[] snapshot(Object source) throws IllegalAccessException {
+        checkInstance(source);
+        
+        Object[] values = new Object[fields.length];
+        
+        for (int i = 0; i < fields.length; i++) {
+            values[i] = fields[i].get(source);
+        }
+        
+        return values;
+    }
+    
+    /**
+     * Sets the instance fields of the given object to the given values, as returned by
+     * {@link #snapshot(Object)}.
+     * 
+     * @param target    the (non-<code>null</code>) object whose fields are to be set
+     * @param values    the values of the instance fields, in the order of the 
+     *                  {@link #getFields() fields}
+     * @throws IllegalArgumentException if either argument is <code>null</code>, the object is
+     *                                  not an instance of the plan's class or the number
+     *                                  or types of the values do not match the fields
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @see #snapshot(Object)
+     */
+    public void restore(Object target, Object[] values) throws IllegalAccessException {
+        checkInstance(target);
+        checkNotNull("'values' may not be null", (Object) values);
+        
+        if (values.length != fields.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Expected %d values for the fields of class '%s' but got %d", 
+                    fields.length, targetClass.getName(), values.length));
+        }
+        
+        for (int i = 0; i < fields.length; i++) {
+            fields[i].set(target, values[i]);
+        }
+        
+    }
+    
+    private void checkInstance(Object obj) {
+        
+        if (!targetClass.isInstance(obj)) {
+            throw new IllegalArgumentException(String.format(
+                    "'%s' is not an instance of class '%s'", obj, targetClass.getName()));
+        }
+        
+    }
+    
+    /**
+     * @return the class whose instance fields are covered by the plan
+     */
+    public Class<?> getTargetClass() {
+        return targetClass;
+    }
+    
+    /**
+     * Returns the fields covered by the plan. Since plans are cached, the fields are shared
+     * by all callers and <u>must not be modified</u>, e.g. by calling 
+     * {@link Field#setAccessible(boolean)}.
+     * 
+     * @return the instance fields of the class, starting with those declared by the class
+     *         itself and followed by those of successive parent classes
+     */
+    public List<Field> getFields() {
+        return Collections.unmodifiableList(Arrays.asList(fields));
+    }
+    
+}
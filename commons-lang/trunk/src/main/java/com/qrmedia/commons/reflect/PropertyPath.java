@@ -0,0 +1,318 @@
+/*
+ * @(#)PropertyPath.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.reflect;
+
+import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bean property name of the form <code>property.childProperty</code>, parsed once
+ * so that the fields it refers to can be retrieved and set repeatedly without further
+ * parsing or lookups.
+ * <p>
+ * Each element of the path remembers the field it resolved for the class of the last 
+ * object it was applied to, so as long as the objects along the path are of the same
+ * classes, accessing the property involves no field lookups. Otherwise, fields are
+ * looked up in a per-class index maintained by the {@link ReflectionUtils}. The classes
+ * and fields remembered are only weakly referenced, so cached paths do not prevent
+ * discarded class loaders from being garbage collected.
+ * <p>
+ * As for the {@link ReflectionUtils}, the first element of the path may refer to a 
+ * <i>static</i> field of a target class, whereas all further elements are assumed to 
+ * be <u>instance</u> fields of their parent objects.
+ * <p>
+ * Instances are immutable (apart from their internal caches) and thread-safe.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ReflectionUtils
+ *
+ */
+public final class PropertyPath {
+    private static final ConcurrentMap<String, PropertyPath> PROPERTY_PATHS = 
+        new ConcurrentHashMap<String, PropertyPath>();
+    
+    private final String propertyName;
+    private final PathElement[] elements;
+    
+    private PropertyPath(String propertyName) {
+        this.propertyName = propertyName;
+        
+        List<PathElement> pathElements = new ArrayList<PathElement>();
+        int elementStart = 0;
+        int separatorIndex;
+        
+        while ((separatorIndex = propertyName.indexOf('.', elementStart)) != -1) {
+            pathElements.add(new PathElement(propertyName.substring(elementStart, separatorIndex)));
+            elementStart = separatorIndex + 1;
+        }
+        
+        pathElements.add(new PathElement(propertyName.substring(elementStart)));
+        elements = pathElements.toArray(new PathElement[pathElements.size()]);
+    }
+    
+    /**
+     * Returns the path for the given bean property name. Paths are cached, so repeated
+     * calls for the same property name return the same path.
+     * 
+     * @param propertyName the bean property name, of the form <code>property.childProperty</code>
+     * @return the path for the property name
+     * @throws IllegalArgumentException if <code>propertyName</code> is <code>null</code>
+     */
+    public static PropertyPath forName(String propertyName) {
+        checkNotNull("'propertyName' may not be null", propertyName);
+        
+        PropertyPath propertyPath = PROPERTY_PATHS.get(propertyName);
+        
+        if (propertyPath == null) {
+            PropertyPath newPropertyPath = new PropertyPath(propertyName);
+            propertyPath = PROPERTY_PATHS.putIfAbsent(propertyName, newPropertyPath);
+            
+            if (propertyPath == null) {
+                propertyPath = newPropertyPath;
+            }
+            
+        }
+        
+        return propertyPath;
+    }
+    
+    // discards all cached paths and hence the fields they last resolved
+    static void clearCache() {
+        PROPERTY_PATHS.clear();
+    }
+    
+    /**
+     * Gets the value of the property from the given target object. 
+     * 
+     * @param <T>       the type of the object to be returned
+     * @param target    the (non-<code>null</code>) object from which to retrieve the value
+     * @return  the property's value
+     * @throws IllegalAccessException if the value could not be retrieved
+     * @see ReflectionUtils#getValue(Object, String)
+     */
+    public <T> T getValue(Object target) throws IllegalAccessException {
+        return this.<T>getValue(target, null);
+    }
+    
+    /**
+     * Gets the value of the property from the given target class, the first element
+     * of the path being a <i>static</i> field of the class.
+     * 
+     * @param <T>       the type of the object to be returned
+     * @param targetClass    the (non-<code>null</code>) class from which to retrieve the value
+     * @return  the property's value
+     * @throws IllegalAccessException if the value could not be retrieved
+     * @see ReflectionUtils#getValue(Class, String)
+     */
+    public <T> T getValue(Class<? extends Object> targetClass) throws IllegalAccessException {
+        return this.<T>getValue(null, targetClass);
+    }
+    
+    // for an instance (static) property, targetClass (target) may be null
+    @SuppressWarnings("unchecked")
+    private <T> T getValue(Object target, Class<? extends Object> targetClass) 
+            throws IllegalAccessException {
+        Object value = elements[0].getValue(target, targetClass);
+        
+        // retrieve the nested properties as *instance* properties
+        for (int i = 1; i < elements.length; i++) {
+            value = elements[i].getValue(value, null);
+        }
+        
+        return (T) value;
+    }
+    
+    /**
+     * Sets the property of the given target object to the given value.
+     * 
+     * @param target    the (non-<code>null</code>) object whose property is to be set
+     * @param value the value to set the property to
+     * @throws IllegalAccessException if the value could not be set
+     * @see ReflectionUtils#setValue(Object, String, Object)
+     */
+    public void setValue(Object target, Object value) throws IllegalAccessException {
+        setValue(target, null, value);
+    }
+    
+    /**
+     * Sets the property of the given target class to the given value, the first element
+     * of the path being a <i>static</i> field of the class.
+     * 
+     * @param targetClass    the (non-<code>null</code>) class whose property is to be set
+     * @param value the value to set the property to
+     * @throws IllegalAccessException if the value could not be set
+     * @see ReflectionUtils#setValue(Class, String, Object)
+     */
+    public void setValue(Class<? extends Object> targetClass, Object value) 
+            throws IllegalAccessException {
+        setValue(null, targetClass, value);
+    }
+    
+    // for an instance (static) property, targetClass (target) may be null
+    private void setValue(Object target, Class<? extends Object> targetClass, Object value) 
+            throws IllegalAccessException {
+        Object parent = target;
+        Class<? extends Object> parentClass = targetClass;
+        int lastElementIndex = elements.length - 1;
+        
+        // retrieve the parent of the last property, ensuring *instance* fields are used
+        for (int i = 0; i < lastElementIndex; i++) {
+            parent = elements[i].getValue(parent, parentClass);
+            parentClass = null;
+        }
+        
+        elements[lastElementIndex].setValue(parent, parentClass, value);
+    }
+
+    /**
+     * @return the bean property name this path represents
+     */
+    public String getPropertyName() {
+        return propertyName;
+    }
+    
+    @Override
+    public String toString() {
+        return propertyName;
+    }
+    
+    /**
+     * A field name in a property path, together with the field most recently resolved 
+     * for it.
+     * 
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private static class PathElement {
+        private final String fieldName;
+        private volatile ResolvedField lastResolvedField;
+        
+        private PathElement(String fieldName) {
+            this.fieldName = fieldName;
+        }
+        
+        // for an instance (static) field, targetClass (target) may be null
+        private Object getValue(Object target, Class<? extends Object> targetClass) 
+                throws IllegalAccessException {
+            Field field = getField(target, targetClass, "get value of", "of");
+            
+            try {
+                return field.get(target);
+            } catch (Exception exception) {
+                throw newIllegalAccessException("get value of", "of", target, targetClass, 
+                        exception.getClass().getSimpleName(), exception.getMessage());
+            }
+            
+        }
+        
+        // for an instance (static) field, targetClass (target) may be null
+        private void setValue(Object target, Class<? extends Object> targetClass, Object value) 
+                throws IllegalAccessException {
+            Field field = getField(target, targetClass, "set", "on");
+            
+            try {
+                field.set(target, value);
+            } catch (Exception exception) {
+                throw newIllegalAccessException("set", "on", target, targetClass, 
+                        exception.getClass().getSimpleName(), exception.getMessage());
+            }
+            
+        }
+        
+        private Field getField(Object target, Class<? extends Object> targetClass, 
+                String action, String preposition) throws IllegalAccessException {
+            Class<? extends Object> fieldClass = 
+                ((target != null) ? target.getClass() : targetClass);
+            
+            // will happen if one of the parent properties is null
+            if (fieldClass == null) {
+                throw new NullPointerException(String.format("Unable to %s field '%s' of null", 
+                        action, fieldName));
+            }
+            
+            ResolvedField resolvedField = lastResolvedField;
+            
+            if ((resolvedField != null) && (resolvedField.fieldClass.get() == fieldClass)) {
+                Field field = resolvedField.field.get();
+                
+                if (field != null) {
+                    return field;
+                }
+                
+            }
+            
+            Field field;
+            
+            try {
+                field = ReflectionUtils.getAccessibleField(fieldClass, fieldName);
+            } catch (SecurityException exception) {
+                throw newIllegalAccessException(action, preposition, target, targetClass, 
+                        exception.getClass().getSimpleName(), exception.getMessage());
+            }
+            
+            if (field == null) {
+                throw newIllegalAccessException(action, preposition, target, targetClass, 
+                        NoSuchFieldException.class.getSimpleName(), fieldName);
+            }
+            
+            lastResolvedField = new ResolvedField(fieldClass, field);
+            return field;
+        }
+        
+        private IllegalAccessException newIllegalAccessException(String action, 
+                String preposition, Object target, Class<? extends Object> targetClass, 
+                String failure, String failureMessage) {
+            boolean instanceFieldRequested = (target != null);
+            return new IllegalAccessException(String.format(
+                    "Unable to %s field '%s' %s %s '%s' due to %s: %s", 
+                    action, fieldName, preposition, 
+                    instanceFieldRequested ? "object" : "class",
+                    instanceFieldRequested ? target : targetClass.getName(),
+                    failure, failureMessage));
+        }
+        
+    }
+    
+    /*
+     * Immutable, so that the class and field are always read consistently. Both are weakly 
+     * referenced since the field references its declaring class, and hence its class loader.
+     */
+    private static class ResolvedField {
+        private final Reference<Class<?>> fieldClass;
+        private final Reference<Field> field;
+        
+        private ResolvedField(Class<?> fieldClass, Field field) {
+            this.fieldClass = new WeakReference<Class<?>>(fieldClass);
+            this.field = new WeakReference<Field>(field);
+        }
+        
+    }
+    
+}
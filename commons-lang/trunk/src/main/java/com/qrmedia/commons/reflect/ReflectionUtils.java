@@ -20,16 +20,35 @@
  */
 package com.qrmedia.commons.reflect;
 
+import static com.qrmedia.commons.validation.ValidationUtils.checkNotNull;
+
 import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.qrmedia.commons.lang.ClassCache;
 
 /**
  * Utility methods to retrieve and set field values via reflection.
+ * <p>
+ * Property names are parsed into {@link PropertyPath PropertyPaths}, which are cached, and 
+ * the fields of each class are looked up once and cached. The cache only weakly references
+ * the classes (see {@link ClassCache}), so it does not prevent discarded class loaders from
+ * being garbage collected, but may be {@link #clearFieldCache(ClassLoader) cleared} for a
+ * discarded loader to release its entries immediately.
  * 
  * @author anph
  * @since 7 Nov 2008
  *
  */
 public final class ReflectionUtils {
+    
+    // the fields declared in or inherited by each class, by name
+    private static final ClassCache<Map<String, Field>> FIELDS = 
+        new ClassCache<Map<String, Field>>();
+    private static final ClassCache<InstanceFieldPlan> INSTANCE_FIELD_PLANS = 
+        new ClassCache<InstanceFieldPlan>();
 
     /**
      * Attempts to set the <i>instance</i> field of the target object with the given name 
@@ -50,77 +69,76 @@ public final class ReflectionUtils {
      */
     public static void setValue(Object target, String propertyName, Object value) 
             throws IllegalAccessException {
-        setPropertyValue(target, null, propertyName, value);
+        PropertyPath.forName(propertyName).setValue(target, value);
     }
 
-    // support bean property names of the form property.childProperty
-    private static void setPropertyValue(Object target, Class<? extends Object> targetClass, 
-            String propertyName, Object value) throws IllegalAccessException {
-        int separatorIndex = propertyName.indexOf('.');
-        
-        // for "plain" properties, simply set them
-        if (separatorIndex == -1) {
-            setFieldValue(target, targetClass, propertyName, value);
-            return;
-        }
-        
-        /*
-         * Otherwise, retrieve the first property and recurse, ensuring *instance* fields
-         * are used in the recursion.
-         */
-        setPropertyValue(getFieldValue(target, targetClass, 
-                                       propertyName.substring(0, separatorIndex)), 
-                         null, propertyName.substring(separatorIndex + 1), value);
-    }
-    
-    // for an instance (static) field, targetClass (target) may be null
-    private static void setFieldValue(Object target, Class<? extends Object> targetClass,
-            String fieldName, Object value) throws IllegalAccessException {
-        
-        try {
-            Field field = getAccessibleField(
-                    (target != null) ? target.getClass() : targetClass, fieldName);
-            field.set(target, value);
-        } catch (Exception exception) {
-            boolean instanceFieldRequested = (target != null);
-            throw new IllegalAccessException(String.format(
-                    "Unable to set field '%s' on %s '%s' due to %s: %s", 
-                    fieldName, instanceFieldRequested ? "object" : "class",
-                    instanceFieldRequested ? target : targetClass.getName(),
-                    exception.getClass().getSimpleName(), exception.getMessage()));
-        } 
+    /*
+     * Returns the field with the given name declared in the target class or the closest
+     * parent class declaring such a field, made accessible if necessary, or null if 
+     * there is no such field.
+     */
+    static Field getAccessibleField(Class<? extends Object> targetClass, String fieldName) {
+        Map<String, Field> fields = FIELDS.get(targetClass);
         
-    }
-    
-    private static Field getAccessibleField(Class<? extends Object> targetClass,
-            String fieldName) throws SecurityException, NoSuchFieldException {
-        Class<?> currentClass = targetClass;
-        Field field = null;
-
-        // the loop will be exited if the current class is Object.class and nothing is found
-        do {
+        if (fields == null) {
+            Map<String, Field> declaredFields = new HashMap<String, Field>();
             
-            try {
-                field = currentClass.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException exception) {
+            // the loop will be exited if the current class is Object.class
+            for (Class<?> currentClass = targetClass; currentClass != null; 
+                 currentClass = currentClass.getSuperclass()) {
+                
+                for (Field field : currentClass.getDeclaredFields()) {
+                    
+                    // fields in subclasses hide those in the superclasses
+                    if (!declaredFields.containsKey(field.getName())) {
+                        declaredFields.put(field.getName(), field);
+                    }
+                    
+                }
                 
-                // try the superclass
-                currentClass = currentClass.getSuperclass();
             }
             
-        } while ((field == null) && (currentClass != null));
-        
-        if (field == null) {
-            throw new NoSuchFieldException(fieldName);
+            fields = Collections.unmodifiableMap(declaredFields);
+            Map<String, Field> existingFields = FIELDS.putIfAbsent(targetClass, fields);
+            
+            if (existingFields != null) {
+                fields = existingFields;
+            }
+            
         }
         
-        if (!field.isAccessible()) {
+        Field field = fields.get(fieldName);
+        
+        if ((field != null) && !field.isAccessible()) {
             field.setAccessible(true);
         }
         
         return field;
     }
     
+    /**
+     * Discards all cached fields, property paths and instance field plans.
+     */
+    public static void clearFieldCache() {
+        FIELDS.clear();
+        INSTANCE_FIELD_PLANS.clear();
+        PropertyPath.clearCache();
+    }
+    
+    /**
+     * Discards the cached fields and instance field plans of classes loaded by the given 
+     * class loader. All cached property paths, which weakly reference the classes and 
+     * fields they last resolved, are also discarded.
+     * 
+     * @param classLoader the class loader whose classes should no longer be referenced
+     *                    by the cache. May be {@code null}, denoting the bootstrap class loader.
+     */
+    public static void clearFieldCache(ClassLoader classLoader) {
+        FIELDS.removeClassesLoadedBy(classLoader);
+        INSTANCE_FIELD_PLANS.removeClassesLoadedBy(classLoader);
+        PropertyPath.clearCache();
+    }
+    
     /**
      * Attempts to set the <i>static</i> field of the target class with the given name  
      * to the given value. The field may be declared in the target class or any 
@@ -143,7 +161,7 @@ public final class ReflectionUtils {
      */
     public static void setValue(Class<? extends Object> targetClass, String propertyName, 
             Object value) throws IllegalAccessException {
-        setPropertyValue(null, targetClass, propertyName, value);
+        PropertyPath.forName(propertyName).setValue(targetClass, value);
     }    
 
     /**
@@ -173,7 +191,13 @@ public final class ReflectionUtils {
             Class<? extends Object> targetClass, String propertyName, Object value) {
         
         try {
-            setPropertyValue(target, targetClass, propertyName, value);
+            
+            if (target != null) {
+                setValue(target, propertyName, value);
+            } else {
+                setValue(targetClass, propertyName, value);
+            }
+            
             return true;
         } catch (IllegalAccessException exception) {
             return false;
@@ -223,52 +247,9 @@ public final class ReflectionUtils {
      * @see #getValue(Class, String)
      */
     public static <T> T getValue(Object target, String propertyName) throws IllegalAccessException {
-        return ReflectionUtils.<T>getPropertyValue(target, null, propertyName);
+        return PropertyPath.forName(propertyName).<T>getValue(target);
     }
     
-    // support bean property names of the form property.childProperty
-    private static <T> T getPropertyValue(Object target, 
-            Class<? extends Object> targetClass, String propertyName) 
-            throws IllegalAccessException {
-        String[] fieldNames = propertyName.split("\\.");
-        T value = ReflectionUtils.<T>getFieldValue(target, targetClass, fieldNames[0]);
-        int numFieldNames = fieldNames.length;
-        
-        // if the requested property was not a nested property, return it
-        if (numFieldNames == 1) {
-            return ReflectionUtils.<T>getFieldValue(target, targetClass, propertyName);
-        }
-        
-        // recursively retrieve the properties, as *instance* properties
-        for (int i = 1; i < numFieldNames; i++) {
-            
-            // will throw an NPE if one of the nested properties cannot be found
-            value = ReflectionUtils.<T>getFieldValue(value, null, fieldNames[i]);
-        }
-        
-        return value;
-    }
-    
-    // for an instance (static) field, targetClass (target) may be null    
-    @SuppressWarnings("unchecked")
-    private static <T> T getFieldValue(Object target, Class<? extends Object> targetClass, 
-            String fieldName) throws IllegalAccessException {
-        boolean instanceFieldRequested = (target != null);
-        
-        try {
-            return (T) getAccessibleField(
-                    instanceFieldRequested ? target.getClass() : targetClass,  fieldName)
-                   .get(instanceFieldRequested ? target : null);
-        } catch (Exception exception) {
-            throw new IllegalAccessException(String.format(
-                    "Unable to get value of field '%s' of %s '%s' due to %s: %s", 
-                    fieldName, instanceFieldRequested ? "object" : "class", 
-                    instanceFieldRequested ? target : targetClass.getName(),
-                    exception.getClass().getSimpleName(), exception.getMessage()));
-        }
-        
-    }    
-    
     /**
      * Attempts to get the value of specified <i>static</i> field of the given target 
      * class. The field may be declared in the target class or any if its parent classes.
@@ -287,7 +268,89 @@ public final class ReflectionUtils {
      */
     public static <T> T getValue(Class<? extends Object> targetClass, String propertyName) 
             throws IllegalAccessException {
-        return ReflectionUtils.<T>getPropertyValue(null, targetClass, propertyName);
-    }    
+        return PropertyPath.forName(propertyName).<T>getValue(targetClass);
+    }
+    
+    /**
+     * Returns the plan covering all the <i>instance</i> fields of the given class. Plans are
+     * created once per class and cached.
+     * 
+     * @param clazz the (non-<code>null</code>) class whose instance fields are required
+     * @return  the plan covering all the instance fields of the class and its parent classes
+     * @throws IllegalArgumentException if <code>clazz</code> is <code>null</code>
+     * @see #copyFields(Object, Object)
+     * @see #getFieldValues(Object)
+     * @see #setFieldValues(Object, Object[])
+     */
+    public static InstanceFieldPlan getInstanceFieldPlan(Class<?> clazz) {
+        checkNotNull("'clazz' may not be null", clazz);
+        
+        InstanceFieldPlan instanceFieldPlan = INSTANCE_FIELD_PLANS.get(clazz);
+        
+        if (instanceFieldPlan == null) {
+            InstanceFieldPlan newInstanceFieldPlan = new InstanceFieldPlan(clazz);
+            instanceFieldPlan = INSTANCE_FIELD_PLANS.putIfAbsent(clazz, newInstanceFieldPlan);
+            
+            if (instanceFieldPlan == null) {
+                instanceFieldPlan = newInstanceFieldPlan;
+            }
+            
+        }
+        
+        return instanceFieldPlan;
+    }
+    
+    /**
+     * Copies the values of all the <i>instance</i> fields of the source object, including
+     * those declared in its parent classes, to the target object. The copy is <u>shallow</u>.
+     * 
+     * @param source    the (non-<code>null</code>) object whose fields are to be copied
+     * @param target    the (non-<code>null</code>) object to which the fields are to be copied.
+     *                  Must be an instance of the source object's class.
+     * @throws IllegalArgumentException if either object is <code>null</code> or the target 
+     *                                  is not an instance of the source object's class
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @see InstanceFieldPlan#copy(Object, Object)
+     */
+    public static void copyFields(Object source, Object target) throws IllegalAccessException {
+        checkNotNull("'source' and 'target' may not be null", source, target);
+        getInstanceFieldPlan(source.getClass()).copy(source, target);
+    }
+    
+    /**
+     * Retrieves the values of all the <i>instance</i> fields of the given object, including
+     * those declared in its parent classes.
+     * 
+     * @param source    the (non-<code>null</code>) object whose field values are required
+     * @return  the values of the instance fields of the object, in the order of the
+     *          {@link InstanceFieldPlan#getFields() fields} of the object's class
+     * @throws IllegalArgumentException if <code>source</code> is <code>null</code>
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @see #setFieldValues(Object, Object[])
+     * @see InstanceFieldPlan#snapshot(Object)
+     */
+    public static Object[] getFieldValues(Object source) throws IllegalAccessException {
+        checkNotNull("'source' may not be null", source);
+        return getInstanceFieldPlan(source.getClass()).snapshot(source);
+    }
+    
+    /**
+     * Sets the <i>instance</i> fields of the given object, including those declared in its 
+     * parent classes, to the given values, as returned by {@link #getFieldValues(Object)}
+     * for an object of the same class.
+     * 
+     * @param target    the (non-<code>null</code>) object whose fields are to be set
+     * @param values    the values of the instance fields
+     * @throws IllegalArgumentException if either argument is <code>null</code> or the number
+     *                                  or types of the values do not match the fields
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @see #getFieldValues(Object)
+     * @see InstanceFieldPlan#restore(Object, Object[])
+     */
+    public static void setFieldValues(Object target, Object[] values) 
+            throws IllegalAccessException {
+        checkNotNull("'target' may not be null", target);
+        getInstanceFieldPlan(target.getClass()).restore(target, values);
+    }
     
 }
@@ -0,0 +1,271 @@
+/*
+ * @(#)AnnotatedMembersIndexTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link AnnotatedMembersIndex}.
+ * <p>
+ * Requires the test classes to be indexed for {@link Resource @Resource} and 
+ * {@link PostConstruct @PostConstruct} when compiled. The indexes of the local classes,
+ * which are not indexed by the processor, are in {@code src/test/resources}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class AnnotatedMembersIndexTest {
+
+    @SuppressWarnings("unused")
+    private static class StubObject {
+        @Resource
+        private String resourceField;
+        
+        private String unannotatedField;
+        
+        @Resource
+        protected int otherResourceField;
+        
+        @Resource
+        public void resourceMethod(String[] strings, int i) {}
+        
+        @Resource
+        <T extends Number> void genericResourceMethod(T number, List<T>[] lists) {}
+        
+        public void unannotatedMethod() {}
+    }
+    
+    // loaded from copies of its class file in separate classpath entries
+    public static class RelocatedStub {
+        @Deprecated
+        public String deprecatedField;
+    }
+    
+    @After
+    public void clearCache() {
+        // also clears the index cache
+        ClassUtils.clearMetadataCache();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void getAnnotatedDeclaredFields_nullClass() {
+        AnnotatedMembersIndex.getAnnotatedDeclaredFields(null, Resource.class);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void getAnnotatedDeclaredMethods_nullAnnotationType() {
+        AnnotatedMembersIndex.getAnnotatedDeclaredMethods(StubObject.class, null);
+    }
+    
+    @Test
+    public void getAnnotatedDeclaredFields() throws Exception {
+        assertEquals(asList(StubObject.class.getDeclaredField("resourceField"), 
+                            StubObject.class.getDeclaredField("otherResourceField")),
+                AnnotatedMembersIndex.getAnnotatedDeclaredFields(StubObject.class, Resource.class));
+    }
+    
+    @Test
+    public void getAnnotatedDeclaredFields_noneAnnotated() {
+        assertEquals(Collections.<Field>emptyList(), 
+                AnnotatedMembersIndex.getAnnotatedDeclaredFields(StubObject.class, PostConstruct.class));
+    }
+    
+    @Test
+    public void getAnnotatedDeclaredMethods() throws Exception {
+        assertEquals(asList(
+                StubObject.class.getDeclaredMethod("resourceMethod", String[].class, int.class),
+                StubObject.class.getDeclaredMethod("genericResourceMethod", Number.class, List[].class)),
+                AnnotatedMembersIndex.getAnnotatedDeclaredMethods(StubObject.class, Resource.class));
+    }
+    
+    @Test
+    public void returnsCachedResults() {
+        assertSame(AnnotatedMembersIndex.getAnnotatedDeclaredFields(StubObject.class, Resource.class),
+                AnnotatedMembersIndex.getAnnotatedDeclaredFields(StubObject.class, Resource.class));
+    }
+    
+    @Test
+    public void notIndexedForAnnotationType() {
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredFields(StubObject.class, Deprecated.class));
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredMethods(StubObject.class, Deprecated.class));
+    }
+    
+    @Test
+    public void notIndexed() {
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredFields(Object.class, Resource.class));
+        
+        @SuppressWarnings("unused")
+        class UnindexedStub {
+            @Resource
+            private String resourceField;
+        }
+        
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredFields(UnindexedStub.class, Resource.class));
+    }
+    
+    @Test
+    public void staleIndex() {
+        
+        @SuppressWarnings("unused")
+        class StaleIndexStub {
+            @Resource
+            private String resourceField;
+        }
+        
+        // the index refers to a field that no longer exists
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredFields(StaleIndexStub.class, Resource.class));
+    }
+    
+    @Test
+    public void malformedIndex() {
+        
+        class MalformedIndexStub {}
+        
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredMethods(MalformedIndexStub.class, 
+                Resource.class));
+    }
+    
+    @Test
+    public void indexInClassFileEntry() throws Exception {
+        File classpathEntry = newClasspathEntry(true, true);
+        Class<?> relocatedStub = loadRelocatedStub(classpathEntry);
+        
+        assertEquals(asList(relocatedStub.getField("deprecatedField")), 
+                AnnotatedMembersIndex.getAnnotatedDeclaredFields(relocatedStub, Deprecated.class));
+    }
+    
+    @Test
+    public void ignoresIndexInOtherEntry() throws Exception {
+        File indexEntry = newClasspathEntry(false, true);
+        File classFileEntry = newClasspathEntry(true, false);
+        
+        // the index would be found first by ClassLoader.getResource
+        assertNull(AnnotatedMembersIndex.getAnnotatedDeclaredFields(
+                loadRelocatedStub(indexEntry, classFileEntry), Deprecated.class));
+    }
+    
+    private static File newClasspathEntry(boolean withClassFile, boolean withIndex) 
+            throws IOException {
+        File classpathEntry = File.createTempFile("annotated-members-index", "");
+        classpathEntry.delete();
+        
+        String classFileName = RelocatedStub.class.getName().replace('.', '/') + ".class";
+        
+        if (withClassFile) {
+            InputStream classFile = 
+                RelocatedStub.class.getClassLoader().getResourceAsStream(classFileName);
+            
+            try {
+                write(new File(classpathEntry, classFileName), classFile);
+            } finally {
+                classFile.close();
+            }
+            
+        }
+        
+        if (withIndex) {
+            String index = Deprecated.class.getName() + '\n' + Deprecated.class.getName() + ' ' 
+                + AnnotatedMembersIndex.FIELD_ENTRY + " deprecatedField\n";
+            write(new File(classpathEntry, AnnotatedMembersIndex.INDEX_RESOURCE_DIR + '/' 
+                    + RelocatedStub.class.getName()), 
+                  new ByteArrayInputStream(index.getBytes(AnnotatedMembersIndex.INDEX_CHARSET.name())));
+        }
+        
+        return classpathEntry;
+    }
+    
+    private static void write(File file, InputStream contents) throws IOException {
+        file.getParentFile().mkdirs();
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        
+        try {
+            byte[] buffer = new byte[4096];
+            
+            for (int bytesRead = contents.read(buffer); bytesRead != -1; 
+                 bytesRead = contents.read(buffer)) {
+                out.write(buffer, 0, bytesRead);
+            }
+            
+        } finally {
+            out.close();
+        }
+        
+    }
+    
+    private static Class<?> loadRelocatedStub(File... classpathEntries) throws Exception {
+        URL[] urls = new URL[classpathEntries.length];
+        
+        for (int i = 0; i < classpathEntries.length; i++) {
+            urls[i] = classpathEntries[i].toURI().toURL();
+        }
+        
+        // no parent, so that the class is not loaded from the test classpath
+        return new URLClassLoader(urls, null).loadClass(RelocatedStub.class.getName());
+    }
+    
+    @Test
+    public void classUtilsFallsBackToReflection() throws Exception {
+        
+        @SuppressWarnings("unused")
+        class UnindexedSubclass extends StubObject {
+            @Resource
+            private String subclassResourceField;
+            
+            @Resource
+            public void subclassResourceMethod() {}
+        }
+        
+        assertEquals(asList(UnindexedSubclass.class.getDeclaredField("subclassResourceField"),
+                            StubObject.class.getDeclaredField("resourceField"), 
+                            StubObject.class.getDeclaredField("otherResourceField")),
+                ClassUtils.getAllAnnotatedDeclaredFields(UnindexedSubclass.class, Resource.class));
+        assertEquals(new HashSet<Method>(asList(
+                UnindexedSubclass.class.getMethod("subclassResourceMethod"),
+                StubObject.class.getMethod("resourceMethod", String[].class, int.class))),
+                ClassUtils.getAnnotatedMethods(UnindexedSubclass.class, Resource.class));
+    }
+    
+}
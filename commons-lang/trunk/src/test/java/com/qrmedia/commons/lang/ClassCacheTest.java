@@ -0,0 +1,131 @@
+/*
+ * @(#)ClassCacheTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ClassCache}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ClassCacheTest {
+    private final ClassCache<Object> cache = new ClassCache<Object>();
+    
+    // loaded by a separate class loader that can be discarded
+    public static class Collectable {}
+    
+    @Test
+    public void putIfAbsent() {
+        Object value = new Object();
+        
+        assertNull(cache.putIfAbsent(String.class, value));
+        assertSame(value, cache.get(String.class));
+        assertSame(value, cache.putIfAbsent(String.class, new Object()));
+        assertSame(value, cache.get(String.class));
+        assertNull(cache.get(Integer.class));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void putIfAbsent_nullValue() {
+        cache.putIfAbsent(String.class, null);
+    }
+    
+    @Test
+    public void values() {
+        Object value = new Object();
+        Object otherValue = new Object();
+        cache.putIfAbsent(String.class, value);
+        cache.putIfAbsent(Integer.class, otherValue);
+        
+        List<Object> values = cache.values();
+        assertEquals(2, values.size());
+        assertTrue(values.containsAll(Arrays.asList(value, otherValue)));
+    }
+    
+    @Test
+    public void removeClassesLoadedBy() {
+        Object value = new Object();
+        cache.putIfAbsent(String.class, value);
+        cache.putIfAbsent(ClassCacheTest.class, new Object());
+        cache.removeClassesLoadedBy(ClassCacheTest.class.getClassLoader());
+        
+        assertNull(cache.get(ClassCacheTest.class));
+        assertSame(value, cache.get(String.class));
+    }
+    
+    @Test
+    public void clear() {
+        cache.putIfAbsent(String.class, new Object());
+        cache.clear();
+        
+        assertNull(cache.get(String.class));
+    }
+    
+    @Test
+    public void doesNotPreventClassLoadersFromBeingCollected() throws Exception {
+        URLClassLoader classLoader = new URLClassLoader(new URL[] { 
+                ClassCacheTest.class.getProtectionDomain().getCodeSource().getLocation() }, null);
+        Class<?> collectable = classLoader.loadClass(Collectable.class.getName());
+        
+        // the value references the class, as for cached fields
+        cache.putIfAbsent(collectable, Arrays.asList(collectable.getDeclaredConstructors()));
+        assertEquals(1, cache.values().size());
+        
+        Reference<ClassLoader> classLoaderReference = new WeakReference<ClassLoader>(classLoader);
+        classLoader = null;
+        collectable = null;
+        
+        // soft references are only guaranteed to be cleared before running out of memory
+        List<long[]> garbage = new ArrayList<long[]>();
+        
+        try {
+            
+            while (classLoaderReference.get() != null) {
+                garbage.add(new long[1024 * 1024]);
+                System.gc();
+            }
+            
+        } catch (OutOfMemoryError exception) {
+            garbage = null;
+            System.gc();
+        }
+        
+        assertNull(classLoaderReference.get());
+        assertTrue(cache.values().isEmpty());
+    }
+    
+}
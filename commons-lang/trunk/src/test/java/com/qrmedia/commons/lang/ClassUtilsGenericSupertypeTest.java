@@ -0,0 +1,173 @@
+/*
+ * @(#)ClassUtilsGenericSupertypeTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ClassUtils#getGenericSupertype(Class, Class)} and
+ * {@link ClassUtils#getResolvedTypeArguments(Class, Class)} methods.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ClassUtilsTypeArgumentsTest
+ *
+ */
+public class ClassUtilsGenericSupertypeTest {
+    
+    private static class TypedClass<U, V> {}
+    
+    private static class TypedSubclass<W> extends TypedClass<List<? extends W>, W[]> {}
+    
+    private static class TypedSubclass2<X> extends TypedSubclass<Map<String, X>> {}
+    
+    private static class TypedSubclass3 extends TypedSubclass2<Long> {}
+    
+    private static class TypedSubclass4 extends TypedSubclass<String> {}
+    
+    private static interface TypedInterface<N> {}
+    
+    private static interface TypedSubinterface<P> extends TypedInterface<List<P>> {}
+    
+    // the interface of interest is not the first generic interface
+    private static class TypedClass2 implements Comparable<TypedClass2>, Serializable, 
+            TypedSubinterface<Integer> {
+        private static final long serialVersionUID = 1L;
+        
+        public int compareTo(TypedClass2 other) {
+            return 0;
+        }
+        
+    }
+    
+    // holds the expected types
+    @SuppressWarnings("unused")
+    private static class ExpectedTypes<X> {
+        private TypedClass<List<? extends Map<String, Long>>, Map<String, Long>[]> typedSubclass3;
+        private TypedClass<List<? extends Map<String, X>>, Map<String, X>[]> typedSubclass2;
+        private TypedClass<List<? extends String>, String[]> typedSubclass4;
+        private TypedInterface<List<Integer>> typedClass2;
+    }
+    
+    private static Type getExpectedType(String fieldName) throws NoSuchFieldException {
+        return ExpectedTypes.class.getDeclaredField(fieldName).getGenericType();
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void getGenericSupertype_nullClass() {
+        ClassUtils.getGenericSupertype(null, TypedClass.class);
+    }
+    
+    @Test
+    public void getGenericSupertype_notSubclass() {
+        assertNull(ClassUtils.getGenericSupertype(TypedClass.class, TypedSubclass.class));
+    }
+    
+    @Test
+    public void getGenericSupertype_nestedTypes() throws NoSuchFieldException {
+        Type expectedType = getExpectedType("typedSubclass3");
+        Type genericSupertype = ClassUtils.getGenericSupertype(TypedSubclass3.class, TypedClass.class);
+        
+        assertEquals(expectedType, genericSupertype);
+        assertEquals(genericSupertype, expectedType);
+        assertEquals(expectedType.hashCode(), genericSupertype.hashCode());
+    }
+    
+    @Test
+    public void getGenericSupertype_arrayOfClass() throws NoSuchFieldException {
+        Type genericSupertype = ClassUtils.getGenericSupertype(TypedSubclass4.class, TypedClass.class);
+        
+        assertEquals(getExpectedType("typedSubclass4"), genericSupertype);
+        assertSame(String[].class, 
+                ((ParameterizedType) genericSupertype).getActualTypeArguments()[1]);
+    }
+    
+    @Test
+    public void getGenericSupertype_unresolved() {
+        ParameterizedType genericSupertype = (ParameterizedType) 
+            ClassUtils.getGenericSupertype(TypedSubclass2.class, TypedClass.class);
+        
+        // List<? extends Map<String, X>>
+        ParameterizedType listType = (ParameterizedType) genericSupertype.getActualTypeArguments()[0];
+        WildcardType wildcardType = (WildcardType) listType.getActualTypeArguments()[0];
+        ParameterizedType mapType = (ParameterizedType) wildcardType.getUpperBounds()[0];
+        
+        assertEquals("java.util.List<? extends java.util.Map<java.lang.String, X>>", 
+                listType.toString());
+        assertSame(TypedSubclass2.class.getTypeParameters()[0], 
+                mapType.getActualTypeArguments()[1]);
+    }
+    
+    @Test
+    public void getGenericSupertype_interfaces() throws NoSuchFieldException {
+        assertEquals(getExpectedType("typedClass2"), 
+                ClassUtils.getGenericSupertype(TypedClass2.class, TypedInterface.class));
+        assertEquals(Serializable.class, 
+                ClassUtils.getGenericSupertype(TypedClass2.class, Serializable.class));
+    }
+    
+    @Test
+    public void getGenericSupertype_self() {
+        ParameterizedType genericSupertype = (ParameterizedType) 
+            ClassUtils.getGenericSupertype(TypedClass.class, TypedClass.class);
+        assertEquals(asList(TypedClass.class.getTypeParameters()), 
+                asList(genericSupertype.getActualTypeArguments()));
+    }
+    
+    @Test
+    public void getGenericSupertype_cached() {
+        assertSame(ClassUtils.getGenericSupertype(TypedSubclass3.class, TypedClass.class), 
+                ClassUtils.getGenericSupertype(TypedSubclass3.class, TypedClass.class));
+    }
+    
+    @Test
+    public void getResolvedTypeArguments() throws NoSuchFieldException {
+        assertEquals(asList(((ParameterizedType) getExpectedType("typedClass2"))
+                            .getActualTypeArguments()), 
+                ClassUtils.getResolvedTypeArguments(TypedClass2.class, TypedInterface.class));
+        assertTrue(ClassUtils.getResolvedTypeArguments(TypedClass2.class, Serializable.class)
+                   .isEmpty());
+    }
+    
+    @Test
+    public void getActualTypeArguments_erased() {
+        assertEquals(asList(List.class, Map[].class), 
+                ClassUtils.getActualTypeArguments(TypedSubclass2.class, TypedClass.class));
+        assertEquals(asList(List.class, null), 
+                ClassUtils.getActualTypeArguments(TypedSubclass.class, TypedClass.class));
+        assertEquals(asList(List.class), 
+                ClassUtils.getActualTypeArguments(TypedClass2.class, TypedInterface.class));
+    }
+    
+}
@@ -0,0 +1,174 @@
+/*
+ * @(#)ClassUtilsMetadataCacheTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.Resource;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the caching of type hierarchy information by the {@link ClassUtils}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ClassUtilsTest
+ *
+ */
+public class ClassUtilsMetadataCacheTest {
+
+    @SuppressWarnings("unused")
+    private static class Parent {
+        @Resource
+        private int parentProperty;
+    }
+    
+    @SuppressWarnings("unused")
+    private static class Child extends Parent implements Comparable<Child> {
+        private int childProperty;
+        
+        @Resource
+        public void setChildProperty(int childProperty) {
+            this.childProperty = childProperty;
+        }
+        
+        public int compareTo(Child other) {
+            return 0;
+        }
+        
+    }
+    
+    @After
+    public void clearMetadataCache() {
+        ClassUtils.clearMetadataCache();
+    }
+    
+    @Test
+    public void returnsCachedResults() {
+        assertSame(ClassUtils.getAllDeclaredFields(Child.class), 
+                ClassUtils.getAllDeclaredFields(Child.class));
+        assertSame(ClassUtils.getAllAnnotatedDeclaredFields(Child.class, Resource.class), 
+                ClassUtils.getAllAnnotatedDeclaredFields(Child.class, Resource.class));
+        assertSame(ClassUtils.getAnnotatedMethods(Child.class, Resource.class), 
+                ClassUtils.getAnnotatedMethods(Child.class, Resource.class));
+        assertSame(ClassUtils.getSuperclassChain(Child.class, Parent.class), 
+                ClassUtils.getSuperclassChain(Child.class, Parent.class));
+        assertSame(ClassUtils.getSuperclassChains(Child.class, Object.class), 
+                ClassUtils.getSuperclassChains(Child.class, Object.class));
+        assertSame(ClassUtils.getActualTypeArguments(Child.class, Comparable.class), 
+                ClassUtils.getActualTypeArguments(Child.class, Comparable.class));
+    }
+    
+    @Test
+    public void distinguishesArguments() {
+        assertEquals(2, ClassUtils.getAllDeclaredFields(Child.class).size());
+        assertEquals(1, ClassUtils.getAllDeclaredFields(Child.class, Child.class).size());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void declaredFieldsUnmodifiable() {
+        ClassUtils.getAllDeclaredFields(Child.class).clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void annotatedDeclaredFieldsUnmodifiable() {
+        ClassUtils.getAllAnnotatedDeclaredFields(Child.class, Resource.class).clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void annotatedMethodsUnmodifiable() {
+        ClassUtils.getAnnotatedMethods(Child.class, Resource.class).clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void annotatedMethodsUnmodifiable_nullAnnotation() {
+        ClassUtils.getAnnotatedMethods(Child.class, null).add(null);
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void superclassChainUnmodifiable() {
+        ClassUtils.getSuperclassChain(Child.class, Parent.class).clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void superclassChainsUnmodifiable() {
+        ClassUtils.getSuperclassChains(Child.class, Parent.class).clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void superclassChainsElementsUnmodifiable() {
+        ClassUtils.getSuperclassChains(Child.class, Parent.class).iterator().next().clear();
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void actualTypeArgumentsUnmodifiable() {
+        ClassUtils.getActualTypeArguments(Child.class, Comparable.class).clear();
+    }
+    
+    @Test
+    public void clearMetadataCache_all() {
+        List<Field> fields = ClassUtils.getAllDeclaredFields(Child.class);
+        Set<Method> methods = ClassUtils.getAnnotatedMethods(Child.class, Resource.class);
+        ClassUtils.clearMetadataCache();
+        
+        assertNotSame(fields, ClassUtils.getAllDeclaredFields(Child.class));
+        assertEquals(fields, ClassUtils.getAllDeclaredFields(Child.class));
+        assertNotSame(methods, ClassUtils.getAnnotatedMethods(Child.class, Resource.class));
+    }
+    
+    @Test
+    public void clearMetadataCache_classLoader() {
+        List<Field> fields = ClassUtils.getAllDeclaredFields(Child.class, Parent.class);
+        List<Class<? extends Parent>> superclassChain = 
+            ClassUtils.getSuperclassChain(Child.class, Parent.class);
+        ClassUtils.clearMetadataCache(Child.class.getClassLoader());
+        
+        assertNotSame(fields, ClassUtils.getAllDeclaredFields(Child.class, Parent.class));
+        assertNotSame(superclassChain, ClassUtils.getSuperclassChain(Child.class, Parent.class));
+    }
+    
+    @Test
+    public void clearMetadataCache_otherClassLoader() {
+        List<Field> fields = ClassUtils.getAllDeclaredFields(Child.class);
+        ClassUtils.clearMetadataCache(new ClassLoader() {});
+        
+        assertSame(fields, ClassUtils.getAllDeclaredFields(Child.class));
+    }
+    
+    @Test
+    public void clearMetadataCache_keyClassLoader() {
+        // Object is loaded by the bootstrap class loader
+        List<Field> fields = ClassUtils.getAllDeclaredFields(Child.class, Object.class);
+        ClassUtils.clearMetadataCache(null);
+        
+        assertNotSame(fields, ClassUtils.getAllDeclaredFields(Child.class, Object.class));
+    }
+    
+}
@@ -0,0 +1,505 @@
+/*
+ * @(#)ReflectionBenchmark.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.qrmedia.commons.reflect.PropertyPath;
+import com.qrmedia.commons.reflect.ReflectionUtils;
+
+/**
+ * Micro benchmarks for the type hierarchy methods of the {@link ClassUtils} and the property
+ * access methods of the {@link ReflectionUtils}.
+ * <p>
+ * Each method is measured with warm caches, with the caches cleared before every call (i.e.
+ * the cost of the first call for a class) and, where there is one, against the equivalent
+ * direct or plain reflective code. The type hierarchy methods are run against an eight-level
+ * generic hierarchy whose type parameters are swapped at every level.
+ * <p>
+ * Usage: <code>ReflectionBenchmark [operationsPerIteration]</code>
+ * <p>
+ * &quot;Allocation&quot; figures are the bytes allocated by the benchmark thread, if the JVM
+ * reports them, and otherwise the growth of the used heap during a run, which is only an 
+ * approximation - they are meaningful when comparing runs, not as absolute values.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ReflectionBenchmark {
+    private static final int NUM_ITERATIONS = 5;
+    private static final int DEFAULT_OPERATIONS_PER_ITERATION = 50000;
+    private static final int NUM_WARMUP_OPERATIONS = 20000;
+    
+    private static final String NESTED_PROPERTY_PATH = "partner.partner.name";
+    private static final String NESTED_PRIMITIVE_PROPERTY_PATH = "partner.age";
+    
+    // the per-thread allocation counter of HotSpot JVMs, if available
+    private static final Method GET_THREAD_ALLOCATED_BYTES = getThreadAllocatedBytesMethod();
+    
+    // results are accumulated here so that the calls cannot be optimized away
+    private static int sink;
+    
+    /* The type hierarchy */
+    
+    interface Node<N> {}
+    
+    interface Marker {}
+    
+    @SuppressWarnings("unused")
+    static class Level0<A, B> implements Node<A>, Marker {
+        private A level0First;
+        private B level0Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level1<A, B> extends Level0<B, A> {
+        private int level1First;
+        private int level1Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level2<A, B> extends Level1<List<B>, A> {
+        private A level2First;
+        private String level2Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level3<A, B> extends Level2<B, A> implements Marker {
+        private B level3First;
+        private long level3Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level4<A, B> extends Level3<A, B> {
+        private A level4First;
+        private B level4Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level5<A, B> extends Level4<B, A> {
+        private double level5First;
+        private Object level5Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level6<A, B> extends Level5<A, B> implements Marker {
+        private A level6First;
+        private boolean level6Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Level7<A, B> extends Level6<B, A> {
+        private B level7First;
+        private char level7Second;
+    }
+    
+    @SuppressWarnings("unused")
+    static class Leaf extends Level7<String, Integer> {
+        private String leafFirst;
+        private Integer leafSecond;
+    }
+    
+    /* The property paths */
+    
+    static class Person {
+        private String name;
+        private int age;
+        private Person partner;
+        
+        Person(String name, int age, Person partner) {
+            this.name = name;
+            this.age = age;
+            this.partner = partner;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param name the name to set
+         */
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the age
+         */
+        public int getAge() {
+            return age;
+        }
+
+        /**
+         * @param age the age to set
+         */
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        /**
+         * @return the partner
+         */
+        public Person getPartner() {
+            return partner;
+        }
+        
+    }
+    
+    /**
+     * A call to be measured.
+     */
+    private static abstract class Operation {
+        private final String name;
+        
+        private Operation(String name) {
+            this.name = name;
+        }
+        
+        // the result should depend on the work done
+        abstract Object run() throws Exception;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int operationsPerIteration = ((args.length > 0) ? Integer.parseInt(args[0]) 
+                                                        : DEFAULT_OPERATIONS_PER_ITERATION);
+        System.out.format("%d iterations of %d operations, allocation measured as %s%n", 
+                NUM_ITERATIONS, operationsPerIteration, 
+                ((GET_THREAD_ALLOCATED_BYTES != null) ? "thread-allocated bytes" 
+                                                      : "used heap growth (approximate)"));
+        
+        for (List<Operation> operations : Arrays.asList(getSuperclassChainOperations(), 
+                getSuperclassChainsOperations(), getAllDeclaredFieldsOperations(), 
+                getActualTypeArgumentsOperations(), getGenericSupertypeOperations(), 
+                getValueOperations(), setValueOperations())) {
+            
+            for (Operation operation : operations) {
+                warmUp(operation);
+                run(operation, operationsPerIteration);
+            }
+            
+            System.out.println();
+        }
+        
+        // just to use the sink
+        System.out.format("(%d)%n", sink);
+    }
+    
+    private static List<Operation> getSuperclassChainOperations() {
+        return Arrays.<Operation>asList(
+            new Operation("getSuperclassChain, cached") {
+                @Override
+                Object run() {
+                    return ClassUtils.getSuperclassChain(Leaf.class, Level0.class);
+                }
+            },
+            new Operation("getSuperclassChain, uncached") {
+                @Override
+                Object run() {
+                    ClassUtils.clearMetadataCache();
+                    return ClassUtils.getSuperclassChain(Leaf.class, Level0.class);
+                }
+            },
+            new Operation("getSuperclassChain, direct") {
+                @Override
+                Object run() {
+                    List<Class<?>> superclassChain = new ArrayList<Class<?>>();
+                    
+                    for (Class<?> clazz = Leaf.class; clazz != Level0.class; 
+                            clazz = clazz.getSuperclass()) {
+                        superclassChain.add(clazz);
+                    }
+                    
+                    superclassChain.add(Level0.class);
+                    return superclassChain;
+                }
+            });
+    }
+    
+    private static List<Operation> getSuperclassChainsOperations() {
+        return Arrays.<Operation>asList(
+            new Operation("getSuperclassChains (3 chains), cached") {
+                @Override
+                Object run() {
+                    return iterate(ClassUtils.getSuperclassChains(Leaf.class, Marker.class));
+                }
+            },
+            new Operation("getSuperclassChains (3 chains), uncached") {
+                @Override
+                Object run() {
+                    ClassUtils.clearMetadataCache();
+                    return iterate(ClassUtils.getSuperclassChains(Leaf.class, Marker.class));
+                }
+            });
+    }
+    
+    // the chains are enumerated lazily
+    private static Object iterate(Iterable<?> iterable) {
+        Object last = null;
+        
+        for (Object element : iterable) {
+            last = element;
+        }
+        
+        return last;
+    }
+    
+    private static List<Operation> getAllDeclaredFieldsOperations() {
+        return Arrays.<Operation>asList(
+            new Operation("getAllDeclaredFields, cached") {
+                @Override
+                Object run() {
+                    return ClassUtils.getAllDeclaredFields(Leaf.class);
+                }
+            },
+            new Operation("getAllDeclaredFields, uncached") {
+                @Override
+                Object run() {
+                    ClassUtils.clearMetadataCache();
+                    return ClassUtils.getAllDeclaredFields(Leaf.class);
+                }
+            },
+            new Operation("getAllDeclaredFields, direct") {
+                @Override
+                Object run() {
+                    List<Field> fields = new ArrayList<Field>();
+                    
+                    for (Class<?> clazz = Leaf.class; clazz != null; clazz = clazz.getSuperclass()) {
+                        fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
+                    }
+                    
+                    return fields;
+                }
+            });
+    }
+    
+    private static List<Operation> getActualTypeArgumentsOperations() {
+        return Arrays.<Operation>asList(
+            new Operation("getActualTypeArguments, cached") {
+                @Override
+                Object run() {
+                    return ClassUtils.getActualTypeArguments(Leaf.class, Level0.class);
+                }
+            },
+            new Operation("getActualTypeArguments, uncached") {
+                @Override
+                Object run() {
+                    ClassUtils.clearMetadataCache();
+                    return ClassUtils.getActualTypeArguments(Leaf.class, Level0.class);
+                }
+            },
+            // a lower bound: only the immediate superclass is inspected
+            new Operation("getActualTypeArguments, direct (1 level)") {
+                @Override
+                Object run() {
+                    return ((ParameterizedType) Leaf.class.getGenericSuperclass())
+                           .getActualTypeArguments();
+                }
+            });
+    }
+    
+    private static List<Operation> getGenericSupertypeOperations() {
+        return Arrays.<Operation>asList(
+            new Operation("getGenericSupertype, cached") {
+                @Override
+                Object run() {
+                    return ClassUtils.getGenericSupertype(Leaf.class, Node.class);
+                }
+            },
+            new Operation("getGenericSupertype, uncached") {
+                @Override
+                Object run() {
+                    ClassUtils.clearMetadataCache();
+                    return ClassUtils.getGenericSupertype(Leaf.class, Node.class);
+                }
+            });
+    }
+    
+    private static List<Operation> getValueOperations() {
+        final Person person = new Person("Sue", 42, new Person("Bob", 43, new Person("Ann", 44, null)));
+        final PropertyPath propertyPath = PropertyPath.forName(NESTED_PROPERTY_PATH);
+        return Arrays.<Operation>asList(
+            new Operation("getValue (" + NESTED_PROPERTY_PATH + "), cached") {
+                @Override
+                Object run() throws Exception {
+                    return ReflectionUtils.getValue(person, NESTED_PROPERTY_PATH);
+                }
+            },
+            new Operation("getValue (" + NESTED_PROPERTY_PATH + "), uncached") {
+                @Override
+                Object run() throws Exception {
+                    ReflectionUtils.clearFieldCache();
+                    return ReflectionUtils.getValue(person, NESTED_PROPERTY_PATH);
+                }
+            },
+            new Operation("getValue (" + NESTED_PROPERTY_PATH + "), property path") {
+                @Override
+                Object run() throws Exception {
+                    return propertyPath.getValue(person);
+                }
+            },
+            new Operation("getValue (" + NESTED_PROPERTY_PATH + "), plain reflection") {
+                @Override
+                Object run() throws Exception {
+                    Object value = person;
+                    
+                    for (String fieldName : NESTED_PROPERTY_PATH.split("\\.")) {
+                        Field field = value.getClass().getDeclaredField(fieldName);
+                        field.setAccessible(true);
+                        value = field.get(value);
+                    }
+                    
+                    return value;
+                }
+            },
+            new Operation("getValue (" + NESTED_PROPERTY_PATH + "), direct") {
+                @Override
+                Object run() {
+                    return person.getPartner().getPartner().getName();
+                }
+            });
+    }
+    
+    private static List<Operation> setValueOperations() {
+        final Person person = new Person("Sue", 42, new Person("Bob", 43, null));
+        final PropertyPath propertyPath = PropertyPath.forName(NESTED_PRIMITIVE_PROPERTY_PATH);
+        
+        // boxed outside the measured calls
+        final Integer age = Integer.valueOf(1000);
+        return Arrays.<Operation>asList(
+            new Operation("setValue (" + NESTED_PRIMITIVE_PROPERTY_PATH + "), cached") {
+                @Override
+                Object run() throws Exception {
+                    ReflectionUtils.setValue(person, NESTED_PRIMITIVE_PROPERTY_PATH, age);
+                    return person;
+                }
+            },
+            new Operation("setValue (" + NESTED_PRIMITIVE_PROPERTY_PATH + "), uncached") {
+                @Override
+                Object run() throws Exception {
+                    ReflectionUtils.clearFieldCache();
+                    ReflectionUtils.setValue(person, NESTED_PRIMITIVE_PROPERTY_PATH, age);
+                    return person;
+                }
+            },
+            new Operation("setValue (" + NESTED_PRIMITIVE_PROPERTY_PATH + "), property path") {
+                @Override
+                Object run() throws Exception {
+                    propertyPath.setValue(person, age);
+                    return person;
+                }
+            },
+            new Operation("setValue (" + NESTED_PRIMITIVE_PROPERTY_PATH + "), direct") {
+                @Override
+                Object run() {
+                    person.getPartner().setAge(age);
+                    return person;
+                }
+            });
+    }
+    
+    private static void warmUp(Operation operation) throws Exception {
+        
+        for (int i = 0; i < NUM_WARMUP_OPERATIONS; i++) {
+            sink += System.identityHashCode(operation.run());
+        }
+        
+        gc();
+    }
+    
+    private static void run(Operation operation, int operationsPerIteration) throws Exception {
+        long totalTime = 0;
+        long totalAllocation = 0;
+        
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            long allocationBefore = getAllocation();
+            long start = System.nanoTime();
+            
+            for (int j = 0; j < operationsPerIteration; j++) {
+                sink += System.identityHashCode(operation.run());
+            }
+            
+            totalTime += System.nanoTime() - start;
+            totalAllocation += Math.max(getAllocation() - allocationBefore, 0);
+            gc();
+        }
+        
+        long numOperations = (long) NUM_ITERATIONS * operationsPerIteration;
+        System.out.format("%-55s %10.1fns/op %12.0f ops/s %8d bytes/op%n", operation.name,
+                ((double) totalTime) / numOperations, 
+                numOperations / (totalTime / 1000000000.0),
+                totalAllocation / numOperations);
+    }
+    
+    private static Method getThreadAllocatedBytesMethod() {
+        
+        try {
+            Class<?> hotspotThreadMXBean = Class.forName("com.sun.management.ThreadMXBean");
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            
+            if (hotspotThreadMXBean.isInstance(threadMXBean)) {
+                Method getThreadAllocatedBytes = 
+                    hotspotThreadMXBean.getMethod("getThreadAllocatedBytes", long.class);
+                
+                // throws an exception if unsupported
+                getThreadAllocatedBytes.invoke(threadMXBean, Thread.currentThread().getId());
+                return getThreadAllocatedBytes;
+            }
+            
+        } catch (Exception exception) {
+            // not a HotSpot JVM, or too old
+        }
+        
+        return null;
+    }
+    
+    private static long getAllocation() throws Exception {
+        
+        if (GET_THREAD_ALLOCATED_BYTES != null) {
+            return (Long) GET_THREAD_ALLOCATED_BYTES.invoke(ManagementFactory.getThreadMXBean(), 
+                    Thread.currentThread().getId());
+        }
+        
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static void gc() {
+        
+        // tag
+        System.gc();
+        
+        // delete
+        System.gc();
+    }
+    
+}
@@ -0,0 +1,136 @@
+/*
+ * @(#)SuperclassChainsTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link SuperclassChains}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ClassUtilsSuperclassChainTest
+ *
+ */
+public class SuperclassChainsTest {
+    
+    // a "ladder" of diamonds: there are 2^n chains from Diamond<n>Bottom to Top
+    private static interface Top {}
+    private static interface Diamond1Left extends Top {}
+    private static interface Diamond1Right extends Top {}
+    private static interface Diamond1Bottom extends Diamond1Left, Diamond1Right {}
+    private static interface Diamond2Left extends Diamond1Bottom {}
+    private static interface Diamond2Right extends Diamond1Bottom {}
+    private static interface Diamond2Bottom extends Diamond2Left, Diamond2Right {}
+    private static interface Diamond3Left extends Diamond2Bottom {}
+    private static interface Diamond3Right extends Diamond2Bottom {}
+    private static interface Diamond3Bottom extends Diamond3Left, Diamond3Right {}
+    
+    private static class Implementation implements Diamond3Bottom, Comparable<Implementation> {
+        
+        public int compareTo(Implementation other) {
+            return 0;
+        }
+        
+    }
+    
+    @Test
+    public void size() {
+        assertEquals(8, new SuperclassChains<Top>(Diamond3Bottom.class, Top.class).size());
+        assertEquals(4, new SuperclassChains<Top>(Diamond2Bottom.class, Top.class).size());
+        assertEquals(1, new SuperclassChains<Top>(Top.class, Top.class).size());
+    }
+    
+    @Test
+    public void iterator() {
+        Set<List<Class<?>>> chains = new HashSet<List<Class<?>>>();
+        
+        for (List<Class<? extends Top>> chain 
+                : new SuperclassChains<Top>(Implementation.class, Top.class)) {
+            assertEquals(Implementation.class, chain.get(0));
+            assertEquals(Top.class, chain.get(chain.size() - 1));
+            assertTrue(chains.add(asList(chain.toArray(new Class<?>[chain.size()]))));
+        }
+        
+        assertEquals(8, chains.size());
+    }
+    
+    @Test
+    public void iterator_sameClass() {
+        Iterator<List<Class<? extends Top>>> chains = 
+            new SuperclassChains<Top>(Top.class, Top.class).iterator();
+        assertEquals(asList(Top.class), chains.next());
+        assertFalse(chains.hasNext());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void contains() {
+        SuperclassChains<Top> chains = new SuperclassChains<Top>(Diamond2Bottom.class, Top.class);
+        assertTrue(chains.contains(asList(Diamond2Bottom.class, Diamond2Right.class, 
+                Diamond1Bottom.class, Diamond1Left.class, Top.class)));
+        assertFalse(chains.contains(asList(Diamond2Bottom.class, Diamond2Right.class, 
+                Diamond1Bottom.class, Top.class)));
+        assertFalse(chains.contains(asList(Diamond2Bottom.class, Diamond2Right.class, 
+                Diamond1Bottom.class)));
+        assertFalse(chains.contains(asList()));
+        assertFalse(chains.contains(Diamond2Bottom.class));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getFirstChain() {
+        assertTrue(new SuperclassChains<Top>(Diamond3Bottom.class, Top.class).contains(
+                new SuperclassChains<Top>(Diamond3Bottom.class, Top.class).getFirstChain()));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getFirstChain_noChain() {
+        
+        // interfaces are not linked to Object
+        assertNull(new SuperclassChains(Top.class, Object.class).getFirstChain());
+        assertTrue(new SuperclassChains(Top.class, Object.class).isEmpty());
+    }
+    
+    @Test
+    public void classesOnly() {
+        assertEquals(asList(asList(Implementation.class, Object.class)), 
+                asList(new SuperclassChains<Object>(Implementation.class, Object.class).toArray()));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void unmodifiable() {
+        new SuperclassChains<Top>(Diamond3Bottom.class, Top.class).iterator().next().clear();
+    }
+    
+}
@@ -0,0 +1,302 @@
+/*
+ * @(#)ElementIndexTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.lang.model;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link ElementIndex}.
+ * <p>
+ * The index is queried by a processor while the sample source is compiled, and its
+ * results are compared to those of the corresponding {@link ElementUtils} methods.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ElementIndexTest {
+    private static final String SAMPLE_CLASS_NAME = "sample.Agent";
+    private static final String SAMPLE_SOURCE =
+        "package sample;\n"
+        + "public class Agent {\n"
+        + "    @Deprecated private String codeName;\n"
+        + "    @Deprecated @" + Licensed.class.getCanonicalName() + " public void kill() {}\n"
+        + "    public void kill(int times) {}\n"
+        + "    @SuppressWarnings(\"unused\") private Agent(String codeName) {}\n"
+        + "    public Agent() {}\n"
+        + "    public static class Villain { private Villain() {} }\n"
+        + "}\n";
+
+    @Inherited
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target({ ElementType.TYPE, ElementType.METHOD })
+    public static @interface Licensed {}
+
+    /**
+     * Queries the index for the sample class during each processing round.
+     */
+    private static abstract class IndexQuery {
+        abstract void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils);
+    }
+
+    @Test
+    public void hasPublicNoargConstructor() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                TypeElement villain = elementUtils.getTypeElement(SAMPLE_CLASS_NAME + ".Villain");
+                assertTrue(elementIndex.hasPublicNoargConstructor(agent));
+                assertFalse(elementIndex.hasPublicNoargConstructor(villain));
+                assertFalse(elementIndex.hasPublicNoargConstructor(null));
+                assertEquals(ElementUtils.hasPublicNoargConstructor(villain),
+                             elementIndex.hasPublicNoargConstructor(villain));
+            }
+
+        });
+    }
+
+    @Test
+    public void getAnnotationMirror() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                Element codeName = elementIndex.getEnclosedElement(agent, "codeName");
+                TypeElement deprecated = elementUtils.getTypeElement(Deprecated.class.getName());
+                assertNotNull(elementIndex.getAnnotationMirror(codeName, deprecated));
+                assertSame(ElementUtils.getAnnotationMirror(codeName, deprecated),
+                           elementIndex.getAnnotationMirror(codeName, deprecated));
+
+                TypeElement licensed =
+                    elementUtils.getTypeElement(Licensed.class.getCanonicalName());
+                assertNull(elementIndex.getAnnotationMirror(codeName, licensed));
+                assertNull(elementIndex.getAnnotationMirror(codeName, null));
+            }
+
+        });
+    }
+
+    @Test
+    public void getEnclosedElement() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+
+                // as for ElementUtils, the first of the overloaded methods
+                assertSame(ElementUtils.getEnclosedElement(agent, "kill"),
+                           elementIndex.getEnclosedElement(agent, "kill"));
+                assertEquals(ElementKind.FIELD,
+                             elementIndex.getEnclosedElement(agent, "codeName").getKind());
+                assertNull(elementIndex.getEnclosedElement(agent, "licenceToKill"));
+                assertNull(elementIndex.getEnclosedElement(null, "kill"));
+            }
+
+        });
+    }
+
+    @Test
+    public void getEnclosedElements() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                List<Element> methods = elementIndex.getEnclosedElements(agent, ElementKind.METHOD);
+                assertEquals(asList("kill", "kill"), getSimpleNames(methods));
+                assertTrue(elementIndex.getEnclosedElements(agent, ElementKind.CONSTRUCTOR)
+                           .size() == 2);
+                assertTrue(elementIndex.getEnclosedElements(agent, ElementKind.ENUM).isEmpty());
+
+                // the lookup is only computed once
+                assertSame(methods, elementIndex.getEnclosedElements(agent, ElementKind.METHOD));
+            }
+
+        });
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void getEnclosedElements_unmodifiable() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                elementIndex.getEnclosedElements(agent, ElementKind.METHOD).clear();
+            }
+
+        });
+    }
+
+    @Test
+    public void getAnnotatedEnclosedElements() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                List<Element> deprecatedElements =
+                    elementIndex.getAnnotatedEnclosedElements(agent, Deprecated.class);
+                assertEquals(asList("codeName", "kill"), getSimpleNames(deprecatedElements));
+                assertEquals(ElementUtils.getAnnotatedEnclosedElements(agent, Deprecated.class),
+                             deprecatedElements);
+
+                // looked up by type element
+                assertEquals(deprecatedElements, elementIndex.getAnnotatedEnclosedElements(agent,
+                        elementUtils.getTypeElement(Deprecated.class.getName())));
+                assertTrue(elementIndex.getAnnotatedEnclosedElements(agent, Override.class)
+                           .isEmpty());
+            }
+
+        });
+    }
+
+    @Test
+    public void getAnnotatedEnclosedElements_inherited() {
+        process(new IndexQuery() {
+
+            @Override
+            void query(TypeElement agent, ElementIndex elementIndex, Elements elementUtils) {
+                List<Element> licensedElements =
+                    elementIndex.getAnnotatedEnclosedElements(agent, Licensed.class);
+                assertEquals(asList("kill"), getSimpleNames(licensedElements));
+                assertEquals(ElementUtils.getAnnotatedEnclosedElements(agent, Licensed.class),
+                             licensedElements);
+
+                // the scan is only made once
+                assertSame(licensedElements,
+                           elementIndex.getAnnotatedEnclosedElements(agent, Licensed.class));
+            }
+
+        });
+    }
+
+    private static List<String> getSimpleNames(List<Element> elements) {
+        List<String> simpleNames = new ArrayList<String>(elements.size());
+
+        for (Element element : elements) {
+            simpleNames.add(element.getSimpleName().toString());
+        }
+
+        return simpleNames;
+    }
+
+    // rethrows any failure of the query, which the compiler would otherwise report
+    private static void process(IndexQuery query) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        IndexQueryProcessor processor = new IndexQueryProcessor(query);
+        CompilationTask task = compiler.getTask(null, null, null, asList("-proc:only"), null,
+                asList(new SampleSource()));
+        task.setProcessors(asList(processor));
+        assertTrue("Expected the sample to compile", task.call());
+        assertTrue("Expected the sample to be processed", processor.processed);
+
+        if (processor.failure instanceof RuntimeException) {
+            throw (RuntimeException) processor.failure;
+        } else if (processor.failure instanceof Error) {
+            throw (Error) processor.failure;
+        }
+
+    }
+
+    @SupportedAnnotationTypes("*")
+    private static class IndexQueryProcessor extends AbstractProcessor {
+        private final IndexQuery query;
+        private boolean processed;
+        private Throwable failure;
+
+        private IndexQueryProcessor(IndexQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations,
+                RoundEnvironment roundEnv) {
+
+            if (roundEnv.processingOver() || (failure != null)) {
+                return false;
+            }
+
+            Elements elementUtils = processingEnv.getElementUtils();
+
+            // elements are only valid for the current round
+            try {
+                query.query(elementUtils.getTypeElement(SAMPLE_CLASS_NAME), new ElementIndex(),
+                        elementUtils);
+            } catch (Throwable throwable) {
+                failure = throwable;
+            }
+
+            processed = true;
+            return false;
+        }
+
+    }
+
+    private static class SampleSource extends SimpleJavaFileObject {
+
+        private SampleSource() {
+            super(URI.create("string:///" + SAMPLE_CLASS_NAME.replace('.', '/')
+                    + Kind.SOURCE.extension), Kind.SOURCE);
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return SAMPLE_SOURCE;
+        }
+
+    }
+
+}
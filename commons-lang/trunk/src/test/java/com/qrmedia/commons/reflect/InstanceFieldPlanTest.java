@@ -0,0 +1,153 @@
+/*
+ * @(#)InstanceFieldPlanTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.reflect;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link InstanceFieldPlan} and the corresponding methods of the 
+ * {@link ReflectionUtils}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ReflectionUtilsTest
+ *
+ */
+public class InstanceFieldPlanTest {
+
+    @SuppressWarnings("unused")
+    private static class Parent {
+        private static String staticProperty = "static";
+        
+        private String property;
+        private int intProperty;
+    }
+    
+    private static class Child extends Parent {
+        
+        // hides the parent's field
+        private String property;
+        private final char charProperty;
+        private Object objectProperty;
+        
+        private Child(String parentProperty, String property, int intProperty, 
+                char charProperty, Object objectProperty) {
+            ((Parent) this).property = parentProperty;
+            this.property = property;
+            ((Parent) this).intProperty = intProperty;
+            this.charProperty = charProperty;
+            this.objectProperty = objectProperty;
+        }
+        
+    }
+    
+    @After
+    public void clearFieldCache() {
+        ReflectionUtils.clearFieldCache();
+    }
+    
+    @Test
+    public void getInstanceFieldPlan_cached() {
+        assertSame(ReflectionUtils.getInstanceFieldPlan(Child.class), 
+                ReflectionUtils.getInstanceFieldPlan(Child.class));
+    }
+    
+    @Test
+    public void getFields() throws NoSuchFieldException {
+        assertEquals(5, ReflectionUtils.getInstanceFieldPlan(Child.class).getFields().size());
+        assertEquals(Child.class.getDeclaredField("property"), 
+                ReflectionUtils.getInstanceFieldPlan(Child.class).getFields().get(0));
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void getFields_unmodifiable() {
+        ReflectionUtils.getInstanceFieldPlan(Child.class).getFields().clear();
+    }
+    
+    @Test
+    public void copyFields() throws IllegalAccessException {
+        Object objectProperty = new Object();
+        Child source = new Child("parent", "child", 7, 'a', objectProperty);
+        Child target = new Child(null, null, 0, 'b', null);
+        
+        ReflectionUtils.copyFields(source, target);
+        assertEquals("parent", ((Parent) target).property);
+        assertEquals("child", target.property);
+        assertEquals(7, ((Parent) target).intProperty);
+        assertEquals('a', target.charProperty);
+        assertSame(objectProperty, target.objectProperty);
+    }
+    
+    @Test
+    public void copyFields_toSubclass() throws IllegalAccessException {
+        Parent source = new Parent();
+        source.property = "parent";
+        Child target = new Child(null, "child", 0, 'a', null);
+        
+        ReflectionUtils.copyFields(source, target);
+        assertEquals("parent", ((Parent) target).property);
+        assertEquals("child", target.property);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void copyFields_toSuperclass() throws IllegalAccessException {
+        ReflectionUtils.copyFields(new Child(null, null, 0, 'a', null), new Parent());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void copyFields_nullTarget() throws IllegalAccessException {
+        ReflectionUtils.copyFields(new Parent(), null);
+    }
+    
+    @Test
+    public void getFieldValues() throws IllegalAccessException {
+        Object objectProperty = new Object();
+        assertArrayEquals(new Object[] { "child", 'a', objectProperty, "parent", 7 }, 
+                ReflectionUtils.getFieldValues(
+                        new Child("parent", "child", 7, 'a', objectProperty)));
+    }
+    
+    @Test
+    public void setFieldValues() throws IllegalAccessException {
+        Child child = new Child("parent", "child", 7, 'a', null);
+        Object[] values = ReflectionUtils.getFieldValues(child);
+        
+        ReflectionUtils.copyFields(new Child(null, null, 0, 'b', new Object()), child);
+        ReflectionUtils.setFieldValues(child, values);
+        assertArrayEquals(values, ReflectionUtils.getFieldValues(child));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void setFieldValues_wrongNumberOfValues() throws IllegalAccessException {
+        ReflectionUtils.setFieldValues(new Parent(), new Object[] { "parent" });
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void setFieldValues_wrongValueType() throws IllegalAccessException {
+        ReflectionUtils.setFieldValues(new Parent(), new Object[] { 7, "parent" });
+    }
+    
+}
@@ -0,0 +1,165 @@
+/*
+ * @(#)PropertyPathTest.java     18 Oct 2026
+ * 
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.reflect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link PropertyPath}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ * @see ReflectionUtilsTest
+ *
+ */
+public class PropertyPathTest {
+
+    @SuppressWarnings("unused")
+    private static class Parent {
+        private static Parent staticParent = new Child();
+        
+        private Object property = "parent";
+        private Parent child;
+    }
+    
+    @SuppressWarnings("unused")
+    private static class Child extends Parent {
+        
+        // hides the parent's field
+        private Object property = "child";
+    }
+    
+    @After
+    public void clearFieldCache() {
+        ReflectionUtils.clearFieldCache();
+    }
+    
+    @Test
+    public void forName_cached() {
+        assertSame(PropertyPath.forName("child.property"), PropertyPath.forName("child.property"));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void forName_null() {
+        PropertyPath.forName(null);
+    }
+    
+    @Test
+    public void clearFieldCache_discardsPaths() {
+        PropertyPath propertyPath = PropertyPath.forName("child.property");
+        ReflectionUtils.clearFieldCache(PropertyPathTest.class.getClassLoader());
+        
+        assertNotSame(propertyPath, PropertyPath.forName("child.property"));
+    }
+    
+    @Test
+    public void getValue() throws IllegalAccessException {
+        Parent parent = new Parent();
+        parent.child = new Parent();
+        parent.child.child = new Parent();
+        parent.child.child.property = "grandchild";
+        
+        assertEquals("grandchild", 
+                PropertyPath.forName("child.child.property").<Object>getValue(parent));
+    }
+    
+    @Test
+    public void getValue_static() throws IllegalAccessException {
+        assertEquals("child", 
+                PropertyPath.forName("staticParent.property").<Object>getValue(Parent.class));
+    }
+    
+    @Test
+    public void getValue_differentClasses() throws IllegalAccessException {
+        PropertyPath propertyPath = PropertyPath.forName("property");
+        
+        // the field resolved for the previous class should not be reused
+        assertEquals("parent", propertyPath.<Object>getValue(new Parent()));
+        assertEquals("child", propertyPath.<Object>getValue(new Child()));
+        assertEquals("parent", propertyPath.<Object>getValue(new Parent()));
+    }
+    
+    @Test(expected = NullPointerException.class)
+    public void getValue_nullParent() throws IllegalAccessException {
+        PropertyPath.forName("child.property").getValue(new Parent());
+    }
+    
+    @Test
+    public void getValue_nonexistentProperty() {
+        
+        try {
+            PropertyPath.forName("nonexistent.child").getValue(new Child());
+            fail("Expected an IllegalAccessException to be thrown");
+        } catch (IllegalAccessException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().startsWith(
+                    "Unable to get value of field 'nonexistent' of object"));
+        }
+        
+        Parent parent = new Parent();
+        parent.child = new Parent();
+        
+        try {
+            PropertyPath.forName("child.nonexistent").getValue(parent);
+            fail("Expected an IllegalAccessException to be thrown");
+        } catch (IllegalAccessException exception) {
+            assertTrue(exception.getMessage(), exception.getMessage().endsWith(
+                    "due to NoSuchFieldException: nonexistent"));
+        }
+        
+    }
+    
+    @Test
+    public void setValue() throws IllegalAccessException {
+        Parent parent = new Parent();
+        parent.child = new Child();
+        
+        PropertyPath.forName("child.property").setValue(parent, "007");
+        assertEquals("007", ((Child) parent.child).property);
+        assertEquals("parent", ((Parent) parent.child).property);
+    }
+    
+    @Test
+    public void setValue_static() throws IllegalAccessException {
+        Parent staticParent = Parent.staticParent;
+        
+        try {
+            Parent newParent = new Parent();
+            PropertyPath.forName("staticParent").setValue(Parent.class, newParent);
+            assertSame(newParent, Parent.staticParent);
+        } finally {
+            Parent.staticParent = staticParent;
+        }
+        
+    }
+    
+    @Test(expected = IllegalAccessException.class)
+    public void setValue_nonexistentProperty() throws IllegalAccessException {
+        PropertyPath.forName("nonexistent").setValue(new Parent(), null);
+    }
+    
+}
@@ -0,0 +1,222 @@
+/*
+ * @(#)CopyOnWriteEntityCloner.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javassist.util.proxy.MethodFilter;
+import javassist.util.proxy.ProxyFactory;
+import javassist.util.proxy.ProxyObject;
+
+import com.qrmedia.commons.collections.Pair;
+import com.qrmedia.commons.persistence.hibernate.clone.CopyOnWriteEntityView.ViewedProperties;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.DefaultPropertyClassifier;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.PropertyClassifier;
+
+/**
+ * &quot;Lazily&quot; clones a graph of Hibernate entities by returning copy-on-write
+ * {@link CopyOnWriteView views} of the original entities.
+ * <p>
+ * A view shares the simple property values and the related entities of its original
+ * until it is modified, i.e. until a method other than a getter of a cloned property,
+ * <code>equals</code>, <code>hashCode</code> or <code>toString</code> is called. Only
+ * then is the view <i>materialized</i>: a copy of the original is created to which
+ * the view delegates from then on. The views through which the modified view was
+ * reached (its &quot;parents&quot;) are materialized too, so that the path from
+ * the root to each modified entity consists of real copies. All other entities
+ * are never copied.
+ * <p>
+ * Related entities are returned as views themselves, so a graph can be navigated
+ * and edited as if it were a clone returned by a {@link HibernateEntityGraphCloner}.
+ * As for the graph cloner, an entity reachable along different paths is represented
+ * by a single view. Reading a collection property returns a copy of the collection,
+ * the modification of which materializes the view; reading a <code>Cloneable</code>
+ * property returns a copy of the value that is private to the view, but changing it in
+ * place does <u>not</u> materialize the view.
+ * <p>
+ * {@link CopyOnWriteView#materialize()} materializes all the views reachable from
+ * the view it is called on, and returns a copy that only refers to other copies, i.e.
+ * which can be persisted or detached like a clone returned by a graph cloner.
+ * <p>
+ * The same properties as for a {@link HibernateEntityGraphCloner} are cloned (see
+ * {@link HibernateEntityBeanCloner}), using the access mode of the 
+ * {@link #setEntityBeanCloner(HibernateEntityBeanCloner) entity bean cloner}; non-cloned
+ * properties such as <code>@Version</code> and, unless IDs are preserved, 
+ * <code>@Id</code> properties have their default values.
+ * <p>
+ * Views are runtime subclasses of the entity classes, so final methods are not intercepted
+ * and must not be used on views.
+ * <p>
+ * Unlike the <code>HibernateEntityGraphCloner</code>, this class is thread-safe.
+ * The views returned are <u>not</u> thread-safe.
+ *
+ * @author aphillips
+ * @see CopyOnWriteView
+ * @see HibernateEntityGraphCloner
+ * @since 18 Oct 2026
+ *
+ */
+public class CopyOnWriteEntityCloner {
+    private static final Map<Class<?>, Class<?>> VIEW_CLASS_CACHE =
+        Collections.synchronizedMap(new HashMap<Class<?>, Class<?>>());
+
+    /*
+     * Non-public methods need not be intercepted: once a public method has been
+     * delegated, any calls it makes on "this" are made on the original or clone.
+     */
+    private static final MethodFilter PUBLIC_METHOD_FILTER = new MethodFilter() {
+        public boolean isHandled(Method method) {
+            return Modifier.isPublic(method.getModifiers()) 
+                   && !method.getName().equals("finalize");
+        }
+    };
+
+    private PropertyClassifier propertyClassifier = new DefaultPropertyClassifier();
+    private HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+
+    // depend on the access mode of the entity bean cloner, so are held per cloner
+    private final Map<Pair<Class<?>, Boolean>, ViewedProperties> viewedPropertiesCache =
+        Collections.synchronizedMap(new HashMap<Pair<Class<?>, Boolean>, ViewedProperties>());
+
+    /**
+     * Lazily clones an entity, ignoring IDs.
+     *
+     * @param <T>   the type of the entity
+     * @param entity    the non-<code>null</code> entity to clone
+     * @return  a copy-on-write view of the entity, which also implements {@link CopyOnWriteView}
+     * @see #clone(Object, boolean)
+     */
+    public <T> T clone(T entity) {
+        return clone(entity, false);
+    }
+
+    /**
+     * Lazily clones an entity, optionally preserving ID fields.
+     *
+     * @param <T>   the type of the entity
+     * @param entity    the non-<code>null</code> entity to clone
+     * @param preserveId    <code>true</code> iff ID fields are to be preserved
+     * @return  a copy-on-write view of the entity, which also implements {@link CopyOnWriteView}
+     * @throws IllegalArgumentException if <code>entity</code> is <code>null</code>
+     * @see #clone(Object)
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T clone(T entity, boolean preserveId) {
+
+        if (entity == null) {
+            throw new IllegalArgumentException("'entity' may not be null");
+        }
+
+        return (T) new CopyOnWriteEntityView(this, entity, preserveId).getView();
+    }
+
+    /**
+     * Creates a new, uninitialized view instance for the given entity class.
+     *
+     * @param entityClass   the class of the entity to be viewed
+     * @param view  the handler of the view
+     * @return  a new view instance
+     */
+    static Object newViewInstance(Class<?> entityClass, CopyOnWriteEntityView view) {
+        Object viewInstance;
+
+        try {
+            viewInstance = getViewClass(entityClass).newInstance();
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to create a view of " + entityClass
+                    + " due to " + exception.getClass().getSimpleName() + ": "
+                    + exception.getMessage());
+        }
+
+        ((ProxyObject) viewInstance).setHandler(view);
+        return viewInstance;
+    }
+
+    // cache the generated classes as they only depend on the entity class
+    private static Class<?> getViewClass(Class<?> entityClass) {
+        Class<?> viewClass = VIEW_CLASS_CACHE.get(entityClass);
+
+        if (viewClass == null) {
+            ProxyFactory proxyFactory = new ProxyFactory();
+            proxyFactory.setSuperclass(entityClass);
+            proxyFactory.setInterfaces(new Class[] { CopyOnWriteView.class });
+            proxyFactory.setFilter(PUBLIC_METHOD_FILTER);
+            viewClass = proxyFactory.createClass();
+            VIEW_CLASS_CACHE.put(entityClass, viewClass);
+        }
+
+        return viewClass;
+    }
+
+    // cache these values as they are (CGLIB and AOP magic aside) static per class
+    ViewedProperties getViewedProperties(Object entity, boolean preserveId) {
+        Pair<Class<?>, Boolean> cacheKey =
+            new Pair<Class<?>, Boolean>(entity.getClass(), Boolean.valueOf(preserveId));
+        ViewedProperties viewedProperties = viewedPropertiesCache.get(cacheKey);
+
+        if (viewedProperties == null) {
+            viewedProperties = new ViewedProperties(entity, preserveId, entityBeanCloner);
+            viewedPropertiesCache.put(cacheKey, viewedProperties);
+        }
+
+        return viewedProperties;
+    }
+
+    /**
+     * @param value the value to check
+     * @return  <code>true</code> iff the value may be shared between original and view
+     */
+    boolean isSimpleValue(Object value) {
+        return ((value == null) || propertyClassifier.isSimpleProperty(value.getClass()));
+    }
+
+    /* Getter(s) and setter(s) */
+
+    /**
+     * @param propertyClassifier the propertyClassifier to set
+     */
+    public void setPropertyClassifier(PropertyClassifier propertyClassifier) {
+        this.propertyClassifier = propertyClassifier;
+    }
+
+    /**
+     * @return the entityBeanCloner whose access mode is used to read and write the
+     *         properties of the entities
+     */
+    HibernateEntityBeanCloner getEntityBeanCloner() {
+        return entityBeanCloner;
+    }
+
+    /**
+     * Sets the entity bean cloner whose access mode (see 
+     * {@link HibernateEntityBeanCloner#setFieldAccessEnabled(boolean)}) is used to read 
+     * and write the properties of the entities. Defaults to a cloner using property access.
+     * 
+     * @param entityBeanCloner the entityBeanCloner to set
+     */
+    public void setEntityBeanCloner(HibernateEntityBeanCloner entityBeanCloner) {
+        this.entityBeanCloner = entityBeanCloner;
+        viewedPropertiesCache.clear();
+    }
+
+}
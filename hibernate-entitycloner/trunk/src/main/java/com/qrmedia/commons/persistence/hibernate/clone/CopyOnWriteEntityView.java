@@ -0,0 +1,595 @@
+/*
+ * @(#)CopyOnWriteEntityView.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javassist.util.proxy.MethodHandler;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+/**
+ * The state of a {@link CopyOnWriteView} for one original entity, and the handler
+ * of all the calls made to the view.
+ *
+ * @author aphillips
+ * @see CopyOnWriteEntityCloner
+ * @since 18 Oct 2026
+ *
+ */
+final class CopyOnWriteEntityView implements MethodHandler {
+
+    // collection methods that are passed to the copy without materializing the view
+    private static final Set<String> READ_ONLY_COLLECTION_METHODS = new HashSet<String>(
+            Arrays.asList("size", "isEmpty", "contains", "containsAll", "toArray", "get",
+                          "indexOf", "lastIndexOf", "equals", "hashCode", "toString"));
+
+    private final CopyOnWriteEntityCloner entityCloner;
+    private final Object original;
+    private final boolean preserveId;
+    private final ViewedProperties viewedProperties;
+
+    // shared by all views created by the same clone call
+    private final IdentityHashMap<Object, CopyOnWriteEntityView> views;
+    private final IdentityHashMap<Object, CopyOnWriteEntityView> viewHandlers;
+
+    // the views through which this view was reached
+    private final List<CopyOnWriteEntityView> parents = new ArrayList<CopyOnWriteEntityView>();
+
+    // copies of collection and cloneable values handed out before materialization
+    private final Map<String, Object> propertyCopies = new HashMap<String, Object>();
+    private final Map<String, Collection<?>> collectionViews = new HashMap<String, Collection<?>>();
+
+    private final Object view;
+    private Object clone;
+
+    /**
+     * Creates a <code>CopyOnWriteEntityView</code> for the root of a new clone operation.
+     *
+     * @param entityCloner  the cloner creating the view
+     * @param entity  the entity to be viewed
+     * @param preserveId    <code>true</code> iff ID fields are to be preserved
+     */
+    CopyOnWriteEntityView(CopyOnWriteEntityCloner entityCloner, Object entity,
+            boolean preserveId) {
+        this(entityCloner, entity, preserveId, new IdentityHashMap<Object, CopyOnWriteEntityView>(),
+             new IdentityHashMap<Object, CopyOnWriteEntityView>());
+    }
+
+    private CopyOnWriteEntityView(CopyOnWriteEntityCloner entityCloner, Object entity,
+            boolean preserveId, IdentityHashMap<Object, CopyOnWriteEntityView> views,
+            IdentityHashMap<Object, CopyOnWriteEntityView> viewHandlers) {
+        this.entityCloner = entityCloner;
+
+        // the fields of a Hibernate proxy are not those of the entity it represents
+        original = HibernateEntityBeanCloner.getImplementation(entity);
+        this.preserveId = preserveId;
+        this.views = views;
+        this.viewHandlers = viewHandlers;
+        viewedProperties = entityCloner.getViewedProperties(original, preserveId);
+        view = CopyOnWriteEntityCloner.newViewInstance(
+                HibernateEntityBeanCloner.getEntityClass(original), this);
+        views.put(entity, this);
+        viewHandlers.put(view, this);
+    }
+
+    /**
+     * @return the view instance, which is an instance of the entity class and of
+     *         {@link CopyOnWriteView}
+     */
+    Object getView() {
+        return view;
+    }
+
+    /* (non-Javadoc)
+     * @see javassist.util.proxy.MethodHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.reflect.Method, java.lang.Object[])
+     */
+    public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args)
+            throws Throwable {
+
+        if (thisMethod.getDeclaringClass() == CopyOnWriteView.class) {
+            return (thisMethod.getName().equals("isMaterialized")
+                    ? Boolean.valueOf(clone != null) : materializeGraph());
+        }
+
+        // the view stands for the clone, so must at least be equal to itself
+        if (isEqualsMethod(thisMethod)) {
+            return Boolean.valueOf(viewEquals(self, thisMethod, args[0]));
+        }
+
+        // an identity hash code must not change when the view is materialized
+        if (isHashCodeMethod(thisMethod) && (thisMethod.getDeclaringClass() == Object.class)) {
+            return Integer.valueOf(System.identityHashCode(self));
+        }
+
+        if (clone != null) {
+            return invoke(thisMethod, clone, args);
+        }
+
+        boolean noArgs = ((args == null) || (args.length == 0));
+        String methodName = thisMethod.getName();
+
+        if (noArgs && viewedProperties.clonedGetters.containsKey(methodName)) {
+            return getClonedProperty(viewedProperties.clonedGetters.get(methodName),
+                                     thisMethod.getReturnType());
+        }
+
+        // non-cloned properties (e.g. @Version) have their default values in the view
+        if (noArgs && viewedProperties.nonClonedGetters.contains(methodName)) {
+            return proceed.invoke(self, args);
+        }
+
+        if (isReadOnlyObjectMethod(thisMethod)) {
+            return invoke(thisMethod, original, args);
+        }
+
+        // anything else may modify the entity
+        return invoke(thisMethod, materialize(), args);
+    }
+
+    private static boolean isReadOnlyObjectMethod(Method method) {
+        return (isHashCodeMethod(method) 
+                || (method.getName().equals("toString") 
+                    && (method.getParameterTypes().length == 0)));
+    }
+
+    private static boolean isEqualsMethod(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        return (method.getName().equals("equals") && (parameterTypes.length == 1)
+                && (parameterTypes[0] == Object.class));
+    }
+
+    private static boolean isHashCodeMethod(Method method) {
+        return (method.getName().equals("hashCode") && (method.getParameterTypes().length == 0));
+    }
+
+    /*
+     * Entities with identity equals are only equal to the view itself. Otherwise, the
+     * entity the view currently delegates to is compared to the argument or, if that
+     * is another view of the same clone call, to the entity that view delegates to, so
+     * that equals methods comparing classes see the entity class rather than the view's.
+     */
+    private boolean viewEquals(Object self, Method equals, Object other) throws Throwable {
+
+        if (other == self) {
+            return true;
+        }
+
+        if (equals.getDeclaringClass() == Object.class) {
+            return false;
+        }
+
+        CopyOnWriteEntityView otherView = viewHandlers.get(other);
+        return ((Boolean) invoke(equals, getDelegate(), 
+                new Object[] { ((otherView != null) ? otherView.getDelegate() : other) }))
+               .booleanValue();
+    }
+
+    // the entity the view's reads are currently passed to
+    private Object getDelegate() {
+        return ((clone != null) ? clone : original);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args)
+            throws Throwable {
+
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exception) {
+
+            // rethrow what the target threw
+            throw exception.getCause();
+        }
+
+    }
+
+    private Object getClonedProperty(String propertyName, Class<?> propertyType) {
+        Object value = getProperty(original, propertyName);
+
+        if (entityCloner.isSimpleValue(value)) {
+            return value;
+        }
+
+        /*
+         * Collections may be modified in place, so a copy is returned through a collection
+         * view that materializes this view when the collection is modified. Concrete 
+         * collection types cannot be wrapped, so the view is materialized immediately.
+         */
+        if (value instanceof Collection<?>) {
+
+            if (!propertyType.isInterface()) {
+                return getProperty(materialize(), propertyName);
+            }
+
+            Collection<?> collectionView = collectionViews.get(propertyName);
+
+            if (collectionView == null) {
+                collectionView = newCollectionView(propertyName, value);
+                collectionViews.put(propertyName, collectionView);
+            }
+
+            return collectionView;
+        }
+
+        // cloneables may also be modified in place, but cannot be wrapped
+        if (value instanceof Cloneable) {
+            return getPropertyCopy(propertyName, value);
+        }
+
+        return getChildView(value).view;
+    }
+
+    // the copy is taken over by the clone when the view is materialized
+    private Object getPropertyCopy(String propertyName, Object value) {
+
+        if (!propertyCopies.containsKey(propertyName)) {
+            propertyCopies.put(propertyName, copyValue(value));
+        }
+
+        return propertyCopies.get(propertyName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<?> newCollectionView(String propertyName, Object value) {
+        Collection<Object> collectionCopy = 
+            (Collection<Object>) getPropertyCopy(propertyName, value);
+        Class<?> collectionInterface = ((collectionCopy instanceof List) ? List.class : Set.class);
+        return (Collection<?>) Proxy.newProxyInstance(
+                CopyOnWriteEntityView.class.getClassLoader(), new Class[] { collectionInterface }, 
+                new CollectionViewHandler(collectionCopy));
+    }
+
+    private CopyOnWriteEntityView getChildView(Object entity) {
+        CopyOnWriteEntityView childView = views.get(entity);
+
+        if (childView == null) {
+            childView = new CopyOnWriteEntityView(entityCloner, entity, preserveId, views, 
+                                                  viewHandlers);
+        }
+
+        // a shared entity has multiple parents
+        if (!childView.parents.contains(this)) {
+            childView.parents.add(this);
+        }
+
+        return childView;
+    }
+
+    /**
+     * Creates the copy of the original to which the view delegates from now on, if
+     * that has not already been done, and materializes all the parent views.
+     * <p>
+     * Related entities are still represented by their views in the copy.
+     *
+     * @return the copy of the original entity
+     */
+    Object materialize() {
+
+        if (clone != null) {
+            return clone;
+        }
+
+        try {
+            clone = HibernateEntityBeanCloner.getEntityClass(original).newInstance();
+        } catch (Exception exception) {
+            throw new AssertionError("Unable to clone entity " + original + " due to "
+                    + exception.getClass().getSimpleName() + ": " + exception.getMessage());
+        }
+
+        for (String propertyName : viewedProperties.clonedPropertyNames) {
+
+            // copies already handed out are taken over, so that changes to them are kept
+            setProperty(clone, propertyName, (propertyCopies.containsKey(propertyName) 
+                                              ? propertyCopies.get(propertyName) 
+                                              : copyValue(getProperty(original, propertyName))));
+        }
+
+        propertyCopies.clear();
+
+        for (CopyOnWriteEntityView parent : parents) {
+            parent.materialize();
+        }
+
+        return clone;
+    }
+
+    /**
+     * Materializes this view and all the views reachable from it, and replaces all the
+     * references to views in the resulting copies by references to the copies themselves,
+     * so that the copies can be persisted or detached.
+     *
+     * @return the copy of the original entity
+     */
+    private Object materializeGraph() {
+        Set<CopyOnWriteEntityView> unwrappedViews = new HashSet<CopyOnWriteEntityView>();
+        List<CopyOnWriteEntityView> pendingViews = new ArrayList<CopyOnWriteEntityView>();
+        pendingViews.add(this);
+
+        while (!pendingViews.isEmpty()) {
+            CopyOnWriteEntityView pendingView = pendingViews.remove(pendingViews.size() - 1);
+
+            if (unwrappedViews.add(pendingView)) {
+                pendingView.unwrap(pendingViews);
+            }
+
+        }
+
+        return clone;
+    }
+
+    // replaces references to views in the copy, adding the views referenced to the list
+    @SuppressWarnings("unchecked")
+    private void unwrap(List<CopyOnWriteEntityView> referencedViews) {
+        materialize();
+
+        for (String propertyName : viewedProperties.clonedPropertyNames) {
+            Object value = getProperty(clone, propertyName);
+            CopyOnWriteEntityView referencedView = viewHandlers.get(value);
+
+            if (referencedView != null) {
+                setProperty(clone, propertyName, referencedView.materialize());
+                referencedViews.add(referencedView);
+            } else if (value instanceof Collection<?>) {
+                unwrapMembers((Collection<Object>) value, referencedViews);
+            }
+
+        }
+
+    }
+
+    private void unwrapMembers(Collection<Object> collection, 
+            List<CopyOnWriteEntityView> referencedViews) {
+        List<Object> members = new ArrayList<Object>(collection.size());
+        boolean viewsReplaced = false;
+
+        for (Object member : collection) {
+            CopyOnWriteEntityView memberView = viewHandlers.get(member);
+
+            if (memberView != null) {
+                members.add(memberView.materialize());
+                referencedViews.add(memberView);
+                viewsReplaced = true;
+            } else {
+                members.add(member);
+            }
+
+        }
+
+        // the collection is refilled in place, since collection views may share it
+        if (viewsReplaced) {
+            collection.clear();
+            collection.addAll(members);
+        }
+
+    }
+
+    private Object copyValue(Object value) {
+
+        if (entityCloner.isSimpleValue(value)) {
+            return value;
+        }
+
+        if (value instanceof Collection) {
+            Collection<Object> collectionCopy = newCollectionInterfaceInstance((Collection<?>) value);
+
+            // members that are entities are represented by their views
+            for (Object member : (Collection<?>) value) {
+                collectionCopy.add(entityCloner.isSimpleValue(member)
+                                   ? member : getChildView(member).view);
+            }
+
+            return collectionCopy;
+        }
+
+        if (value instanceof Cloneable) {
+            return clone((Cloneable) value);
+        }
+
+        return getChildView(value).view;
+    }
+
+    // as AbstractValueAwareCollectionCloner.newCollectionInterfaceInstance
+    private static Collection<Object> newCollectionInterfaceInstance(Collection<?> collection) {
+
+        if (collection instanceof List) {
+            return new ArrayList<Object>(collection.size());
+        } else if (collection instanceof Set) {
+            return new HashSet<Object>(collection.size());
+        } else {
+            throw new IllegalArgumentException("Unsupported collection type: "
+                    + collection.getClass());
+        }
+
+    }
+
+    // as CloneablePropertyCloner.clone
+    private static Object clone(Cloneable cloneable) {
+
+        try {
+            return cloneable.getClass().getMethod("clone", (Class[]) null)
+                   .invoke(cloneable, (Object[]) null);
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to clone " + cloneable + " due to "
+                    + exception.getClass().getSimpleName() + ": " + exception.getMessage());
+        }
+
+    }
+
+    private Object getProperty(Object entity, String propertyName) {
+
+        try {
+            return EntityPropertyUtils.getProperty(entity, propertyName, 
+                                                   entityCloner.getEntityBeanCloner());
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to get property '" + propertyName
+                    + "' of " + entity + " due to " + exception.getClass().getSimpleName()
+                    + ": " + exception.getMessage());
+        }
+
+    }
+
+    private void setProperty(Object entity, String propertyName, Object value) {
+
+        try {
+            EntityPropertyUtils.setProperty(entity, propertyName, value, 
+                                            entityCloner.getEntityBeanCloner());
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to set property '" + propertyName
+                    + "' on " + entity + " due to " + exception.getClass().getSimpleName()
+                    + ": " + exception.getMessage());
+        }
+
+    }
+
+    /**
+     * Handles the calls made to a collection returned by a view: reads are passed to the
+     * copy of the original collection, any other calls first materialize the view, which
+     * takes over the copy.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class CollectionViewHandler implements InvocationHandler {
+        private final Collection<Object> collectionCopy;
+
+        private CollectionViewHandler(Collection<Object> collectionCopy) {
+            this.collectionCopy = collectionCopy;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+         */
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String methodName = method.getName();
+
+            if (methodName.equals("iterator") && ((args == null) || (args.length == 0))) {
+                return new CopyOnWriteIterator(collectionCopy.iterator());
+            }
+
+            if (!READ_ONLY_COLLECTION_METHODS.contains(methodName)) {
+                materialize();
+            }
+
+            return CopyOnWriteEntityView.invoke(method, collectionCopy, args);
+        }
+
+    }
+
+    /**
+     * An iterator over a collection copy that materializes the view before removing
+     * an element.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class CopyOnWriteIterator implements Iterator<Object> {
+        private final Iterator<Object> iterator;
+
+        private CopyOnWriteIterator(Iterator<Object> iterator) {
+            this.iterator = iterator;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+            return iterator.hasNext();
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#next()
+         */
+        public Object next() {
+            return iterator.next();
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+            materialize();
+            iterator.remove();
+        }
+
+    }
+
+    /**
+     * The cloned properties of an entity class, and the getters of its cloned and 
+     * non-cloned bean properties.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    static final class ViewedProperties {
+        private final Collection<String> clonedPropertyNames;
+
+        // getter method names to property names
+        private final Map<String, String> clonedGetters = new HashMap<String, String>();
+        private final Set<String> nonClonedGetters = new HashSet<String>();
+
+        /**
+         * @param entity    an instance of the entity class, which is not a Hibernate proxy
+         * @param preserveId    <code>true</code> iff ID fields are to be preserved
+         * @param entityBeanCloner  the cloner whose access mode determines the properties
+         *                          cloned
+         */
+        ViewedProperties(Object entity, boolean preserveId, 
+                HibernateEntityBeanCloner entityBeanCloner) {
+            clonedPropertyNames = entityBeanCloner.getClonedPropertyNames(entity, preserveId);
+
+            for (PropertyDescriptor propertyDescriptor
+                    : PropertyUtils.getPropertyDescriptors(entity.getClass())) {
+                Method readMethod = propertyDescriptor.getReadMethod();
+
+                if (readMethod == null) {
+                    continue;
+                }
+
+                String propertyName = propertyDescriptor.getName();
+
+                if (clonedPropertyNames.contains(propertyName)) {
+                    clonedGetters.put(readMethod.getName(), propertyName);
+                } else if (propertyDescriptor.getWriteMethod() != null) {
+                    nonClonedGetters.add(readMethod.getName());
+                }
+
+            }
+
+        }
+
+    }
+
+}
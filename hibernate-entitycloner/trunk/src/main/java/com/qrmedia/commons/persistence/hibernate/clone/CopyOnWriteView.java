@@ -0,0 +1,46 @@
+/*
+ * @(#)CopyOnWriteView.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+/**
+ * Implemented by all the lazy clones returned by a {@link CopyOnWriteEntityCloner}.
+ *
+ * @author aphillips
+ * @see CopyOnWriteEntityCloner
+ * @since 18 Oct 2026
+ *
+ */
+public interface CopyOnWriteView {
+
+    /**
+     * @return <code>true</code> iff the view has been modified and is thus no longer
+     *         sharing the state of the original entity
+     */
+    boolean isMaterialized();
+
+    /**
+     * Materializes the view, if necessary, and returns the (real) clone to which
+     * it delegates. All the views reachable from this view are materialized too, and
+     * the returned clone and the clones reachable from it refer to each other directly 
+     * rather than through their views, so that they can be persisted or detached.
+     *
+     * @return the materialized clone of the original entity
+     */
+    Object materialize();
+}
@@ -0,0 +1,279 @@
+/*
+ * @(#)EntityGraphChangeSet.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * The differences between an original entity graph and a modified clone, as determined
+ * by a {@link HibernateEntityGraphDiffer}.
+ * <p>
+ * Changes are reported against the <u>original</u> entities, so that the original
+ * (persistent) entities may be updated, e.g. in a batch, by applying the changes.
+ * New values and added collection members referring to clones are reported as the
+ * corresponding originals, whereas new entities are reported as they are.
+ *
+ * @author aphillips
+ * @see HibernateEntityGraphDiffer
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityGraphChangeSet {
+    private final List<PropertyChange> propertyChanges = new ArrayList<PropertyChange>();
+    private final List<CollectionChange> collectionChanges = new ArrayList<CollectionChange>();
+    private final List<Object> newEntities = new ArrayList<Object>();
+
+    // in the order in which they were first changed
+    private final List<Object> changedEntities = new ArrayList<Object>();
+    private final Map<Object, Object> changedEntitySet = new IdentityHashMap<Object, Object>();
+
+    void addPropertyChange(PropertyChange propertyChange) {
+        propertyChanges.add(propertyChange);
+        addChangedEntity(propertyChange.getEntity());
+    }
+
+    void addCollectionChange(CollectionChange collectionChange) {
+        collectionChanges.add(collectionChange);
+        addChangedEntity(collectionChange.getEntity());
+    }
+
+    private void addChangedEntity(Object entity) {
+
+        if (!changedEntitySet.containsKey(entity)) {
+            changedEntitySet.put(entity, entity);
+            changedEntities.add(entity);
+        }
+
+    }
+
+    void addNewEntity(Object entity) {
+        newEntities.add(entity);
+    }
+
+    /**
+     * @return <code>true</code> iff no differences were found
+     */
+    public boolean isEmpty() {
+        return (propertyChanges.isEmpty() && collectionChanges.isEmpty()
+                && newEntities.isEmpty());
+    }
+
+    /**
+     * @return the changes of non-collection properties
+     */
+    public List<PropertyChange> getPropertyChanges() {
+        return Collections.unmodifiableList(propertyChanges);
+    }
+
+    /**
+     * @return the changes of collection properties
+     */
+    public List<CollectionChange> getCollectionChanges() {
+        return Collections.unmodifiableList(collectionChanges);
+    }
+
+    /**
+     * @return the entities in the modified graph that have no original, i.e. that
+     *         need to be saved
+     */
+    public List<Object> getNewEntities() {
+        return Collections.unmodifiableList(newEntities);
+    }
+
+    /**
+     * @return the original entities with at least one property or collection change,
+     *         i.e. that need to be updated
+     */
+    public List<Object> getChangedEntities() {
+        return Collections.unmodifiableList(changedEntities);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this).append("propertyChanges", propertyChanges)
+               .append("collectionChanges", collectionChanges)
+               .append("newEntities", newEntities).toString();
+    }
+
+    /**
+     * A change of the value of a property of an entity.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    public static class PropertyChange {
+        private final Object entity;
+        private final String propertyName;
+        private final Object oldValue;
+        private final Object newValue;
+
+        /**
+         * Creates a <code>PropertyChange</code>.
+         *
+         * @param entity    the original entity
+         * @param propertyName  the name of the changed property
+         * @param oldValue  the value of the property of the original entity
+         * @param newValue  the value of the property in the modified graph
+         */
+        PropertyChange(Object entity, String propertyName, Object oldValue, Object newValue) {
+            this.entity = entity;
+            this.propertyName = propertyName;
+            this.oldValue = oldValue;
+            this.newValue = newValue;
+        }
+
+        /**
+         * @return the original entity
+         */
+        public Object getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return the name of the changed property
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * @return the value of the property of the original entity
+         */
+        public Object getOldValue() {
+            return oldValue;
+        }
+
+        /**
+         * @return the value of the property in the modified graph
+         */
+        public Object getNewValue() {
+            return newValue;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this).append("entity", entity)
+                   .append("propertyName", propertyName).append("oldValue", oldValue)
+                   .append("newValue", newValue).toString();
+        }
+
+    }
+
+    /**
+     * A change of the members of a collection property of an entity.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    public static class CollectionChange {
+        private final Object entity;
+        private final String propertyName;
+        private final Collection<Object> addedMembers;
+        private final Collection<Object> removedMembers;
+        private final boolean reordered;
+
+        /**
+         * Creates a <code>CollectionChange</code>.
+         *
+         * @param entity    the original entity
+         * @param propertyName  the name of the changed collection property
+         * @param addedMembers  the members of the modified collection that are not
+         *                      members of the original collection
+         * @param removedMembers    the members of the original collection that are
+         *                          not members of the modified collection
+         * @param reordered <code>true</code> iff the collection is a list whose remaining
+         *                  members are in a different order
+         */
+        CollectionChange(Object entity, String propertyName, Collection<Object> addedMembers,
+                Collection<Object> removedMembers, boolean reordered) {
+            this.entity = entity;
+            this.propertyName = propertyName;
+            this.addedMembers = addedMembers;
+            this.removedMembers = removedMembers;
+            this.reordered = reordered;
+        }
+
+        /**
+         * @return the original entity
+         */
+        public Object getEntity() {
+            return entity;
+        }
+
+        /**
+         * @return the name of the changed collection property
+         */
+        public String getPropertyName() {
+            return propertyName;
+        }
+
+        /**
+         * @return the members of the modified collection that are not members of the
+         *         original collection. Duplicates are counted, i.e. an additional 
+         *         occurrence of a member is an added member.
+         */
+        public Collection<Object> getAddedMembers() {
+            return Collections.unmodifiableCollection(addedMembers);
+        }
+
+        /**
+         * @return the members of the original collection that are not members of the
+         *         modified collection. Duplicates are counted.
+         */
+        public Collection<Object> getRemovedMembers() {
+            return Collections.unmodifiableCollection(removedMembers);
+        }
+
+        /**
+         * @return <code>true</code> iff the collection is a list and the members that 
+         *         were neither added nor removed are in a different order
+         */
+        public boolean isReordered() {
+            return reordered;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return new ToStringBuilder(this).append("entity", entity)
+                   .append("propertyName", propertyName).append("addedMembers", addedMembers)
+                   .append("removedMembers", removedMembers).append("reordered", reordered)
+                   .toString();
+        }
+
+    }
+
+}
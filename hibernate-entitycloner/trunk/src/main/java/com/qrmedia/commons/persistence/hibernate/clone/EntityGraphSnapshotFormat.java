@@ -0,0 +1,74 @@
+/*
+ * @(#)EntityGraphSnapshotFormat.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.nio.charset.Charset;
+
+/**
+ * Constants describing the binary format written by the {@link EntityGraphSnapshotWriter}
+ * and read by the {@link EntityGraphSnapshotReader}.
+ * <p>
+ * A snapshot consists of
+ * <ol>
+ * <li>the format version (byte)
+ * <li>the class table: the number of classes, followed by the name, number of properties
+ *     and property names of each class
+ * <li>the entity table: the number of entities, followed by the class table index of each
+ *     entity
+ * <li>the property values of each entity, in the order of the class table, each as a tag
+ *     byte followed by the value. Entities are written as their entity table index, so
+ *     shared entities are written only once.
+ * <li>the number of root entities, followed by their entity table indices
+ * </ol>
+ * Strings are written as their length in bytes followed by their UTF-8 encoding.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+final class EntityGraphSnapshotFormat {
+    static final byte FORMAT_VERSION = 1;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /* Value tags */
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte BOOLEAN = 4;
+    static final byte DOUBLE = 5;
+    static final byte FLOAT = 6;
+    static final byte SHORT = 7;
+    static final byte BYTE = 8;
+    static final byte CHARACTER = 9;
+    static final byte ENUM = 10;
+    static final byte DATE = 11;
+    static final byte ENTITY = 12;
+    static final byte LIST = 13;
+    static final byte SET = 14;
+
+    // any other values are written using Java serialization
+    static final byte SERIALIZED = 15;
+
+    private EntityGraphSnapshotFormat() {
+        // not to be instantiated
+    }
+
+}
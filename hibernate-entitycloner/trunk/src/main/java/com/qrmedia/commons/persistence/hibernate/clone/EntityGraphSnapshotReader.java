@@ -0,0 +1,356 @@
+/*
+ * @(#)EntityGraphSnapshotReader.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static com.qrmedia.commons.persistence.hibernate.clone.EntityGraphSnapshotFormat.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rebuilds a graph of Hibernate entities from a snapshot written by an
+ * {@link EntityGraphSnapshotWriter}.
+ * <p>
+ * All entities are instantiated before any properties are set, so references to
+ * shared entities and cycles are restored. Lists are read as {@link ArrayList ArrayLists}
+ * and sets as {@link HashSet HashSets}. Since the hash codes of entities may depend on
+ * their properties, sets are only populated once the properties of all entities have
+ * been set, and the members of a set are added only once their own sets have been
+ * populated and assigned. Only the members of cyclic references between sets may be
+ * added before their sets are complete.
+ * <p>
+ * If {@link #setFieldAccessEnabled(boolean) field access} is enabled, the fields of
+ * entities using JPA field access are set, as for a cloner with field access enabled.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author aphillips
+ * @see EntityGraphSnapshotFormat
+ * @see EntityGraphSnapshotWriter
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityGraphSnapshotReader {
+    private ClassLoader classLoader = EntityGraphSnapshotReader.class.getClassLoader();
+
+    // only used for its access mode
+    private final HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+
+    /**
+     * Reads the entity graph in the given snapshot. The buffer's position is advanced
+     * to the end of the snapshot.
+     *
+     * @param snapshot  the non-<code>null</code> buffer containing the snapshot
+     * @return  the root entities of the snapshot, i.e. the entities passed to the writer,
+     *          in the order in which they were passed
+     * @throws IllegalArgumentException if <code>snapshot</code> is <code>null</code>
+     *                                  or the snapshot cannot be read
+     */
+    public List<Object> read(ByteBuffer snapshot) {
+
+        if (snapshot == null) {
+            throw new IllegalArgumentException("'snapshot' may not be null");
+        }
+
+        try {
+            return new SnapshotGraph(snapshot).read();
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to read snapshot due to "
+                    + exception.getClass().getSimpleName() + ": " + exception.getMessage());
+        }
+
+    }
+
+    /* Getter(s) and setter(s) */
+
+    /**
+     * @param classLoader the class loader with which entity and enum classes are loaded.
+     *                    Defaults to the class loader of this class.
+     */
+    public void setClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @param fieldAccessEnabled <code>true</code> iff the fields of entities using JPA field
+     *                           access should be set, rather than their bean properties.
+     *                           Should match the setting of the writer of the snapshots.
+     * @see HibernateEntityBeanCloner#setFieldAccessEnabled(boolean)
+     * @see EntityGraphSnapshotWriter#setFieldAccessEnabled(boolean)
+     */
+    public void setFieldAccessEnabled(boolean fieldAccessEnabled) {
+        entityBeanCloner.setFieldAccessEnabled(fieldAccessEnabled);
+    }
+
+    /**
+     * The entities of the graph being read.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class SnapshotGraph {
+        private final ByteBuffer buffer;
+        private Object[] entities;
+        private String[][] entityPropertyNames;
+        private Object[][] entityValues;
+
+        // the indices of the entities, and the sets and their members still to be populated
+        private final Map<Object, Integer> entityIndices = new IdentityHashMap<Object, Integer>();
+        private final Map<Set<Object>, List<Object>> pendingSets =
+            new IdentityHashMap<Set<Object>, List<Object>>();
+
+        // the entities and sets whose sets are (being) populated
+        private final Map<Object, Object> preparedValues = new IdentityHashMap<Object, Object>();
+
+        private SnapshotGraph(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private List<Object> read() throws Exception {
+            byte formatVersion = buffer.get();
+
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot format version "
+                        + formatVersion);
+            }
+
+            // the class table
+            int numClasses = buffer.getInt();
+            Class<?>[] classes = new Class<?>[numClasses];
+            String[][] classPropertyNames = new String[numClasses][];
+
+            for (int i = 0; i < numClasses; i++) {
+                classes[i] = Class.forName(getString(), true, classLoader);
+                String[] propertyNames = new String[buffer.getInt()];
+
+                for (int j = 0; j < propertyNames.length; j++) {
+                    propertyNames[j] = getString();
+                }
+
+                classPropertyNames[i] = propertyNames;
+            }
+
+            // the entity table
+            int numEntities = buffer.getInt();
+            entities = new Object[numEntities];
+            entityPropertyNames = new String[numEntities][];
+            entityValues = new Object[numEntities][];
+
+            for (int i = 0; i < numEntities; i++) {
+                int classIndex = buffer.getInt();
+                entities[i] = classes[classIndex].newInstance();
+                entityIndices.put(entities[i], Integer.valueOf(i));
+                entityPropertyNames[i] = classPropertyNames[classIndex];
+            }
+
+            // set properties are only assigned once the sets have been populated
+            for (int i = 0; i < numEntities; i++) {
+                String[] propertyNames = entityPropertyNames[i];
+                Object[] values = new Object[propertyNames.length];
+
+                for (int j = 0; j < propertyNames.length; j++) {
+                    values[j] = getValue();
+
+                    if (!pendingSets.containsKey(values[j])) {
+                        EntityPropertyUtils.setProperty(entities[i], propertyNames[j],
+                                values[j], entityBeanCloner);
+                    }
+
+                }
+
+                entityValues[i] = values;
+            }
+
+            for (Object entity : entities) {
+                prepare(entity);
+            }
+
+            int numRoots = buffer.getInt();
+            List<Object> roots = new ArrayList<Object>(numRoots);
+
+            for (int i = 0; i < numRoots; i++) {
+                roots.add(entities[buffer.getInt()]);
+            }
+
+            return roots;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object getValue() throws ClassNotFoundException, IOException {
+            byte tag = buffer.get();
+
+            switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return getString();
+            case INTEGER:
+                return Integer.valueOf(buffer.getInt());
+            case LONG:
+                return Long.valueOf(buffer.getLong());
+            case BOOLEAN:
+                return Boolean.valueOf(buffer.get() != 0);
+            case DOUBLE:
+                return Double.valueOf(buffer.getDouble());
+            case FLOAT:
+                return Float.valueOf(buffer.getFloat());
+            case SHORT:
+                return Short.valueOf(buffer.getShort());
+            case BYTE:
+                return Byte.valueOf(buffer.get());
+            case CHARACTER:
+                return Character.valueOf(buffer.getChar());
+            case ENUM:
+                Class enumClass = Class.forName(getString(), true, classLoader);
+                return Enum.valueOf(enumClass, getString());
+            case DATE:
+                return new Date(buffer.getLong());
+            case ENTITY:
+                return entities[buffer.getInt()];
+            case LIST:
+                return getMembers(new ArrayList<Object>());
+            case SET:
+                List<Object> members = getMembers(new ArrayList<Object>());
+                Set<Object> set = new HashSet<Object>(members.size());
+                pendingSets.put(set, members);
+                return set;
+            case SERIALIZED:
+                return getSerialized();
+            default:
+                throw new IllegalArgumentException("Unknown value tag " + tag);
+            }
+
+        }
+
+        /*
+         * Populates the sets of the given value depth-first: the sets of an entity are populated
+         * and assigned before the entity is added to a set, and nested sets are populated
+         * before the sets containing them.
+         */
+        private void prepare(Object value) throws Exception {
+
+            if ((value == null) || preparedValues.containsKey(value)) {
+                return;
+            }
+
+            Integer entityIndex = entityIndices.get(value);
+
+            if (entityIndex != null) {
+                preparedValues.put(value, value);
+                int index = entityIndex.intValue();
+                String[] propertyNames = entityPropertyNames[index];
+                Object[] values = entityValues[index];
+
+                for (int i = 0; i < propertyNames.length; i++) {
+
+                    if (pendingSets.containsKey(values[i])) {
+                        prepare(values[i]);
+                        EntityPropertyUtils.setProperty(value, propertyNames[i], values[i],
+                                entityBeanCloner);
+                    }
+
+                }
+
+            } else if (pendingSets.containsKey(value)) {
+                preparedValues.put(value, value);
+                List<Object> members = pendingSets.get(value);
+
+                for (Object member : members) {
+                    prepare(member);
+                }
+
+                @SuppressWarnings("unchecked")
+                Set<Object> set = (Set<Object>) value;
+                set.addAll(members);
+            } else if (value instanceof List<?>) {
+
+                for (Object member : (List<?>) value) {
+                    prepare(member);
+                }
+
+            }
+
+        }
+
+        private <T extends Collection<Object>> T getMembers(T collection)
+                throws ClassNotFoundException, IOException {
+            int numMembers = buffer.getInt();
+
+            for (int i = 0; i < numMembers; i++) {
+                collection.add(getValue());
+            }
+
+            return collection;
+        }
+
+        private Object getSerialized() throws ClassNotFoundException, IOException {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+
+            ObjectInputStream objectInput = 
+                new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+
+                    // as for entity and enum classes, use the configured class loader
+                    @Override
+                    protected Class<?> resolveClass(ObjectStreamClass description)
+                            throws IOException, ClassNotFoundException {
+
+                        try {
+                            return Class.forName(description.getName(), false, classLoader);
+                        } catch (ClassNotFoundException exception) {
+
+                            // e.g. primitive types, which cannot be loaded by name
+                            return super.resolveClass(description);
+                        }
+
+                    }
+
+                };
+
+            try {
+                return objectInput.readObject();
+            } finally {
+                objectInput.close();
+            }
+
+        }
+
+        private String getString() {
+            int length = buffer.getInt();
+            ByteBuffer bytes = buffer.slice();
+            bytes.limit(length);
+            buffer.position(buffer.position() + length);
+            return UTF_8.decode(bytes).toString();
+        }
+
+    }
+
+}
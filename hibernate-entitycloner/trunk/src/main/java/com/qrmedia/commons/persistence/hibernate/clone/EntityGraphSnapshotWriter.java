@@ -0,0 +1,437 @@
+/*
+ * @(#)EntityGraphSnapshotWriter.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static com.qrmedia.commons.persistence.hibernate.clone.EntityGraphSnapshotFormat.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.Hibernate;
+
+import com.qrmedia.commons.lang.ClassCache;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.DefaultPropertyClassifier;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.PropertyClassifier;
+
+/**
+ * Writes a compact binary snapshot of a graph of Hibernate entities, which can be
+ * turned back into an equivalent graph by an {@link EntityGraphSnapshotReader}.
+ * <p>
+ * The same properties as for a {@link HibernateEntityGraphCloner} are written (see
+ * {@link HibernateEntityBeanCloner}), with IDs preserved. Unlike clones, snapshots
+ * also include the <code>@Version</code> properties, so that entities read from
+ * a snapshot may be reattached. Hibernate proxies are written as the entities they
+ * represent. If {@link #setFieldAccessEnabled(boolean) field access} is enabled, the fields
+ * of entities using JPA field access are written, as for a cloner with field access enabled.
+ * <p>
+ * As for the graph cloner, property values are classified as follows:
+ * <ul>
+ * <li>simple (see {@link #setPropertyClassifier(PropertyClassifier)}) and
+ *     <code>Cloneable</code> values are written directly, using Java serialization for
+ *     values other than strings, primitive wrappers, enums and dates
+ * <li>lists and sets are written member by member. Other collections are not supported.
+ * <li>all other values are regarded as entities. Each entity is written only once,
+ *     however often it is referenced, so shared entities and cycles are preserved.
+ * </ul>
+ * This class is thread-safe.
+ *
+ * @author aphillips
+ * @see EntityGraphSnapshotFormat
+ * @see EntityGraphSnapshotReader
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityGraphSnapshotWriter {
+    // only used for its access mode
+    private final HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+    private final ClassCache<String[]> snapshotPropertyNameCache = new ClassCache<String[]>();
+
+    private PropertyClassifier propertyClassifier = new DefaultPropertyClassifier();
+    private int initialCapacity = 4096;
+
+    /**
+     * Writes a snapshot of the graph of the given entity.
+     *
+     * @param entity    the non-<code>null</code> entity to be written
+     * @return  a buffer, ready for reading, containing the snapshot
+     * @see #write(Collection)
+     */
+    public ByteBuffer write(Object entity) {
+        List<Object> entities = new ArrayList<Object>(1);
+        entities.add(entity);
+        return write(entities);
+    }
+
+    /**
+     * Writes a snapshot of the graph of the given entities.
+     *
+     * @param entities  the non-<code>null</code> collection of non-<code>null</code>
+     *                  entities to be written
+     * @return  a buffer, ready for reading, containing the snapshot
+     * @throws IllegalArgumentException if <code>entities</code> or any of its members
+     *                                  is <code>null</code>, or the graph cannot be written
+     */
+    public ByteBuffer write(Collection<?> entities) {
+
+        if (entities == null) {
+            throw new IllegalArgumentException("'entities' may not be null");
+        }
+
+        try {
+            return new SnapshotGraph(entities).write();
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to write snapshot of " + entities
+                    + " due to " + exception.getClass().getSimpleName() + ": "
+                    + exception.getMessage());
+        }
+
+    }
+
+    private boolean isValue(Object value) {
+        return ((value == null) || propertyClassifier.isSimpleProperty(value.getClass())
+                || (value instanceof Enum<?>) || (value instanceof Cloneable));
+    }
+
+    // cache these values as they are (CGLIB and AOP magic aside) static per class
+    private String[] getSnapshotPropertyNames(Object entity) {
+        Class<?> entityClass = entity.getClass();
+        String[] propertyNames = snapshotPropertyNameCache.get(entityClass);
+
+        if (propertyNames == null) {
+            List<String> snapshotPropertyNames = new ArrayList<String>(
+                    entityBeanCloner.getClonedPropertyNames(entity, true));
+
+            /*
+             * As for the cloned properties, version fields are accessed directly if the entity
+             * is written by field, and otherwise only read-/writable version properties are included.
+             */
+            for (String versionFieldName : HibernateEntityBeanCloner.getVersionFieldNames(entity)) {
+
+                if ((entityBeanCloner.getAccessibleField(entity, versionFieldName) != null)
+                        || (PropertyUtils.isReadable(entity, versionFieldName)
+                            && PropertyUtils.isWriteable(entity, versionFieldName))) {
+                    snapshotPropertyNames.add(versionFieldName);
+                }
+
+            }
+
+            propertyNames = snapshotPropertyNames.toArray(new String[snapshotPropertyNames.size()]);
+            snapshotPropertyNameCache.putIfAbsent(entityClass, propertyNames);
+        }
+
+        return propertyNames;
+    }
+
+    /* Getter(s) and setter(s) */
+
+    /**
+     * @param propertyClassifier the propertyClassifier to set
+     */
+    public void setPropertyClassifier(PropertyClassifier propertyClassifier) {
+        this.propertyClassifier = propertyClassifier;
+    }
+
+    /**
+     * @param fieldAccessEnabled <code>true</code> iff the fields of entities using JPA field
+     *                           access should be written, rather than their bean properties.
+     *                           The reader of the snapshots should use the same setting.
+     * @see HibernateEntityBeanCloner#setFieldAccessEnabled(boolean)
+     * @see EntityGraphSnapshotReader#setFieldAccessEnabled(boolean)
+     */
+    public void setFieldAccessEnabled(boolean fieldAccessEnabled) {
+        entityBeanCloner.setFieldAccessEnabled(fieldAccessEnabled);
+        snapshotPropertyNameCache.clear();
+    }
+
+    /**
+     * @param initialCapacity the initial size, in bytes, of the buffers allocated for snapshots.
+     *                        Defaults to 4096.
+     */
+    public void setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * The entities of the graph being written, in the order in which they were
+     * discovered (breadth-first), with their property values.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class SnapshotGraph {
+        private final IdentityHashMap<Object, Integer> entityIndices =
+            new IdentityHashMap<Object, Integer>();
+        private final List<Object> entities = new ArrayList<Object>();
+        private final List<Object[]> entityValues = new ArrayList<Object[]>();
+        private final int[] rootIndices;
+
+        private final Map<Class<?>, Integer> classIndices = new HashMap<Class<?>, Integer>();
+        private final List<String> classNames = new ArrayList<String>();
+        private final List<String[]> classPropertyNames = new ArrayList<String[]>();
+
+        private ByteBuffer buffer = ByteBuffer.allocate(initialCapacity);
+
+        private SnapshotGraph(Collection<?> roots) 
+                throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+            rootIndices = new int[roots.size()];
+            int rootIndex = 0;
+
+            for (Object root : roots) {
+
+                if (root == null) {
+                    throw new IllegalArgumentException("Entities may not be null");
+                }
+
+                rootIndices[rootIndex++] = addEntity(root);
+            }
+
+            // the list of entities grows as new entities are discovered
+            for (int i = 0; i < entities.size(); i++) {
+                Object entity = entities.get(i);
+                String[] propertyNames = getSnapshotPropertyNames(entity);
+                Object[] values = new Object[propertyNames.length];
+
+                for (int j = 0; j < propertyNames.length; j++) {
+                    values[j] = EntityPropertyUtils.getProperty(entity, propertyNames[j],
+                            entityBeanCloner);
+                    addReferencedEntities(values[j]);
+                }
+
+                entityValues.add(values);
+            }
+
+        }
+
+        private int addEntity(Object entity) {
+
+            // a proxy is written as the entity it represents, whichever library created it
+            Object implementation = HibernateEntityBeanCloner.getImplementation(entity);
+            Integer entityIndex = entityIndices.get(implementation);
+
+            if (entityIndex == null) {
+                entityIndex = Integer.valueOf(entities.size());
+                entityIndices.put(implementation, entityIndex);
+                entities.add(implementation);
+
+                Class<?> entityClass = Hibernate.getClass(implementation);
+
+                if (!classIndices.containsKey(entityClass)) {
+                    classIndices.put(entityClass, Integer.valueOf(classIndices.size()));
+                    classNames.add(entityClass.getName());
+                    classPropertyNames.add(getSnapshotPropertyNames(implementation));
+                }
+
+            }
+
+            return entityIndex.intValue();
+        }
+
+        private void addReferencedEntities(Object value) {
+
+            if (value instanceof Collection<?>) {
+
+                for (Object member : (Collection<?>) value) {
+                    addReferencedEntities(member);
+                }
+
+            } else if (!isValue(value)) {
+                addEntity(value);
+            }
+
+        }
+
+        private ByteBuffer write() throws IOException {
+            ensureCapacity(1);
+            buffer.put(FORMAT_VERSION);
+
+            // the class table
+            putInt(classNames.size());
+
+            for (int i = 0; i < classNames.size(); i++) {
+                putString(classNames.get(i));
+                String[] propertyNames = classPropertyNames.get(i);
+                putInt(propertyNames.length);
+
+                for (String propertyName : propertyNames) {
+                    putString(propertyName);
+                }
+
+            }
+
+            // the entity table
+            putInt(entities.size());
+
+            for (Object entity : entities) {
+                putInt(classIndices.get(Hibernate.getClass(entity)).intValue());
+            }
+
+            for (Object[] values : entityValues) {
+
+                for (Object value : values) {
+                    putValue(value);
+                }
+
+            }
+
+            putInt(rootIndices.length);
+
+            for (int rootIndex : rootIndices) {
+                putInt(rootIndex);
+            }
+
+            buffer.flip();
+            return buffer;
+        }
+
+        private void putValue(Object value) throws IOException {
+
+            if (value == null) {
+                putTag(NULL);
+            } else if (value instanceof String) {
+                putTag(STRING);
+                putString((String) value);
+            } else if (value instanceof Integer) {
+                putTag(INTEGER);
+                putInt(((Integer) value).intValue());
+            } else if (value instanceof Long) {
+                putTag(LONG);
+                ensureCapacity(8);
+                buffer.putLong(((Long) value).longValue());
+            } else if (value instanceof Boolean) {
+                putTag(BOOLEAN);
+                putTag(((Boolean) value).booleanValue() ? (byte) 1 : (byte) 0);
+            } else if (value instanceof Double) {
+                putTag(DOUBLE);
+                ensureCapacity(8);
+                buffer.putDouble(((Double) value).doubleValue());
+            } else if (value instanceof Float) {
+                putTag(FLOAT);
+                ensureCapacity(4);
+                buffer.putFloat(((Float) value).floatValue());
+            } else if (value instanceof Short) {
+                putTag(SHORT);
+                ensureCapacity(2);
+                buffer.putShort(((Short) value).shortValue());
+            } else if (value instanceof Byte) {
+                putTag(BYTE);
+                putTag(((Byte) value).byteValue());
+            } else if (value instanceof Character) {
+                putTag(CHARACTER);
+                ensureCapacity(2);
+                buffer.putChar(((Character) value).charValue());
+            } else if (value instanceof Enum<?>) {
+                putTag(ENUM);
+
+                // enum constants with bodies are instances of anonymous subclasses
+                putString(((Enum<?>) value).getDeclaringClass().getName());
+                putString(((Enum<?>) value).name());
+            } else if (value.getClass() == Date.class) {
+                putTag(DATE);
+                ensureCapacity(8);
+                buffer.putLong(((Date) value).getTime());
+            } else if (value instanceof Collection<?>) {
+                putCollection((Collection<?>) value);
+            } else if (isValue(value)) {
+                putTag(SERIALIZED);
+                putSerialized(value);
+            } else {
+                putTag(ENTITY);
+                putInt(entityIndices.get(HibernateEntityBeanCloner.getImplementation(value))
+                       .intValue());
+            }
+
+        }
+
+        private void putCollection(Collection<?> collection) throws IOException {
+
+            if (collection instanceof List<?>) {
+                putTag(LIST);
+            } else if (collection instanceof Set<?>) {
+                putTag(SET);
+            } else {
+                throw new IllegalArgumentException("Unsupported collection type: "
+                        + collection.getClass());
+            }
+
+            putInt(collection.size());
+
+            for (Object member : collection) {
+                putValue(member);
+            }
+
+        }
+
+        private void putSerialized(Object value) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream objectOutput = new ObjectOutputStream(bytes);
+            objectOutput.writeObject(value);
+            objectOutput.close();
+            putBytes(ByteBuffer.wrap(bytes.toByteArray()));
+        }
+
+        private void putTag(byte tag) {
+            ensureCapacity(1);
+            buffer.put(tag);
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(4);
+            buffer.putInt(value);
+        }
+
+        private void putString(String value) {
+            putBytes(UTF_8.encode(value));
+        }
+
+        private void putBytes(ByteBuffer bytes) {
+            int length = bytes.remaining();
+            ensureCapacity(4 + length);
+            buffer.putInt(length);
+            buffer.put(bytes);
+        }
+
+        private void ensureCapacity(int numBytes) {
+
+            if (buffer.remaining() >= numBytes) {
+                return;
+            }
+
+            ByteBuffer largerBuffer = ByteBuffer.allocate(
+                    Math.max(buffer.capacity() * 2, buffer.position() + numBytes));
+            buffer.flip();
+            largerBuffer.put(buffer);
+            buffer = largerBuffer;
+        }
+
+    }
+
+}
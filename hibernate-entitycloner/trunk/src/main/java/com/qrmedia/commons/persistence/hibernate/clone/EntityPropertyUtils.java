@@ -0,0 +1,146 @@
+/*
+ * @(#)EntityPropertyUtils.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+/**
+ * Reads and writes the properties of entities that are being cloned.
+ * <p>
+ * If the entity bean cloner of the given {@link HibernateEntityGraphCloner} has
+ * {@link HibernateEntityBeanCloner#setFieldAccessEnabled(boolean) field access} enabled,
+ * the properties of entities using JPA field access are accessed directly through 
+ * their fields; otherwise, the bean getters and setters are used, as in {@link PropertyUtils}.
+ * The access mode is thus a setting of each cloner, and not of the entity class.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityPropertyUtils {
+
+    /**
+     * Returns the value of the specified bean property of the given entity.
+     *
+     * @param entity    the entity whose property should be read
+     * @param propertyName  the name of the property
+     * @return the value of the property
+     * @throws IllegalAccessException if the getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     * @throws NoSuchMethodException if the property has no getter
+     * @see PropertyUtils#getSimpleProperty(Object, String)
+     */
+    public static Object getSimpleProperty(Object entity, String propertyName)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        return PropertyUtils.getSimpleProperty(entity, propertyName);
+    }
+
+    /**
+     * Returns the value of the specified property of the given entity, using the 
+     * access mode of the given cloner.
+     *
+     * @param entity    the entity whose property should be read
+     * @param propertyName  the name of the property
+     * @param entityGraphCloner the cloner cloning the entity. May be <code>null</code>, 
+     *                          in which case the bean property is read.
+     * @return the value of the property
+     * @throws IllegalAccessException if the property or its getter is not accessible
+     * @throws InvocationTargetException if the getter throws an exception
+     * @throws NoSuchMethodException if the property has no getter
+     * @see PropertyUtils#getSimpleProperty(Object, String)
+     */
+    public static Object getSimpleProperty(Object entity, String propertyName,
+            HibernateEntityGraphCloner entityGraphCloner)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        return getProperty(entity, propertyName, 
+                ((entityGraphCloner != null) ? entityGraphCloner.getEntityBeanCloner() : null));
+    }
+
+    /**
+     * Sets the value of the specified bean property of the given entity.
+     *
+     * @param entity    the entity whose property should be written
+     * @param propertyName  the name of the property
+     * @param value the new value of the property
+     * @throws IllegalAccessException if the setter is not accessible
+     * @throws InvocationTargetException if the setter throws an exception
+     * @throws NoSuchMethodException if the property has no setter
+     * @see PropertyUtils#setSimpleProperty(Object, String, Object)
+     */
+    public static void setSimpleProperty(Object entity, String propertyName, Object value)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        PropertyUtils.setSimpleProperty(entity, propertyName, value);
+    }
+
+    /**
+     * Sets the value of the specified property of the given entity, using the 
+     * access mode of the given cloner.
+     *
+     * @param entity    the entity whose property should be written
+     * @param propertyName  the name of the property
+     * @param value the new value of the property
+     * @param entityGraphCloner the cloner cloning the entity. May be <code>null</code>, 
+     *                          in which case the bean property is written.
+     * @throws IllegalAccessException if the property or its setter is not accessible
+     * @throws InvocationTargetException if the setter throws an exception
+     * @throws NoSuchMethodException if the property has no setter
+     * @see PropertyUtils#setSimpleProperty(Object, String, Object)
+     */
+    public static void setSimpleProperty(Object entity, String propertyName, Object value,
+            HibernateEntityGraphCloner entityGraphCloner)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        setProperty(entity, propertyName, value, 
+                ((entityGraphCloner != null) ? entityGraphCloner.getEntityBeanCloner() : null));
+    }
+
+    /**
+     * As {@link #getSimpleProperty(Object, String, HibernateEntityGraphCloner)}, for the 
+     * given (possibly <code>null</code>) entity bean cloner.
+     */
+    static Object getProperty(Object entity, String propertyName,
+            HibernateEntityBeanCloner entityBeanCloner)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        Field field = ((entityBeanCloner != null) 
+                       ? entityBeanCloner.getAccessibleField(entity, propertyName) : null);
+        return ((field != null) ? field.get(entity)
+                                : PropertyUtils.getSimpleProperty(entity, propertyName));
+    }
+
+    /**
+     * As {@link #setSimpleProperty(Object, String, Object, HibernateEntityGraphCloner)}, 
+     * for the given (possibly <code>null</code>) entity bean cloner.
+     */
+    static void setProperty(Object entity, String propertyName, Object value,
+            HibernateEntityBeanCloner entityBeanCloner)
+            throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        Field field = ((entityBeanCloner != null) 
+                       ? entityBeanCloner.getAccessibleField(entity, propertyName) : null);
+
+        if (field != null) {
+            field.set(entity, value);
+        } else {
+            PropertyUtils.setSimpleProperty(entity, propertyName, value);
+        }
+
+    }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * @(#)FieldAccessPlan.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.Id;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
+/**
+ * The fields of an entity class using JPA field access that are to be cloned,
+ * made accessible once when the plan is created.
+ * <p>
+ * The plan works on its own copies of the fields, so making them accessible does not
+ * affect the <code>Field</code> instances seen by any other code.
+ * <p>
+ * As Hibernate does, static, <code>transient</code> and {@link Transient @Transient}
+ * fields are ignored, as are {@link Version @Version} and, unless IDs are to be
+ * preserved, {@link Id @Id} fields.
+ *
+ * @author aphillips
+ * @see HibernateEntityBeanCloner#setFieldAccessEnabled(boolean)
+ * @since 18 Oct 2026
+ *
+ */
+final class FieldAccessPlan {
+    private final Field[] primitiveFields;
+    private final Map<String, Field> fields;
+    private final Collection<String> fieldNames = new ArrayList<String>();
+    private final Collection<String> nonPrimitiveFieldNames = new ArrayList<String>();
+
+    /**
+     * Creates a <code>FieldAccessPlan</code> for the class of the given entity.
+     *
+     * @param entity    an instance of the entity class
+     * @param preserveIdFields  <code>true</code> iff ID fields are to be cloned
+     */
+    FieldAccessPlan(Object entity, boolean preserveIdFields) {
+        Class<?> entityClass = HibernateEntityBeanCloner.getEntityClass(entity);
+        Map<String, Field> fields = new HashMap<String, Field>();
+        List<Field> primitiveFieldList = new ArrayList<Field>();
+
+        // getDeclaredFields returns new Field instances, which are thus not shared
+        for (Class<?> declaringClass = entityClass; declaringClass != null; 
+                declaringClass = declaringClass.getSuperclass()) {
+
+            for (Field field : declaringClass.getDeclaredFields()) {
+                String fieldName = field.getName();
+
+                // a field hidden by a subclass field of the same name is not accessed
+                if (Modifier.isStatic(field.getModifiers()) || fields.containsKey(fieldName)) {
+                    continue;
+                }
+
+                // all fields can be accessed, but only the targeted ones are cloned
+                field.setAccessible(true);
+                fields.put(fieldName, field);
+
+                if (!isTargeted(field, preserveIdFields)) {
+                    continue;
+                }
+
+                fieldNames.add(fieldName);
+
+                if (field.getType().isPrimitive()) {
+                    primitiveFieldList.add(field);
+                } else {
+                    nonPrimitiveFieldNames.add(fieldName);
+                }
+
+            }
+
+        }
+
+        primitiveFields = primitiveFieldList.toArray(new Field[primitiveFieldList.size()]);
+        this.fields = Collections.unmodifiableMap(fields);
+    }
+
+    private static boolean isTargeted(Field field, boolean preserveIdFields) {
+        return (!Modifier.isTransient(field.getModifiers())
+                && !field.isAnnotationPresent(Transient.class)
+                && !field.isAnnotationPresent(Version.class)
+                && (preserveIdFields || !field.isAnnotationPresent(Id.class)));
+    }
+
+    /**
+     * Copies the values of all the primitive fields of the source entity to the
+     * target, without boxing them.
+     *
+     * @param source    the entity whose fields should be copied
+     * @param target    the entity to which the fields should be copied
+     * @throws IllegalAccessException if a field cannot be accessed
+     */
+    void copyPrimitiveFields(Object source, Object target) throws IllegalAccessException {
+
+        for (Field field : primitiveFields) {
+            Class<?> type = field.getType();
+
+            if (type == int.class) {
+                field.setInt(target, field.getInt(source));
+            } else if (type == long.class) {
+                field.setLong(target, field.getLong(source));
+            } else if (type == boolean.class) {
+                field.setBoolean(target, field.getBoolean(source));
+            } else if (type == double.class) {
+                field.setDouble(target, field.getDouble(source));
+            } else if (type == float.class) {
+                field.setFloat(target, field.getFloat(source));
+            } else if (type == short.class) {
+                field.setShort(target, field.getShort(source));
+            } else if (type == byte.class) {
+                field.setByte(target, field.getByte(source));
+            } else {
+                assert (type == char.class) : type;
+                field.setChar(target, field.getChar(source));
+            }
+
+        }
+
+    }
+
+    /**
+     * @param fieldName the name of the field required
+     * @return the accessible field of the entity class with the given name, or 
+     *         <code>null</code> if there is no such (non-static) field
+     */
+    Field getField(String fieldName) {
+        return fields.get(fieldName);
+    }
+
+    /**
+     * @return the names of all the fields to be cloned
+     */
+    Collection<String> getFieldNames() {
+        return fieldNames;
+    }
+
+    /**
+     * @return the names of the non-primitive fields to be cloned
+     */
+    Collection<String> getNonPrimitiveFieldNames() {
+        return nonPrimitiveFieldNames;
+    }
+
+}
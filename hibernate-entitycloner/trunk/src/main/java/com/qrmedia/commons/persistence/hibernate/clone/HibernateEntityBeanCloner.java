@@ -36,6 +36,7 @@ import javax.persistence.Id;
 import javax.persistence.Version;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.hibernate.proxy.HibernateProxy;
 import org.springframework.beans.factory.annotation.Required;
 
 import com.qrmedia.commons.collections.Pair;
@@ -51,6 +52,9 @@ import com.qrmedia.commons.persistence.hibernate.clone.property.BeanPropertyClon
  * Fields that are not valid read-/writable bean properties (i.e. do not have a public 
  * getters and setters) and static fields are ignored, and the clones will thus have default 
  * values for these fields.<br/>
+ * If {@link #setFieldAccessEnabled(boolean) field access} is enabled, entities using JPA 
+ * field access (i.e. with {@link Id @Id} annotations on fields) are instead cloned 
+ * field-by-field, without calling any getters or setters.<br/>
  * The entities to be cloned (i.e. the visited entity and all non-simple properties) must also 
  * have a public no-argument constructor.
  * <p>
@@ -74,7 +78,7 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
     
     private static final Map<Pair<Class<?>, Boolean>, Collection<String>> TARGETED_FIELD_NAME_CACHE =
         Collections.synchronizedMap(new HashMap<Pair<Class<?>, Boolean>, Collection<String>>());
-
+    
     /**
      * A section of the class name that identifies CGLIB-generated classes.
      */
@@ -85,6 +89,17 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
     private static final String CGLIB_CLASS_NAME_IDENTIFIER = "$$EnhancerByCGLIB$$";
     
     private List<BeanPropertyCloner> propertyCloners;
+    
+    private boolean fieldAccessEnabled;
+    private boolean primitiveFieldsBulkCopied = true;
+    
+    /*
+     * Held per cloner, so that the access mode of one cloner does not affect any other, 
+     * and the entity classes are only referenced for as long as the cloner is.
+     * Null values indicate entity classes using property access.
+     */
+    private final Map<Pair<Class<?>, Boolean>, FieldAccessPlan> fieldAccessPlans =
+        Collections.synchronizedMap(new HashMap<Pair<Class<?>, Boolean>, FieldAccessPlan>());
 
     /* (non-Javadoc)
      * @see com.qrmedia.commons.graph.NodeVisitor#visitNode(java.lang.Object, com.qrmedia.commons.graph.GraphTraverser, java.lang.Object)
@@ -99,15 +114,34 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
         }
         
         Object entity = entityPreserveIdFlagPair.getEntity();
+        boolean preserveIdFields = entityPreserveIdFlagPair.isPreserveId();
         Object clone;
         
         try {
+            // the fields of a Hibernate proxy are not those of the entity it represents
+            Object source = (fieldAccessEnabled ? getImplementation(entity) : entity);
+            FieldAccessPlan fieldAccessPlan = 
+                (fieldAccessEnabled ? getFieldAccessPlan(source, preserveIdFields) : null);
+            
+            if (fieldAccessPlan == null) {
+                source = entity;
+            }
+            
             // ensure the "real" class is instantiated if the current instance is a CGLIB class
-            clone = getEntityClass(entity).newInstance();
+            clone = getEntityClass(source).newInstance();
+            Collection<String> targetedFieldNames;
+            
+            if (fieldAccessPlan == null) {
+                targetedFieldNames = getTargetedFieldNames(entity, preserveIdFields);
+            } else if (primitiveFieldsBulkCopied) {
+                fieldAccessPlan.copyPrimitiveFields(source, clone);
+                targetedFieldNames = fieldAccessPlan.getNonPrimitiveFieldNames();
+            } else {
+                targetedFieldNames = fieldAccessPlan.getFieldNames();
+            }
             
-            for (String targetedFieldName 
-                    : getTargetedFieldNames(entity, entityPreserveIdFlagPair.isPreserveId())) {
-                cloneProperty(entity, clone, targetedFieldName, 
+            for (String targetedFieldName : targetedFieldNames) {
+                cloneProperty(source, clone, targetedFieldName, 
                               (HibernateEntityGraphCloner) graphTraverser);
             }
         
@@ -121,7 +155,7 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
     }
     
     // if the actual class is a "magic" CGLIB subclass, use the "real" parent
-    private static Class<?> getEntityClass(Object entity) {
+    static Class<?> getEntityClass(Object entity) {
         Class<?> entityClass = entity.getClass();
         
         // walk up the superclass try until a non-CGLIB class is found (will stop at Object!)
@@ -132,8 +166,81 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
         return entityClass;
     }
 
+    /**
+     * @param entity    the entity, which may be a Hibernate proxy
+     * @return  the entity a Hibernate proxy represents, or the given entity if it is not
+     *          a proxy
+     */
+    static Object getImplementation(Object entity) {
+        return ((entity instanceof HibernateProxy)
+                ? ((HibernateProxy) entity).getHibernateLazyInitializer().getImplementation()
+                : entity);
+    }
+    
+    // returns null for entities using property access
+    private FieldAccessPlan getFieldAccessPlan(Object entity, boolean preserveIdFields) {
+        Pair<Class<?>, Boolean> cacheKey = 
+            new Pair<Class<?>, Boolean>(entity.getClass(), Boolean.valueOf(preserveIdFields));
+        
+        if (!fieldAccessPlans.containsKey(cacheKey)) {
+            fieldAccessPlans.put(cacheKey, 
+                    isUsingFieldAccess(getEntityClass(entity)) 
+                    ? new FieldAccessPlan(entity, preserveIdFields) : null);
+        }
+        
+        return fieldAccessPlans.get(cacheKey);
+    }
+    
+    /**
+     * Returns the names of the properties of the entity that this cloner clones, i.e. the
+     * cloned fields of entities that are cloned by field, and otherwise the bean properties
+     * returned by {@link #getTargetedFieldNames(Object, boolean)}.
+     * 
+     * @param entity    the entity whose properties are required, which should not be a 
+     *                  Hibernate proxy if field access is enabled
+     * @param preserveIdFields  <code>true</code> iff ID fields are to be cloned
+     * @return  the names of the properties of the entity that are cloned
+     * @see #getImplementation(Object)
+     */
+    Collection<String> getClonedPropertyNames(Object entity, boolean preserveIdFields) {
+        FieldAccessPlan fieldAccessPlan = 
+            (fieldAccessEnabled ? getFieldAccessPlan(entity, preserveIdFields) : null);
+        return ((fieldAccessPlan != null) ? fieldAccessPlan.getFieldNames() 
+                                          : getTargetedFieldNames(entity, preserveIdFields));
+    }
+    
+    /**
+     * Returns the field through which the given property of the entity is accessed by
+     * this cloner.
+     * 
+     * @param entity    the entity whose property is to be accessed
+     * @param propertyName  the name of the property
+     * @return  the accessible field for the property, or <code>null</code> if field access 
+     *          is not enabled, or the entity uses property access or is a Hibernate proxy
+     */
+    Field getAccessibleField(Object entity, String propertyName) {
+        
+        // the fields of a Hibernate proxy are not those of the entity it represents
+        if (!fieldAccessEnabled || (entity instanceof HibernateProxy)) {
+            return null;
+        }
+        
+        // the plans for both ID flags can access all the fields
+        FieldAccessPlan fieldAccessPlan = getFieldAccessPlan(entity, true);
+        return ((fieldAccessPlan != null) ? fieldAccessPlan.getField(propertyName) : null);
+    }
+    
+    /*
+     * Assume that, in accordance with recommendations, entities are using *either* JPA property
+     * *or* field access. Guess the access type from the location of the @Id annotation, as
+     * Hibernate does.
+     */
+    private static boolean isUsingFieldAccess(Class<?> entityClass) {
+        return ClassUtils.getAnnotatedMethods(entityClass, Id.class).isEmpty();
+    }
+    
     // cache these values as they are (CGLIB and AOP magic aside) static per class
-    private static Collection<String> getTargetedFieldNames(Object entity, boolean preserveIdFields) {
+    static Collection<String> getTargetedFieldNames(Object entity, boolean preserveIdFields) {
         Pair<Class<?>, Boolean> cacheKey = 
             new Pair<Class<?>, Boolean>(entity.getClass(), Boolean.valueOf(preserveIdFields));
         
@@ -162,18 +269,11 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
                 
         }
         
-        /*
-         * Assume that, in accordance with recommendations, entities are using *either* JPA property
-         * *or* field access. Guess the access type from the location of the @Id annotation, as
-         * Hibernate does.
-         */
         Set<Method> idAnnotatedMethods = ClassUtils.getAnnotatedMethods(entityClass, Id.class);
-        boolean usingFieldAccess = idAnnotatedMethods.isEmpty();
+        boolean usingFieldAccess = isUsingFieldAccess(entityClass);
         
         // ignore fields annotated with @Version and, optionally, @Id
-        targetedFieldNames.removeAll(usingFieldAccess 
-                ? getFieldNames(ClassUtils.getAllAnnotatedDeclaredFields(entityClass, Version.class)) 
-                : getPropertyNames(ClassUtils.getAnnotatedMethods(entityClass, Version.class)));
+        targetedFieldNames.removeAll(getVersionFieldNames(entity));
 
         if (!preserveIdFields) {
             targetedFieldNames.removeAll(usingFieldAccess 
@@ -184,6 +284,18 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
         return targetedFieldNames;
     }
     
+    /**
+     * @param entity    the entity whose version fields are required
+     * @return  the names of the fields or properties of the entity that are annotated 
+     *          with {@link Version @Version}, depending on the access type
+     */
+    static Collection<String> getVersionFieldNames(Object entity) {
+        Class<?> entityClass = entity.getClass();
+        return (isUsingFieldAccess(entityClass)
+                ? getFieldNames(ClassUtils.getAllAnnotatedDeclaredFields(entityClass, Version.class)) 
+                : getPropertyNames(ClassUtils.getAnnotatedMethods(entityClass, Version.class)));
+    }
+    
     private static Collection<String> getFieldNames(Collection<Field> fields) {
         Collection<String> fieldNames = new ArrayList<String>(fields.size());
         
@@ -247,4 +359,33 @@ public class HibernateEntityBeanCloner implements NodeVisitor<EntityPreserveIdFl
         this.propertyCloners = propertyCloners;
     }    
 
+    /**
+     * If enabled, entities using JPA field access are cloned by copying their fields 
+     * directly rather than by calling getters and setters, and fields without getters 
+     * and setters are also cloned. Defaults to <code>false</code>.
+     * <p>
+     * Property cloners access the properties of the entities using the mode of the 
+     * entity bean cloner of the {@link HibernateEntityGraphCloner} they are passed. The 
+     * setting does not affect any other cloners.
+     * 
+     * @param fieldAccessEnabled <code>true</code> iff entities using field access should
+     *                           be cloned by field
+     * @see EntityPropertyUtils
+     */
+    public void setFieldAccessEnabled(boolean fieldAccessEnabled) {
+        this.fieldAccessEnabled = fieldAccessEnabled;
+    }
+
+    /**
+     * If field access is enabled, determines if primitive fields are copied directly 
+     * rather than being passed to the property cloners. Defaults to <code>true</code>.
+     * 
+     * @param primitiveFieldsBulkCopied <code>true</code> iff primitive fields should be
+     *                                  copied directly
+     * @see #setFieldAccessEnabled(boolean)                                 
+     */
+    public void setPrimitiveFieldsBulkCopied(boolean primitiveFieldsBulkCopied) {
+        this.primitiveFieldsBulkCopied = primitiveFieldsBulkCopied;
+    }
+
 }
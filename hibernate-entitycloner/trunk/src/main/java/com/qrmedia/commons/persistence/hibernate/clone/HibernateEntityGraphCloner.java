@@ -44,6 +44,12 @@ import com.qrmedia.commons.persistence.hibernate.clone.wiring.GraphWiringCommand
  * annotation and <em>getter</em>, but not XML-based configuration. 
  * See the <a href="http://docs.jboss.org/hibernate/stable/annotations/reference/en/html_single/#entity-mapping-entity">
  * Hibernate documentation</a> for information on field and getter access types.
+ * <p>
+ * Instances are <u>not</u> thread-safe, but may be reused for any number of consecutive
+ * <code>clone</code> calls. All the state of a clone operation, including any references
+ * to the entities being cloned and their clones, is discarded when the operation completes,
+ * whether successfully or not, so a reused instance does not keep the last graph it cloned
+ * alive.
  *  
  * @author anph
  * @see HibernateEntityBeanCloner
@@ -56,7 +62,9 @@ public class HibernateEntityGraphCloner extends BreadthFirstGraphTraverser<Entit
     private List<GraphPostProcessingCommand> graphPostProcessingCommands = 
         new ArrayList<GraphPostProcessingCommand>();
     
+    private HibernateEntityBeanCloner entityBeanCloner;
     private boolean preserveId;
+    private boolean cloning;
     
     /**
      * Deep clones an entity, ignoring IDs.
@@ -114,8 +122,43 @@ public class HibernateEntityGraphCloner extends BreadthFirstGraphTraverser<Entit
      */
     public <T> Map<T, T> clone(Collection<T> entities, boolean preserveId) {
         
+        try {
+            return extractSubset(entities, cloneGraphInternal(entities, preserveId));
+        } finally {
+            
+            // clean up, also if the clone failed, so that this instance can be reused
+            discardState();
+        }
+        
+    }
+    
+    /**
+     * Deep clones a collection of entities, optionally preserving ID fields, and returns
+     * the clones of <u>all</u> the entities in the graph, e.g. for use with a
+     * {@link HibernateEntityGraphDiffer}.
+     * 
+     * @param entities  the non-<code>null</code> collection of entities to be cloned
+     * @param preserveId    <code>true</code> iff ID fields are to be preserved
+     * @return  a map of all the entities reachable from the given entities (including 
+     *          the given entities themselves) to their clones
+     * @see #clone(Collection, boolean)
+     */
+    public IdentityHashMap<Object, Object> cloneGraph(Collection<?> entities, boolean preserveId) {
+        
+        try {
+            return cloneGraphInternal(entities, preserveId);
+        } finally {
+            discardState();
+        }
+        
+    }
+    
+    private IdentityHashMap<Object, Object> cloneGraphInternal(Collection<?> entities, 
+            boolean preserveId) {
+        
         // store the ID preserve/ignore flag for use in addNode
         this.preserveId = preserveId;
+        cloning = true;
         
         IdentityHashMap<Object, Object> entityClones = new IdentityHashMap<Object, Object>();
         traverseFrom(PairUtils.<EntityPreserveIdFlagPair, Object, Boolean>toPairs(
@@ -132,11 +175,23 @@ public class HibernateEntityGraphCloner extends BreadthFirstGraphTraverser<Entit
             command.execute();
         }
         
-        // clean up (visitedOrQueuedNodes is cleaned up by the AbstractNodeIteratingGraphTraverser)
+        return entityClones;
+    }
+    
+    // discards the state of the clone operation, including that left behind by a failed clone
+    private void discardState() {
         graphWiringCommands.clear();
         graphPostProcessingCommands.clear();
-        
-        return extractSubset(entities, entityClones);
+        nodeQueue.clear();
+        visitedOrQueuedNodes.clear();
+        cloning = false;
+    }
+    
+    /**
+     * @return <code>true</code> iff a clone operation is currently in progress
+     */
+    boolean isCloning() {
+        return cloning;
     }
 
     @SuppressWarnings("unchecked")
@@ -199,7 +254,17 @@ public class HibernateEntityGraphCloner extends BreadthFirstGraphTraverser<Entit
      */
     @Required
     public void setEntityBeanCloner(HibernateEntityBeanCloner entityBeanCloner) {
+        this.entityBeanCloner = entityBeanCloner;
         addNodeVisitor(entityBeanCloner);
     }    
 
+    /**
+     * @return the entityBeanCloner, whose access mode is used by the property cloners 
+     *         (see {@link EntityPropertyUtils}). May be <code>null</code>.
+     */
+    // final, so that mocks of this class do not intercept property access
+    final HibernateEntityBeanCloner getEntityBeanCloner() {
+        return entityBeanCloner;
+    }
+
 }
\ No newline at end of file
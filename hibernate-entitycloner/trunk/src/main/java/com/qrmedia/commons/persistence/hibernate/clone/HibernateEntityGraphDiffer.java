@@ -0,0 +1,401 @@
+/*
+ * @(#)HibernateEntityGraphDiffer.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.qrmedia.commons.graph.traverser.GraphTraverser;
+import com.qrmedia.commons.graph.traverser.IdentityBreadthFirstGraphTraverser;
+import com.qrmedia.commons.graph.traverser.NodeVisitor;
+import com.qrmedia.commons.persistence.hibernate.clone.EntityGraphChangeSet.CollectionChange;
+import com.qrmedia.commons.persistence.hibernate.clone.EntityGraphChangeSet.PropertyChange;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.DefaultPropertyClassifier;
+import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.PropertyClassifier;
+
+/**
+ * Determines the differences between a graph of Hibernate entities and a modified
+ * clone of it, as returned by {@link HibernateEntityGraphCloner#cloneGraph(Collection, boolean)}.
+ * <p>
+ * Every clone is compared to its original, property by property, for the same properties
+ * as are cloned by the {@link #setEntityBeanCloner(HibernateEntityBeanCloner) entity bean 
+ * cloner}, which should thus use the same access mode as the cloner that created the clones
+ * (<code>@Id</code> and <code>@Version</code> properties are not compared). Values are 
+ * compared as follows:
+ * <ul>
+ * <li>simple and <code>Cloneable</code> values are compared using <code>equals</code>
+ * <li>references to entities are compared by identity, where a clone is regarded as
+ *     identical to its original
+ * <li>collections are compared member by member using the above rules, counting 
+ *     duplicate members. Lists are also compared position by position.
+ * </ul>
+ * Entities in the modified graph that are neither clones nor originals are reported as
+ * new entities. All the clones in the given map are compared, also those that are no
+ * longer reachable from the clones of the root entities.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @author aphillips
+ * @see EntityGraphChangeSet
+ * @since 18 Oct 2026
+ *
+ */
+public class HibernateEntityGraphDiffer {
+    private PropertyClassifier propertyClassifier = new DefaultPropertyClassifier();
+    private HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+
+    /**
+     * Compares the (possibly modified) clones in the given map to their originals.
+     *
+     * @param entityClones  the map of original entities to their clones, as returned by
+     *                      {@link HibernateEntityGraphCloner#cloneGraph(Collection, boolean)}
+     * @return  the differences between the original and modified graphs
+     * @throws IllegalArgumentException if <code>entityClones</code> is <code>null</code>
+     */
+    public EntityGraphChangeSet diff(IdentityHashMap<Object, Object> entityClones) {
+
+        if (entityClones == null) {
+            throw new IllegalArgumentException("'entityClones' may not be null");
+        }
+
+        EntityGraphChangeSet changeSet = new EntityGraphChangeSet();
+        new DiffingGraphTraverser(entityClones).traverseFrom(entityClones.values(), changeSet);
+        return changeSet;
+    }
+
+    private boolean isValue(Object value) {
+        return ((value == null) || propertyClassifier.isSimpleProperty(value.getClass())
+                || ((value instanceof Cloneable) && !(value instanceof Collection<?>)));
+    }
+
+    private static Collection<?> nullToEmpty(Collection<?> collection) {
+        return ((collection != null) ? collection : Collections.<Object>emptySet());
+    }
+
+    private static boolean equal(Object value1, Object value2) {
+        return ((value1 == null) ? (value2 == null) : value1.equals(value2));
+    }
+
+    // values are compared using equals, entities by identity
+    private boolean same(Object member1, Object member2) {
+        return (isValue(member1) ? equal(member1, member2) : (member1 == member2));
+    }
+
+    private Collection<String> getComparedPropertyNames(Object entity) {
+        return entityBeanCloner.getClonedPropertyNames(
+                HibernateEntityBeanCloner.getImplementation(entity), false);
+    }
+
+    private Object getProperty(Object entity, String propertyName) {
+
+        try {
+
+            // the fields of a Hibernate proxy are not those of the entity it represents
+            return EntityPropertyUtils.getProperty(
+                    HibernateEntityBeanCloner.getImplementation(entity), propertyName, 
+                    entityBeanCloner);
+        } catch (Exception exception) {
+            throw new IllegalArgumentException("Unable to get property '" + propertyName
+                    + "' of " + entity + " due to " + exception.getClass().getSimpleName()
+                    + ": " + exception.getMessage());
+        }
+
+    }
+
+    /* Getter(s) and setter(s) */
+
+    /**
+     * @param propertyClassifier the propertyClassifier to set
+     */
+    public void setPropertyClassifier(PropertyClassifier propertyClassifier) {
+        this.propertyClassifier = propertyClassifier;
+    }
+
+    /**
+     * Sets the entity bean cloner whose access mode (see 
+     * {@link HibernateEntityBeanCloner#setFieldAccessEnabled(boolean)}) determines the
+     * properties compared. Defaults to a cloner using property access.
+     * 
+     * @param entityBeanCloner the entityBeanCloner to set
+     */
+    public void setEntityBeanCloner(HibernateEntityBeanCloner entityBeanCloner) {
+        this.entityBeanCloner = entityBeanCloner;
+    }
+
+    /**
+     * Visits the entities of the modified graph: first the clones, then any new entities
+     * discovered.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class DiffingGraphTraverser
+            extends IdentityBreadthFirstGraphTraverser<Object, EntityGraphChangeSet>
+            implements NodeVisitor<Object, EntityGraphChangeSet> {
+        private final IdentityHashMap<Object, Object> entityClones;
+        private final IdentityHashMap<Object, Object> originals;
+
+        private DiffingGraphTraverser(IdentityHashMap<Object, Object> entityClones) {
+            this.entityClones = entityClones;
+            originals = new IdentityHashMap<Object, Object>(entityClones.size());
+
+            for (Entry<Object, Object> entityClone : entityClones.entrySet()) {
+                originals.put(entityClone.getValue(), entityClone.getKey());
+            }
+
+            addNodeVisitor(this);
+        }
+
+        /* (non-Javadoc)
+         * @see com.qrmedia.commons.graph.traverser.NodeVisitor#visitNode(java.lang.Object, com.qrmedia.commons.graph.traverser.GraphTraverser, java.lang.Object)
+         */
+        public boolean visitNode(Object entity,
+                GraphTraverser<Object, EntityGraphChangeSet> graphTraverser,
+                EntityGraphChangeSet changeSet) {
+            Object original = originals.get(entity);
+
+            if (original == null) {
+                changeSet.addNewEntity(entity);
+                queueNewEntities(entity);
+                return true;
+            }
+
+            for (String propertyName : getComparedPropertyNames(original)) {
+                Object oldValue = getProperty(original, propertyName);
+                Object newValue = getProperty(entity, propertyName);
+
+                boolean oldCollection = (oldValue instanceof Collection<?>);
+                boolean newCollection = (newValue instanceof Collection<?>);
+
+                // a missing collection is compared as an empty one
+                if ((oldCollection || newCollection) && (oldCollection || (oldValue == null))
+                        && (newCollection || (newValue == null))) {
+                    diffCollections(original, propertyName, (Collection<?>) oldValue,
+                            (Collection<?>) newValue, changeSet);
+                    continue;
+                }
+
+                // clones are reported as their originals
+                Object newOriginalValue = toOriginalValue(newValue);
+
+                // a collection replaced by a single value, or vice versa, is a property change
+                if (oldCollection || newCollection) {
+                    changeSet.addPropertyChange(new PropertyChange(original, propertyName, 
+                            oldValue, newOriginalValue));
+                    continue;
+                }
+
+                if ((isValue(oldValue) && isValue(newValue))
+                        ? !equal(oldValue, newValue) : (newOriginalValue != oldValue)) {
+                    changeSet.addPropertyChange(new PropertyChange(original, propertyName, 
+                            oldValue, newOriginalValue));
+                }
+
+            }
+
+            return true;
+        }
+
+        // new entities are not compared, but may refer to further new entities
+        private void queueNewEntities(Object newEntity) {
+
+            for (String propertyName : getComparedPropertyNames(newEntity)) {
+                Object value = getProperty(newEntity, propertyName);
+
+                if (value instanceof Collection<?>) {
+
+                    for (Object member : (Collection<?>) value) {
+
+                        if (!isValue(member)) {
+                            toOriginal(member);
+                        }
+
+                    }
+
+                } else if (!isValue(value)) {
+                    toOriginal(value);
+                }
+
+            }
+
+        }
+
+        // returns collections as lists of the originals of their members
+        private Object toOriginalValue(Object value) {
+
+            if (value instanceof Collection<?>) {
+                Collection<?> members = (Collection<?>) value;
+                List<Object> originalMembers = new ArrayList<Object>(members.size());
+
+                for (Object member : members) {
+                    originalMembers.add(toOriginalValue(member));
+                }
+
+                return originalMembers;
+            }
+
+            return (isValue(value) ? value : toOriginal(value));
+        }
+
+        /*
+         * Returns the original of the given entity in the modified graph, queueing the
+         * entity if it is a new entity.
+         */
+        private Object toOriginal(Object entity) {
+
+            if (entity == null) {
+                return null;
+            }
+
+            Object original = originals.get(entity);
+
+            if (original != null) {
+                return original;
+            }
+
+            // new entities, and originals added to the modified graph, are their own originals
+            if (!entityClones.containsKey(entity)) {
+                addNode(entity);
+            }
+
+            return entity;
+        }
+
+        private void diffCollections(Object original, String propertyName,
+                Collection<?> oldCollection, Collection<?> newCollection,
+                EntityGraphChangeSet changeSet) {
+            Collection<?> oldMembers = nullToEmpty(oldCollection);
+            Collection<?> newMembers = nullToEmpty(newCollection);
+            Collection<Object> addedMembers = new ArrayList<Object>();
+            Collection<Object> removedMembers = new ArrayList<Object>();
+
+            // the members present in both collections, in their order in each collection
+            List<Object> keptOldMembers = new ArrayList<Object>(oldMembers.size());
+            List<Object> keptNewMembers = new ArrayList<Object>(newMembers.size());
+
+            MemberBag unmatchedOldMembers = new MemberBag(oldMembers);
+
+            for (Object member : newMembers) {
+
+                // clones are reported as their originals
+                Object originalMember = (isValue(member) ? member : toOriginal(member));
+
+                if (unmatchedOldMembers.remove(originalMember)) {
+                    keptNewMembers.add(originalMember);
+                } else {
+                    addedMembers.add(originalMember);
+                }
+
+            }
+
+            MemberBag keptMembers = new MemberBag(keptNewMembers);
+
+            for (Object member : oldMembers) {
+
+                if (keptMembers.remove(member)) {
+                    keptOldMembers.add(member);
+                } else {
+                    removedMembers.add(member);
+                }
+
+            }
+
+            boolean reordered = ((oldCollection instanceof List<?>) 
+                                 && (newCollection instanceof List<?>)
+                                 && !sameSequence(keptOldMembers, keptNewMembers));
+
+            if (!addedMembers.isEmpty() || !removedMembers.isEmpty() || reordered) {
+                changeSet.addCollectionChange(new CollectionChange(original, propertyName,
+                        addedMembers, removedMembers, reordered));
+            }
+
+        }
+
+        // the lists are of the same size
+        private boolean sameSequence(List<Object> members1, List<Object> members2) {
+
+            for (int i = 0; i < members1.size(); i++) {
+
+                if (!same(members1.get(i), members2.get(i))) {
+                    return false;
+                }
+
+            }
+
+            return true;
+
+        }
+
+    }
+
+    /**
+     * Collection members with their number of occurrences, compared using 
+     * <code>equals</code> for values and by identity for entities.
+     *
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    private class MemberBag {
+        private final Map<Object, Integer> valueCounts = new HashMap<Object, Integer>();
+        private final Map<Object, Integer> entityCounts;
+
+        private MemberBag(Collection<?> members) {
+            entityCounts = new IdentityHashMap<Object, Integer>(members.size());
+
+            for (Object member : members) {
+                Map<Object, Integer> counts = getCounts(member);
+                Integer count = counts.get(member);
+                counts.put(member, Integer.valueOf((count != null) ? (count.intValue() + 1) : 1));
+            }
+
+        }
+
+        private Map<Object, Integer> getCounts(Object member) {
+            return (isValue(member) ? valueCounts : entityCounts);
+        }
+
+        // returns false if the member is not (or no longer) contained
+        private boolean remove(Object member) {
+            Map<Object, Integer> counts = getCounts(member);
+            Integer count = counts.get(member);
+
+            if (count == null) {
+                return false;
+            }
+
+            if (count.intValue() == 1) {
+                counts.remove(member);
+            } else {
+                counts.put(member, Integer.valueOf(count.intValue() - 1));
+            }
+
+            return true;
+        }
+
+    }
+
+}
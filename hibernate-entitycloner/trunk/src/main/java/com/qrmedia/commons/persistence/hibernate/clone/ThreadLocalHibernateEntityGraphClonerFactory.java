@@ -0,0 +1,138 @@
+/*
+ * @(#)ThreadLocalHibernateEntityGraphClonerFactory.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Required;
+
+/**
+ * A {@link HibernateEntityGraphClonerFactory} that reuses one {@link HibernateEntityGraphCloner}
+ * per thread, rather than creating a new one for every call to {@link #newInstance()}.
+ * <p>
+ * Cloners are obtained from a delegate factory, typically the Spring-implemented
+ * factory for the prototype cloner bean, when a thread first requests one. Since a
+ * {@link HibernateEntityGraphCloner} discards all the state of a clone operation when it
+ * completes, a cloner kept by this factory does not keep the last graph it cloned alive,
+ * and can be handed out again as it is.
+ * <p>
+ * If the cloner of the current thread is in the middle of a clone operation (e.g. if
+ * <code>newInstance</code> is called by a property cloner), a new cloner is obtained
+ * from the delegate factory instead.
+ * <p>
+ * <b>N.B.:</b> Unlike those of the standard factory, the instances returned by this factory
+ * are <u>not</u> distinct within a thread. Callers should obtain a cloner for every clone
+ * operation, rather than holding on to one, and must only queue entities or commands
+ * on a cloner during its clone operation. Cloners must also not be passed to other threads.
+ * <p>
+ * Example configuration:
+ * <pre>
+ * &lt;bean id="entityGraphClonerFactory"
+ *     class="com.qrmedia.commons.persistence.hibernate.clone.ThreadLocalHibernateEntityGraphClonerFactory"&gt;
+ *   &lt;property name="entityGraphClonerFactory"&gt;
+ *     &lt;bean class="com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphClonerFactory"&gt;
+ *       &lt;lookup-method name="newInstance" bean="entityGraphCloner" /&gt;
+ *     &lt;/bean&gt;
+ *   &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ThreadLocalHibernateEntityGraphClonerFactory extends HibernateEntityGraphClonerFactory {
+    private final ThreadLocal<HibernateEntityGraphCloner> threadCloners =
+        new ThreadLocal<HibernateEntityGraphCloner>();
+
+    private HibernateEntityGraphClonerFactory entityGraphClonerFactory;
+
+    private final AtomicLong numInstancesCreated = new AtomicLong();
+    private final AtomicLong numInstancesReused = new AtomicLong();
+    private final AtomicLong numInstancesBusy = new AtomicLong();
+
+    /**
+     * Returns the cloner of the current thread, unless it is in the middle of a clone operation.
+     *
+     * @return the <code>HibernateEntityGraphCloner</code> of the current thread
+     */
+    @Override
+    public HibernateEntityGraphCloner newInstance() {
+        HibernateEntityGraphCloner entityGraphCloner = threadCloners.get();
+
+        if (entityGraphCloner == null) {
+            entityGraphCloner = entityGraphClonerFactory.newInstance();
+            threadCloners.set(entityGraphCloner);
+            numInstancesCreated.incrementAndGet();
+            return entityGraphCloner;
+        }
+
+        // don't hand out a cloner that is still in use
+        if (entityGraphCloner.isCloning()) {
+            numInstancesBusy.incrementAndGet();
+            return entityGraphClonerFactory.newInstance();
+        }
+
+        numInstancesReused.incrementAndGet();
+        return entityGraphCloner;
+    }
+
+    /**
+     * Discards the cloner of the current thread, if any, e.g. before a pooled thread
+     * is returned to its pool.
+     */
+    public void discardInstance() {
+        threadCloners.remove();
+    }
+
+    /**
+     * @return the number of cloners obtained from the delegate factory because
+     *         the requesting thread did not yet have a cloner
+     */
+    public long getNumInstancesCreated() {
+        return numInstancesCreated.get();
+    }
+
+    /**
+     * @return the number of requests served by reusing the requesting thread's cloner
+     */
+    public long getNumInstancesReused() {
+        return numInstancesReused.get();
+    }
+
+    /**
+     * @return the number of cloners obtained from the delegate factory because
+     *         the requesting thread's cloner was in use
+     */
+    public long getNumInstancesBusy() {
+        return numInstancesBusy.get();
+    }
+
+    /* Getter(s) and setter(s) */
+
+    /**
+     * @param entityGraphClonerFactory the factory from which new cloners are obtained
+     */
+    @Required
+    public void setEntityGraphClonerFactory(
+            HibernateEntityGraphClonerFactory entityGraphClonerFactory) {
+        this.entityGraphClonerFactory = entityGraphClonerFactory;
+    }
+
+}
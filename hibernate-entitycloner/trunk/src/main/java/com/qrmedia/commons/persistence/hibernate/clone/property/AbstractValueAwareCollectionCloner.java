@@ -24,9 +24,9 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.hibernate.collection.PersistentCollection;
 
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 
 /**
@@ -81,7 +81,8 @@ abstract class AbstractValueAwareCollectionCloner extends
         if (cloneSuccessful) {
             
             try {
-                PropertyUtils.setSimpleProperty(target, propertyName, clonedCollection);
+                EntityPropertyUtils.setSimpleProperty(target, propertyName, clonedCollection,
+                                                      entityGraphCloner);
             } catch (Exception exception) {
                 throw new IllegalArgumentException("Unable to set collection '"
                         + propertyName + "' on " + target + " due to " 
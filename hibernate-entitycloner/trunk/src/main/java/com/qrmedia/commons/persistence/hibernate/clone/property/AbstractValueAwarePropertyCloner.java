@@ -18,8 +18,7 @@
  */
 package com.qrmedia.commons.persistence.hibernate.clone.property;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 
 /**
@@ -41,7 +40,8 @@ abstract class AbstractValueAwarePropertyCloner implements BeanPropertyCloner {
         
         try {
             return cloneValue(source, target, propertyName, 
-                  PropertyUtils.getSimpleProperty(source, propertyName), entityGraphCloner);
+                  EntityPropertyUtils.getSimpleProperty(source, propertyName, entityGraphCloner), 
+                  entityGraphCloner);
         } catch (Exception exception) {
             throw new IllegalArgumentException("Unable to copy property '"
                     + propertyName + "' from " + source + " to " + target
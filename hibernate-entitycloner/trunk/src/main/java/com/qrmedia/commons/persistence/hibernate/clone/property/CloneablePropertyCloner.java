@@ -18,8 +18,7 @@
  */
 package com.qrmedia.commons.persistence.hibernate.clone.property;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 
 /**
@@ -50,8 +49,8 @@ public class CloneablePropertyCloner extends AbstractNonNullValueAwarePropertyCl
         if (propertyValue instanceof Cloneable) {
             
             try {
-                PropertyUtils.setSimpleProperty(target, propertyName, 
-                                                clone((Cloneable) propertyValue));
+                EntityPropertyUtils.setSimpleProperty(target, propertyName, 
+                        clone((Cloneable) propertyValue), entityGraphCloner);
                 return true;
             } catch (Exception exception) {
                 throw new IllegalArgumentException("Unable to set property '"
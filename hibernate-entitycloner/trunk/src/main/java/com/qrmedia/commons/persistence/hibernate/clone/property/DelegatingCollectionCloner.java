@@ -23,11 +23,11 @@ import java.util.Iterator;
 import java.util.Set;
 import java.util.Map.Entry;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.hibernate.util.IdentitySet;
 
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 import com.qrmedia.commons.persistence.hibernate.clone.wiring.AbstractPropertyModifyingCommand;
 import com.qrmedia.commons.persistence.hibernate.clone.wiring.GraphPostProcessingCommand;
@@ -74,7 +74,7 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
         for (T member : sourceCollection) {
             entityGraphCloner.addEntity(member);
             entityGraphCloner.addGraphWiringCommand(
-                    new AddToCollectionCommand(target, propertyName, member));
+                    new AddToCollectionCommand(target, propertyName, member, entityGraphCloner));
         }
             
         /*
@@ -95,7 +95,7 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
             entityGraphCloner.addGraphPostProcessingCommand(new SetReplacementCommand<T>(
                     target, propertyName, 
                     AbstractValueAwareCollectionCloner.newCollectionInterfaceInstance(
-                                    (Set<T>) sourceCollection)));
+                                    (Set<T>) sourceCollection), entityGraphCloner));
         }
             
         return newCollectionInterfaceInstance(sourceCollection);
@@ -146,6 +146,20 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
             super(target, propertyName, originalMember);
         }
 
+        /**
+         * Creates a <code>AddToCollectionCommand</code> that reads the collection using
+         * the access mode of the given cloner.
+         * 
+         * @param target    the object whose collection property should be wired up
+         * @param propertyName  the name of the collection property to set
+         * @param originalMember the original member of the collection
+         * @param entityGraphCloner the cloner cloning the target
+         */
+        AddToCollectionCommand(Object target, String propertyName,
+                Object originalMember, HibernateEntityGraphCloner entityGraphCloner) {
+            super(target, propertyName, originalMember, entityGraphCloner);
+        }
+
         /* (non-Javadoc)
          * @see com.tomtom.delphi.util.HibernateEntityBeanCloner.AbstractPropertyModifyingCommand#wireUpProperty(java.lang.Object, java.lang.String, java.lang.Object)
          */
@@ -156,7 +170,8 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
             Object collectionProperty;
             
             try {
-                collectionProperty = PropertyUtils.getSimpleProperty(target, propertyName);
+                collectionProperty = 
+                    EntityPropertyUtils.getSimpleProperty(target, propertyName, entityGraphCloner);
             } catch (Exception exception) {
                 throw new AssertionError("Unable to get property '" + propertyName + "' of "
                                          + target + "' due to: " + exception.getMessage());
@@ -191,6 +206,7 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
         private final Object target;
         private final String propertyName;
         private final Set<T> replacement;
+        private final HibernateEntityGraphCloner entityGraphCloner;
         
         /**
          * Creates a <code>SetReplacementCommand</code>.
@@ -200,9 +216,25 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
          * @param replacement   the set to replace the original
          */
         SetReplacementCommand(Object target, String propertyName, Set<T> replacement) {
+            this(target, propertyName, replacement, null);
+        }
+        
+        /**
+         * Creates a <code>SetReplacementCommand</code> that accesses the set using the
+         * access mode of the given cloner.
+         * 
+         * @param target    the object whose set is to be replaced
+         * @param propertyName  the name of the property of the set to be replaced
+         * @param replacement   the set to replace the original
+         * @param entityGraphCloner the cloner cloning the target. May be <code>null</code>,
+         *                          in which case the bean property is accessed.
+         */
+        SetReplacementCommand(Object target, String propertyName, Set<T> replacement,
+                HibernateEntityGraphCloner entityGraphCloner) {
             this.target = target;
             this.propertyName = propertyName;
             this.replacement = replacement;
+            this.entityGraphCloner = entityGraphCloner;
         }
         
         /* (non-Javadoc)
@@ -212,7 +244,8 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
             Object setProperty; 
             
             try {
-                setProperty = PropertyUtils.getSimpleProperty(target, propertyName);
+                setProperty = 
+                    EntityPropertyUtils.getSimpleProperty(target, propertyName, entityGraphCloner);
             } catch (Exception exception) {
                 throw new AssertionError("Unable to get property '" + propertyName + "' of "
                                          + target + "' due to: " + exception.getMessage());
@@ -227,7 +260,8 @@ public class DelegatingCollectionCloner extends AbstractValueAwareCollectionClon
             addAll(replacement, (IdentitySet) setProperty);
             
             try {
-                PropertyUtils.setSimpleProperty(target, propertyName, replacement);
+                EntityPropertyUtils.setSimpleProperty(target, propertyName, replacement, 
+                                                      entityGraphCloner);
             } catch (Exception exception) {
                 throw new AssertionError("Unable to set property '" + propertyName + "' of "
                         + target + "' due to: " + exception.getMessage());
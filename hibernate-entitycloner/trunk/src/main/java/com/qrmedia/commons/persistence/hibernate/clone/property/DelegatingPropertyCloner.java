@@ -18,8 +18,7 @@
  */
 package com.qrmedia.commons.persistence.hibernate.clone.property;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 import com.qrmedia.commons.persistence.hibernate.clone.wiring.AbstractPropertyModifyingCommand;
 
@@ -54,7 +53,7 @@ public class DelegatingPropertyCloner extends AbstractNonNullValueAwarePropertyC
          */
         entityGraphCloner.addEntity(propertyValue);
         entityGraphCloner.addGraphWiringCommand(
-                new SetPropertyCommand(target, propertyName, propertyValue));
+                new SetPropertyCommand(target, propertyName, propertyValue, entityGraphCloner));
         return true;
     }
 
@@ -80,6 +79,20 @@ public class DelegatingPropertyCloner extends AbstractNonNullValueAwarePropertyC
             super(target, propertyName, originalValue);
         }
         
+        /**
+         * Creates a <code>SetPropertyCommand</code> that sets the property using the
+         * access mode of the given cloner.
+         * 
+         * @param target    the object whose property should be set
+         * @param propertyName  the name of the property to set
+         * @param originalValue the original value of the property
+         * @param entityGraphCloner the cloner cloning the target
+         */
+        SetPropertyCommand(Object target, String propertyName,
+                Object originalValue, HibernateEntityGraphCloner entityGraphCloner) {
+            super(target, propertyName, originalValue, entityGraphCloner);
+        }
+        
         /* (non-Javadoc)
          * @see com.tomtom.delphi.util.HibernateEntityBeanCloner.AbstractPropertyModifyingCommand#wireUpProperty(java.lang.Object, java.lang.String, java.lang.Object)
          */
@@ -88,7 +101,8 @@ public class DelegatingPropertyCloner extends AbstractNonNullValueAwarePropertyC
                 Object originalEntityClone) {
             
             try {
-                PropertyUtils.setSimpleProperty(target, propertyName, originalEntityClone);
+                EntityPropertyUtils.setSimpleProperty(target, propertyName, originalEntityClone,
+                                                      entityGraphCloner);
             } catch (Exception exception) {
                 throw new AssertionError("Unable to set property '" + propertyName + "' on "
                                          + target + " due to: " + exception.getMessage());
@@ -18,8 +18,7 @@
  */
 package com.qrmedia.commons.persistence.hibernate.clone.property;
 
-import org.apache.commons.beanutils.PropertyUtils;
-
+import com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.DefaultPropertyClassifier;
 import com.qrmedia.commons.persistence.hibernate.clone.property.classifier.PropertyClassifier;
@@ -54,7 +53,8 @@ public class SimplePropertyCloner extends AbstractValueAwarePropertyCloner {
                 || propertyClassifier.isSimpleProperty(propertyValue.getClass())) {
             
             try {
-                PropertyUtils.setSimpleProperty(target, propertyName, propertyValue);
+                EntityPropertyUtils.setSimpleProperty(target, propertyName, propertyValue, 
+                                                      entityGraphCloner);
                 return true;
             } catch (Exception exception) {
                 throw new IllegalArgumentException("Unable to set property '"
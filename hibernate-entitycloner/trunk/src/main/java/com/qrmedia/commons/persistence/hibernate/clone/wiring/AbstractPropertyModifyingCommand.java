@@ -26,6 +26,7 @@ import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
+import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 
 /**
  * Contributes to the &quot;wiring up&quot; of a property of a target object using a 
@@ -40,6 +41,9 @@ public abstract class AbstractPropertyModifyingCommand implements GraphWiringCom
     protected final String propertyName;
     protected final Object originalEntity;
     
+    // not part of the command's identity
+    protected final HibernateEntityGraphCloner entityGraphCloner;
+    
     /**
      * Creates an <code>AbstractPropertyModifyingCommand</code>.
      * 
@@ -50,9 +54,27 @@ public abstract class AbstractPropertyModifyingCommand implements GraphWiringCom
      */
     public AbstractPropertyModifyingCommand(Object target, String propertyName,
             Object originalEntity) {
+        this(target, propertyName, originalEntity, null);
+    }
+    
+    /**
+     * Creates an <code>AbstractPropertyModifyingCommand</code> whose property is to be
+     * accessed using the access mode of the given cloner.
+     * 
+     * @param target    the object whose property should be set
+     * @param propertyName  the name of the property to set
+     * @param originalEntity an entity originally related to the property 
+     *                       (e.g. the original value, or a member of the original collection)
+     * @param entityGraphCloner the cloner cloning the target. May be <code>null</code>,
+     *                          in which case the bean property is accessed.
+     * @see com.qrmedia.commons.persistence.hibernate.clone.EntityPropertyUtils
+     */
+    public AbstractPropertyModifyingCommand(Object target, String propertyName,
+            Object originalEntity, HibernateEntityGraphCloner entityGraphCloner) {
         this.target = target;
         this.propertyName = propertyName;
         this.originalEntity = originalEntity;
+        this.entityGraphCloner = entityGraphCloner;
     }
     
     /* (non-Javadoc)
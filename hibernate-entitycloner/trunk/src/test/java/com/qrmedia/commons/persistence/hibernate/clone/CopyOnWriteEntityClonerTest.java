@@ -0,0 +1,370 @@
+/*
+ * @(#)CopyOnWriteEntityClonerTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.naming.CompositeName;
+import javax.naming.InvalidNameException;
+import javax.persistence.Id;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link CopyOnWriteEntityCloner}.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class CopyOnWriteEntityClonerTest {
+    private CopyOnWriteEntityCloner entityCloner = new CopyOnWriteEntityCloner();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void clone_null() {
+        entityCloner.clone(null);
+    }
+
+    @Test
+    public void clone_sharesUntilModified() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        entity.setId(7L);
+        entity.setVersion(7);
+        String simpleBeanProperty = "James Bond";
+        entity.setSimpleBeanProperty(simpleBeanProperty);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+        assertNotSame(entity, view);
+        assertTrue(view instanceof CopyOnWriteView);
+
+        assertSame(simpleBeanProperty, view.getSimpleBeanProperty());
+
+        // @Id and @Version properties are not cloned
+        assertNull(view.getId());
+        assertTrue(view.getVersion() == 0);
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+    }
+
+    @Test
+    public void clone_preserveId() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        Long id = 7L;
+        entity.setId(id);
+
+        StubHibernateEntity view = entityCloner.clone(entity, true);
+        assertEquals(id, view.getId());
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+    }
+
+    @Test
+    public void clone_modify() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        String simpleBeanProperty = "James Bond";
+        entity.setSimpleBeanProperty(simpleBeanProperty);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+        String newSimpleBeanProperty = "Q";
+        view.setSimpleBeanProperty(newSimpleBeanProperty);
+
+        assertTrue(((CopyOnWriteView) view).isMaterialized());
+        assertSame(newSimpleBeanProperty, view.getSimpleBeanProperty());
+        assertSame(simpleBeanProperty, entity.getSimpleBeanProperty());
+
+        Object clone = ((CopyOnWriteView) view).materialize();
+        assertSame(StubHibernateEntity.class, clone.getClass());
+        assertSame(newSimpleBeanProperty, ((StubHibernateEntity) clone).getSimpleBeanProperty());
+    }
+
+    @Test
+    public void clone_modifyRelated() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        String simpleBeanProperty = "James Bond";
+        relatedEntity.setSimpleBeanProperty(simpleBeanProperty);
+        entity.setNonSimpleBeanProperty(relatedEntity);
+
+        StubHibernateEntity unrelatedEntity = new StubHibernateEntity();
+        relatedEntity.setNonSimpleBeanProperty(unrelatedEntity);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+        StubHibernateEntity relatedView = view.getNonSimpleBeanProperty();
+        assertNotSame(relatedEntity, relatedView);
+        assertSame(simpleBeanProperty, relatedView.getSimpleBeanProperty());
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+        assertFalse(((CopyOnWriteView) relatedView).isMaterialized());
+
+        relatedView.setSimpleBeanProperty("Q");
+
+        // the modified entity and its parent are materialized
+        assertTrue(((CopyOnWriteView) relatedView).isMaterialized());
+        assertTrue(((CopyOnWriteView) view).isMaterialized());
+        assertSame(simpleBeanProperty, relatedEntity.getSimpleBeanProperty());
+        assertSame(relatedView, view.getNonSimpleBeanProperty());
+
+        // ...but not its children
+        StubHibernateEntity unrelatedView = relatedView.getNonSimpleBeanProperty();
+        assertNotSame(unrelatedEntity, unrelatedView);
+        assertFalse(((CopyOnWriteView) unrelatedView).isMaterialized());
+    }
+
+    @Test
+    public void clone_cyclic() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        entity.setNonSimpleBeanProperty(relatedEntity);
+        relatedEntity.setNonSimpleBeanProperty(entity);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+
+        // an entity is represented by a single view
+        assertSame(view, view.getNonSimpleBeanProperty().getNonSimpleBeanProperty());
+
+        view.getNonSimpleBeanProperty().setSimpleBeanProperty("Q");
+        assertTrue(((CopyOnWriteView) view).isMaterialized());
+        assertSame(view, view.getNonSimpleBeanProperty().getNonSimpleBeanProperty());
+    }
+
+    @Test
+    public void clone_collection() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        Collection<String> simpleCollectionBeanProperty =
+            new ArrayList<String>(Arrays.asList("MI6"));
+        entity.setSimpleCollectionBeanProperty(simpleCollectionBeanProperty);
+
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        Collection<StubHibernateEntity> nonSimpleCollectionBeanProperty =
+            new ArrayList<StubHibernateEntity>(Arrays.asList(relatedEntity));
+        entity.setNonSimpleCollectionBeanProperty(nonSimpleCollectionBeanProperty);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+
+        // reading a collection does not materialize the view
+        Collection<String> simpleCollectionBeanPropertyClone =
+            view.getSimpleCollectionBeanProperty();
+        assertNotSame(simpleCollectionBeanProperty, simpleCollectionBeanPropertyClone);
+        assertEquals(simpleCollectionBeanProperty, simpleCollectionBeanPropertyClone);
+        assertSame(simpleCollectionBeanPropertyClone, view.getSimpleCollectionBeanProperty());
+
+        Collection<StubHibernateEntity> nonSimpleCollectionBeanPropertyClone =
+            view.getNonSimpleCollectionBeanProperty();
+        assertTrue(nonSimpleCollectionBeanPropertyClone.size() == 1);
+
+        StubHibernateEntity relatedView = nonSimpleCollectionBeanPropertyClone.iterator().next();
+        assertNotSame(relatedEntity, relatedView);
+        assertFalse(((CopyOnWriteView) relatedView).isMaterialized());
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+    }
+
+    @Test
+    public void clone_modifyCollection() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        Collection<String> simpleCollectionBeanProperty =
+            new ArrayList<String>(Arrays.asList("MI6"));
+        entity.setSimpleCollectionBeanProperty(simpleCollectionBeanProperty);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+        Collection<String> simpleCollectionBeanPropertyClone =
+            view.getSimpleCollectionBeanProperty();
+        simpleCollectionBeanPropertyClone.add("Q");
+
+        assertTrue(((CopyOnWriteView) view).isMaterialized());
+        assertEquals(Arrays.asList("MI6", "Q"), 
+                     new ArrayList<String>(view.getSimpleCollectionBeanProperty()));
+        assertEquals(Arrays.asList("MI6"), simpleCollectionBeanProperty);
+    }
+
+    @Test
+    public void clone_cloneable() throws InvalidNameException {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        CompositeName cloneableBeanProperty = new CompositeName("MI6");
+        entity.setCloneableBeanProperty(cloneableBeanProperty);
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+
+        // the view has its own copy, which is kept when the view is materialized
+        CompositeName cloneableBeanPropertyClone = 
+            (CompositeName) view.getCloneableBeanProperty();
+        assertNotSame(cloneableBeanProperty, cloneableBeanPropertyClone);
+        assertEquals(cloneableBeanProperty, cloneableBeanPropertyClone);
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+
+        cloneableBeanPropertyClone.add("Q");
+        StubHibernateEntity clone = 
+            (StubHibernateEntity) ((CopyOnWriteView) view).materialize();
+        assertSame(cloneableBeanPropertyClone, clone.getCloneableBeanProperty());
+        assertEquals(new CompositeName("MI6"), cloneableBeanProperty);
+    }
+
+    @Test
+    public void materialize_unwrapsViews() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        entity.setNonSimpleBeanProperty(relatedEntity);
+        relatedEntity.setNonSimpleBeanProperty(entity);
+        StubHibernateEntity memberEntity = new StubHibernateEntity();
+        entity.setNonSimpleCollectionBeanProperty(
+                new ArrayList<StubHibernateEntity>(Arrays.asList(memberEntity)));
+
+        StubHibernateEntity view = entityCloner.clone(entity);
+        StubHibernateEntity clone = 
+            (StubHibernateEntity) ((CopyOnWriteView) view).materialize();
+
+        // the clones refer to each other, and not to views or originals
+        StubHibernateEntity relatedClone = clone.getNonSimpleBeanProperty();
+        assertSame(StubHibernateEntity.class, relatedClone.getClass());
+        assertNotSame(relatedEntity, relatedClone);
+        assertSame(clone, relatedClone.getNonSimpleBeanProperty());
+
+        StubHibernateEntity memberClone = 
+            clone.getNonSimpleCollectionBeanProperty().iterator().next();
+        assertSame(StubHibernateEntity.class, memberClone.getClass());
+        assertNotSame(memberEntity, memberClone);
+
+        // the views delegate to the clones
+        assertSame(relatedClone, view.getNonSimpleBeanProperty());
+        assertSame(entity, relatedEntity.getNonSimpleBeanProperty());
+    }
+
+    @Test
+    public void clone_identityEquals() {
+        StubHibernateEntity view = entityCloner.clone(new StubHibernateEntity());
+        Set<StubHibernateEntity> views = new HashSet<StubHibernateEntity>();
+        views.add(view);
+
+        assertTrue(view.equals(view));
+        assertTrue(views.contains(view));
+
+        // materializing the view does not change its hash code
+        view.setSimpleBeanProperty("James Bond");
+        assertTrue(((CopyOnWriteView) view).isMaterialized());
+        assertTrue(view.equals(view));
+        assertTrue(views.contains(view));
+        assertTrue(views.remove(view));
+    }
+
+    public static class StubClassEqualsHibernateEntity {
+        private String name;
+        private StubClassEqualsHibernateEntity related;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public StubClassEqualsHibernateEntity getRelated() {
+            return related;
+        }
+
+        public void setRelated(StubClassEqualsHibernateEntity related) {
+            this.related = related;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return ((obj != null) && (obj.getClass() == getClass())
+                    && name.equals(((StubClassEqualsHibernateEntity) obj).name));
+        }
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+    }
+
+    @Test
+    public void clone_classBasedEquals() {
+        StubClassEqualsHibernateEntity entity = new StubClassEqualsHibernateEntity();
+        entity.setName("007");
+        StubClassEqualsHibernateEntity relatedEntity = new StubClassEqualsHibernateEntity();
+        relatedEntity.setName("007");
+        entity.setRelated(relatedEntity);
+
+        StubClassEqualsHibernateEntity view = entityCloner.clone(entity);
+        Set<StubClassEqualsHibernateEntity> views = new HashSet<StubClassEqualsHibernateEntity>();
+        views.add(view);
+
+        assertTrue(view.equals(view));
+        assertTrue(views.contains(view));
+        assertTrue(view.equals(entity));
+
+        // other views of the same clone are compared by the entities they delegate to
+        assertTrue(view.equals(view.getRelated()));
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+
+        view.setName("Q");
+        assertTrue(view.equals(view));
+        assertFalse(view.equals(entity));
+    }
+
+    public static class StubFieldAccessHibernateEntity {
+        @Id
+        private Long id;
+
+        private String nonBeanProperty;
+        private StubFieldAccessHibernateEntity related;
+
+        public StubFieldAccessHibernateEntity getRelated() {
+            return related;
+        }
+
+    }
+
+    @Test
+    public void clone_fieldAccess() {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        entity.id = 7L;
+        entity.nonBeanProperty = "007";
+        StubFieldAccessHibernateEntity relatedEntity = new StubFieldAccessHibernateEntity();
+        relatedEntity.nonBeanProperty = "Q";
+        entity.related = relatedEntity;
+
+        HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+        entityBeanCloner.setFieldAccessEnabled(true);
+        entityCloner.setEntityBeanCloner(entityBeanCloner);
+
+        StubFieldAccessHibernateEntity view = entityCloner.clone(entity);
+        StubFieldAccessHibernateEntity relatedView = view.getRelated();
+        assertNotSame(relatedEntity, relatedView);
+        assertFalse(((CopyOnWriteView) view).isMaterialized());
+
+        // fields without getters are cloned too
+        StubFieldAccessHibernateEntity clone = 
+            (StubFieldAccessHibernateEntity) ((CopyOnWriteView) view).materialize();
+        assertNull(clone.id);
+        assertEquals("007", clone.nonBeanProperty);
+        assertSame(StubFieldAccessHibernateEntity.class, clone.related.getClass());
+        assertEquals("Q", clone.related.nonBeanProperty);
+    }
+
+}
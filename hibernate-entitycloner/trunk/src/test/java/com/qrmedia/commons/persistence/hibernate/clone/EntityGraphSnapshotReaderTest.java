@@ -0,0 +1,279 @@
+/*
+ * @(#)EntityGraphSnapshotReaderTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+
+import java.lang.Thread.State;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.naming.CompositeName;
+import javax.naming.InvalidNameException;
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link EntityGraphSnapshotReader}.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityGraphSnapshotReaderTest {
+    private EntityGraphSnapshotWriter snapshotWriter = new EntityGraphSnapshotWriter();
+    private EntityGraphSnapshotReader snapshotReader = new EntityGraphSnapshotReader();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_null() {
+        snapshotReader.read(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_truncated() {
+        ByteBuffer snapshot = snapshotWriter.write(new StubHibernateEntity());
+        snapshot.limit(snapshot.limit() - 1);
+        snapshotReader.read(snapshot);
+    }
+
+    @Test
+    public void read() throws InvalidNameException {
+        StubHibernateEntity entity = new StubHibernateEntity(7L, 7, "007", "James Bond",
+                State.RUNNABLE, new CompositeName("MI6/00"), null,
+                new ArrayList<String>(Arrays.asList("Q", null)), null);
+
+        StubHibernateEntity snapshotEntity = 
+            (StubHibernateEntity) read(snapshotWriter.write(entity)).get(0);
+        assertNotSame(entity, snapshotEntity);
+
+        // IDs and versions are preserved
+        assertEquals(entity.getId(), snapshotEntity.getId());
+        assertTrue(snapshotEntity.getVersion() == 7);
+
+        // non-bean properties are not
+        assertNull(snapshotEntity.getNonBeanProperty());
+
+        assertEquals(entity.getSimpleBeanProperty(), snapshotEntity.getSimpleBeanProperty());
+        assertSame(State.RUNNABLE, snapshotEntity.getEnumBeanProperty());
+        assertEquals(entity.getCloneableBeanProperty(), snapshotEntity.getCloneableBeanProperty());
+        assertEquals(entity.getSimpleCollectionBeanProperty(), 
+                     snapshotEntity.getSimpleCollectionBeanProperty());
+        assertNull(snapshotEntity.getNonSimpleBeanProperty());
+    }
+
+    @Test
+    public void read_sharedEntities() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        relatedEntity.setSimpleBeanProperty("James Bond");
+        entity.setNonSimpleBeanProperty(relatedEntity);
+        entity.setNonSimpleCollectionBeanProperty(
+                new HashSet<StubHibernateEntity>(Arrays.asList(relatedEntity)));
+
+        // a cycle
+        relatedEntity.setNonSimpleBeanProperty(entity);
+
+        List<Object> roots = read(snapshotWriter.write(Arrays.asList(relatedEntity, entity)));
+        assertTrue(roots.size() == 2);
+
+        StubHibernateEntity snapshotRelatedEntity = (StubHibernateEntity) roots.get(0);
+        StubHibernateEntity snapshotEntity = (StubHibernateEntity) roots.get(1);
+        assertEquals("James Bond", snapshotRelatedEntity.getSimpleBeanProperty());
+        assertSame(snapshotRelatedEntity, snapshotEntity.getNonSimpleBeanProperty());
+        assertSame(snapshotEntity, snapshotRelatedEntity.getNonSimpleBeanProperty());
+
+        assertTrue(snapshotEntity.getNonSimpleCollectionBeanProperty() instanceof HashSet);
+        assertTrue(snapshotEntity.getNonSimpleCollectionBeanProperty().size() == 1);
+        assertSame(snapshotRelatedEntity, 
+                   snapshotEntity.getNonSimpleCollectionBeanProperty().iterator().next());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void read_nestedSets() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        Set<Object> nestedSet = new HashSet<Object>(Arrays.asList("Q"));
+        Set<Object> set = new HashSet<Object>(Arrays.<Object>asList(nestedSet, "M"));
+        entity.setSimpleCollectionBeanProperty((Collection) set);
+
+        StubHibernateEntity snapshotEntity = 
+            (StubHibernateEntity) read(snapshotWriter.write(entity)).get(0);
+
+        // the hash code of the nested set depends on its members
+        Collection<?> snapshotSet = snapshotEntity.getSimpleCollectionBeanProperty();
+        assertEquals(set, snapshotSet);
+        assertTrue(snapshotSet.contains(nestedSet));
+    }
+
+    /**
+     * An entity whose hash code depends on its simple collection bean property.
+     */
+    public static class StubHashedHibernateEntity extends StubHibernateEntity {
+
+        @Override
+        public int hashCode() {
+            Collection<String> simpleCollectionBeanProperty = getSimpleCollectionBeanProperty();
+            return ((simpleCollectionBeanProperty != null) 
+                    ? simpleCollectionBeanProperty.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return (obj == this);
+        }
+
+    }
+
+    @Test
+    public void read_setMembersWithSets() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHashedHibernateEntity relatedEntity = new StubHashedHibernateEntity();
+        relatedEntity.setSimpleCollectionBeanProperty(new HashSet<String>(Arrays.asList("Q")));
+        entity.setNonSimpleCollectionBeanProperty(
+                new HashSet<StubHibernateEntity>(Arrays.asList(relatedEntity)));
+
+        StubHibernateEntity snapshotEntity = 
+            (StubHibernateEntity) read(snapshotWriter.write(entity)).get(0);
+        StubHibernateEntity snapshotRelatedEntity = 
+            snapshotEntity.getNonSimpleCollectionBeanProperty().iterator().next();
+
+        // the member is only added once its own set has been populated
+        assertEquals(relatedEntity.getSimpleCollectionBeanProperty(), 
+                     snapshotRelatedEntity.getSimpleCollectionBeanProperty());
+        assertTrue(snapshotEntity.getNonSimpleCollectionBeanProperty().contains(
+                snapshotRelatedEntity));
+    }
+
+    /**
+     * An entity using field access with a field that is not a bean property.
+     */
+    public static class StubFieldAccessHibernateEntity {
+        @Id
+        private Long id;
+
+        @Version
+        private int version;
+
+        private String nonBeanProperty;
+    }
+
+    @Test
+    public void read_fieldAccess() {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        entity.id = 7L;
+        entity.version = 7;
+        entity.nonBeanProperty = "James Bond";
+        snapshotWriter.setFieldAccessEnabled(true);
+        snapshotReader.setFieldAccessEnabled(true);
+
+        StubFieldAccessHibernateEntity snapshotEntity = 
+            (StubFieldAccessHibernateEntity) read(snapshotWriter.write(entity)).get(0);
+        assertEquals(entity.id, snapshotEntity.id);
+        assertTrue(snapshotEntity.version == 7);
+        assertEquals("James Bond", snapshotEntity.nonBeanProperty);
+    }
+
+    /**
+     * A stand-in for a javassist proxy, as created by Hibernate's default proxy factory.
+     */
+    public static class StubHibernateEntity_$$_javassist_1 extends StubHibernateEntity 
+            implements HibernateProxy {
+        private final LazyInitializer lazyInitializer;
+
+        private StubHibernateEntity_$$_javassist_1(LazyInitializer lazyInitializer) {
+            this.lazyInitializer = lazyInitializer;
+        }
+
+        public Object writeReplace() {
+            return this;
+        }
+
+        public LazyInitializer getHibernateLazyInitializer() {
+            return lazyInitializer;
+        }
+
+    }
+
+    @Test
+    public void read_javassistProxy() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        entity.setSimpleBeanProperty("James Bond");
+        LazyInitializer lazyInitializer = createMock(LazyInitializer.class);
+        expect(lazyInitializer.getImplementation()).andReturn(entity).anyTimes();
+        replay(lazyInitializer);
+
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        relatedEntity.setNonSimpleBeanProperty(
+                new StubHibernateEntity_$$_javassist_1(lazyInitializer));
+
+        List<Object> roots = read(snapshotWriter.write(Arrays.asList(relatedEntity, entity)));
+        StubHibernateEntity snapshotRelatedEntity = (StubHibernateEntity) roots.get(0);
+        StubHibernateEntity snapshotEntity = (StubHibernateEntity) roots.get(1);
+
+        // the proxy is read as the entity it represents
+        assertSame(StubHibernateEntity.class, snapshotEntity.getClass());
+        assertSame(snapshotEntity, snapshotRelatedEntity.getNonSimpleBeanProperty());
+        assertEquals("James Bond", snapshotEntity.getSimpleBeanProperty());
+    }
+
+    @Test
+    public void read_serializedUsesClassLoader() throws InvalidNameException {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        entity.setCloneableBeanProperty(new CompositeName("MI6/00"));
+        final List<String> loadedClassNames = new ArrayList<String>();
+        snapshotReader.setClassLoader(new ClassLoader(getClass().getClassLoader()) {
+
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) 
+                    throws ClassNotFoundException {
+                loadedClassNames.add(name);
+                return super.loadClass(name, resolve);
+            }
+
+        });
+
+        StubHibernateEntity snapshotEntity = 
+            (StubHibernateEntity) read(snapshotWriter.write(entity)).get(0);
+        assertEquals(entity.getCloneableBeanProperty(), snapshotEntity.getCloneableBeanProperty());
+        assertTrue(loadedClassNames.contains(CompositeName.class.getName()));
+    }
+
+    private List<Object> read(ByteBuffer snapshot) {
+        List<Object> roots = snapshotReader.read(snapshot);
+        assertTrue(snapshot.remaining() == 0);
+        return roots;
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * @(#)EntityGraphSnapshotWriterTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link EntityGraphSnapshotWriter}.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class EntityGraphSnapshotWriterTest {
+    private EntityGraphSnapshotWriter snapshotWriter = new EntityGraphSnapshotWriter();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_null() {
+        snapshotWriter.write((Object) null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_nullCollection() {
+        snapshotWriter.write(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void write_unsupportedCollection() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        entity.setSimpleCollectionBeanProperty(Collections.unmodifiableCollection(
+                new ArrayList<String>(Arrays.asList("MI6"))));
+        snapshotWriter.write(entity);
+    }
+
+    @Test
+    public void write_sharedEntity() {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity = new StubHibernateEntity();
+        relatedEntity.setSimpleBeanProperty("James Bond");
+        entity.setNonSimpleBeanProperty(relatedEntity);
+        int snapshotSize = snapshotWriter.write(entity).remaining();
+
+        // a second reference to the shared entity only adds a back-reference
+        entity.setNonSimpleCollectionBeanProperty(
+                new ArrayList<StubHibernateEntity>(Arrays.asList(relatedEntity)));
+        ByteBuffer snapshot = snapshotWriter.write(entity);
+
+        // the null tag is replaced by a list tag, size, entity tag and index
+        assertTrue(snapshot.remaining() == snapshotSize - 1 + 1 + 4 + 1 + 4);
+    }
+
+    @Test
+    public void write_smallInitialCapacity() {
+        snapshotWriter.setInitialCapacity(1);
+        StubHibernateEntity entity = new StubHibernateEntity();
+        entity.setSimpleBeanProperty("James Bond");
+
+        ByteBuffer snapshot = snapshotWriter.write(entity);
+        assertTrue(snapshot.position() == 0);
+        assertTrue(snapshot.remaining() > 1);
+    }
+
+}
@@ -23,21 +23,31 @@ import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.IdentityHashMap;
 
+import javax.persistence.Id;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+
 import org.easymock.Capture;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.qrmedia.commons.graph.traverser.BreadthFirstGraphTraverser;
+import com.qrmedia.commons.lang.ClassUtils;
 import com.qrmedia.commons.persistence.hibernate.clone.EntityPreserveIdFlagPair;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityBeanCloner;
 import com.qrmedia.commons.persistence.hibernate.clone.HibernateEntityGraphCloner;
 import com.qrmedia.commons.persistence.hibernate.clone.property.BeanPropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.SimplePropertyCloner;
 
 /**
  * Unit tests for the {@link HibernateEntityBeanCloner}.
@@ -266,4 +276,163 @@ public class HibernateEntityBeanClonerTest {
         assertEquals(StubHibernateEntity.class, entityClone.getClass());
     }       
     
+    /**
+     * An entity using field access with fields that are not bean properties.
+     */
+    public static class StubFieldAccessHibernateEntity {
+        @Id
+        private Long id;
+        
+        @Version
+        private int version;
+        
+        private int numChewMarks;
+        private String nonBeanProperty;
+        private transient String transientProperty;
+        
+        @Transient
+        private String annotatedTransientProperty;
+    }
+    
+    @Test
+    public void visitNode_fieldAccess() {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        entity.id = 7L;
+        entity.version = 7;
+        entity.numChewMarks = 7;
+        entity.transientProperty = "007";
+        entity.annotatedTransientProperty = "007";
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        
+        // primitive fields are copied directly, so expect a call *only* for the non-bean property
+        Capture<StubFieldAccessHibernateEntity> entityCloneCapture1 = 
+            new Capture<StubFieldAccessHibernateEntity>(); 
+        expect(simplePropertyCloner.clone(same(entity), capture(entityCloneCapture1), 
+                                          eq("nonBeanProperty"), same(entityGraphCloner)))
+        .andReturn(true);
+        replay(simplePropertyCloner);
+        
+        entityBeanCloner.setFieldAccessEnabled(true);
+        IdentityHashMap<Object, Object> entityClones = new IdentityHashMap<Object, Object>();
+        entityBeanCloner.visitNode(new EntityPreserveIdFlagPair(entity, false), entityGraphCloner, 
+                                   entityClones);
+        
+        verify(simplePropertyCloner);
+        
+        StubFieldAccessHibernateEntity entityClone = 
+            (StubFieldAccessHibernateEntity) entityClones.get(entity);
+        assertSame(entityClone, entityCloneCapture1.getValue());
+        assertTrue(entityClone.numChewMarks == 7);
+        
+        // @Id, @Version and transient fields are not cloned
+        assertNull(entityClone.id);
+        assertTrue(entityClone.version == 0);
+        assertNull(entityClone.transientProperty);
+        assertNull(entityClone.annotatedTransientProperty);
+    }
+    
+    @Test
+    public void visitNode_fieldAccess_primitiveFieldsNotBulkCopied() {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        
+        // expect calls for the primitive field and the @Id field
+        simplePropertyCloner.clone(same(entity), isA(StubFieldAccessHibernateEntity.class), 
+                eq("numChewMarks"), same(entityGraphCloner));
+        expectLastCall().andReturn(true);
+        simplePropertyCloner.clone(same(entity), isA(StubFieldAccessHibernateEntity.class), 
+                eq("id"), same(entityGraphCloner));
+        expectLastCall().andReturn(true);
+        simplePropertyCloner.clone(same(entity), isA(StubFieldAccessHibernateEntity.class), 
+                eq("nonBeanProperty"), same(entityGraphCloner));
+        expectLastCall().andReturn(true);
+        replay(simplePropertyCloner);
+        
+        entityBeanCloner.setFieldAccessEnabled(true);
+        entityBeanCloner.setPrimitiveFieldsBulkCopied(false);
+        entityBeanCloner.visitNode(new EntityPreserveIdFlagPair(entity, true), entityGraphCloner, 
+                                   new IdentityHashMap<Object, Object>());
+        
+        verify(simplePropertyCloner);
+    }
+    
+    /**
+     * Checks that property cloners access the fields of entities cloned using field access.
+     */
+    @Test
+    public void visitNode_fieldAccess_propertyCloners() {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        entity.nonBeanProperty = "James Bond";
+        
+        entityBeanCloner.setPropertyCloners(
+                Arrays.<BeanPropertyCloner>asList(new SimplePropertyCloner()));
+        entityBeanCloner.setFieldAccessEnabled(true);
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        entityGraphCloner.setEntityBeanCloner(entityBeanCloner);
+        IdentityHashMap<Object, Object> entityClones = new IdentityHashMap<Object, Object>();
+        entityBeanCloner.visitNode(new EntityPreserveIdFlagPair(entity, false), 
+                                   entityGraphCloner, entityClones);
+        
+        assertSame(entity.nonBeanProperty, 
+                   ((StubFieldAccessHibernateEntity) entityClones.get(entity)).nonBeanProperty);
+    }
+    
+    /**
+     * Checks that enabling field access for one cloner does not affect any other cloner,
+     * or the fields seen by other code.
+     */
+    @Test
+    public void visitNode_fieldAccess_notShared() throws Exception {
+        StubFieldAccessHibernateEntity entity = new StubFieldAccessHibernateEntity();
+        entity.nonBeanProperty = "James Bond";
+        
+        entityBeanCloner.setPropertyCloners(
+                Arrays.<BeanPropertyCloner>asList(new SimplePropertyCloner()));
+        entityBeanCloner.setFieldAccessEnabled(true);
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        entityGraphCloner.setEntityBeanCloner(entityBeanCloner);
+        entityBeanCloner.visitNode(new EntityPreserveIdFlagPair(entity, false), 
+                                   entityGraphCloner, new IdentityHashMap<Object, Object>());
+        
+        assertEquals(entity.nonBeanProperty, EntityPropertyUtils.getSimpleProperty(
+                entity, "nonBeanProperty", entityGraphCloner));
+        
+        HibernateEntityGraphCloner otherEntityGraphCloner = new HibernateEntityGraphCloner();
+        otherEntityGraphCloner.setEntityBeanCloner(new HibernateEntityBeanCloner());
+        
+        try {
+            EntityPropertyUtils.getSimpleProperty(entity, "nonBeanProperty", 
+                                                  otherEntityGraphCloner);
+            fail("Expected the bean property to be read");
+        } catch (NoSuchMethodException exception) {
+            // expected
+        }
+        
+        for (Field field : ClassUtils.getAllDeclaredFields(StubFieldAccessHibernateEntity.class)) {
+            assertFalse(field.toString(), field.isAccessible());
+        }
+        
+    }
+    
+    /**
+     * Checks that entities using property access are cloned as before if field access is enabled.
+     */
+    @Test
+    public void visitNode_fieldAccess_propertyAccess() {
+        StubPropertyAccessHibernateEntity entity = new StubPropertyAccessHibernateEntity(7L, 7, "007");
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        
+        // expect a call *only* for the simple bean property
+        expect(simplePropertyCloner.clone(same(entity), isA(StubPropertyAccessHibernateEntity.class), 
+                                          eq("simpleBeanProperty"), same(entityGraphCloner)))
+        .andReturn(true);
+        replay(simplePropertyCloner);
+        
+        entityBeanCloner.setFieldAccessEnabled(true);
+        entityBeanCloner.visitNode(new EntityPreserveIdFlagPair(entity, false), entityGraphCloner, 
+                                   new IdentityHashMap<Object, Object>());
+        
+        verify(simplePropertyCloner);
+    }
+    
 }
@@ -0,0 +1,510 @@
+/*
+ * @(#)HibernateEntityGraphClonerBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import javax.persistence.Id;
+import javax.persistence.Version;
+
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import com.qrmedia.commons.persistence.hibernate.clone.example.domain.Owner;
+import com.qrmedia.commons.persistence.hibernate.clone.example.domain.Pet;
+import com.qrmedia.commons.persistence.hibernate.clone.example.domain.Species;
+import com.qrmedia.commons.persistence.hibernate.clone.example.domain.Toy;
+import com.qrmedia.commons.persistence.hibernate.clone.property.BeanPropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.CloneablePropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.DelegatingCollectionCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.DelegatingPropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.SimpleCollectionCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.SimplePropertyCloner;
+
+/**
+ * Micro benchmarks for the {@link HibernateEntityGraphCloner}.
+ * <p>
+ * Clones synthetic entity graphs of configurable shape, both as plain objects and as
+ * Hibernate-managed entities loaded from the in-memory HSQLDB database configured in
+ * <code>example-applicationContext.xml</code>, with and without ID preservation and
+ * for a number of different {@link BeanPropertyCloner} chains.
+ * <p>
+ * Usage: <code>HibernateEntityGraphClonerBenchmark [depth [fanOut [collectionSize [sharePercentage]]]]</code>
+ * <p>
+ * &quot;Allocation&quot; figures are the growth of the used heap during a run and are thus
+ * only an approximation - they are meaningful when comparing runs, not as absolute values.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class HibernateEntityGraphClonerBenchmark {
+    private static final int NUM_ITERATIONS = 3;
+    private static final int NUM_CLONES_PER_ITERATION = 200;
+    private static final int NUM_WARMUP_CLONES = 500;
+
+    private static final int DEFAULT_DEPTH = 4;
+    private static final int DEFAULT_FAN_OUT = 4;
+    private static final int DEFAULT_COLLECTION_SIZE = 8;
+    private static final int DEFAULT_SHARE_PERCENTAGE = 20;
+
+    private static final int NUM_OWNERS = 20;
+
+    /**
+     * A synthetic entity with simple, simple collection, non-simple and non-simple
+     * collection properties.
+     */
+    public static class GraphNode {
+        @Id
+        private Long id;
+
+        @Version
+        private int version;
+
+        private String name;
+        private int value;
+        private Species species;
+        private List<String> tags = new ArrayList<String>();
+        private GraphNode sharedNode;
+        private List<GraphNode> children = new ArrayList<GraphNode>();
+
+        public GraphNode() {}
+
+        private GraphNode(long id, String name, int value, Species species) {
+            this.id = id;
+            this.name = name;
+            this.value = value;
+            this.species = species;
+        }
+
+        /* Getters and setters */
+
+        /**
+         * @return the id
+         */
+        public Long getId() {
+            return id;
+        }
+
+        /**
+         * @param id the id to set
+         */
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        /**
+         * @return the version
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        /**
+         * @param version the version to set
+         */
+        public void setVersion(int version) {
+            this.version = version;
+        }
+
+        /**
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @param name the name to set
+         */
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * @return the value
+         */
+        public int getValue() {
+            return value;
+        }
+
+        /**
+         * @param value the value to set
+         */
+        public void setValue(int value) {
+            this.value = value;
+        }
+
+        /**
+         * @return the species
+         */
+        public Species getSpecies() {
+            return species;
+        }
+
+        /**
+         * @param species the species to set
+         */
+        public void setSpecies(Species species) {
+            this.species = species;
+        }
+
+        /**
+         * @return the tags
+         */
+        public List<String> getTags() {
+            return tags;
+        }
+
+        /**
+         * @param tags the tags to set
+         */
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        /**
+         * @return the sharedNode
+         */
+        public GraphNode getSharedNode() {
+            return sharedNode;
+        }
+
+        /**
+         * @param sharedNode the sharedNode to set
+         */
+        public void setSharedNode(GraphNode sharedNode) {
+            this.sharedNode = sharedNode;
+        }
+
+        /**
+         * @return the children
+         */
+        public List<GraphNode> getChildren() {
+            return children;
+        }
+
+        /**
+         * @param children the children to set
+         */
+        public void setChildren(List<GraphNode> children) {
+            this.children = children;
+        }
+
+    }
+
+    /**
+     * Builds synthetic {@link GraphNode} graphs.
+     * <p>
+     * Each node at a level less than <code>depth</code> has <code>fanOut</code> children
+     * and <code>collectionSize</code> simple collection members. For
+     * <code>sharePercentage</code> percent of the child slots, an already-created node
+     * is reused instead of creating a new one, so the result is a DAG rather than a tree.
+     */
+    static class GraphBuilder {
+        private final int depth;
+        private final int fanOut;
+        private final int collectionSize;
+        private final int sharePercentage;
+
+        private final Random random = new Random(7);
+        private final List<GraphNode> createdNodes = new ArrayList<GraphNode>();
+        private long nextId;
+
+        GraphBuilder(int depth, int fanOut, int collectionSize, int sharePercentage) {
+            this.depth = depth;
+            this.fanOut = fanOut;
+            this.collectionSize = collectionSize;
+            this.sharePercentage = sharePercentage;
+        }
+
+        GraphNode build() {
+            createdNodes.clear();
+            return newNode(0);
+        }
+
+        private GraphNode newNode(int level) {
+            GraphNode node = new GraphNode(nextId++, "node-" + nextId, random.nextInt(),
+                    Species.values()[random.nextInt(Species.values().length)]);
+            createdNodes.add(node);
+
+            for (int i = 0; i < collectionSize; i++) {
+                node.getTags().add("tag-" + random.nextInt(collectionSize * 4));
+            }
+
+            if (level < depth) {
+
+                for (int i = 0; i < fanOut; i++) {
+                    node.getChildren().add(isShared() ? randomCreatedNode() : newNode(level + 1));
+                }
+
+            }
+
+            if (isShared()) {
+                node.setSharedNode(randomCreatedNode());
+            }
+
+            return node;
+        }
+
+        private boolean isShared() {
+            return (random.nextInt(100) < sharePercentage);
+        }
+
+        private GraphNode randomCreatedNode() {
+            return createdNodes.get(random.nextInt(createdNodes.size()));
+        }
+
+        int getNumCreatedNodes() {
+            return createdNodes.size();
+        }
+
+    }
+
+    public static void main(String[] args) {
+        int depth = getIntArg(args, 0, DEFAULT_DEPTH);
+        int fanOut = getIntArg(args, 1, DEFAULT_FAN_OUT);
+        int collectionSize = getIntArg(args, 2, DEFAULT_COLLECTION_SIZE);
+        int sharePercentage = getIntArg(args, 3, DEFAULT_SHARE_PERCENTAGE);
+
+        GraphBuilder graphBuilder =
+            new GraphBuilder(depth, fanOut, collectionSize, sharePercentage);
+        List<GraphNode> roots = Arrays.asList(graphBuilder.build());
+        System.out.format("Graph: depth %d, fan-out %d, collection size %d, share %d%% (%d nodes)%n",
+                depth, fanOut, collectionSize, sharePercentage,
+                graphBuilder.getNumCreatedNodes());
+
+        Map<String, List<BeanPropertyCloner>> clonerChains = newClonerChains();
+
+        // plain objects
+        for (Entry<String, List<BeanPropertyCloner>> clonerChain : clonerChains.entrySet()) {
+            HibernateEntityGraphCloner entityGraphCloner =
+                newEntityGraphCloner(clonerChain.getValue());
+
+            for (boolean preserveId : new boolean[] { false, true }) {
+                warmUp(entityGraphCloner, roots, preserveId);
+                run("POJO", clonerChain.getKey(), entityGraphCloner, roots, preserveId);
+            }
+
+        }
+
+        // Hibernate-managed entities
+        ClassPathXmlApplicationContext applicationContext =
+            new ClassPathXmlApplicationContext("example-applicationContext.xml");
+
+        try {
+            runManaged((SessionFactory) applicationContext.getBean("sessionFactory"),
+                       clonerChains, fanOut, collectionSize, sharePercentage);
+        } finally {
+            applicationContext.close();
+        }
+
+    }
+
+    private static int getIntArg(String[] args, int index, int defaultValue) {
+        return ((args.length > index) ? Integer.parseInt(args[index]) : defaultValue);
+    }
+
+    private static Map<String, List<BeanPropertyCloner>> newClonerChains() {
+        Map<String, List<BeanPropertyCloner>> clonerChains =
+            new LinkedHashMap<String, List<BeanPropertyCloner>>();
+
+        // the chain in example-applicationContext.xml
+        clonerChains.put("default", Arrays.<BeanPropertyCloner>asList(
+                new SimplePropertyCloner(), new SimpleCollectionCloner(),
+                new DelegatingCollectionCloner(), new CloneablePropertyCloner(),
+                new DelegatingPropertyCloner()));
+
+        // simple collections are processed by the "catch-all" collection cloner
+        clonerChains.put("no simple collections", Arrays.<BeanPropertyCloner>asList(
+                new SimplePropertyCloner(), new DelegatingCollectionCloner(),
+                new CloneablePropertyCloner(), new DelegatingPropertyCloner()));
+
+        // the shortest chain that can clone the synthetic graphs
+        clonerChains.put("minimal", Arrays.<BeanPropertyCloner>asList(
+                new SimplePropertyCloner(), new SimpleCollectionCloner(),
+                new DelegatingCollectionCloner(), new DelegatingPropertyCloner()));
+        return clonerChains;
+    }
+
+    private static HibernateEntityGraphCloner newEntityGraphCloner(
+            List<BeanPropertyCloner> propertyCloners) {
+        HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+        entityBeanCloner.setPropertyCloners(propertyCloners);
+
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        entityGraphCloner.setEntityBeanCloner(entityBeanCloner);
+        return entityGraphCloner;
+    }
+
+    private static void warmUp(HibernateEntityGraphCloner entityGraphCloner,
+            List<?> roots, boolean preserveId) {
+
+        for (int i = 0; i < NUM_WARMUP_CLONES; i++) {
+
+            // make sure the compiler can't optimize this away
+            if (entityGraphCloner.clone(roots, preserveId).size() != roots.size()) {
+                throw new AssertionError("Not all roots were cloned!");
+            }
+
+        }
+
+        gc();
+    }
+
+    private static void run(String graphType, String clonerChainName,
+            HibernateEntityGraphCloner entityGraphCloner, List<?> roots, boolean preserveId) {
+        long totalTime = 0;
+        long totalUsedHeapGrowth = 0;
+
+        for (int i = 0; i < NUM_ITERATIONS; i++) {
+            long usedHeapBefore = getUsedHeap();
+            long start = System.nanoTime();
+
+            for (int j = 0; j < NUM_CLONES_PER_ITERATION; j++) {
+
+                if (entityGraphCloner.clone(roots, preserveId).size() != roots.size()) {
+                    throw new AssertionError("Not all roots were cloned!");
+                }
+
+            }
+
+            totalTime += System.nanoTime() - start;
+            totalUsedHeapGrowth += Math.max(getUsedHeap() - usedHeapBefore, 0);
+            gc();
+        }
+
+        long numClones = (long) NUM_ITERATIONS * NUM_CLONES_PER_ITERATION;
+        System.out.format("%s, %s chain, preserveId %b: %.3fms/clone, %.0f clones/s, ~%d bytes/clone%n",
+                graphType, clonerChainName, preserveId,
+                (totalTime / 1000000.0) / numClones,
+                numClones / (totalTime / 1000000000.0),
+                totalUsedHeapGrowth / numClones);
+    }
+
+    private static void runManaged(SessionFactory sessionFactory,
+            Map<String, List<BeanPropertyCloner>> clonerChains, int numPetsPerOwner,
+            int numToysPerPet, int sharePercentage) {
+        Session session = sessionFactory.openSession();
+
+        try {
+            session.beginTransaction();
+            List<Integer> ownerIds = populateDatabase(session, numPetsPerOwner,
+                    numToysPerPet, sharePercentage);
+            session.flush();
+            session.clear();
+
+            /*
+             * Reload the owners so that their collections are persistent collections, and
+             * initialize these so that the clone runs don't measure database access.
+             */
+            List<Owner> owners = new ArrayList<Owner>(ownerIds.size());
+
+            for (Integer ownerId : ownerIds) {
+                Owner owner = (Owner) session.get(Owner.class, ownerId);
+
+                for (Pet pet : owner.getPets()) {
+                    Hibernate.initialize(pet.getToys());
+                    Hibernate.initialize(pet.getNicknames());
+                }
+
+                owners.add(owner);
+            }
+
+            System.out.format("Managed graph: %d owners, %d pets per owner, %d toys per pet, share %d%%%n",
+                    NUM_OWNERS, numPetsPerOwner, numToysPerPet, sharePercentage);
+
+            for (Entry<String, List<BeanPropertyCloner>> clonerChain : clonerChains.entrySet()) {
+                HibernateEntityGraphCloner entityGraphCloner =
+                    newEntityGraphCloner(clonerChain.getValue());
+
+                for (boolean preserveId : new boolean[] { false, true }) {
+                    warmUp(entityGraphCloner, owners, preserveId);
+                    run("Hibernate", clonerChain.getKey(), entityGraphCloner, owners, preserveId);
+                }
+
+            }
+
+            session.getTransaction().rollback();
+        } finally {
+            session.close();
+        }
+
+    }
+
+    private static List<Integer> populateDatabase(Session session, int numPetsPerOwner,
+            int numToysPerPet, int sharePercentage) {
+        Random random = new Random(7);
+        List<Integer> ownerIds = new ArrayList<Integer>(NUM_OWNERS);
+        List<Toy> toys = new ArrayList<Toy>();
+
+        for (int i = 0; i < NUM_OWNERS; i++) {
+            Owner owner = new Owner("owner-" + i, Locale.ENGLISH);
+            session.save(owner);
+
+            for (int j = 0; j < numPetsPerOwner; j++) {
+                Pet pet = new Pet(Species.values()[random.nextInt(Species.values().length)],
+                        random.nextInt(20), owner, "pet-" + i + "-" + j);
+
+                for (int k = 0; k < numToysPerPet; k++) {
+
+                    // shared toys are those belonging to a number of pets
+                    if (!toys.isEmpty() && (random.nextInt(100) < sharePercentage)) {
+                        pet.getToys().add(toys.get(random.nextInt(toys.size())));
+                    } else {
+                        Toy toy = new Toy("toy-" + toys.size(), random.nextInt(100));
+                        toys.add(toy);
+                        pet.getToys().add(toy);
+                    }
+
+                }
+
+                session.save(pet);
+            }
+
+            ownerIds.add(owner.getId());
+        }
+
+        return ownerIds;
+    }
+
+    private static long getUsedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static void gc() {
+
+        // tag
+        System.gc();
+
+        // delete
+        System.gc();
+    }
+
+}
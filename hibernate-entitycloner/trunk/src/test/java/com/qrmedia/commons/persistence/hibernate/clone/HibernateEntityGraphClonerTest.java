@@ -23,6 +23,7 @@ import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -276,6 +277,47 @@ public class HibernateEntityGraphClonerTest {
          */
     }
     
+    @SuppressWarnings("unchecked")
+    @Test
+    public void clone_failed() throws IllegalAccessException {
+        StubHibernateEntity entity = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity1 = new StubHibernateEntity();
+        StubHibernateEntity relatedEntity2 = new StubHibernateEntity();
+        
+        // the first call queues two more entities, the second fails
+        entityBeanCloner.visitNode(eq(new EntityPreserveIdFlagPair(entity, false)), 
+                                   same(entityGraphCloner), 
+                                   (IdentityHashMap<Object, Object>) anyObject());
+        expectLastCall().andAnswer(new HibernateEntityBeanClonerActions(entity, 
+                new StubHibernateEntity(), Arrays.asList(relatedEntity1, relatedEntity2), 
+                Arrays.asList(createMock(GraphWiringCommand.class)), 
+                Arrays.asList(createMock(GraphPostProcessingCommand.class))));
+        entityBeanCloner.visitNode(eq(new EntityPreserveIdFlagPair(relatedEntity1, false)), 
+                                   same(entityGraphCloner), 
+                                   (IdentityHashMap<Object, Object>) anyObject());
+        expectLastCall().andThrow(new IllegalStateException());
+        replay(entityBeanCloner);
+        
+        try {
+            entityGraphCloner.clone(entity);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException exception) {
+            // expected
+        }
+        
+        verify(entityBeanCloner);
+        
+        // check that the failed clone left no references to the graph behind
+        assertFalse(entityGraphCloner.isCloning());
+        assertTrue(ReflectionUtils.<List<?>>getValue(entityGraphCloner, "graphWiringCommands")
+                   .isEmpty());
+        assertTrue(ReflectionUtils.<List<?>>getValue(entityGraphCloner, "graphPostProcessingCommands")
+                   .isEmpty());
+        assertTrue(ReflectionUtils.<Queue<?>>getValue(entityGraphCloner, "nodeQueue").isEmpty());
+        assertTrue(ReflectionUtils.<Set<?>>getValue(entityGraphCloner, "visitedOrQueuedNodes")
+                   .isEmpty());
+    }
+    
     private class NumGraphWiringCommandsExecutedVerifier implements IAnswer<Object> {
         private final ThreadLocal<Integer> numCommandsExecutedCounter;
         private final Integer expectedNumCommandsExecuted;
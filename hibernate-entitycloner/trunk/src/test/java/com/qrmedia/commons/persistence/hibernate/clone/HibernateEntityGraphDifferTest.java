@@ -0,0 +1,296 @@
+/*
+ * @(#)HibernateEntityGraphDifferTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import javax.persistence.Id;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qrmedia.commons.persistence.hibernate.clone.EntityGraphChangeSet.CollectionChange;
+import com.qrmedia.commons.persistence.hibernate.clone.EntityGraphChangeSet.PropertyChange;
+import com.qrmedia.commons.persistence.hibernate.clone.property.BeanPropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.CloneablePropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.DelegatingCollectionCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.DelegatingPropertyCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.SimpleCollectionCloner;
+import com.qrmedia.commons.persistence.hibernate.clone.property.SimplePropertyCloner;
+
+/**
+ * Unit tests for the {@link HibernateEntityGraphDiffer}.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class HibernateEntityGraphDifferTest {
+    private HibernateEntityGraphDiffer entityGraphDiffer = new HibernateEntityGraphDiffer();
+    private HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+    private HibernateEntityBeanCloner entityBeanCloner = new HibernateEntityBeanCloner();
+
+    private StubHibernateEntity entity = new StubHibernateEntity();
+    private StubHibernateEntity relatedEntity = new StubHibernateEntity();
+
+    @Before
+    public void prepareFixture() {
+        entityBeanCloner.setPropertyCloners(Arrays.<BeanPropertyCloner>asList(
+                new SimplePropertyCloner(), new SimpleCollectionCloner(),
+                new DelegatingCollectionCloner(), new CloneablePropertyCloner(),
+                new DelegatingPropertyCloner()));
+        entityGraphCloner.setEntityBeanCloner(entityBeanCloner);
+
+        entity.setSimpleBeanProperty("James Bond");
+        entity.setNonSimpleBeanProperty(relatedEntity);
+        entity.setSimpleCollectionBeanProperty(new ArrayList<String>(Arrays.asList("MI6")));
+        entity.setNonSimpleCollectionBeanProperty(
+                new ArrayList<StubHibernateEntity>(Arrays.asList(relatedEntity)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void diff_null() {
+        entityGraphDiffer.diff(null);
+    }
+
+    @Test
+    public void diff_unchanged() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        assertTrue(entityClones.size() == 2);
+
+        assertTrue(entityGraphDiffer.diff(entityClones).isEmpty());
+    }
+
+    @Test
+    public void diff_propertyChange() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        ((StubHibernateEntity) entityClones.get(relatedEntity)).setSimpleBeanProperty("Q");
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+        assertTrue(changeSet.getCollectionChanges().isEmpty());
+        assertTrue(changeSet.getNewEntities().isEmpty());
+        assertEquals(Arrays.<Object>asList(relatedEntity), changeSet.getChangedEntities());
+
+        PropertyChange propertyChange = changeSet.getPropertyChanges().get(0);
+        assertSame(relatedEntity, propertyChange.getEntity());
+        assertEquals("simpleBeanProperty", propertyChange.getPropertyName());
+        assertEquals(null, propertyChange.getOldValue());
+        assertEquals("Q", propertyChange.getNewValue());
+    }
+
+    @Test
+    public void diff_newEntity() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        StubHibernateEntity newEntity = new StubHibernateEntity();
+        StubHibernateEntity newRelatedEntity = new StubHibernateEntity();
+        newEntity.setNonSimpleBeanProperty(newRelatedEntity);
+        ((StubHibernateEntity) entityClones.get(entity)).setNonSimpleBeanProperty(newEntity);
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+
+        PropertyChange propertyChange = changeSet.getPropertyChanges().get(0);
+        assertSame(entity, propertyChange.getEntity());
+        assertEquals("nonSimpleBeanProperty", propertyChange.getPropertyName());
+        assertSame(relatedEntity, propertyChange.getOldValue());
+        assertSame(newEntity, propertyChange.getNewValue());
+
+        // entities reachable only from new entities are also new
+        assertEquals(Arrays.<Object>asList(newEntity, newRelatedEntity),
+                     changeSet.getNewEntities());
+    }
+
+    @Test
+    public void diff_cloneReference() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        StubHibernateEntity relatedEntityClone =
+            (StubHibernateEntity) entityClones.get(relatedEntity);
+
+        // a reference to the clone of the original value is not a change
+        ((StubHibernateEntity) entityClones.get(entity)).setNonSimpleBeanProperty(
+                relatedEntityClone);
+
+        // ...but a reference to a different entity is
+        relatedEntityClone.setNonSimpleBeanProperty(entity);
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+        assertSame(relatedEntity, changeSet.getPropertyChanges().get(0).getEntity());
+        assertTrue(changeSet.getNewEntities().isEmpty());
+    }
+
+    @Test
+    public void diff_cloneReference_newValueIsOriginal() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        StubHibernateEntity entityClone = (StubHibernateEntity) entityClones.get(entity);
+        entityClone.setNonSimpleBeanProperty(entityClone);
+        entityClone.getNonSimpleCollectionBeanProperty().add(entityClone);
+
+        // changes can be applied to the originals directly
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+        assertSame(entity, changeSet.getPropertyChanges().get(0).getNewValue());
+        assertTrue(changeSet.getCollectionChanges().size() == 1);
+        assertSame(entity, 
+                   changeSet.getCollectionChanges().get(0).getAddedMembers().iterator().next());
+    }
+
+    @Test
+    public void diff_listDuplicates() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        ((StubHibernateEntity) entityClones.get(entity)).getSimpleCollectionBeanProperty()
+        .add("MI6");
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getCollectionChanges().size() == 1);
+
+        CollectionChange collectionChange = changeSet.getCollectionChanges().get(0);
+        assertEquals(Arrays.asList("MI6"), 
+                     new ArrayList<Object>(collectionChange.getAddedMembers()));
+        assertTrue(collectionChange.getRemovedMembers().isEmpty());
+        assertFalse(collectionChange.isReordered());
+    }
+
+    @Test
+    public void diff_listOrder() {
+        StubHibernateEntity otherRelatedEntity = new StubHibernateEntity();
+        entity.getNonSimpleCollectionBeanProperty().add(otherRelatedEntity);
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+
+        List<StubHibernateEntity> nonSimpleCollectionBeanProperty = 
+            (List<StubHibernateEntity>) ((StubHibernateEntity) entityClones.get(entity))
+            .getNonSimpleCollectionBeanProperty();
+        nonSimpleCollectionBeanProperty.add(nonSimpleCollectionBeanProperty.remove(0));
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getCollectionChanges().size() == 1);
+
+        CollectionChange collectionChange = changeSet.getCollectionChanges().get(0);
+        assertEquals("nonSimpleCollectionBeanProperty", collectionChange.getPropertyName());
+        assertTrue(collectionChange.getAddedMembers().isEmpty());
+        assertTrue(collectionChange.getRemovedMembers().isEmpty());
+        assertTrue(collectionChange.isReordered());
+    }
+
+    public static class StubFieldAccessHibernateEntity {
+        @Id
+        private Long id;
+
+        private String nonBeanProperty;
+        private Object codeName;
+    }
+
+    @Test
+    public void diff_fieldAccess() {
+        StubFieldAccessHibernateEntity fieldAccessEntity = new StubFieldAccessHibernateEntity();
+        fieldAccessEntity.id = 7L;
+        fieldAccessEntity.nonBeanProperty = "007";
+        entityBeanCloner.setFieldAccessEnabled(true);
+        entityGraphDiffer.setEntityBeanCloner(entityBeanCloner);
+
+        IdentityHashMap<Object, Object> entityClones = 
+            entityGraphCloner.cloneGraph(Arrays.asList(fieldAccessEntity), false);
+        ((StubFieldAccessHibernateEntity) entityClones.get(fieldAccessEntity))
+        .nonBeanProperty = "Q";
+
+        // fields without getters are compared too
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+
+        PropertyChange propertyChange = changeSet.getPropertyChanges().get(0);
+        assertEquals("nonBeanProperty", propertyChange.getPropertyName());
+        assertEquals("007", propertyChange.getOldValue());
+        assertEquals("Q", propertyChange.getNewValue());
+    }
+
+    @Test
+    public void diff_collectionReplacedByValue() {
+        StubFieldAccessHibernateEntity fieldAccessEntity = new StubFieldAccessHibernateEntity();
+        fieldAccessEntity.id = 7L;
+        fieldAccessEntity.codeName = "007";
+        entityBeanCloner.setFieldAccessEnabled(true);
+        entityGraphDiffer.setEntityBeanCloner(entityBeanCloner);
+
+        IdentityHashMap<Object, Object> entityClones = 
+            entityGraphCloner.cloneGraph(Arrays.asList(fieldAccessEntity), false);
+        ((StubFieldAccessHibernateEntity) entityClones.get(fieldAccessEntity))
+        .codeName = new ArrayList<String>(Arrays.asList("Q"));
+
+        // neither value is cast to the type of the other
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().size() == 1);
+        assertTrue(changeSet.getCollectionChanges().isEmpty());
+
+        PropertyChange propertyChange = changeSet.getPropertyChanges().get(0);
+        assertEquals("codeName", propertyChange.getPropertyName());
+        assertEquals("007", propertyChange.getOldValue());
+        assertEquals(Arrays.asList("Q"), propertyChange.getNewValue());
+    }
+
+    @Test
+    public void diff_collectionChange() {
+        IdentityHashMap<Object, Object> entityClones = cloneGraph();
+        StubHibernateEntity entityClone = (StubHibernateEntity) entityClones.get(entity);
+        entityClone.getSimpleCollectionBeanProperty().add("SPECTRE");
+
+        Collection<StubHibernateEntity> nonSimpleCollectionBeanProperty =
+            entityClone.getNonSimpleCollectionBeanProperty();
+        nonSimpleCollectionBeanProperty.clear();
+        StubHibernateEntity newEntity = new StubHibernateEntity();
+        nonSimpleCollectionBeanProperty.add(newEntity);
+
+        EntityGraphChangeSet changeSet = entityGraphDiffer.diff(entityClones);
+        assertTrue(changeSet.getPropertyChanges().isEmpty());
+        assertTrue(changeSet.getCollectionChanges().size() == 2);
+        assertEquals(Arrays.<Object>asList(entity), changeSet.getChangedEntities());
+        assertEquals(Arrays.<Object>asList(newEntity), changeSet.getNewEntities());
+
+        for (CollectionChange collectionChange : changeSet.getCollectionChanges()) {
+            assertSame(entity, collectionChange.getEntity());
+
+            if (collectionChange.getPropertyName().equals("simpleCollectionBeanProperty")) {
+                assertEquals(Arrays.asList("SPECTRE"),
+                             new ArrayList<Object>(collectionChange.getAddedMembers()));
+                assertTrue(collectionChange.getRemovedMembers().isEmpty());
+            } else {
+                assertEquals("nonSimpleCollectionBeanProperty", collectionChange.getPropertyName());
+                assertSame(newEntity, collectionChange.getAddedMembers().iterator().next());
+                assertTrue(collectionChange.getRemovedMembers().size() == 1);
+                assertSame(relatedEntity, collectionChange.getRemovedMembers().iterator().next());
+            }
+
+        }
+
+    }
+
+    private IdentityHashMap<Object, Object> cloneGraph() {
+        return entityGraphCloner.cloneGraph(Arrays.asList(entity), false);
+    }
+
+}
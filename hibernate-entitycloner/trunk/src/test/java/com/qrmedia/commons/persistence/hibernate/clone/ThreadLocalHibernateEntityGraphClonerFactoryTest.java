@@ -0,0 +1,128 @@
+/*
+ * @(#)ThreadLocalHibernateEntityGraphClonerFactoryTest.java     18 Oct 2026
+ *
+ * Copyright © 2009 Andrew Phillips.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.qrmedia.commons.persistence.hibernate.clone;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.qrmedia.commons.reflect.ReflectionUtils;
+
+/**
+ * Unit tests for the {@link ThreadLocalHibernateEntityGraphClonerFactory}.
+ *
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ThreadLocalHibernateEntityGraphClonerFactoryTest {
+    private ThreadLocalHibernateEntityGraphClonerFactory threadLocalFactory =
+        new ThreadLocalHibernateEntityGraphClonerFactory();
+
+    private HibernateEntityGraphClonerFactory entityGraphClonerFactory =
+        createMock(HibernateEntityGraphClonerFactory.class);
+
+    @Before
+    public void prepareFixture() {
+        threadLocalFactory.setEntityGraphClonerFactory(entityGraphClonerFactory);
+    }
+
+    @Test
+    public void newInstance_reused() {
+        HibernateEntityGraphCloner entityGraphCloner = new HibernateEntityGraphCloner();
+        expect(entityGraphClonerFactory.newInstance()).andReturn(entityGraphCloner);
+        replay(entityGraphClonerFactory);
+
+        assertSame(entityGraphCloner, threadLocalFactory.newInstance());
+        assertSame(entityGraphCloner, threadLocalFactory.newInstance());
+        verify(entityGraphClonerFactory);
+
+        assertTrue(threadLocalFactory.getNumInstancesCreated() == 1);
+        assertTrue(threadLocalFactory.getNumInstancesReused() == 1);
+        assertTrue(threadLocalFactory.getNumInstancesBusy() == 0);
+    }
+
+    @Test
+    public void newInstance_busy() throws IllegalAccessException {
+        HibernateEntityGraphCloner entityGraphCloner1 = new HibernateEntityGraphCloner();
+        HibernateEntityGraphCloner entityGraphCloner2 = new HibernateEntityGraphCloner();
+        expect(entityGraphClonerFactory.newInstance()).andReturn(entityGraphCloner1);
+        expect(entityGraphClonerFactory.newInstance()).andReturn(entityGraphCloner2);
+        replay(entityGraphClonerFactory);
+
+        assertSame(entityGraphCloner1, threadLocalFactory.newInstance());
+
+        ReflectionUtils.setValue(entityGraphCloner1, "cloning", true);
+        assertSame(entityGraphCloner2, threadLocalFactory.newInstance());
+        verify(entityGraphClonerFactory);
+
+        assertTrue(threadLocalFactory.getNumInstancesCreated() == 1);
+        assertTrue(threadLocalFactory.getNumInstancesBusy() == 1);
+    }
+
+    @Test
+    public void newInstance_perThread() throws InterruptedException {
+        
+        // the mock factory should not be called from different threads
+        threadLocalFactory.setEntityGraphClonerFactory(new HibernateEntityGraphClonerFactory() {
+                @Override
+                public HibernateEntityGraphCloner newInstance() {
+                    return new HibernateEntityGraphCloner();
+                }
+            });
+
+        final List<HibernateEntityGraphCloner> otherThreadCloners =
+            new LinkedList<HibernateEntityGraphCloner>();
+        Thread otherThread = new Thread(new Runnable() {
+                public void run() {
+                    otherThreadCloners.add(threadLocalFactory.newInstance());
+                }
+            });
+        otherThread.start();
+        otherThread.join();
+
+        HibernateEntityGraphCloner entityGraphCloner = threadLocalFactory.newInstance();
+        assertTrue(otherThreadCloners.size() == 1);
+        assertNotSame(otherThreadCloners.get(0), entityGraphCloner);
+        assertTrue(threadLocalFactory.getNumInstancesCreated() == 2);
+    }
+
+    @Test
+    public void discardInstance() {
+        expect(entityGraphClonerFactory.newInstance()).andReturn(new HibernateEntityGraphCloner());
+        expect(entityGraphClonerFactory.newInstance()).andReturn(new HibernateEntityGraphCloner());
+        replay(entityGraphClonerFactory);
+
+        HibernateEntityGraphCloner entityGraphCloner = threadLocalFactory.newInstance();
+        threadLocalFactory.discardInstance();
+        assertNotSame(entityGraphCloner, threadLocalFactory.newInstance());
+        verify(entityGraphClonerFactory);
+    }
+
+}
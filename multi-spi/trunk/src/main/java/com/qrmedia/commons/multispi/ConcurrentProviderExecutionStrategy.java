@@ -0,0 +1,186 @@
+/*
+ * @(#)ConcurrentProviderExecutionStrategy.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.lang.String.format;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Consults all providers concurrently using the given executor, and combines their
+ * results. Useful if the providers perform a lot of I/O, e.g. scanning many JARs.
+ * <p>
+ * Each provider is allowed to run for the given timeout, measured from the time at
+ * which the provider starts running. A provider that is still queued in the executor
+ * one timeout after the calling thread starts waiting for it is also considered to
+ * have timed out. The results of providers that do not complete in time are 
+ * {@link #handleTimeout(ServiceImplementationProvider, Class) ignored}, the providers
+ * are cancelled (i.e. interrupted) and an {@link IncompleteLookupException} carrying the
+ * results of the other providers is thrown. {@link MultiSpi} reports the providers that 
+ * timed out to its {@link DiscoveryListener DiscoveryListeners}.
+ * <p>
+ * Runtime exceptions and errors thrown by providers are rethrown in the calling thread,
+ * as for {@link SequentialProviderExecutionStrategy sequential} execution. If the calling
+ * thread is interrupted while waiting, the thread's interrupted status is restored and
+ * an {@code IncompleteLookupException} carrying the results of the providers that have
+ * completed so far is thrown.
+ * <p>
+ * The executor is <u>not</u> shut down by this class.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public class ConcurrentProviderExecutionStrategy implements ProviderExecutionStrategy {
+    private final ExecutorService executor;
+    private final long providerTimeoutNanos;
+
+    public ConcurrentProviderExecutionStrategy(@Nonnull ExecutorService executor,
+            long providerTimeout, @Nonnull TimeUnit unit) {
+        checkArgument(providerTimeout > 0, "Provider timeout must be positive, but was %s", 
+                providerTimeout);
+        this.executor = checkNotNull(executor);
+        providerTimeoutNanos = unit.toNanos(providerTimeout);
+    }
+    
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.ProviderExecutionStrategy#findServiceImplementations(java.lang.Iterable, java.lang.Class, java.lang.ClassLoader)
+     */
+    public Set<String> findServiceImplementations(Iterable<? extends ServiceImplementationProvider> providers,
+            final Class<?> serviceClass, final ClassLoader classpathResourceLoader) {
+        Map<ProviderTask, Future<Set<String>>> results = newLinkedHashMap();
+        for (ServiceImplementationProvider provider : providers) {
+            ProviderTask task = new ProviderTask(provider, serviceClass, classpathResourceLoader);
+            results.put(task, executor.submit(task));
+        }
+        
+        Set<String> implementationNames = newHashSet();
+        Set<ServiceImplementationProvider> timedOutProviders = newHashSet();
+        boolean complete = true;
+        try {
+            for (Entry<ProviderTask, Future<Set<String>>> result : results.entrySet()) {
+                try {
+                    implementationNames.addAll(awaitResult(result.getKey(), result.getValue()));
+                } catch (TimeoutException exception) {
+                    timedOutProviders.add(result.getKey().provider);
+                    handleTimeout(result.getKey().provider, serviceClass);
+                    complete = false;
+                } catch (ExecutionException exception) {
+                    throw launderThrowable(exception.getCause(), result.getKey().provider);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            complete = false;
+        } finally {
+            // no-op for completed providers
+            for (Future<Set<String>> result : results.values()) {
+                result.cancel(true);
+            }
+        }
+        
+        if (!complete) {
+            throw new IncompleteLookupException(serviceClass, implementationNames, 
+                    timedOutProviders);
+        }
+        return implementationNames;
+    }
+    
+    private Set<String> awaitResult(ProviderTask task, Future<Set<String>> result) 
+            throws InterruptedException, ExecutionException, TimeoutException {
+        final long waitStart = System.nanoTime();
+        while (true) {
+            boolean started = task.started;
+            long deadline = (started ? task.startNanos : waitStart) + providerTimeoutNanos;
+            try {
+                return result.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException exception) {
+                // the provider started while we were waiting, so it gets its own timeout 
+                if (started || !task.started) {
+                    throw exception;
+                }
+            }
+        }
+    }
+    
+    private static class ProviderTask implements Callable<Set<String>> {
+        private final ServiceImplementationProvider provider;
+        private final Class<?> serviceClass;
+        private final ClassLoader classpathResourceLoader;
+        private volatile long startNanos;
+        // written after startNanos
+        private volatile boolean started;
+        
+        private ProviderTask(ServiceImplementationProvider provider, Class<?> serviceClass,
+                ClassLoader classpathResourceLoader) {
+            this.provider = provider;
+            this.serviceClass = serviceClass;
+            this.classpathResourceLoader = classpathResourceLoader;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.Callable#call()
+         */
+        public Set<String> call() {
+            startNanos = System.nanoTime();
+            started = true;
+            return provider.findServiceImplementations(serviceClass, classpathResourceLoader);
+        }
+    }
+    
+    private static RuntimeException launderThrowable(Throwable cause, 
+            ServiceImplementationProvider provider) {
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else {
+            // providers don't throw checked exceptions
+            throw new AssertionError(format("Caught checked exception '%s' from provider '%s'?!?", 
+                    cause, provider));
+        }
+    }
+    
+    // override me!
+    protected void handleTimeout(@Nonnull ServiceImplementationProvider provider,
+            @Nonnull Class<?> serviceClass) {
+        System.err.println(format("Provider '%s' timed out looking up implementations of '%s'", 
+                provider, serviceClass.getName()));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * @(#)DiscoveryContext.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import java.util.Collections;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.qrmedia.commons.multispi.provider.ClasspathIndex;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Gives {@link ServiceImplementationProvider providers} access to the 
+ * {@link DiscoveryListener DiscoveryListeners} of the {@link MultiSpi} instance on whose
+ * behalf they are being queried, so that they can report e.g. resources read without
+ * the listeners being shared by all {@code MultiSpi} instances. Similarly, gives providers
+ * access to the {@link ClasspathIndex} of that instance, if it caches results.
+ * <p>
+ * The listeners and index are bound to the thread calling the provider for the duration
+ * of the call, so they are also available to providers run by a 
+ * {@link ConcurrentProviderExecutionStrategy}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public final class DiscoveryContext {
+    private static final DiscoveryContext NO_CONTEXT = 
+        new DiscoveryContext(Collections.<DiscoveryListener>emptyList(), null);
+    private static final ThreadLocal<DiscoveryContext> CURRENT_CONTEXT = 
+        new ThreadLocal<DiscoveryContext>() {
+            @Override
+            protected DiscoveryContext initialValue() {
+                return NO_CONTEXT;
+            }
+        };
+    
+    private final Iterable<DiscoveryListener> listeners;
+    private final ClasspathIndex classpathIndex;
+    
+    private DiscoveryContext(Iterable<DiscoveryListener> listeners, 
+            ClasspathIndex classpathIndex) {
+        this.listeners = listeners;
+        this.classpathIndex = classpathIndex;
+    }
+    
+    /**
+     * @return the listeners to be notified of the work performed by the current thread,
+     *         or an empty iterable if the thread is not querying a provider for a 
+     *         {@code MultiSpi} instance with listeners
+     */
+    public static @Nonnull Iterable<DiscoveryListener> getCurrentListeners() {
+        return CURRENT_CONTEXT.get().listeners;
+    }
+    
+    /**
+     * @return the index in which classpath resources read by the current thread should be
+     *         kept, or {@code null} if the thread is not querying a provider for a
+     *         {@code MultiSpi} instance that caches results
+     */
+    public static @CheckForNull ClasspathIndex getCurrentClasspathIndex() {
+        return CURRENT_CONTEXT.get().classpathIndex;
+    }
+    
+    /**
+     * @return the previously bound context, to be {@link #restore(DiscoveryContext) restored}
+     *         after the call
+     */
+    static @Nonnull DiscoveryContext bind(@Nonnull Iterable<DiscoveryListener> listeners,
+            @CheckForNull ClasspathIndex classpathIndex) {
+        DiscoveryContext previousContext = CURRENT_CONTEXT.get();
+        CURRENT_CONTEXT.set(new DiscoveryContext(listeners, classpathIndex));
+        return previousContext;
+    }
+    
+    static void restore(@Nonnull DiscoveryContext previousContext) {
+        if (previousContext == NO_CONTEXT) {
+            CURRENT_CONTEXT.remove();
+        } else {
+            CURRENT_CONTEXT.set(previousContext);
+        }
+    }
+}
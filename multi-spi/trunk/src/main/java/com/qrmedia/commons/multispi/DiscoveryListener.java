@@ -0,0 +1,146 @@
+/*
+ * @(#)DiscoveryListener.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.qrmedia.commons.multispi.provider.ClasspathIndex;
+import com.qrmedia.commons.multispi.provider.ResourceIoPerformingProvider;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Notified by a {@link MultiSpi} instance of the work it performs to discover, load and
+ * instantiate service implementations, e.g. in order to export timings to a metrics
+ * system.
+ * <p>
+ * Listeners are called synchronously from the threads performing the work, possibly
+ * concurrently, so implementations should be thread-safe, fast and should not throw 
+ * exceptions. Providers report resource-level work to the listeners of the instance
+ * querying them via the {@link DiscoveryContext}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ * @see DiscoveryStatistics
+ */
+public interface DiscoveryListener {
+    
+    /**
+     * Called when a provider has successfully been queried for implementations, once
+     * all providers have been queried. Not called for providers that timed out or were
+     * cancelled, even if they eventually return.
+     * 
+     * @param provider the provider
+     * @param serviceClass the class of the service
+     * @param classpathResourceLoader the class loader passed to the provider
+     * @param implementationsFound the number of implementations returned by the provider
+     * @param durationNanos the time taken by the provider
+     */
+    void providerQueried(@Nonnull ServiceImplementationProvider provider, 
+            @Nonnull Class<?> serviceClass, @Nonnull ClassLoader classpathResourceLoader, 
+            int implementationsFound, long durationNanos);
+    
+    /**
+     * Called when a provider did not complete within the timeout of a 
+     * {@link ConcurrentProviderExecutionStrategy}.
+     * 
+     * @param provider the provider
+     * @param serviceClass the class of the service
+     */
+    void providerTimedOut(@Nonnull ServiceImplementationProvider provider, 
+            @Nonnull Class<?> serviceClass);
+    
+    /**
+     * Called when the {@link ClasspathIndex} is consulted for resources of the given name,
+     * if result caching is enabled.
+     * 
+     * @param resourceName the name of the resources
+     * @param hit {@code true} if the resources had already been read
+     */
+    void classpathIndexAccessed(@Nonnull String resourceName, boolean hit);
+    
+    /**
+     * Called when a classpath resource has been read, e.g. for the {@link ClasspathIndex}.
+     * 
+     * @param resource the resource read
+     * @param bytesRead the number of bytes reported as read by the resource reader
+     */
+    void resourceRead(@Nonnull URL resource, long bytesRead);
+    
+    /**
+     * Called when a {@link ResourceIoPerformingProvider} was unable to read its resources,
+     * before the exception is passed to the provider's exception handler.
+     * 
+     * @param provider the provider
+     * @param exception the exception thrown
+     */
+    void resourceReadFailed(@Nonnull ServiceImplementationProvider provider, 
+            @Nonnull IOException exception);
+    
+    /**
+     * Called when the cache of implementation names is consulted, if result caching
+     * is enabled.
+     * 
+     * @param serviceClass the class of the service
+     * @param hit {@code true} if the result was cached
+     */
+    void implementationNameCacheAccessed(@Nonnull Class<?> serviceClass, boolean hit);
+    
+    /**
+     * Called when the cache of implementation instances is consulted, if instance caching
+     * is enabled.
+     * 
+     * @param serviceClass the class of the service
+     * @param hit {@code true} if the instances were cached
+     */
+    void implementationCacheAccessed(@Nonnull Class<?> serviceClass, boolean hit);
+    
+    /**
+     * Called when an implementation class has been loaded.
+     * 
+     * @param implementationClass the class loaded
+     * @param durationNanos the time taken to load the class
+     */
+    void implementationClassLoaded(@Nonnull Class<?> implementationClass, long durationNanos);
+    
+    /**
+     * Called when an implementation class has been instantiated.
+     * 
+     * @param implementationClass the class instantiated
+     * @param durationNanos the time taken to create the instance
+     */
+    void implementationInstantiated(@Nonnull Class<?> implementationClass, long durationNanos);
+    
+    /**
+     * Called when a scheduled scan of a {@link PluginDirectoryWatcher} using the
+     * {@code MultiSpi} instance fails.
+     * 
+     * @param pluginDirectories the directories scanned
+     * @param exception the exception thrown
+     */
+    void pluginScanFailed(@Nonnull Set<File> pluginDirectories, 
+            @Nonnull RuntimeException exception);
+}
@@ -0,0 +1,438 @@
+/*
+ * @(#)DiscoveryStatistics.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * A {@link DiscoveryListener} that aggregates call counts, latencies, failures, cache hit
+ * rates and resource reads, which can be retrieved as a {@link #getSnapshot() snapshot}.
+ * <p>
+ * Provider latencies are recorded in a histogram with the buckets 
+ * {@link #LATENCY_BUCKET_UPPER_BOUNDS_MILLIS &lt; 1ms, &lt; 10ms, &lt; 100ms, &lt; 1s} 
+ * and &ge; 1s.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public class DiscoveryStatistics implements DiscoveryListener {
+    public static final List<Long> LATENCY_BUCKET_UPPER_BOUNDS_MILLIS = 
+        unmodifiableList(Arrays.asList(1L, 10L, 100L, 1000L));
+    private static final long[] LATENCY_BUCKET_UPPER_BOUNDS_NANOS = 
+        new long[LATENCY_BUCKET_UPPER_BOUNDS_MILLIS.size()];
+    
+    static {
+        for (int i = 0; i < LATENCY_BUCKET_UPPER_BOUNDS_NANOS.length; i++) {
+            LATENCY_BUCKET_UPPER_BOUNDS_NANOS[i] = 
+                TimeUnit.MILLISECONDS.toNanos(LATENCY_BUCKET_UPPER_BOUNDS_MILLIS.get(i));
+        }
+    }
+    
+    private final ConcurrentMap<ServiceImplementationProvider, ProviderCounters> providerCounters = 
+        new ConcurrentHashMap<ServiceImplementationProvider, ProviderCounters>();
+    private final AtomicLong implementationNameCacheHits = new AtomicLong();
+    private final AtomicLong implementationNameCacheMisses = new AtomicLong();
+    private final AtomicLong implementationCacheHits = new AtomicLong();
+    private final AtomicLong implementationCacheMisses = new AtomicLong();
+    private final AtomicLong classesLoaded = new AtomicLong();
+    private final AtomicLong classLoadingNanos = new AtomicLong();
+    private final AtomicLong instancesCreated = new AtomicLong();
+    private final AtomicLong instantiationNanos = new AtomicLong();
+    private final AtomicLong classpathIndexHits = new AtomicLong();
+    private final AtomicLong classpathIndexMisses = new AtomicLong();
+    private final AtomicLong resourcesRead = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong pluginScanFailures = new AtomicLong();
+    
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#providerQueried(com.qrmedia.commons.multispi.provider.ServiceImplementationProvider, java.lang.Class, java.lang.ClassLoader, int, long)
+     */
+    public void providerQueried(ServiceImplementationProvider provider, Class<?> serviceClass, 
+            ClassLoader classpathResourceLoader, int implementationsFound, long durationNanos) {
+        getCounters(provider).record(implementationsFound, durationNanos);
+    }
+    
+    private ProviderCounters getCounters(ServiceImplementationProvider provider) {
+        ProviderCounters counters = providerCounters.get(provider);
+        if (counters == null) {
+            ProviderCounters newCounters = new ProviderCounters();
+            counters = providerCounters.putIfAbsent(provider, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        return counters;
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#providerTimedOut(com.qrmedia.commons.multispi.provider.ServiceImplementationProvider, java.lang.Class)
+     */
+    public void providerTimedOut(ServiceImplementationProvider provider, Class<?> serviceClass) {
+        getCounters(provider).timeouts.incrementAndGet();
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#classpathIndexAccessed(java.lang.String, boolean)
+     */
+    public void classpathIndexAccessed(String resourceName, boolean hit) {
+        (hit ? classpathIndexHits : classpathIndexMisses).incrementAndGet();
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#resourceRead(java.net.URL, long)
+     */
+    public void resourceRead(URL resource, long bytesRead) {
+        resourcesRead.incrementAndGet();
+        this.bytesRead.addAndGet(bytesRead);
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#resourceReadFailed(com.qrmedia.commons.multispi.provider.ServiceImplementationProvider, java.io.IOException)
+     */
+    public void resourceReadFailed(ServiceImplementationProvider provider, IOException exception) {
+        getCounters(provider).readFailures.incrementAndGet();
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#implementationNameCacheAccessed(java.lang.Class, boolean)
+     */
+    public void implementationNameCacheAccessed(Class<?> serviceClass, boolean hit) {
+        (hit ? implementationNameCacheHits : implementationNameCacheMisses).incrementAndGet();
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#implementationCacheAccessed(java.lang.Class, boolean)
+     */
+    public void implementationCacheAccessed(Class<?> serviceClass, boolean hit) {
+        (hit ? implementationCacheHits : implementationCacheMisses).incrementAndGet();
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#implementationClassLoaded(java.lang.Class, long)
+     */
+    public void implementationClassLoaded(Class<?> implementationClass, long durationNanos) {
+        classesLoaded.incrementAndGet();
+        classLoadingNanos.addAndGet(durationNanos);
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#implementationInstantiated(java.lang.Class, long)
+     */
+    public void implementationInstantiated(Class<?> implementationClass, long durationNanos) {
+        instancesCreated.incrementAndGet();
+        instantiationNanos.addAndGet(durationNanos);
+    }
+
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.DiscoveryListener#pluginScanFailed(java.util.Set, java.lang.RuntimeException)
+     */
+    public void pluginScanFailed(Set<File> pluginDirectories, RuntimeException exception) {
+        pluginScanFailures.incrementAndGet();
+    }
+    
+    /**
+     * @return the statistics recorded so far. Counters updated concurrently with this call
+     *         may or may not be reflected.
+     */
+    public @Nonnull Snapshot getSnapshot() {
+        Map<ServiceImplementationProvider, ProviderStatistics> providerStatistics = newHashMap();
+        for (Entry<ServiceImplementationProvider, ProviderCounters> counters : providerCounters.entrySet()) {
+            providerStatistics.put(counters.getKey(), counters.getValue().getStatistics());
+        }
+        return new Snapshot(unmodifiableMap(providerStatistics), 
+                implementationNameCacheHits.get(), implementationNameCacheMisses.get(), 
+                implementationCacheHits.get(), implementationCacheMisses.get(), 
+                classesLoaded.get(), classLoadingNanos.get(), 
+                instancesCreated.get(), instantiationNanos.get(), 
+                classpathIndexHits.get(), classpathIndexMisses.get(), 
+                resourcesRead.get(), bytesRead.get(), pluginScanFailures.get());
+    }
+    
+    private static class ProviderCounters {
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong implementationsFound = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong readFailures = new AtomicLong();
+        private final AtomicLongArray latencyHistogram = 
+            new AtomicLongArray(LATENCY_BUCKET_UPPER_BOUNDS_NANOS.length + 1);
+        
+        private void record(int implementationsFound, long durationNanos) {
+            calls.incrementAndGet();
+            this.implementationsFound.addAndGet(implementationsFound);
+            totalNanos.addAndGet(durationNanos);
+            
+            int bucket = 0;
+            while ((bucket < LATENCY_BUCKET_UPPER_BOUNDS_NANOS.length) 
+                    && (durationNanos >= LATENCY_BUCKET_UPPER_BOUNDS_NANOS[bucket])) {
+                bucket++;
+            }
+            latencyHistogram.incrementAndGet(bucket);
+        }
+        
+        private ProviderStatistics getStatistics() {
+            List<Long> histogram = new ArrayList<Long>(latencyHistogram.length());
+            for (int i = 0; i < latencyHistogram.length(); i++) {
+                histogram.add(latencyHistogram.get(i));
+            }
+            return new ProviderStatistics(calls.get(), implementationsFound.get(), 
+                    totalNanos.get(), unmodifiableList(histogram), timeouts.get(), 
+                    readFailures.get());
+        }
+    }
+    
+    /**
+     * The statistics recorded for a provider.
+     * 
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    @Immutable
+    public static final class ProviderStatistics {
+        private final long calls;
+        private final long implementationsFound;
+        private final long totalNanos;
+        private final List<Long> latencyHistogram;
+        private final long timeouts;
+        private final long readFailures;
+        
+        private ProviderStatistics(long calls, long implementationsFound, long totalNanos,
+                List<Long> latencyHistogram, long timeouts, long readFailures) {
+            this.calls = calls;
+            this.implementationsFound = implementationsFound;
+            this.totalNanos = totalNanos;
+            this.latencyHistogram = latencyHistogram;
+            this.timeouts = timeouts;
+            this.readFailures = readFailures;
+        }
+
+        /**
+         * @return the number of calls that completed. Calls that timed out or failed
+         *         with an exception are not included
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getImplementationsFound() {
+            return implementationsFound;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * @return the number of calls in each of the latency buckets, in ascending order
+         * @see DiscoveryStatistics#LATENCY_BUCKET_UPPER_BOUNDS_MILLIS
+         */
+        public List<Long> getLatencyHistogram() {
+            return latencyHistogram;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getReadFailures() {
+            return readFailures;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return format("calls: %d, implementations found: %d, total time: %dns, latency histogram: %s, timeouts: %d, read failures: %d", 
+                    calls, implementationsFound, totalNanos, latencyHistogram, timeouts, 
+                    readFailures);
+        }
+    }
+    
+    /**
+     * The statistics recorded by a {@link DiscoveryStatistics} instance at a point in time.
+     * 
+     * @author aphillips
+     * @since 18 Oct 2026
+     *
+     */
+    @Immutable
+    public static final class Snapshot {
+        private final Map<ServiceImplementationProvider, ProviderStatistics> providerStatistics;
+        private final long implementationNameCacheHits;
+        private final long implementationNameCacheMisses;
+        private final long implementationCacheHits;
+        private final long implementationCacheMisses;
+        private final long classesLoaded;
+        private final long classLoadingNanos;
+        private final long instancesCreated;
+        private final long instantiationNanos;
+        private final long classpathIndexHits;
+        private final long classpathIndexMisses;
+        private final long resourcesRead;
+        private final long bytesRead;
+        private final long pluginScanFailures;
+        
+        private Snapshot(Map<ServiceImplementationProvider, ProviderStatistics> providerStatistics,
+                long implementationNameCacheHits, long implementationNameCacheMisses,
+                long implementationCacheHits, long implementationCacheMisses, 
+                long classesLoaded, long classLoadingNanos, 
+                long instancesCreated, long instantiationNanos, 
+                long classpathIndexHits, long classpathIndexMisses, 
+                long resourcesRead, long bytesRead, long pluginScanFailures) {
+            this.providerStatistics = providerStatistics;
+            this.implementationNameCacheHits = implementationNameCacheHits;
+            this.implementationNameCacheMisses = implementationNameCacheMisses;
+            this.implementationCacheHits = implementationCacheHits;
+            this.implementationCacheMisses = implementationCacheMisses;
+            this.classesLoaded = classesLoaded;
+            this.classLoadingNanos = classLoadingNanos;
+            this.instancesCreated = instancesCreated;
+            this.instantiationNanos = instantiationNanos;
+            this.classpathIndexHits = classpathIndexHits;
+            this.classpathIndexMisses = classpathIndexMisses;
+            this.resourcesRead = resourcesRead;
+            this.bytesRead = bytesRead;
+            this.pluginScanFailures = pluginScanFailures;
+        }
+
+        /**
+         * @return the statistics of each provider that has been queried
+         */
+        public Map<ServiceImplementationProvider, ProviderStatistics> getProviderStatistics() {
+            return providerStatistics;
+        }
+
+        public long getImplementationNameCacheHits() {
+            return implementationNameCacheHits;
+        }
+
+        public long getImplementationNameCacheMisses() {
+            return implementationNameCacheMisses;
+        }
+        
+        /**
+         * @return the proportion of implementation name lookups answered from the cache,
+         *         or {@code NaN} if there have been no lookups
+         */
+        public double getImplementationNameCacheHitRate() {
+            return hitRate(implementationNameCacheHits, implementationNameCacheMisses);
+        }
+        
+        private static double hitRate(long hits, long misses) {
+            return (double) hits / (hits + misses);
+        }
+
+        public long getImplementationCacheHits() {
+            return implementationCacheHits;
+        }
+
+        public long getImplementationCacheMisses() {
+            return implementationCacheMisses;
+        }
+        
+        /**
+         * @return the proportion of implementation instance lookups answered from the cache,
+         *         or {@code NaN} if there have been no lookups
+         */
+        public double getImplementationCacheHitRate() {
+            return hitRate(implementationCacheHits, implementationCacheMisses);
+        }
+
+        public long getClassesLoaded() {
+            return classesLoaded;
+        }
+
+        public long getClassLoadingNanos() {
+            return classLoadingNanos;
+        }
+
+        public long getInstancesCreated() {
+            return instancesCreated;
+        }
+
+        public long getInstantiationNanos() {
+            return instantiationNanos;
+        }
+
+        public long getClasspathIndexHits() {
+            return classpathIndexHits;
+        }
+
+        public long getClasspathIndexMisses() {
+            return classpathIndexMisses;
+        }
+
+        public long getResourcesRead() {
+            return resourcesRead;
+        }
+
+        /**
+         * @return the number of bytes reported as read by the resource readers
+         */
+        public long getBytesRead() {
+            return bytesRead;
+        }
+
+        public long getPluginScanFailures() {
+            return pluginScanFailures;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return format("providers: %s, implementation name cache hits/misses: %d/%d, implementation cache hits/misses: %d/%d, classes loaded: %d (%dns), instances created: %d (%dns), classpath index hits/misses: %d/%d, resources read: %d (%d bytes), plugin scan failures: %d", 
+                    providerStatistics, implementationNameCacheHits, implementationNameCacheMisses,
+                    implementationCacheHits, implementationCacheMisses, classesLoaded, 
+                    classLoadingNanos, instancesCreated, instantiationNanos, classpathIndexHits,
+                    classpathIndexMisses, resourcesRead, bytesRead, pluginScanFailures);
+        }
+    }
+}
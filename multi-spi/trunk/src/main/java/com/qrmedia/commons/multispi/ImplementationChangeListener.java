@@ -0,0 +1,56 @@
+/*
+ * @(#)ImplementationChangeListener.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Notified by a {@link PluginDirectoryWatcher} when service implementations are added
+ * or removed.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public interface ImplementationChangeListener {
+
+    /**
+     * Called when a plugin providing implementations of the given service is added.
+     * 
+     * @param serviceClass the class of the service
+     * @param implementationNames the (non-empty) names of the new implementations
+     * @param pluginLoader the class loader from which the implementations can be loaded
+     */
+    void implementationsAdded(@Nonnull Class<?> serviceClass, 
+            @Nonnull Set<String> implementationNames, @Nonnull ClassLoader pluginLoader);
+    
+    /**
+     * Called when a plugin providing implementations of the given service is removed.
+     * 
+     * @param serviceClass the class of the service
+     * @param implementationNames the (non-empty) names of the removed implementations
+     * @param pluginLoader the class loader from which the implementations were loaded
+     */
+    void implementationsRemoved(@Nonnull Class<?> serviceClass, 
+            @Nonnull Set<String> implementationNames, @Nonnull ClassLoader pluginLoader);
+}
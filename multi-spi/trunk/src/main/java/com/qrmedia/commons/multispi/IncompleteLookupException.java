@@ -0,0 +1,78 @@
+/*
+ * @(#)IncompleteLookupException.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static java.lang.String.format;
+
+import java.util.Collections;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Thrown by a {@link ProviderExecutionStrategy} if not all providers could be consulted,
+ * e.g. because some providers timed out or the calling thread was interrupted. Carries
+ * the results of the providers that <em>did</em> complete.
+ * <p>
+ * {@link MultiSpi} returns these partial results to its callers, but does not cache them.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class IncompleteLookupException extends RuntimeException {
+    private static final long serialVersionUID = 5254836384209442706L;
+    
+    private final Set<String> implementationNames;
+    private final Set<ServiceImplementationProvider> timedOutProviders;
+
+    public IncompleteLookupException(@Nonnull Class<?> serviceClass, 
+            @Nonnull Set<String> implementationNames) {
+        this(serviceClass, implementationNames, 
+             Collections.<ServiceImplementationProvider>emptySet());
+    }
+    
+    public IncompleteLookupException(@Nonnull Class<?> serviceClass, 
+            @Nonnull Set<String> implementationNames, 
+            @Nonnull Set<ServiceImplementationProvider> timedOutProviders) {
+        super(format("Not all providers completed the lookup of implementations of '%s'", 
+                serviceClass.getName()));
+        this.implementationNames = ImmutableSet.copyOf(implementationNames);
+        this.timedOutProviders = ImmutableSet.copyOf(timedOutProviders);
+    }
+
+    /**
+     * @return the (unmodifiable) names found by the providers that completed the lookup
+     */
+    public @Nonnull Set<String> getImplementationNames() {
+        return implementationNames;
+    }
+    
+    /**
+     * @return the (unmodifiable) providers that did not complete in time, if any
+     */
+    public @Nonnull Set<ServiceImplementationProvider> getTimedOutProviders() {
+        return timedOutProviders;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * @(#)InstanceFactory.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Creates instances of service implementation classes for {@link MultiSpi}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ * @see PublicNoargConstructorInstanceFactory
+ */
+public interface InstanceFactory {
+    
+    /**
+     * Creates a new instance of the given class.
+     * 
+     * @param <T> the type of the class
+     * @param clazz the (non-<code>null</code>) class to be instantiated
+     * @return a new instance of the class
+     * @throws InstantiationException if the class cannot be instantiated
+     */
+    @Nonnull <T> T newInstance(@Nonnull Class<T> clazz) throws InstantiationException;
+}
@@ -20,33 +20,48 @@
  */
 package com.qrmedia.commons.multispi;
 
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.*;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static com.google.common.collect.Sets.newHashSetWithExpectedSize;
+import static java.util.Collections.unmodifiableSet;
 import static java.lang.String.format;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 import com.qrmedia.commons.multispi.config.MultiSpiBuilder;
+import com.qrmedia.commons.multispi.provider.ClasspathIndex;
 import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
 
 
 /**
  * One-stop shop for users of MultiSpi. Instances should be created via dependency
  * injection or using the {@link MultiSpiBuilder}.
+ * <p>
+ * Optionally, the results of lookups may be cached per service class and class loader,
+ * so that providers are only consulted once per lookup. Instances of implementations
+ * may also be cached, for singleton-style services. Caches can be cleared using the
+ * {@code invalidateCache} methods, e.g. when a plugin is added. If lookup results are
+ * cached, the classpath resources read by the providers, e.g. manifests, are also kept in
+ * a {@link ClasspathIndex} of the instance, so that they are only read once for all
+ * the lookups of the instance.
+ * <p>
+ * The time spent querying providers, loading classes and creating instances, as well
+ * as cache hits and misses, provider timeouts and the resources read by providers, are 
+ * reported to any registered {@link DiscoveryListener DiscoveryListeners}.
  *
  * @author aphillips
  * @see ServiceLoader
@@ -56,13 +71,66 @@ import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
 @ThreadSafe
 public final class MultiSpi {
     private final Set<ServiceImplementationProvider> providers = newHashSet();
-    // ready for @Inject
-    private final InstanceFactory instanceFactory = new PublicNoargConstructorInstanceFactory();
+    private final InstanceFactory instanceFactory;
     private final ClassLoaderSupplier loaderSupplier = new ClassLoaderSupplier();
+    private final boolean resultCaching;
+    private final boolean instanceCaching;
+    private final ProviderExecutionStrategy executionStrategy;
+    private final ServiceLookupCache<Set<String>> implementationNameCache = 
+        new ServiceLookupCache<Set<String>>();
+    private final ServiceLookupCache<Set<?>> implementationCache = 
+        new ServiceLookupCache<Set<?>>();
+    // only used if results are cached
+    private final ClasspathIndex classpathIndex;
+    private final List<DiscoveryListener> discoveryListeners = 
+        new CopyOnWriteArrayList<DiscoveryListener>();
     
     @Inject
     public MultiSpi(@Nonnull Set<ServiceImplementationProvider> providers) {
+        this(providers, false, false);
+    }
+    
+    /**
+     * Creates a {@code MultiSpi} instance that optionally caches lookup results.
+     * 
+     * @param providers the providers to be consulted
+     * @param resultCaching whether the names of the implementations found for a given
+     *        service class and class loader, and the classpath resources read to find
+     *        them, should be cached
+     * @param instanceCaching whether the instances created by 
+     *        {@link #loadImplementations(Class, ClassLoader)} for a given service class
+     *        and class loader should be cached and returned for subsequent calls 
+     */
+    public MultiSpi(@Nonnull Set<ServiceImplementationProvider> providers, 
+            boolean resultCaching, boolean instanceCaching) {
+        this(providers, resultCaching, instanceCaching, 
+             SequentialProviderExecutionStrategy.INSTANCE, 
+             new PublicNoargConstructorInstanceFactory());
+    }
+    
+    /**
+     * Creates a {@code MultiSpi} instance that optionally caches lookup results,
+     * consults its providers using the given strategy, e.g. 
+     * {@link ConcurrentProviderExecutionStrategy concurrently}, and creates instances
+     * of implementations using the given factory.
+     * 
+     * @param providers the providers to be consulted
+     * @param resultCaching see {@link #MultiSpi(Set, boolean, boolean)}
+     * @param instanceCaching see {@link #MultiSpi(Set, boolean, boolean)}
+     * @param executionStrategy determines how the providers are consulted
+     * @param instanceFactory creates the instances returned by 
+     *        {@link #loadImplementations(Class, ClassLoader)} etc.
+     */
+    public MultiSpi(@Nonnull Set<ServiceImplementationProvider> providers, 
+            boolean resultCaching, boolean instanceCaching,
+            @Nonnull ProviderExecutionStrategy executionStrategy,
+            @Nonnull InstanceFactory instanceFactory) {
         this.providers.addAll(providers);
+        this.resultCaching = resultCaching;
+        classpathIndex = (resultCaching ? new ClasspathIndex() : null);
+        this.instanceCaching = instanceCaching;
+        this.executionStrategy = executionStrategy;
+        this.instanceFactory = instanceFactory;
     }
     
     /**
@@ -92,6 +160,11 @@ public final class MultiSpi {
      * <p>
      * Note that individual providers may or may <u>not</u> guarantee that the classes
      * returned <em>actually</em> implement the interface!
+     * <p>
+     * If result caching is enabled, the set returned is unmodifiable.
+     * <p>
+     * If not all providers could be consulted (see {@link IncompleteLookupException}), the
+     * (unmodifiable) results of the providers that were are returned, but not cached.
      * 
      * @param serviceClass the class of the service
      * @param classpathResourceLoader the class loader to be used to locate classpath resources
@@ -99,11 +172,134 @@ public final class MultiSpi {
      */
     public @Nonnull Set<String> findImplementationNames(@Nonnull final Class<?> serviceClass,
             @Nonnull final ClassLoader classpathResourceLoader) {
-        return newHashSet(concat(transform(providers, new Function<ServiceImplementationProvider, Set<String>>() {
-                public Set<String> apply(ServiceImplementationProvider from) {
-                    return from.findServiceImplementations(serviceClass, classpathResourceLoader);
+        try {
+            return lookupImplementationNames(serviceClass, classpathResourceLoader);
+        } catch (IncompleteLookupException exception) {
+            return exception.getImplementationNames();
+        }
+    }
+    
+    // only caches complete results
+    private Set<String> lookupImplementationNames(Class<?> serviceClass, 
+            ClassLoader classpathResourceLoader) throws IncompleteLookupException {
+        if (!resultCaching) {
+            return queryProviders(serviceClass, classpathResourceLoader);
+        }
+        
+        Set<String> implementationNames = 
+            implementationNameCache.get(serviceClass, classpathResourceLoader);
+        for (DiscoveryListener listener : discoveryListeners) {
+            listener.implementationNameCacheAccessed(serviceClass, (implementationNames != null));
+        }
+        if (implementationNames == null) {
+            // concurrent lookups may query the providers more than once, but will return the same result
+            implementationNames = implementationNameCache.putIfAbsent(serviceClass, 
+                    classpathResourceLoader, unmodifiableSet(
+                            queryProviders(serviceClass, classpathResourceLoader)));
+        }
+        return implementationNames;
+    }
+    
+    private Set<String> queryProviders(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+        if (discoveryListeners.isEmpty() && (classpathIndex == null)) {
+            return executionStrategy.findServiceImplementations(providers, serviceClass, 
+                    classpathResourceLoader);
+        }
+        
+        List<TimedProvider> timedProviders = newArrayList();
+        for (ServiceImplementationProvider provider : providers) {
+            timedProviders.add(new TimedProvider(provider));
+        }
+        Set<ServiceImplementationProvider> timedOutProviders = ImmutableSet.of();
+        try {
+            return executionStrategy.findServiceImplementations(timedProviders, serviceClass, 
+                    classpathResourceLoader);
+        } catch (IncompleteLookupException exception) {
+            timedOutProviders = exception.getTimedOutProviders();
+            for (ServiceImplementationProvider timedOutProvider : timedOutProviders) {
+                // report the provider rather than its wrapper
+                ServiceImplementationProvider provider = ((timedOutProvider instanceof TimedProvider)
+                                                          ? ((TimedProvider) timedOutProvider).provider
+                                                          : timedOutProvider);
+                for (DiscoveryListener listener : discoveryListeners) {
+                    listener.providerTimedOut(provider, serviceClass);
+                }
+            }
+            throw exception;
+        } finally {
+            // calls that timed out, were cancelled or are still running are not reported
+            for (TimedProvider timedProvider : timedProviders) {
+                timedProvider.reportQuery(serviceClass, classpathResourceLoader, 
+                        !timedOutProviders.contains(timedProvider));
+            }
+        }
+    }
+    
+    /*
+     * Times the provider and binds the listeners and classpath index to the thread in which
+     * it is called, for the provider to report and index its resource reads. The query is only reported once the lookup
+     * has finished, so that a provider abandoned by the execution strategy is not reported
+     * when it eventually returns.
+     */
+    private class TimedProvider implements ServiceImplementationProvider {
+        private final ServiceImplementationProvider provider;
+        // guarded by this
+        private boolean completed;
+        private boolean lookupFinished;
+        private int implementationsFound;
+        private long durationNanos;
+        
+        private TimedProvider(ServiceImplementationProvider provider) {
+            this.provider = provider;
+        }
+
+        /* (non-Javadoc)
+         * @see com.qrmedia.commons.multispi.provider.ServiceImplementationProvider#findServiceImplementations(java.lang.Class, java.lang.ClassLoader)
+         */
+        public Set<String> findServiceImplementations(Class<?> serviceClass, 
+                ClassLoader classpathResourceLoader) {
+            DiscoveryContext previousContext = 
+                DiscoveryContext.bind(discoveryListeners, classpathIndex);
+            long start = System.nanoTime();
+            Set<String> implementationNames;
+            try {
+                implementationNames = 
+                    provider.findServiceImplementations(serviceClass, classpathResourceLoader);
+            } finally {
+                DiscoveryContext.restore(previousContext);
+            }
+            long duration = System.nanoTime() - start;
+            synchronized (this) {
+                if (!lookupFinished) {
+                    completed = true;
+                    implementationsFound = implementationNames.size();
+                    durationNanos = duration;
+                }
+            }
+            return implementationNames;
+        }
+        
+        private void reportQuery(Class<?> serviceClass, ClassLoader classpathResourceLoader,
+                boolean resultUsed) {
+            synchronized (this) {
+                lookupFinished = true;
+                if (!(completed && resultUsed)) {
+                    return;
                 }
-            })));
+            }
+            for (DiscoveryListener listener : discoveryListeners) {
+                listener.providerQueried(provider, serviceClass, classpathResourceLoader, 
+                        implementationsFound, durationNanos);
+            }
+        }
+        
+        /* (non-Javadoc)
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return provider.toString();
+        }
     }
     
     /**
@@ -149,14 +345,21 @@ public final class MultiSpi {
      * @throws ClassNotFoundException if any of the classes cannot be loaded                           
      * @see #findImplementations(Class)
      */
-    @SuppressWarnings("unchecked")
     public @Nonnull <S> Set<Class<? extends S>> findImplementations(
             @Nonnull Class<S> serviceClass, @Nonnull final ClassLoader implementationLoader) 
             throws ClassCastException, ClassNotFoundException {
+        return loadImplementationClasses(serviceClass, implementationLoader, 
+                findImplementationNames(serviceClass, implementationLoader));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <S> Set<Class<? extends S>> loadImplementationClasses(Class<S> serviceClass, 
+            ClassLoader implementationLoader, Set<String> implementationNames) 
+            throws ClassCastException, ClassNotFoundException {
         Set<Class<? extends S>> implementations = newHashSet();
         // can't do this using Iterables.transform because we want to throw the exception
-        for (String name : findImplementationNames(serviceClass, implementationLoader)) {
-            implementations.add((Class<? extends S>) implementationLoader.loadClass(name));
+        for (String name : implementationNames) {
+            implementations.add((Class<? extends S>) loadClass(implementationLoader, name));
         }
         
         if (any(implementations, not(assignableFrom(serviceClass)))) {
@@ -166,6 +369,17 @@ public final class MultiSpi {
         return implementations;
     }
     
+    @Nonnull Class<?> loadClass(@Nonnull ClassLoader implementationLoader, @Nonnull String name) 
+            throws ClassNotFoundException {
+        long start = System.nanoTime();
+        Class<?> implementationClass = implementationLoader.loadClass(name);
+        long durationNanos = System.nanoTime() - start;
+        for (DiscoveryListener listener : discoveryListeners) {
+            listener.implementationClassLoaded(implementationClass, durationNanos);
+        }
+        return implementationClass;
+    }
+    
     private static AssignableFromPredicate assignableFrom(Class<?> superclass) {
         return new AssignableFromPredicate(superclass);
     }
@@ -215,12 +429,18 @@ public final class MultiSpi {
      * of the classes does not.
      * <p>
      * Service classes are expected to provide a public, no-argument constructor, which
-     * will be invoked to create instances of the implementation classes found. An
+     * will be invoked to create instances of the implementation classes found (unless
+     * a different {@link InstanceFactory} has been configured). An
      * {@code InstantiationException} is thrown if the class cannot be instantiated.
      * <p>
      * If more lenient behaviour is desired (e.g. skipping any classes that cannot be
      * found, or do not actually implement the interface), use 
      * {@link #findImplementationNames(Class)} instead.
+     * <p>
+     * If instance caching is enabled, the same (unmodifiable) set of instances is returned
+     * for subsequent calls with the same service class and class loader. Instances created
+     * for the partial results of an {@link IncompleteLookupException incomplete} lookup
+     * are not cached.
      * 
      * @param <S> the type of the service
      * @param serviceClass the class of the service
@@ -232,12 +452,44 @@ public final class MultiSpi {
      *          constructor                   
      * @see #loadImplementations(Class)
      */
+    @SuppressWarnings("unchecked")
     public @Nonnull <S> Set<S> loadImplementations(@Nonnull Class<S> serviceClass, 
             @Nonnull final ClassLoader implementationLoader) throws ClassNotFoundException, 
                 InstantiationException {
+        if (!instanceCaching) {
+            return instantiateImplementations(serviceClass, implementationLoader, 
+                    findImplementationNames(serviceClass, implementationLoader));
+        }
+        
+        // only instances of implementations of S are cached for S
+        Set<S> implementations = 
+            (Set<S>) implementationCache.get(serviceClass, implementationLoader);
+        for (DiscoveryListener listener : discoveryListeners) {
+            listener.implementationCacheAccessed(serviceClass, (implementations != null));
+        }
+        if (implementations == null) {
+            Set<String> implementationNames;
+            try {
+                implementationNames = lookupImplementationNames(serviceClass, implementationLoader);
+            } catch (IncompleteLookupException exception) {
+                // instances of partial results are not cached either
+                return unmodifiableSet(instantiateImplementations(serviceClass, 
+                        implementationLoader, exception.getImplementationNames()));
+            }
+            implementations = (Set<S>) implementationCache.putIfAbsent(serviceClass, 
+                    implementationLoader, unmodifiableSet(instantiateImplementations(
+                            serviceClass, implementationLoader, implementationNames)));
+        }
+        return implementations;
+    }
+    
+    private <S> Set<S> instantiateImplementations(Class<S> serviceClass, 
+            ClassLoader implementationLoader, Set<String> implementationNames) 
+            throws ClassNotFoundException, InstantiationException {
         Set<Class<? extends S>> implementationClasses;
         try {
-            implementationClasses = findImplementations(serviceClass, implementationLoader);
+            implementationClasses = loadImplementationClasses(serviceClass, 
+                    implementationLoader, implementationNames);
         } catch (ClassCastException exception) {
             throw new InstantiationException(format("Unable to load implementation classes for service class '%s' due to: %s",
                     serviceClass, exception.getMessage()));
@@ -246,40 +498,126 @@ public final class MultiSpi {
         Set<S> implementations = newHashSetWithExpectedSize(implementationClasses.size());
         // can't use Iterables.transform because we want to throw the exception
         for (Class<? extends S> implementationClass : implementationClasses) {
-            implementations.add(instanceFactory.newInstance(implementationClass));
+            implementations.add(newInstance(implementationClass));
         }
         return implementations;
     }
     
-    // ready to be factored out into an external interface with pluggable implementations
-    private static interface InstanceFactory {
-        @Nonnull <T> T newInstance(@Nonnull Class<T> clazz) throws InstantiationException;
+    @Nonnull <T> T newInstance(@Nonnull Class<T> implementationClass) throws InstantiationException {
+        long start = System.nanoTime();
+        T instance = instanceFactory.newInstance(implementationClass);
+        long durationNanos = System.nanoTime() - start;
+        for (DiscoveryListener listener : discoveryListeners) {
+            listener.implementationInstantiated(implementationClass, durationNanos);
+        }
+        return instance;
     }
     
-    private static class PublicNoargConstructorInstanceFactory implements InstanceFactory {
-        public <T> T newInstance(Class<T> clazz) throws InstantiationException {
-            Constructor<T> publicNoargConstructor;
-            try {
-                publicNoargConstructor = clazz.getConstructor();
-            } catch (NoSuchMethodException exception) {
-                throw new InstantiationException(format("Unable to find public no-argument constructor for class '%s' due to: %s",
-                        clazz, exception.getMessage()));
-            }
-            
-            try {
-                return publicNoargConstructor.newInstance();
-            } catch (InvocationTargetException exception) {
-                throw new InstantiationException(format("Unable to create new instance of class '%s' due to exception in constructor '%s': %s: %s",
-                        clazz, publicNoargConstructor, exception.getCause(), exception.getCause().getMessage()));
-            } catch (IllegalAccessException exception) {
-                // should not happen - the constructor takes no args and we're calling it with no args
-                throw new AssertionError(format("Caught IllegalAccessException '%s' calling public constructor '%s' for class '%s'?!?", 
-                        exception.getMessage(), publicNoargConstructor, clazz));
-            } catch (IllegalArgumentException exception) {
-                // should not happen - the constructor takes no args and we're calling it with no args
-                throw new AssertionError(format("Caught IllegalArgumentException '%s' calling no-argument constructor '%s' for class '%s' with no arguments?!?", 
-                        exception.getMessage(), publicNoargConstructor, clazz));
-            }
+    /**
+     * Shorthand for {@link #lazyLoadImplementations(Class, ClassLoader) lazyLoadImplementations(serviceClass, defaultClassLoader)}.
+     * where {@code defaultClassLoader} is
+     * <ul>
+     * <li>{@link Thread#getContextClassLoader() Thread.currentThread().getContextClassLoader()} if non-<code>null</code>
+     * <li>{@link ClassLoader#getSystemClassLoader()} if non-<code>null</code>
+     * <li>the bootstrap classloader otherwise
+     * </ul>
+     * 
+     * @param <S> the type of the service
+     * @param serviceClass the class of the service
+     * @return a set of descriptors of implementations of the service
+     * @see #lazyLoadImplementations(Class, ClassLoader)
+     */
+    public @Nonnull <S> Set<ServiceImplementation<S>> lazyLoadImplementations(
+            @Nonnull Class<S> serviceClass) {
+        return lazyLoadImplementations(serviceClass, findDefaultLoader());
+    }
+    
+    /**
+     * Finds the implementations of the requested service, as determined by the available 
+     * providers, <em>without</em> loading the implementation classes.
+     * <p>
+     * Each implementation class is only loaded, checked and instantiated when requested from
+     * its {@link ServiceImplementation descriptor}, so the cost of loading (and running the
+     * static initializers of) implementations is only incurred for implementations that
+     * are actually used, e.g. when looking for the first implementation that matches some 
+     * criterion.
+     * 
+     * @param <S> the type of the service
+     * @param serviceClass the class of the service
+     * @param implementationLoader the class loader to be used to attempt to load the classes
+     * @return a set of descriptors of implementations of the service
+     * @see #loadImplementations(Class, ClassLoader)
+     */
+    public @Nonnull <S> Set<ServiceImplementation<S>> lazyLoadImplementations(
+            @Nonnull Class<S> serviceClass, @Nonnull ClassLoader implementationLoader) {
+        Set<String> implementationNames = findImplementationNames(serviceClass, implementationLoader);
+        Set<ServiceImplementation<S>> implementations = 
+            newHashSetWithExpectedSize(implementationNames.size());
+        for (String implementationName : implementationNames) {
+            implementations.add(new ServiceImplementation<S>(serviceClass, implementationName, 
+                    implementationLoader, this));
+        }
+        return implementations;
+    }
+    
+    /**
+     * Registers a listener to be notified of subsequent discovery work.
+     * 
+     * @param listener the listener to add
+     */
+    public void addDiscoveryListener(@Nonnull DiscoveryListener listener) {
+        discoveryListeners.add(checkNotNull(listener));
+    }
+    
+    /**
+     * @param listener the listener to remove
+     */
+    public void removeDiscoveryListener(@Nonnull DiscoveryListener listener) {
+        discoveryListeners.remove(listener);
+    }
+    
+    @Nonnull Iterable<DiscoveryListener> getDiscoveryListeners() {
+        return discoveryListeners;
+    }
+    
+    /**
+     * Clears all cached lookup results and instances, as well as the classpath resources
+     * indexed by this instance.
+     */
+    public void invalidateCache() {
+        implementationNameCache.invalidate();
+        implementationCache.invalidate();
+        if (classpathIndex != null) {
+            classpathIndex.invalidateAll();
+        }
+    }
+    
+    /**
+     * Clears the cached lookup results and instances, as well as the classpath resources
+     * indexed by this instance, for the given service class.
+     * 
+     * @param serviceClass the class of the service
+     */
+    public void invalidateCache(@Nonnull Class<?> serviceClass) {
+        implementationNameCache.invalidate(serviceClass);
+        implementationCache.invalidate(serviceClass);
+        if (classpathIndex != null) {
+            classpathIndex.invalidate(serviceClass);
+        }
+    }
+
+    /**
+     * Clears the cached lookup results and instances, as well as the classpath resources
+     * indexed by this instance, for the given class loader, e.g. before discarding a 
+     * plugin's class loader.
+     * 
+     * @param loader the class loader used for the lookups
+     */
+    public void invalidateCache(@Nonnull ClassLoader loader) {
+        implementationNameCache.invalidate(loader);
+        implementationCache.invalidate(loader);
+        if (classpathIndex != null) {
+            classpathIndex.invalidate(loader);
         }
     }
     
@@ -307,7 +645,13 @@ public final class MultiSpi {
      */
     @Override
     public int hashCode() {
-        return providers.hashCode();
+        final int prime = 31;
+        int result = providers.hashCode();
+        result = prime * result + (resultCaching ? 1231 : 1237);
+        result = prime * result + (instanceCaching ? 1231 : 1237);
+        result = prime * result + executionStrategy.hashCode();
+        result = prime * result + instanceFactory.hashCode();
+        return result;
     }
 
     /* (non-Javadoc)
@@ -324,6 +668,14 @@ public final class MultiSpi {
         MultiSpi other = (MultiSpi) obj;
         if (!providers.equals(other.providers))
             return false;
+        if (resultCaching != other.resultCaching)
+            return false;
+        if (instanceCaching != other.instanceCaching)
+            return false;
+        if (!executionStrategy.equals(other.executionStrategy))
+            return false;
+        if (!instanceFactory.equals(other.instanceFactory))
+            return false;
         return true;
     }
 }
@@ -0,0 +1,268 @@
+/*
+ * @(#)PluginDirectoryWatcher.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Maps.newLinkedHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Watches plugin directories for JARs being added, modified or removed, and notifies
+ * {@link ImplementationChangeListener listeners} of the resulting changes to the available
+ * implementations of the watched services.
+ * <p>
+ * Each plugin JAR is given its own class loader, a child of the given parent loader, from
+ * which its implementations are loaded. When a JAR is added, its implementations are found
+ * using a separate loader that sees only the JAR's resources, so the resources of the parent
+ * loader are not read again, and only implementations that are not also found by the parent
+ * loader are reported. When a JAR is removed, the implementations previously found that no
+ * other plugin JAR provides are reported as removed, and the cached results for the JAR are
+ * {@link MultiSpi#invalidateCache(ClassLoader) invalidated}. A modified JAR is treated as 
+ * a removal followed by an addition. The cost of a {@link #scan()} is thus proportional to 
+ * the number of changed JARs, plus listing the plugin directories.
+ * <p>
+ * The directories are polled, so the watcher is typically scheduled using e.g.
+ * {@link java.util.concurrent.ScheduledExecutorService#scheduleWithFixedDelay(Runnable, long, long, java.util.concurrent.TimeUnit)}.
+ * JARs should be moved into the plugin directories atomically, since a partially-copied 
+ * JAR may otherwise be picked up.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public class PluginDirectoryWatcher implements Runnable {
+    private static final String JAR_SUFFIX = ".jar";
+    private static final FileFilter JAR_FILTER = new FileFilter() {
+            public boolean accept(File pathname) {
+                return pathname.isFile() && pathname.getName().endsWith(JAR_SUFFIX);
+            }
+        };
+    
+    private final MultiSpi multiSpi;
+    private final ClassLoader parentLoader;
+    private final Set<Class<?>> serviceClasses;
+    private final Set<File> pluginDirectories;
+    private final List<ImplementationChangeListener> listeners = 
+        new CopyOnWriteArrayList<ImplementationChangeListener>();
+    
+    @GuardedBy("this")
+    private final Map<File, Plugin> plugins = newHashMap();
+    
+    /**
+     * @param multiSpi used to find the implementations provided by each plugin JAR. Should
+     *        usually have {@link MultiSpi#MultiSpi(Set, boolean, boolean) result caching}
+     *        enabled, since the parent loader is queried for every JAR added
+     * @param parentLoader the parent of the plugin class loaders
+     * @param serviceClasses the services whose implementations are to be watched
+     * @param pluginDirectories the directories containing the plugin JARs
+     */
+    public PluginDirectoryWatcher(@Nonnull MultiSpi multiSpi, @Nonnull ClassLoader parentLoader,
+            @Nonnull Set<? extends Class<?>> serviceClasses, @Nonnull Set<File> pluginDirectories) {
+        this.multiSpi = checkNotNull(multiSpi);
+        this.parentLoader = checkNotNull(parentLoader);
+        this.serviceClasses = ImmutableSet.<Class<?>>copyOf(serviceClasses);
+        this.pluginDirectories = ImmutableSet.copyOf(pluginDirectories);
+    }
+    
+    public void addListener(@Nonnull ImplementationChangeListener listener) {
+        listeners.add(checkNotNull(listener));
+    }
+    
+    public void removeListener(@Nonnull ImplementationChangeListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * {@link #scan() Scans} the plugin directories, {@link #handleScanFailure(RuntimeException) handling}
+     * any runtime exceptions so that subsequent scheduled scans are not suppressed. Failures
+     * are also reported to the {@link DiscoveryListener DiscoveryListeners} of the 
+     * {@code MultiSpi} instance.
+     */
+    public void run() {
+        try {
+            scan();
+        } catch (RuntimeException exception) {
+            for (DiscoveryListener listener : multiSpi.getDiscoveryListeners()) {
+                listener.pluginScanFailed(pluginDirectories, exception);
+            }
+            handleScanFailure(exception);
+        }
+    }
+    
+    // override me!
+    protected void handleScanFailure(@Nonnull RuntimeException exception) {
+        System.err.println(format("Unable to scan plugin directories %s due to: %s", 
+                pluginDirectories, exception));
+    }
+    
+    /**
+     * Checks the plugin directories for JARs that have been added, modified or removed
+     * since the last scan and notifies the listeners of any resulting changes. The first
+     * scan reports the implementations in all JARs present.
+     */
+    public synchronized void scan() {
+        Set<File> jars = listJars();
+        for (Iterator<Entry<File, Plugin>> pluginIterator = plugins.entrySet().iterator();
+                pluginIterator.hasNext();) {
+            Entry<File, Plugin> plugin = pluginIterator.next();
+            if (!jars.contains(plugin.getKey()) || plugin.getValue().isModified(plugin.getKey())) {
+                pluginIterator.remove();
+                unload(plugin.getValue());
+            }
+        }
+        
+        for (File jar : jars) {
+            if (!plugins.containsKey(jar)) {
+                plugins.put(jar, load(jar));
+            }
+        }
+    }
+    
+    private Set<File> listJars() {
+        Set<File> jars = newHashSet();
+        for (File pluginDirectory : pluginDirectories) {
+            File[] directoryJars = pluginDirectory.listFiles(JAR_FILTER);
+            // null if the directory does not (or no longer) exist
+            if (directoryJars != null) {
+                for (File jar : directoryJars) {
+                    jars.add(jar.getAbsoluteFile());
+                }
+            }
+        }
+        return jars;
+    }
+    
+    private Plugin load(File jar) {
+        URL jarUrl;
+        try {
+            jarUrl = jar.toURI().toURL();
+        } catch (MalformedURLException exception) {
+            // should not happen - a file URI is always a valid URL
+            throw new AssertionError(format("Unable to convert URI of file '%s' to a URL due to: %s", 
+                    jar, exception.getMessage()));
+        }
+        
+        // read the timestamp before the JAR so later changes are picked up on the next scan
+        long lastModified = jar.lastModified();
+        long length = jar.length();
+        ClassLoader pluginLoader = new URLClassLoader(new URL[] { jarUrl }, parentLoader);
+        // a child of the bootstrap loader, so only the JAR's own resources are read
+        ClassLoader pluginResourceLoader = new URLClassLoader(new URL[] { jarUrl }, null);
+        Map<Class<?>, Set<String>> implementationNames = newLinkedHashMap();
+        for (Class<?> serviceClass : serviceClasses) {
+            Set<String> pluginImplementationNames = newHashSet(
+                    multiSpi.findImplementationNames(serviceClass, pluginResourceLoader));
+            pluginImplementationNames.removeAll(
+                    multiSpi.findImplementationNames(serviceClass, parentLoader));
+            if (!pluginImplementationNames.isEmpty()) {
+                implementationNames.put(serviceClass, unmodifiableSet(pluginImplementationNames));
+            }
+        }
+        
+        Plugin plugin = new Plugin(lastModified, length, pluginLoader, pluginResourceLoader,
+                implementationNames);
+        for (Entry<Class<?>, Set<String>> implementations : implementationNames.entrySet()) {
+            for (ImplementationChangeListener listener : listeners) {
+                listener.implementationsAdded(implementations.getKey(), implementations.getValue(), 
+                        pluginLoader);
+            }
+        }
+        return plugin;
+    }
+    
+    // expects the plugin to have been removed from the loaded plugins already
+    private void unload(Plugin plugin) {
+        multiSpi.invalidateCache(plugin.resourceLoader);
+        for (Entry<Class<?>, Set<String>> implementations : plugin.implementationNames.entrySet()) {
+            Class<?> serviceClass = implementations.getKey();
+            Set<String> removedImplementationNames = newHashSet(implementations.getValue());
+            for (Plugin otherPlugin : plugins.values()) {
+                Set<String> otherImplementationNames = 
+                    otherPlugin.implementationNames.get(serviceClass);
+                if (otherImplementationNames != null) {
+                    removedImplementationNames.removeAll(otherImplementationNames);
+                }
+            }
+            if (removedImplementationNames.isEmpty()) {
+                continue;
+            }
+            for (ImplementationChangeListener listener : listeners) {
+                listener.implementationsRemoved(serviceClass, 
+                        unmodifiableSet(removedImplementationNames), plugin.loader);
+            }
+        }
+    }
+    
+    /**
+     * @return the class loaders of the plugin JARs found by the last scan
+     */
+    public synchronized @Nonnull Map<File, ClassLoader> getPluginLoaders() {
+        Map<File, ClassLoader> pluginLoaders = newHashMap();
+        for (Entry<File, Plugin> plugin : plugins.entrySet()) {
+            pluginLoaders.put(plugin.getKey(), plugin.getValue().loader);
+        }
+        return unmodifiableMap(pluginLoaders);
+    }
+    
+    private static class Plugin {
+        private final long lastModified;
+        private final long length;
+        private final ClassLoader loader;
+        private final ClassLoader resourceLoader;
+        private final Map<Class<?>, Set<String>> implementationNames;
+        
+        private Plugin(long lastModified, long length, ClassLoader loader, 
+                ClassLoader resourceLoader, Map<Class<?>, Set<String>> implementationNames) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.loader = loader;
+            this.resourceLoader = resourceLoader;
+            this.implementationNames = implementationNames;
+        }
+        
+        private boolean isModified(File jar) {
+            return (jar.lastModified() != lastModified) || (jar.length() != length);
+        }
+    }
+}
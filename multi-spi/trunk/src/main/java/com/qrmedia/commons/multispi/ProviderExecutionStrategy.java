@@ -0,0 +1,55 @@
+/*
+ * @(#)ProviderExecutionStrategy.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Determines how the {@link ServiceImplementationProvider providers} of a 
+ * {@link MultiSpi} instance are consulted.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public interface ProviderExecutionStrategy {
+
+    /**
+     * Returns the combined results of calling 
+     * {@link ServiceImplementationProvider#findServiceImplementations(Class, ClassLoader)}
+     * on the given providers. Never returns {@code null}.
+     * 
+     * @param providers the providers to be consulted
+     * @param serviceClass the (non-<code>null</code>) requested service class
+     * @param classpathResourceLoader the class loader to be used for classpath resource lookups etc.
+     * @return a non-<code>null</code> set of fully-qualified class names of presumed
+     *         implementations of the requested service
+     * @throws IncompleteLookupException if not all providers could be consulted, carrying
+     *         the results of the providers that were
+     */
+    @Nonnull Set<String> findServiceImplementations(
+            @Nonnull Iterable<? extends ServiceImplementationProvider> providers,
+            @Nonnull Class<?> serviceClass, @Nonnull ClassLoader classpathResourceLoader);
+}
@@ -0,0 +1,123 @@
+/*
+ * @(#)PublicNoargConstructorInstanceFactory.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static java.lang.String.format;
+
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Instantiates public classes using their public, no-argument constructor. The default
+ * {@link InstanceFactory}. Non-public classes are rejected.
+ * <p>
+ * The constructors are looked up once and cached, and access checks are suppressed
+ * so that they do not need to be repeated for every instance. Classes are weakly and
+ * constructors softly referenced. Since a constructor refers to its class, a cached
+ * constructor <u>does</u> keep the class, and thus its class loader, reachable until
+ * the constructor is cleared when the JVM runs low on memory, after which it is 
+ * looked up again if needed.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public class PublicNoargConstructorInstanceFactory implements InstanceFactory {
+    private final ConcurrentMap<Class<?>, Reference<Constructor<?>>> publicNoargConstructors = 
+        new MapMaker().weakKeys().makeMap();
+    
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.InstanceFactory#newInstance(java.lang.Class)
+     */
+    public <T> T newInstance(Class<T> clazz) throws InstantiationException {
+        Constructor<T> publicNoargConstructor = getPublicNoargConstructor(clazz);
+        try {
+            return publicNoargConstructor.newInstance();
+        } catch (InvocationTargetException exception) {
+            throw new InstantiationException(format("Unable to create new instance of class '%s' due to exception in constructor '%s': %s: %s",
+                    clazz, publicNoargConstructor, exception.getCause(), exception.getCause().getMessage()));
+        } catch (IllegalAccessException exception) {
+            // should not happen - the class and constructor are public
+            throw new AssertionError(format("Caught IllegalAccessException '%s' calling public constructor '%s' for class '%s'?!?", 
+                    exception.getMessage(), publicNoargConstructor, clazz));
+        } catch (IllegalArgumentException exception) {
+            // should not happen - the constructor takes no args and we're calling it with no args
+            throw new AssertionError(format("Caught IllegalArgumentException '%s' calling no-argument constructor '%s' for class '%s' with no arguments?!?", 
+                    exception.getMessage(), publicNoargConstructor, clazz));
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> Constructor<T> getPublicNoargConstructor(Class<T> clazz) throws InstantiationException {
+        // only constructors of clazz are cached for clazz
+        Reference<Constructor<?>> cachedConstructor = publicNoargConstructors.get(clazz);
+        Constructor<T> publicNoargConstructor = ((cachedConstructor != null) 
+                                                 ? (Constructor<T>) cachedConstructor.get() : null);
+        if (publicNoargConstructor == null) {
+            if (!Modifier.isPublic(clazz.getModifiers())) {
+                throw new InstantiationException(format("Unable to instantiate non-public class '%s'",
+                        clazz));
+            }
+            try {
+                publicNoargConstructor = clazz.getConstructor();
+            } catch (NoSuchMethodException exception) {
+                throw new InstantiationException(format("Unable to find public no-argument constructor for class '%s' due to: %s",
+                        clazz, exception.getMessage()));
+            }
+            // skips the access checks on every call
+            publicNoargConstructor.setAccessible(true);
+            publicNoargConstructors.put(clazz, 
+                    new SoftReference<Constructor<?>>(publicNoargConstructor));
+        }
+        return publicNoargConstructor;
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return PublicNoargConstructorInstanceFactory.class.hashCode();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        return true;
+    }
+}
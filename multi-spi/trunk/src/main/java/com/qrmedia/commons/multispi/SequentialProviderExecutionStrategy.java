@@ -0,0 +1,60 @@
+/*
+ * @(#)SequentialProviderExecutionStrategy.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Iterables.concat;
+import static com.google.common.collect.Iterables.transform;
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Set;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.base.Function;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Consults the providers one after the other, in the calling thread. The default
+ * strategy.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public final class SequentialProviderExecutionStrategy implements ProviderExecutionStrategy {
+    public static final SequentialProviderExecutionStrategy INSTANCE = 
+        new SequentialProviderExecutionStrategy();
+    
+    private SequentialProviderExecutionStrategy() {}
+    
+    /* (non-Javadoc)
+     * @see com.qrmedia.commons.multispi.ProviderExecutionStrategy#findServiceImplementations(java.lang.Iterable, java.lang.Class, java.lang.ClassLoader)
+     */
+    public Set<String> findServiceImplementations(Iterable<? extends ServiceImplementationProvider> providers,
+            final Class<?> serviceClass, final ClassLoader classpathResourceLoader) {
+        return newHashSet(concat(transform(providers, new Function<ServiceImplementationProvider, Set<String>>() {
+                public Set<String> apply(ServiceImplementationProvider from) {
+                    return from.findServiceImplementations(serviceClass, classpathResourceLoader);
+                }
+            })));
+    }
+}
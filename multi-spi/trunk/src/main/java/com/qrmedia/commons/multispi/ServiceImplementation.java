@@ -0,0 +1,174 @@
+/*
+ * @(#)ServiceImplementation.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static java.lang.String.format;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.base.Supplier;
+
+/**
+ * Describes an implementation of a service found by {@link MultiSpi}, without loading
+ * the implementation class. The class is only loaded (and its static initializers run)
+ * when it is {@link #getImplementationClass() requested}, and only instantiated when an
+ * {@link #getInstance() instance} is requested. Both are memoised.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ * @param <S> the type of the service
+ */
+@ThreadSafe
+public final class ServiceImplementation<S> implements Supplier<S> {
+    private final Class<S> serviceClass;
+    private final String name;
+    private final ClassLoader implementationLoader;
+    private final MultiSpi multiSpi;
+    
+    @GuardedBy("this")
+    private Class<? extends S> implementationClass;
+    @GuardedBy("this")
+    private S instance;
+    
+    ServiceImplementation(@Nonnull Class<S> serviceClass, @Nonnull String name, 
+            @Nonnull ClassLoader implementationLoader, @Nonnull MultiSpi multiSpi) {
+        this.serviceClass = serviceClass;
+        this.name = name;
+        this.implementationLoader = implementationLoader;
+        this.multiSpi = multiSpi;
+    }
+    
+    /**
+     * @return the name of the class designated as implementing the service
+     */
+    public @Nonnull String getName() {
+        return name;
+    }
+    
+    /**
+     * Loads the implementation class, if it has not already been loaded.
+     * 
+     * @return the implementation class
+     * @throws ClassCastException if the class is not actually an implementation of the service
+     * @throws ClassNotFoundException if the class cannot be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized @Nonnull Class<? extends S> getImplementationClass() 
+            throws ClassCastException, ClassNotFoundException {
+        if (implementationClass == null) {
+            Class<?> loadedClass = multiSpi.loadClass(implementationLoader, name);
+            if (!serviceClass.isAssignableFrom(loadedClass)) {
+                throw new ClassCastException(format("Supposed implementation '%s' does not implement or extend service class '%s'",
+                        loadedClass, serviceClass.getName()));
+            }
+            implementationClass = (Class<? extends S>) loadedClass;
+        }
+        return implementationClass;
+    }
+    
+    /**
+     * Creates an instance of the implementation class, if one has not already been
+     * created, loading the class if necessary.
+     * 
+     * @return the (single) instance of the implementation class created by this descriptor
+     * @throws ClassNotFoundException if the class cannot be loaded 
+     * @throws InstantiationException if the class is not actually an implementation
+     *          of the service, or cannot be instantiated using a public no-argument 
+     *          constructor
+     * @see MultiSpi#loadImplementations(Class, ClassLoader)
+     */
+    public synchronized @Nonnull S getInstance() throws ClassNotFoundException, 
+            InstantiationException {
+        if (instance == null) {
+            Class<? extends S> implementationClass;
+            try {
+                implementationClass = getImplementationClass();
+            } catch (ClassCastException exception) {
+                throw new InstantiationException(format("Unable to load implementation class for service class '%s' due to: %s",
+                        serviceClass, exception.getMessage()));
+            }
+            instance = multiSpi.newInstance(implementationClass);
+        }
+        return instance;
+    }
+
+    /**
+     * Equivalent to {@link #getInstance()}, for use where a {@link Supplier} is required.
+     * 
+     * @throws IllegalStateException if the instance cannot be created
+     */
+    public S get() {
+        try {
+            return getInstance();
+        } catch (ClassNotFoundException exception) {
+            throw new IllegalStateException(format("Unable to load implementation class '%s' due to: %s",
+                    name, exception.getMessage()), exception);
+        } catch (InstantiationException exception) {
+            throw new IllegalStateException(format("Unable to instantiate implementation class '%s' due to: %s",
+                    name, exception.getMessage()), exception);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + name.hashCode();
+        result = prime * result + serviceClass.hashCode();
+        result = prime * result + System.identityHashCode(implementationLoader);
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        ServiceImplementation<?> other = (ServiceImplementation<?>) obj;
+        if (!name.equals(other.name))
+            return false;
+        if (!serviceClass.equals(other.serviceClass))
+            return false;
+        if (implementationLoader != other.implementationLoader)
+            return false;
+        return true;
+    }
+    
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return format("%s[%s]", ServiceImplementation.class.getSimpleName(), name);
+    }
+}
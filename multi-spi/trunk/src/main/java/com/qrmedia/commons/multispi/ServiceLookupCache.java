@@ -0,0 +1,144 @@
+/*
+ * @(#)ServiceLookupCache.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Caches the results of service lookups by service class and class loader. The
+ * class loaders are only weakly referenced, so caching results does not prevent
+ * e.g. a plugin's class loader from being garbage collected. Entries for collected
+ * class loaders are purged on subsequent cache accesses.
+ * <p>
+ * Note that cached <em>values</em> are strongly referenced: caching instances of
+ * classes loaded by a class loader will keep that class loader reachable until
+ * the entry is {@link #invalidate(ClassLoader) invalidated}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ * @param <V> the type of the cached lookup results
+ */
+@ThreadSafe
+class ServiceLookupCache<V> {
+    private final ConcurrentMap<LookupKey, V> results = new ConcurrentHashMap<LookupKey, V>();
+    private final ReferenceQueue<ClassLoader> collectedLoaders = new ReferenceQueue<ClassLoader>();
+    
+    @CheckForNull V get(@Nonnull Class<?> serviceClass, @Nonnull ClassLoader loader) {
+        purgeCollectedLoaders();
+        return results.get(new LookupKey(serviceClass, loader, null));
+    }
+    
+    /**
+     * Caches the given result unless a result for the same lookup has been cached
+     * in the meantime.
+     * 
+     * @return the cached result for the lookup
+     */
+    @Nonnull V putIfAbsent(@Nonnull Class<?> serviceClass, @Nonnull ClassLoader loader, 
+            @Nonnull V result) {
+        purgeCollectedLoaders();
+        V previousResult = results.putIfAbsent(
+                new LookupKey(serviceClass, loader, collectedLoaders), result);
+        return ((previousResult != null) ? previousResult : result);
+    }
+    
+    void invalidate() {
+        results.clear();
+    }
+    
+    void invalidate(@Nonnull Class<?> serviceClass) {
+        for (Iterator<LookupKey> keys = results.keySet().iterator(); keys.hasNext();) {
+            if (keys.next().serviceClass.equals(serviceClass)) {
+                keys.remove();
+            }
+        }
+    }
+    
+    void invalidate(@Nonnull ClassLoader loader) {
+        for (Iterator<LookupKey> keys = results.keySet().iterator(); keys.hasNext();) {
+            if (keys.next().get() == loader) {
+                keys.remove();
+            }
+        }
+    }
+    
+    int size() {
+        purgeCollectedLoaders();
+        return results.size();
+    }
+    
+    private void purgeCollectedLoaders() {
+        for (Reference<? extends ClassLoader> collectedLoader = collectedLoaders.poll(); 
+                collectedLoader != null; collectedLoader = collectedLoaders.poll()) {
+            // keys are compared by identity once their loader has been collected 
+            results.remove(collectedLoader);
+        }
+    }
+    
+    /*
+     * Compares class loaders by identity. Keys whose class loaders have been collected
+     * are only equal to themselves.
+     */
+    private static class LookupKey extends WeakReference<ClassLoader> {
+        private final Class<?> serviceClass;
+        private final int hashCode;
+        
+        private LookupKey(@Nonnull Class<?> serviceClass, @Nonnull ClassLoader loader,
+                @CheckForNull ReferenceQueue<ClassLoader> queue) {
+            super(loader, queue);
+            this.serviceClass = serviceClass;
+            hashCode = 31 * serviceClass.hashCode() + System.identityHashCode(loader);
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof LookupKey))
+                return false;
+            LookupKey other = (LookupKey) obj;
+            ClassLoader loader = get();
+            return (loader != null) && (loader == other.get()) 
+                   && serviceClass.equals(other.serviceClass);
+        }
+    }
+}
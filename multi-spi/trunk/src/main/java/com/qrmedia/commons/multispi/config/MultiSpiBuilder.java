@@ -20,17 +20,29 @@
  */
 package com.qrmedia.commons.multispi.config;
 
+import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Arrays.asList;
 
 import java.lang.annotation.Annotation;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
 import javax.annotation.concurrent.NotThreadSafe;
 
 import com.google.common.base.Supplier;
+import com.qrmedia.commons.multispi.ConcurrentProviderExecutionStrategy;
+import com.qrmedia.commons.multispi.DiscoveryListener;
+import com.qrmedia.commons.multispi.DiscoveryStatistics;
+import com.qrmedia.commons.multispi.InstanceFactory;
 import com.qrmedia.commons.multispi.MultiSpi;
+import com.qrmedia.commons.multispi.ProviderExecutionStrategy;
+import com.qrmedia.commons.multispi.PublicNoargConstructorInstanceFactory;
+import com.qrmedia.commons.multispi.SequentialProviderExecutionStrategy;
+import com.qrmedia.commons.multispi.provider.AnnotationIndexProvider;
 import com.qrmedia.commons.multispi.provider.AnnotationScanningProvider;
 import com.qrmedia.commons.multispi.provider.MetaInfServicesProvider;
 import com.qrmedia.commons.multispi.provider.ServiceClassnameAttributeProvider;
@@ -47,6 +59,11 @@ import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
 @NotThreadSafe
 public final class MultiSpiBuilder implements Supplier<MultiSpi> {
     private final Set<ServiceImplementationProvider> providers = newHashSet();
+    private boolean resultCaching;
+    private boolean instanceCaching;
+    private ProviderExecutionStrategy executionStrategy = SequentialProviderExecutionStrategy.INSTANCE;
+    private InstanceFactory instanceFactory = new PublicNoargConstructorInstanceFactory();
+    private final List<DiscoveryListener> discoveryListeners = newArrayList();
     
     /**
      * Adds default SPI support, i.e. {@link #withMetaInfServicesScanning() &quot;vanilla&quot; META-INF/services} scanning,
@@ -81,6 +98,18 @@ public final class MultiSpiBuilder implements Supplier<MultiSpi> {
         return this;
     }
 
+    /**
+     * Adds support for finding marker-annotated classes using the {@linkplain AnnotationIndexProvider index}
+     * generated at build time to the {@link MultiSpi} instance being built.
+     * 
+     * @return this builder
+     */
+    public MultiSpiBuilder withAnnotationIndex(@Nonnull Class<? extends Annotation> markerAnnotation,
+            @Nonnull String basePackage) {
+        providers.add(new AnnotationIndexProvider(markerAnnotation, basePackage));
+        return this;
+    }
+
     /**
      * Adds support for {@linkplain ServiceClassnameAttributeProvider manifest service attribute} scanning
      * to the {@link MultiSpi} instance being built.
@@ -108,13 +137,85 @@ public final class MultiSpiBuilder implements Supplier<MultiSpi> {
         return this;
     }
     
+    /**
+     * Enables caching of the implementation names found for a given service class and
+     * class loader by the {@link MultiSpi} instance being built.
+     * 
+     * @return this builder
+     * @see MultiSpi#invalidateCache()
+     */
+    public MultiSpiBuilder withResultCaching() {
+        resultCaching = true;
+        return this;
+    }
+
+    /**
+     * Enables caching of the implementation instances loaded for a given service class and
+     * class loader by the {@link MultiSpi} instance being built. Only suitable for 
+     * singleton-style services.
+     * 
+     * @return this builder
+     * @see MultiSpi#invalidateCache()
+     */
+    public MultiSpiBuilder withInstanceCaching() {
+        instanceCaching = true;
+        return this;
+    }
+    
+    /**
+     * Configures the {@link MultiSpi} instance being built to consult its providers
+     * {@linkplain ConcurrentProviderExecutionStrategy concurrently}, ignoring the results of
+     * any provider that does not complete within the given timeout. The executor is 
+     * <u>not</u> shut down by the {@code MultiSpi} instance.
+     * 
+     * @param executor the executor with which to run the providers
+     * @param providerTimeout the maximum time to wait for each provider
+     * @param unit the unit of the timeout
+     * @return this builder
+     */
+    public MultiSpiBuilder withConcurrentProviderExecution(@Nonnull ExecutorService executor,
+            long providerTimeout, @Nonnull TimeUnit unit) {
+        executionStrategy = new ConcurrentProviderExecutionStrategy(executor, providerTimeout, unit);
+        return this;
+    }
+    
+    /**
+     * Configures the {@link MultiSpi} instance being built to create instances of
+     * implementations using the given factory, rather than the 
+     * {@linkplain PublicNoargConstructorInstanceFactory public no-argument constructor}.
+     * 
+     * @param instanceFactory the factory to use
+     * @return this builder
+     */
+    public MultiSpiBuilder withInstanceFactory(@Nonnull InstanceFactory instanceFactory) {
+        this.instanceFactory = instanceFactory;
+        return this;
+    }
+    
+    /**
+     * Registers the given listener with the {@link MultiSpi} instance being built, e.g. a
+     * {@link DiscoveryStatistics} instance.
+     * 
+     * @param listener the listener to be notified of discovery work
+     * @return this builder
+     */
+    public MultiSpiBuilder withDiscoveryListener(@Nonnull DiscoveryListener listener) {
+        discoveryListeners.add(listener);
+        return this;
+    }
+    
     /**
      * Builds the prepared {@code MultiSpi} instance.
      * 
      * @return the prepared {@code MultiSpi} instance
      */
     public MultiSpi build() { 
-        return new MultiSpi(providers);
+        MultiSpi multiSpi = new MultiSpi(providers, resultCaching, instanceCaching, 
+                executionStrategy, instanceFactory);
+        for (DiscoveryListener listener : discoveryListeners) {
+            multiSpi.addDiscoveryListener(listener);
+        }
+        return multiSpi;
     }
 
     /**
@@ -0,0 +1,201 @@
+/*
+ * @(#)AnnotationIndexProcessor.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.index;
+
+import static com.google.common.collect.Maps.newHashMap;
+import static com.google.common.collect.Sets.newHashSet;
+import static com.google.common.collect.Sets.newTreeSet;
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import javax.tools.Diagnostic.Kind;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.provider.AnnotationIndexProvider;
+import com.qrmedia.commons.multispi.provider.AnnotationScanningProvider;
+
+/**
+ * Writes an index of the classes annotated with one of a set of marker annotations,
+ * for use by the {@link AnnotationIndexProvider}. This avoids the cost of
+ * {@linkplain AnnotationScanningProvider scanning} the classpath at runtime.
+ * <p>
+ * For each marker annotation, a resource {@code META-INF/multispi/annotated/<marker annotation>}
+ * is written to the class output directory, listing every annotated class in the current
+ * compilation against each of its superclasses and interfaces.
+ * 
+ * <h2>Usage</h2>
+ * 
+ * The marker annotations are specified as a comma-separated list of fully-qualified names 
+ * using the {@value #MARKER_ANNOTATIONS_OPTION} option, e.g. 
+ * {@code -Amultispi.markerAnnotations=uk.gov.mi6.LicenseToKill}. The processor
+ * is registered in the MultiSPI JAR's {@code META-INF/services}, so it will be invoked
+ * automatically if the JAR is on the compilation classpath.
+ * <p>
+ * Note that the index only contains the classes compiled together, i.e. incremental
+ * compilation will result in an incomplete index. As the processor uses the 
+ * {@link javax.annotation.processing.Processor} API, it requires Java 6.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class AnnotationIndexProcessor extends AbstractProcessor {
+    public static final String MARKER_ANNOTATIONS_OPTION = "multispi.markerAnnotations";
+    public static final String INDEX_RESOURCE_DIR = "META-INF/multispi/annotated";
+    
+    // marker annotation name -> "<service class name> <implementation class name>" lines
+    private final Map<String, SortedSet<String>> indexEntries = newHashMap();
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedOptions()
+     */
+    @Override
+    public Set<String> getSupportedOptions() {
+        return ImmutableSet.of(MARKER_ANNOTATIONS_OPTION);
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedAnnotationTypes()
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        String markerAnnotations = processingEnv.getOptions().get(MARKER_ANNOTATIONS_OPTION);
+        return ((markerAnnotations == null) 
+                ? ImmutableSet.<String>of()
+                : ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings()
+                                      .split(markerAnnotations)));
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        // only annotations and type hierarchies are inspected
+        return SourceVersion.latestSupported();
+    }
+    
+    /* (non-Javadoc)
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement markerAnnotation : annotations) {
+            SortedSet<String> entries = getIndexEntries(markerAnnotation.getQualifiedName().toString());
+            for (Element annotatedElement : roundEnv.getElementsAnnotatedWith(markerAnnotation)) {
+                // marker annotations on methods etc. are not relevant
+                if (!annotatedElement.getKind().isClass() && !annotatedElement.getKind().isInterface()) {
+                    continue;
+                }
+                
+                TypeElement implementation = (TypeElement) annotatedElement;
+                String implementationName = getBinaryName(implementation);
+                for (TypeElement supertype : getSupertypes(implementation)) {
+                    entries.add(getBinaryName(supertype) + ' ' + implementationName);
+                }
+            }
+        }
+        
+        if (roundEnv.processingOver()) {
+            writeIndexes();
+        }
+        
+        // others may be interested in the marker annotations, too
+        return false;
+    }
+    
+    private SortedSet<String> getIndexEntries(String markerAnnotationName) {
+        SortedSet<String> entries = indexEntries.get(markerAnnotationName);
+        if (entries == null) {
+            entries = newTreeSet();
+            indexEntries.put(markerAnnotationName, entries);
+        }
+        return entries;
+    }
+    
+    private String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+    
+    // all superclasses (except Object) and interfaces, direct or indirect
+    private Set<TypeElement> getSupertypes(TypeElement type) {
+        Set<TypeElement> supertypes = newHashSet();
+        addSupertypes(type.asType(), supertypes);
+        return supertypes;
+    }
+    
+    private void addSupertypes(TypeMirror type, Set<TypeElement> supertypes) {
+        for (TypeMirror supertype : processingEnv.getTypeUtils().directSupertypes(type)) {
+            if (supertype.getKind() != TypeKind.DECLARED) {
+                continue;
+            }
+            
+            TypeElement supertypeElement = 
+                (TypeElement) processingEnv.getTypeUtils().asElement(supertype);
+            if (!supertypeElement.getQualifiedName().contentEquals(Object.class.getName())
+                    && supertypes.add(supertypeElement)) {
+                addSupertypes(supertype, supertypes);
+            }
+        }
+    }
+    
+    private void writeIndexes() {
+        for (Entry<String, SortedSet<String>> index : indexEntries.entrySet()) {
+            String resourceName = INDEX_RESOURCE_DIR + '/' + index.getKey();
+            try {
+                FileObject resource = processingEnv.getFiler().createResource(
+                        StandardLocation.CLASS_OUTPUT, "", resourceName);
+                Writer writer = new OutputStreamWriter(resource.openOutputStream(), 
+                        AnnotationIndexProvider.INDEX_CHARSET);
+                try {
+                    writer.write("# generated by " + AnnotationIndexProcessor.class.getName() + '\n');
+                    for (String entry : index.getValue()) {
+                        writer.write(entry);
+                        writer.write('\n');
+                    }
+                } finally {
+                    writer.close();
+                }
+            } catch (IOException exception) {
+                processingEnv.getMessager().printMessage(Kind.ERROR, 
+                        format("Unable to write annotation index '%s' due to: %s", resourceName, 
+                                exception.getMessage()));
+            }
+        }
+    }
+}
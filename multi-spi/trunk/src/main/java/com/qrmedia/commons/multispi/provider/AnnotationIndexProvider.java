@@ -0,0 +1,147 @@
+/*
+ * @(#)AnnotationIndexProvider.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static com.google.common.base.Functions.constant;
+import static com.google.common.collect.Sets.filter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.Set;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import com.google.common.io.CharStreams;
+import com.google.common.io.Resources;
+import com.qrmedia.commons.multispi.index.AnnotationIndexProcessor;
+
+/**
+ * Returns the classes in a base package and its subpackages that are annotated with a 
+ * certain marker annotation, as listed in the indexes generated at build time by the
+ * {@link AnnotationIndexProcessor}. A drop-in replacement for the 
+ * {@link AnnotationScanningProvider} that only requires a resource read at runtime.
+ * <p>
+ * Only classes that implement the requested service (as determined at build time) are
+ * returned.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public class AnnotationIndexProvider extends ClasspathResourcesReadingProvider<SetMultimap<String, String>> {
+    public static final Charset INDEX_CHARSET = Charset.forName("UTF-8");
+    private static final char COMMENT_CHARACTER = '#';
+    private static final char ENTRY_SEPARATOR = ' ';
+    
+    // service class name -> implementation class names
+    private static final IoFunction<URL, SetMultimap<String, String>> INDEX_READER = 
+        new IoFunction<URL, SetMultimap<String, String>>() {
+            public SetMultimap<String, String> apply(URL item) throws IOException {
+                ImmutableSetMultimap.Builder<String, String> index = ImmutableSetMultimap.builder();
+                byte[] indexBytes = Resources.toByteArray(item);
+                ClasspathIndex.recordBytesRead(indexBytes.length);
+                for (String line : CharStreams.readLines(new StringReader(
+                        new String(indexBytes, INDEX_CHARSET.name())))) {
+                    String entry = StringUtils.substringBefore(line, 
+                            String.valueOf(COMMENT_CHARACTER)).trim();
+                    if (entry.length() > 0) {
+                        index.put(StringUtils.substringBefore(entry, String.valueOf(ENTRY_SEPARATOR)),
+                                StringUtils.substringAfter(entry, String.valueOf(ENTRY_SEPARATOR)));
+                    }
+                }
+                return index.build();
+            }
+        };
+    
+    private final Class<? extends Annotation> markerAnnotation;
+    private final String basePackage;
+
+    public AnnotationIndexProvider(@Nonnull Class<? extends Annotation> markerAnnotation, 
+            @Nonnull String basePackage) {
+        super(constant(AnnotationIndexProcessor.INDEX_RESOURCE_DIR + '/' + markerAnnotation.getName()), 
+                INDEX_READER);
+        this.markerAnnotation = markerAnnotation;
+        this.basePackage = basePackage;
+    }
+    
+    @Override
+    protected Set<String> processResource(SetMultimap<String, String> index, 
+            Class<?> serviceClass) {
+        return ImmutableSet.copyOf(filter(index.get(serviceClass.getName()), 
+                new Predicate<String>() {
+                    public boolean apply(String input) {
+                        return input.startsWith(basePackage + '.');
+                    }
+                }));
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result
+                + ((basePackage == null) ? 0 : basePackage.hashCode());
+        result = prime
+                * result
+                + ((markerAnnotation == null) ? 0 : markerAnnotation.hashCode());
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        AnnotationIndexProvider other = (AnnotationIndexProvider) obj;
+        if (basePackage == null) {
+            if (other.basePackage != null)
+                return false;
+        } else if (!basePackage.equals(other.basePackage))
+            return false;
+        if (markerAnnotation == null) {
+            if (other.markerAnnotation != null)
+                return false;
+        } else if (!markerAnnotation.equals(other.markerAnnotation))
+            return false;
+        return true;
+    }
+
+}
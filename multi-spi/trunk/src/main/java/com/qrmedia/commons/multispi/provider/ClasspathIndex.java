@@ -0,0 +1,252 @@
+/*
+ * @(#)ClasspathIndex.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newSetFromMap;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+import com.google.common.collect.MapMaker;
+import com.qrmedia.commons.multispi.DiscoveryContext;
+import com.qrmedia.commons.multispi.DiscoveryListener;
+import com.qrmedia.commons.multispi.MultiSpi;
+import com.qrmedia.commons.multispi.provider.ClasspathResourcesReadingProvider.IoFunction;
+
+/**
+ * An in-memory index of the classpath resources read by 
+ * {@link ClasspathResourcesReadingProvider ClasspathResourcesReadingProviders}, shared
+ * by all the providers of a {@link MultiSpi} instance that caches lookup results. Each
+ * resource is read only once per class loader and reader, so e.g. all manifests on the
+ * classpath are read once, regardless of the number of manifest-based providers and the
+ * number of service classes requested. Providers queried on behalf of an instance that
+ * does not cache results read their resources for every lookup.
+ * <p>
+ * Class loaders are weakly referenced. If resources are added to a class loader after they
+ * have been indexed, the index for that class loader needs to be {@link #invalidate(ClassLoader) invalidated},
+ * which {@link MultiSpi#invalidateCache(ClassLoader)} does.
+ * <p>
+ * Index hits and misses, and the resources read together with the number of bytes reported
+ * as read by the resource readers, are reported to the 
+ * {@link DiscoveryContext#getCurrentListeners() listeners} of the {@code MultiSpi}
+ * instance on whose behalf the index is consulted.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+@ThreadSafe
+public final class ClasspathIndex {
+    // the bytes reported by the resource reader currently running in the thread
+    private static final ThreadLocal<long[]> BYTES_READ = new ThreadLocal<long[]>() {
+            @Override
+            protected long[] initialValue() {
+                return new long[1];
+            }
+        };
+    
+    private final ConcurrentMap<ClassLoader, ConcurrentMap<ResourceKey, IndexEntry>> indices =
+        new MapMaker().weakKeys().makeMap();
+
+    /**
+     * Returns the result of applying the reader to each resource of the given name, as
+     * returned by {@link ClassLoader#getResources(String)}. If the thread is querying
+     * a provider for a {@code MultiSpi} instance that caches results, the resources are
+     * read via that instance's {@link DiscoveryContext#getCurrentClasspathIndex() index},
+     * otherwise they are always read.
+     * 
+     * @param serviceClass the class of the service for which the resources are required
+     * @throws IOException if the resources cannot be read. Nothing is indexed in this case. 
+     */
+    static @Nonnull <T> List<T> getResources(@Nonnull ClassLoader classpathResourceLoader, 
+            @Nonnull Class<?> serviceClass, @Nonnull String resourceName, 
+            @Nonnull IoFunction<URL, T> resourceReader) throws IOException {
+        ClasspathIndex currentIndex = DiscoveryContext.getCurrentClasspathIndex();
+        return ((currentIndex != null)
+                ? currentIndex.getIndexedResources(classpathResourceLoader, serviceClass, 
+                        resourceName, resourceReader)
+                : readResources(classpathResourceLoader, resourceName, resourceReader));
+    }
+    
+    /**
+     * Returns the result of applying the reader to each resource of the given name, as
+     * returned by {@link ClassLoader#getResources(String)}. Resources are only read if
+     * they have not already been indexed for the given loader and reader.
+     * 
+     * @param serviceClass the class of the service for which the resources are required
+     * @throws IOException if the resources cannot be read. Nothing is indexed in this case. 
+     */
+    @SuppressWarnings("unchecked")
+    @Nonnull <T> List<T> getIndexedResources(@Nonnull ClassLoader classpathResourceLoader, 
+            @Nonnull Class<?> serviceClass, @Nonnull String resourceName, 
+            @Nonnull IoFunction<URL, T> resourceReader) throws IOException {
+        ConcurrentMap<ResourceKey, IndexEntry> index = indices.get(classpathResourceLoader);
+        if (index == null) {
+            ConcurrentMap<ResourceKey, IndexEntry> newIndex = 
+                new ConcurrentHashMap<ResourceKey, IndexEntry>();
+            index = indices.putIfAbsent(classpathResourceLoader, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        
+        ResourceKey key = new ResourceKey(resourceName, resourceReader);
+        IndexEntry entry = index.get(key);
+        for (DiscoveryListener listener : DiscoveryContext.getCurrentListeners()) {
+            listener.classpathIndexAccessed(resourceName, (entry != null));
+        }
+        if (entry == null) {
+            // concurrent lookups may read the resources more than once, but will return the same result
+            IndexEntry readEntry = new IndexEntry(
+                    readResources(classpathResourceLoader, resourceName, resourceReader));
+            entry = index.putIfAbsent(key, readEntry);
+            if (entry == null) {
+                entry = readEntry;
+            }
+        }
+        entry.serviceClassNames.add(serviceClass.getName());
+        // only resources read by resourceReader are indexed under resourceReader
+        return (List<T>) entry.resources;
+    }
+    
+    private static <T> List<T> readResources(ClassLoader classpathResourceLoader, 
+            String resourceName, IoFunction<URL, T> resourceReader) throws IOException {
+        List<T> resources = newArrayList();
+        long[] bytesRead = BYTES_READ.get();
+        for (Enumeration<URL> urls = classpathResourceLoader.getResources(resourceName); 
+                urls.hasMoreElements();) {
+            URL resource = urls.nextElement();
+            bytesRead[0] = 0;
+            resources.add(resourceReader.apply(resource));
+            for (DiscoveryListener listener : DiscoveryContext.getCurrentListeners()) {
+                listener.resourceRead(resource, bytesRead[0]);
+            }
+        }
+        return unmodifiableList(resources);
+    }
+
+    /**
+     * Called by resource readers to report the number of bytes read from the resource
+     * they are reading.
+     * 
+     * @param bytes the number of bytes read
+     */
+    static void recordBytesRead(long bytes) {
+        BYTES_READ.get()[0] += bytes;
+    }
+    
+    /**
+     * Discards the indexed resources of the given class loader.
+     * 
+     * @param classpathResourceLoader the class loader whose resources should be re-read
+     */
+    public void invalidate(@Nonnull ClassLoader classpathResourceLoader) {
+        indices.remove(classpathResourceLoader);
+    }
+    
+    /**
+     * Discards the indexed resources that were read for lookups of the given service class,
+     * including those also used for lookups of other service classes. Service classes are
+     * matched by name.
+     * 
+     * @param serviceClass the class of the service whose resources should be re-read
+     */
+    public void invalidate(@Nonnull Class<?> serviceClass) {
+        String serviceClassName = serviceClass.getName();
+        for (ConcurrentMap<ResourceKey, IndexEntry> index : indices.values()) {
+            for (Iterator<IndexEntry> entries = index.values().iterator(); entries.hasNext();) {
+                if (entries.next().serviceClassNames.contains(serviceClassName)) {
+                    entries.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Discards all indexed resources.
+     */
+    public void invalidateAll() {
+        indices.clear();
+    }
+    
+    private static final class IndexEntry {
+        private final List<?> resources;
+        // the names of the service classes for which the resources were requested
+        private final Set<String> serviceClassNames = 
+            newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        
+        private IndexEntry(List<?> resources) {
+            this.resources = resources;
+        }
+    }
+    
+    private static final class ResourceKey {
+        private final String resourceName;
+        private final IoFunction<URL, ?> resourceReader;
+        
+        private ResourceKey(String resourceName, IoFunction<URL, ?> resourceReader) {
+            this.resourceName = resourceName;
+            this.resourceReader = resourceReader;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + resourceName.hashCode();
+            result = prime * result + resourceReader.hashCode();
+            return result;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (obj == null)
+                return false;
+            if (getClass() != obj.getClass())
+                return false;
+            ResourceKey other = (ResourceKey) obj;
+            if (!resourceName.equals(other.resourceName))
+                return false;
+            if (!resourceReader.equals(other.resourceReader))
+                return false;
+            return true;
+        }
+    }
+}
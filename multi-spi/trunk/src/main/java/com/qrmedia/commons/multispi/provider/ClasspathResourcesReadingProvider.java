@@ -22,11 +22,9 @@ package com.qrmedia.commons.multispi.provider;
 
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Lists.newArrayList;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.Enumeration;
 import java.util.List;
 import java.util.Set;
 
@@ -39,6 +37,12 @@ import com.google.common.collect.ImmutableSet;
  * A {@link ResourceIoPerformingProvider} that reads all resources of a specified name
  * (as returned by {@link ClassLoader#getResources(String)} and combines the results from
  * processing each one.
+ * <p>
+ * Resources are read via the {@link ClasspathIndex} of the {@code MultiSpi} instance on
+ * whose behalf the provider is queried, if that instance caches results, so each resource
+ * is then only read once per class loader and resource reader. Subclasses should therefore use a reader that
+ * is shared by all instances, and that does not depend on the requested service class
+ * other than through the resource name.
  * 
  * @author aphillips
  * @since 5 Dec 2010
@@ -66,11 +70,8 @@ public abstract class ClasspathResourcesReadingProvider<T> extends ResourceIoPer
     @Override
     protected Set<String> findServiceImplementationsWithIo(final Class<?> serviceClass,
             ClassLoader classpathResourceLoader) throws IOException {
-        List<T> resources = newArrayList();
-        for (Enumeration<URL> urls = classpathResourceLoader.getResources(
-                resourceNameGenerator.apply(serviceClass)); urls.hasMoreElements();) {
-            resources.add(resourceReader.apply(urls.nextElement()));
-        }
+        List<T> resources = ClasspathIndex.getResources(classpathResourceLoader, serviceClass,
+                resourceNameGenerator.apply(serviceClass), resourceReader);
         return ImmutableSet.copyOf(concat(transform(resources, 
                 new Function<T, Set<String>>() {
                     public Set<String> apply(T from) {
@@ -26,6 +26,8 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.jar.Manifest;
 
+import com.google.common.io.CountingInputStream;
+
 /**
  * A {@link ServiceImplementationProvider} that returns implementations listed in 
  * a <a href="http://download.oracle.com/javase/6/docs/technotes/guides/jar/jar.html#Service%20Provider">Java Manifest file</a>,
@@ -37,12 +39,20 @@ import java.util.jar.Manifest;
  */
 public abstract class ManifestProvider extends ClasspathResourcesReadingProvider<Manifest> {
     private static final String MANIFEST_FILE_NAME = "META-INF/MANIFEST.MF";
+    // shared by all manifest providers, so that the manifests are only read once
+    private static final IoFunction<URL, Manifest> MANIFEST_READER = new IoFunction<URL, Manifest>() {
+            public Manifest apply(URL item) throws IOException {
+                CountingInputStream manifestStream = new CountingInputStream(item.openStream());
+                try {
+                    return new Manifest(manifestStream);
+                } finally {
+                    manifestStream.close();
+                    ClasspathIndex.recordBytesRead(manifestStream.getCount());
+                }
+            }
+        };
 
     protected ManifestProvider() {
-        super(constant(MANIFEST_FILE_NAME), new IoFunction<URL, Manifest>() {
-                public Manifest apply(URL item) throws IOException {
-                    return new Manifest(item.openStream());
-                }
-            });
+        super(constant(MANIFEST_FILE_NAME), MANIFEST_READER);
     }
 }
@@ -20,25 +20,13 @@
  */
 package com.qrmedia.commons.multispi.provider;
 
-import static com.google.common.base.Functions.compose;
-import static com.google.common.base.Predicates.equalTo;
-import static com.google.common.base.Predicates.not;
-import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.transform;
-
 import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.util.List;
 import java.util.Set;
 
 import javax.annotation.concurrent.ThreadSafe;
 
-import org.apache.commons.lang.StringUtils;
-
 import com.google.common.base.Function;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.io.Resources;
 
 /**
  * Reads service implementation classes from a Provider-Configuration file in 
@@ -52,46 +40,25 @@ import com.google.common.io.Resources;
  *
  */
 @ThreadSafe
-public class MetaInfServicesProvider extends ClasspathResourcesReadingProvider<List<String>> {
+public class MetaInfServicesProvider extends ClasspathResourcesReadingProvider<Set<String>> {
     private static final String PROVIDER_FILE_DIR = "META-INF/services";
-    private static final Charset PROVIDER_FILE_CHARSET = Charset.forName("UTF-8");
-    private static final char COMMENT_CHARACTER = '#';
+    private static final IoFunction<URL, Set<String>> PROVIDER_FILE_READER = 
+        new IoFunction<URL, Set<String>>() {
+            public Set<String> apply(URL item) throws IOException {
+                return ProviderConfigurationFileParser.parse(item);
+            }
+        };
     
     public MetaInfServicesProvider() {
         super(new Function<Class<?>, String>() {
             public String apply(Class<?> from) {
                 return PROVIDER_FILE_DIR + '/' + from.getName();
             }
-        }, new IoFunction<URL, List<String>>() {
-            public List<String> apply(URL item) throws IOException {
-                return Resources.readLines(item, PROVIDER_FILE_CHARSET);
-            }
-        });
+        }, PROVIDER_FILE_READER);
     }
     
-    protected Set<String> processResource(List<String> lines, Class<?> serviceClass) {
-        return ImmutableSet.copyOf(filter(
-                transform(lines, compose(new StripChars(' ', '\t'), new StripComments())), 
-                not(equalTo(StringUtils.EMPTY))));
-    }
-    
-    private static class StripComments implements Function<String, String> {
-        public String apply(String from) {
-            return StringUtils.substringBefore(from, String.valueOf(COMMENT_CHARACTER));
-        }
-    }
-    
-    // move to StringFunctions
-    private static class StripChars implements Function<String, String> {
-        private final char[] charsToRemove;
-        
-        private StripChars(char... charsToRemove) {
-            this.charsToRemove = charsToRemove;
-        }
-
-        public String apply(String from) {
-            return StringUtils.strip(from, String.valueOf(charsToRemove));
-        }
+    protected Set<String> processResource(Set<String> names, Class<?> serviceClass) {
+        return names;
     }
 
     /* (non-Javadoc)
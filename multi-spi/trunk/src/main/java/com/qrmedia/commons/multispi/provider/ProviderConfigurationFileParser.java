@@ -0,0 +1,160 @@
+/*
+ * @(#)ProviderConfigurationFileParser.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static java.util.Collections.unmodifiableSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Parses a Provider-Configuration file in META-INF/services as defined in the 
+ * <a href="http://download.oracle.com/javase/6/docs/technotes/guides/jar/jar.html#Service%20Provider">Java SE specification</a>.
+ * <p>
+ * The file is scanned byte by byte in a single pass. Since the characters that delimit
+ * names - whitespace, line terminators and the comment character - never occur within
+ * a multi-byte UTF-8 sequence, only the class names found need to be decoded.
+ * <p>
+ * Provider-Configuration files in jars are read directly from the jar file cached by the
+ * {@code jar:} URL connection, so a jar is only opened once for all its lookups.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+final class ProviderConfigurationFileParser {
+    private static final Charset PROVIDER_FILE_CHARSET = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 4096;
+    
+    private ProviderConfigurationFileParser() {}
+    
+    /**
+     * Reads the names listed in the Provider-Configuration file at the given URL.
+     * 
+     * @param providerFile the location of the Provider-Configuration file
+     * @return the names listed, in order
+     * @throws IOException if the file cannot be read
+     */
+    static @Nonnull Set<String> parse(@Nonnull URL providerFile) throws IOException {
+        URLConnection connection = providerFile.openConnection();
+        /*
+         * The connection resolves the (decoded) entry name and reuses the jar file cached
+         * for all connections to the jar. That jar file is shared, so must not be closed.
+         * If caching is disabled, the connection's stream closes the jar file it opened.
+         */
+        if ((connection instanceof JarURLConnection) && connection.getUseCaches()) {
+            JarURLConnection jarConnection = (JarURLConnection) connection;
+            JarEntry entry = jarConnection.getJarEntry();
+            if (entry != null) {
+                return parseAndClose(jarConnection.getJarFile().getInputStream(entry));
+            }
+        }
+        return parseAndClose(connection.getInputStream());
+    }
+    
+    private static Set<String> parseAndClose(InputStream providerFileStream) throws IOException {
+        try {
+            return parse(providerFileStream);
+        } finally {
+            providerFileStream.close();
+        }
+    }
+    
+    /**
+     * Reads the names listed in the given Provider-Configuration file. Comments, 
+     * leading and trailing whitespace and blank lines are ignored. 
+     * 
+     * @param providerFile the contents of the Provider-Configuration file. Not closed.
+     * @return the names listed, in order
+     * @throws IOException if the file cannot be read
+     */
+    static @Nonnull Set<String> parse(@Nonnull InputStream providerFile) throws IOException {
+        Set<String> names = new LinkedHashSet<String>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] name = new byte[128];
+        int nameLength = 0;
+        // the length of the name excluding trailing whitespace
+        int trimmedNameLength = 0;
+        boolean inComment = false;
+        long totalBytesRead = 0;
+        
+        int bytesRead;
+        while ((bytesRead = providerFile.read(buffer)) != -1) {
+            totalBytesRead += bytesRead;
+            for (int i = 0; i < bytesRead; i++) {
+                byte nextByte = buffer[i];
+                switch (nextByte) {
+                case '\n':
+                case '\r':
+                    addName(names, name, trimmedNameLength);
+                    nameLength = 0;
+                    trimmedNameLength = 0;
+                    inComment = false;
+                    break;
+                case '#':
+                    inComment = true;
+                    break;
+                case ' ':
+                case '\t':
+                    // leading whitespace is skipped
+                    if (!inComment && (nameLength > 0)) {
+                        name = append(name, nameLength++, nextByte);
+                    }
+                    break;
+                default:
+                    if (!inComment) {
+                        name = append(name, nameLength++, nextByte);
+                        trimmedNameLength = nameLength;
+                    }
+                }
+            }
+        }
+        // the last line need not be terminated
+        addName(names, name, trimmedNameLength);
+        ClasspathIndex.recordBytesRead(totalBytesRead);
+        return unmodifiableSet(names);
+    }
+    
+    private static byte[] append(byte[] name, int nameLength, byte nextByte) {
+        byte[] target = name;
+        if (nameLength == name.length) {
+            target = new byte[name.length * 2];
+            System.arraycopy(name, 0, target, 0, nameLength);
+        }
+        target[nameLength] = nextByte;
+        return target;
+    }
+    
+    private static void addName(Set<String> names, byte[] name, int nameLength) {
+        if (nameLength > 0) {
+            names.add(new String(name, 0, nameLength, PROVIDER_FILE_CHARSET));
+        }
+    }
+}
@@ -26,10 +26,14 @@ import java.util.Set;
 import javax.annotation.Nonnull;
 
 import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.DiscoveryContext;
+import com.qrmedia.commons.multispi.DiscoveryListener;
 
 /**
  * A {@code ServiceImplementationProvider} that performs file I/O and potentially
- * throws exceptions.
+ * throws exceptions. I/O exceptions are reported to the 
+ * {@link DiscoveryContext#getCurrentListeners() current listeners} before being passed
+ * to the {@link #handleIoException(IOException) exception handler}.
  * 
  * @author aphillips
  * @since 5 Dec 2010
@@ -44,6 +48,9 @@ public abstract class ResourceIoPerformingProvider implements ServiceImplementat
         try {
             return findServiceImplementationsWithIo(serviceClass, classpathResourceLoader);
         } catch (IOException exception) {
+            for (DiscoveryListener listener : DiscoveryContext.getCurrentListeners()) {
+                listener.resourceReadFailed(this, exception);
+            }
             handleIoException(exception);
             return ImmutableSet.of();
         }
@@ -0,0 +1,203 @@
+/*
+ * @(#)ConcurrentProviderExecutionStrategyTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.agent.JackGiddings;
+import uk.gov.mi6.agent.JamesBond;
+import uk.gov.mi6.agent.StuartThomas;
+
+import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Unit tests for the {@link ConcurrentProviderExecutionStrategy}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ConcurrentProviderExecutionStrategyTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    
+    @After
+    public void shutdownExecutor() {
+        executor.shutdownNow();
+    }
+    
+    private static class StubProvider implements ServiceImplementationProvider {
+        private final Set<String> implementationNames;
+        
+        private StubProvider(String... implementationNames) {
+            this.implementationNames = ImmutableSet.copyOf(implementationNames);
+        }
+        
+        public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+            return implementationNames;
+        }
+    }
+    
+    private static class SleepingProvider extends StubProvider {
+        private final long sleepMillis;
+        
+        private SleepingProvider(long sleepMillis, String... implementationNames) {
+            super(implementationNames);
+            this.sleepMillis = sleepMillis;
+        }
+        
+        @Override
+        public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            return super.findServiceImplementations(serviceClass, classpathResourceLoader);
+        }
+    }
+    
+    private static class BlockingProvider implements ServiceImplementationProvider {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+        
+        public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException exception) {
+                interrupted.countDown();
+            }
+            return ImmutableSet.of(StuartThomas.class.getName());
+        }
+    }
+    
+    @Test
+    public void combinesResultsOfAllProviders() {
+        ConcurrentProviderExecutionStrategy executionStrategy = 
+            new ConcurrentProviderExecutionStrategy(executor, 10, TimeUnit.SECONDS);
+        assertEquals(newHashSet(JamesBond.class.getName(), JackGiddings.class.getName(), 
+                    StuartThomas.class.getName()),
+                executionStrategy.findServiceImplementations(asList(
+                        new StubProvider(JamesBond.class.getName(), JackGiddings.class.getName()),
+                        new StubProvider(JamesBond.class.getName(), StuartThomas.class.getName()), 
+                        new StubProvider()), Agent.class, getClass().getClassLoader()));
+    }
+    
+    @Test
+    public void ignoresAndCancelsProvidersThatTimeOut() throws InterruptedException {
+        final Set<ServiceImplementationProvider> timedOutProviders = newHashSet();
+        ConcurrentProviderExecutionStrategy executionStrategy = 
+            new ConcurrentProviderExecutionStrategy(executor, 100, TimeUnit.MILLISECONDS) {
+                @Override
+                protected void handleTimeout(ServiceImplementationProvider provider,
+                        Class<?> serviceClass) {
+                    timedOutProviders.add(provider);
+                }
+            };
+        BlockingProvider blockingProvider = new BlockingProvider();
+        try {
+            executionStrategy.findServiceImplementations(asList(blockingProvider, 
+                    new StubProvider(JamesBond.class.getName())), Agent.class, 
+                    getClass().getClassLoader());
+            fail("Expected an incomplete lookup");
+        } catch (IncompleteLookupException exception) {
+            assertEquals(newHashSet(JamesBond.class.getName()), 
+                    exception.getImplementationNames());
+        }
+        assertEquals(newHashSet(blockingProvider), timedOutProviders);
+        assertTrue("Expected the timed-out provider to be interrupted", 
+                blockingProvider.interrupted.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test
+    public void timesProvidersFromTheirStart() {
+        ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+        try {
+            // the second provider is queued for longer than the timeout 
+            assertEquals(newHashSet(JamesBond.class.getName(), JackGiddings.class.getName()),
+                    new ConcurrentProviderExecutionStrategy(singleThreadExecutor, 500, TimeUnit.MILLISECONDS)
+                    .findServiceImplementations(asList(
+                            new SleepingProvider(300, JamesBond.class.getName()),
+                            new SleepingProvider(300, JackGiddings.class.getName())), 
+                            Agent.class, getClass().getClassLoader()));
+        } finally {
+            singleThreadExecutor.shutdownNow();
+        }
+    }
+    
+    @Test
+    public void restoresInterruptedStatus() throws InterruptedException {
+        final BlockingProvider blockingProvider = new BlockingProvider();
+        final Thread caller = Thread.currentThread();
+        executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        blockingProvider.started.await();
+                        caller.interrupt();
+                    } catch (InterruptedException exception) {
+                        // executor shut down
+                    }
+                }
+            });
+        try {
+            new ConcurrentProviderExecutionStrategy(executor, 10, TimeUnit.SECONDS)
+            .findServiceImplementations(asList(blockingProvider), Agent.class, 
+                    getClass().getClassLoader());
+            fail("Expected an incomplete lookup");
+        } catch (IncompleteLookupException exception) {
+            assertTrue("Expected the interrupted status to be restored", Thread.interrupted());
+        }
+        assertTrue("Expected the provider to be interrupted", 
+                blockingProvider.interrupted.await(10, TimeUnit.SECONDS));
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void rethrowsProviderExceptions() {
+        ServiceImplementationProvider failingProvider = new ServiceImplementationProvider() {
+                public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+                    throw new IllegalStateException();
+                }
+            };
+        new ConcurrentProviderExecutionStrategy(executor, 10, TimeUnit.SECONDS)
+        .findServiceImplementations(asList(new StubProvider(JamesBond.class.getName()), 
+                failingProvider), Agent.class, getClass().getClassLoader());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveTimeouts() {
+        new ConcurrentProviderExecutionStrategy(executor, 0, TimeUnit.SECONDS);
+    }
+}
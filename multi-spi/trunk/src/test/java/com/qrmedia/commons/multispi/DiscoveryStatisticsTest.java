@@ -0,0 +1,167 @@
+/*
+ * @(#)DiscoveryStatisticsTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+
+import com.qrmedia.commons.multispi.DiscoveryStatistics.ProviderStatistics;
+import com.qrmedia.commons.multispi.DiscoveryStatistics.Snapshot;
+import com.qrmedia.commons.multispi.config.MultiSpiBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.provider.MetaInfServicesProvider;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Unit tests for the {@link DiscoveryStatistics}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class DiscoveryStatisticsTest {
+    private final ClassLoader testLoader = DiscoveryStatisticsTest.class.getClassLoader();
+    private final DiscoveryStatistics statistics = new DiscoveryStatistics();
+    
+    @Test
+    public void recordsProviderCallsAndCacheAccesses() {
+        MultiSpi multiSpi = new MultiSpiBuilder().withMetaInfServicesScanning()
+        .withResultCaching().withDiscoveryListener(statistics).build();
+        Set<String> implementationNames = multiSpi.findImplementationNames(Agent.class, testLoader);
+        multiSpi.findImplementationNames(Agent.class, testLoader);
+        
+        Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(1, snapshot.getImplementationNameCacheHits());
+        assertEquals(1, snapshot.getImplementationNameCacheMisses());
+        assertEquals(0.5, snapshot.getImplementationNameCacheHitRate(), 0);
+        assertTrue(Double.isNaN(snapshot.getImplementationCacheHitRate()));
+        
+        assertEquals(new MetaInfServicesProvider(), 
+                getOnlyElement(snapshot.getProviderStatistics().keySet()));
+        ProviderStatistics providerStatistics = 
+            getOnlyElement(snapshot.getProviderStatistics().values());
+        assertEquals(1, providerStatistics.getCalls());
+        assertEquals(implementationNames.size(), providerStatistics.getImplementationsFound());
+        
+        long histogramTotal = 0;
+        for (long bucketCount : providerStatistics.getLatencyHistogram()) {
+            histogramTotal += bucketCount;
+        }
+        assertEquals(DiscoveryStatistics.LATENCY_BUCKET_UPPER_BOUNDS_MILLIS.size() + 1, 
+                providerStatistics.getLatencyHistogram().size());
+        assertEquals(1, histogramTotal);
+    }
+    
+    @Test
+    public void recordsClassLoadingAndInstantiation() throws ClassNotFoundException, InstantiationException {
+        MultiSpi multiSpi = new MultiSpiBuilder().withMetaInfServicesScanning()
+        .withInstanceCaching().withDiscoveryListener(statistics).build();
+        Set<Agent> agents = multiSpi.loadImplementations(Agent.class, testLoader);
+        multiSpi.loadImplementations(Agent.class, testLoader);
+        
+        Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(1, snapshot.getImplementationCacheHits());
+        assertEquals(1, snapshot.getImplementationCacheMisses());
+        assertEquals(agents.size(), snapshot.getClassesLoaded());
+        assertEquals(agents.size(), snapshot.getInstancesCreated());
+    }
+    
+    @Test
+    public void recordsProviderTimeouts() throws InterruptedException {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        ServiceImplementationProvider blockingProvider = new ServiceImplementationProvider() {
+                public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+                    try {
+                        new CountDownLatch(1).await();
+                    } catch (InterruptedException exception) {
+                        cancelled.countDown();
+                    }
+                    // returns normally once cancelled
+                    return ImmutableSet.of();
+                }
+            };
+        ExecutorService executor = Executors.newCachedThreadPool();
+        try {
+            MultiSpi multiSpi = new MultiSpi(ImmutableSet.of(blockingProvider), false, false,
+                    new ConcurrentProviderExecutionStrategy(executor, 100, TimeUnit.MILLISECONDS) {
+                        @Override
+                        protected void handleTimeout(ServiceImplementationProvider provider,
+                                Class<?> serviceClass) {
+                            // recorded by the statistics
+                        }
+                    }, new PublicNoargConstructorInstanceFactory());
+            multiSpi.addDiscoveryListener(statistics);
+            assertTrue(multiSpi.findImplementationNames(Agent.class, testLoader).isEmpty());
+        } finally {
+            executor.shutdown();
+        }
+        // the cancelled provider has returned, so would have reported its query by now
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        ProviderStatistics providerStatistics = 
+            statistics.getSnapshot().getProviderStatistics().get(blockingProvider);
+        assertEquals(1, providerStatistics.getTimeouts());
+        assertEquals(0, providerStatistics.getCalls());
+    }
+    
+    @Test
+    public void recordsResourcesReadPerInstance() {
+        MultiSpi multiSpi = new MultiSpiBuilder().withMetaInfServicesScanning()
+        .withResultCaching().withDiscoveryListener(statistics).build();
+        DiscoveryStatistics otherStatistics = new DiscoveryStatistics();
+        MultiSpi otherMultiSpi = new MultiSpiBuilder().withMetaInfServicesScanning()
+        .withResultCaching().withDiscoveryListener(otherStatistics).build();
+        multiSpi.findImplementationNames(Agent.class, testLoader);
+        
+        Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(0, snapshot.getClasspathIndexHits());
+        assertEquals(1, snapshot.getClasspathIndexMisses());
+        assertTrue(snapshot.getResourcesRead() > 0);
+        assertTrue(snapshot.getBytesRead() > 0);
+        assertEquals(0, otherStatistics.getSnapshot().getClasspathIndexMisses());
+        
+        // each instance has its own index
+        otherMultiSpi.findImplementationNames(Agent.class, testLoader);
+        assertEquals(1, otherStatistics.getSnapshot().getClasspathIndexMisses());
+        assertEquals(1, statistics.getSnapshot().getClasspathIndexMisses());
+    }
+    
+    @Test
+    public void stopsRecordingWhenRemoved() {
+        MultiSpi multiSpi = new MultiSpiBuilder().withMetaInfServicesScanning()
+        .withDiscoveryListener(statistics).build();
+        multiSpi.removeDiscoveryListener(statistics);
+        multiSpi.findImplementationNames(Agent.class, testLoader);
+        assertTrue(statistics.getSnapshot().getProviderStatistics().isEmpty());
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * @(#)MultiSpiBenchmark.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.LicenseToKill;
+
+import com.qrmedia.commons.multispi.index.AnnotationIndexProcessor;
+import com.qrmedia.commons.multispi.provider.AnnotationIndexProvider;
+import com.qrmedia.commons.multispi.provider.AnnotationScanningProvider;
+import com.qrmedia.commons.multispi.provider.MetaInfServicesProvider;
+import com.qrmedia.commons.multispi.provider.ServiceClassnameAttributeProvider;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Startup benchmarks for {@link MultiSpi} over a synthetic classpath.
+ * <p>
+ * Generates a number of JARs, each containing {@link LicenseToKill}-annotated 
+ * implementations of {@link Agent} that are listed in a META-INF/services file, in
+ * manifest entries with an {@code Agent} attribute and in an annotation index. For each
+ * provider type, measures
+ * <ul>
+ * <li>cold starts: a new class loader, provider and {@code MultiSpi} instance per run, 
+ *     so nothing has been read, indexed or loaded yet
+ * <li>warm starts: repeated lookups with the same class loader and provider, but without
+ *     result or instance caching
+ * </ul>
+ * of {@link MultiSpi#findImplementations(Class, ClassLoader) findImplementations} and 
+ * {@link MultiSpi#loadImplementations(Class, ClassLoader) loadImplementations}.
+ * <p>
+ * Usage: <code>MultiSpiBenchmark [numJars [implementationsPerJar]]</code>
+ * <p>
+ * Cold start figures include the cost of opening the JARs, but the JAR files are likely
+ * to be in the operating system's file cache after the first run.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class MultiSpiBenchmark {
+    private static final int NUM_COLD_RUNS = 5;
+    private static final int NUM_WARMUP_RUNS = 20;
+    private static final int NUM_WARM_RUNS = 50;
+    
+    private static final int DEFAULT_NUM_JARS = 200;
+    private static final int DEFAULT_IMPLEMENTATIONS_PER_JAR = 5;
+    
+    private static final String SYNTHETIC_PACKAGE = "uk.gov.mi6.synthetic";
+    
+    private static interface ProviderFactory {
+        ServiceImplementationProvider newProvider();
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int numJars = getIntArg(args, 0, DEFAULT_NUM_JARS);
+        int implementationsPerJar = getIntArg(args, 1, DEFAULT_IMPLEMENTATIONS_PER_JAR);
+        
+        File jarDirectory = File.createTempFile("multispi-benchmark", "");
+        jarDirectory.delete();
+        jarDirectory.mkdir();
+        jarDirectory.deleteOnExit();
+        
+        URL[] jars = new URL[numJars];
+        for (int i = 0; i < numJars; i++) {
+            File jar = new File(jarDirectory, "agents-" + i + ".jar");
+            jar.deleteOnExit();
+            writeJar(jar, SYNTHETIC_PACKAGE + ".jar" + i, implementationsPerJar);
+            jars[i] = jar.toURI().toURL();
+        }
+        System.out.format("Classpath: %d JARs, %d implementations per JAR%n", numJars, 
+                implementationsPerJar);
+        
+        for (Entry<String, ProviderFactory> providerFactory : newProviderFactories().entrySet()) {
+            run(providerFactory.getKey(), providerFactory.getValue(), jars, 
+                    numJars * implementationsPerJar);
+        }
+    }
+    
+    private static int getIntArg(String[] args, int index, int defaultValue) {
+        return ((args.length > index) ? Integer.parseInt(args[index]) : defaultValue);
+    }
+    
+    private static Map<String, ProviderFactory> newProviderFactories() {
+        Map<String, ProviderFactory> providerFactories = 
+            new LinkedHashMap<String, ProviderFactory>();
+        providerFactories.put("META-INF/services", new ProviderFactory() {
+                public ServiceImplementationProvider newProvider() {
+                    return new MetaInfServicesProvider();
+                }
+            });
+        providerFactories.put("manifest attribute", new ProviderFactory() {
+                public ServiceImplementationProvider newProvider() {
+                    return new ServiceClassnameAttributeProvider();
+                }
+            });
+        // scans the classpath of the context class loader on construction
+        providerFactories.put("annotation scanning", new ProviderFactory() {
+                public ServiceImplementationProvider newProvider() {
+                    return new AnnotationScanningProvider(LicenseToKill.class, SYNTHETIC_PACKAGE);
+                }
+            });
+        providerFactories.put("annotation index", new ProviderFactory() {
+                public ServiceImplementationProvider newProvider() {
+                    return new AnnotationIndexProvider(LicenseToKill.class, SYNTHETIC_PACKAGE);
+                }
+            });
+        return providerFactories;
+    }
+    
+    private static void run(String providerName, ProviderFactory providerFactory, URL[] jars,
+            int expectedImplementations) throws Exception {
+        Thread currentThread = Thread.currentThread();
+        ClassLoader contextLoader = currentThread.getContextClassLoader();
+        
+        long coldFindTime = 0;
+        long coldLoadTime = 0;
+        DiscoveryStatistics coldStatistics = new DiscoveryStatistics();
+        try {
+            for (int i = 0; i < NUM_COLD_RUNS; i++) {
+                long start = System.nanoTime();
+                ClassLoader loader = newLoader(jars);
+                currentThread.setContextClassLoader(loader);
+                MultiSpi multiSpi = new MultiSpi(newHashSet(providerFactory.newProvider()));
+                multiSpi.addDiscoveryListener(coldStatistics);
+                checkFound(multiSpi.findImplementations(Agent.class, loader).size(), 
+                        expectedImplementations);
+                coldFindTime += System.nanoTime() - start;
+                
+                // another new loader, so that no classes have been loaded yet
+                start = System.nanoTime();
+                loader = newLoader(jars);
+                currentThread.setContextClassLoader(loader);
+                multiSpi = new MultiSpi(newHashSet(providerFactory.newProvider()));
+                multiSpi.addDiscoveryListener(coldStatistics);
+                checkFound(multiSpi.loadImplementations(Agent.class, loader).size(), 
+                        expectedImplementations);
+                coldLoadTime += System.nanoTime() - start;
+            }
+            DiscoveryStatistics.Snapshot coldSnapshot = coldStatistics.getSnapshot();
+            
+            ClassLoader loader = newLoader(jars);
+            currentThread.setContextClassLoader(loader);
+            MultiSpi multiSpi = new MultiSpi(newHashSet(providerFactory.newProvider()));
+            for (int i = 0; i < NUM_WARMUP_RUNS; i++) {
+                checkFound(multiSpi.loadImplementations(Agent.class, loader).size(), 
+                        expectedImplementations);
+            }
+            gc();
+            
+            long start = System.nanoTime();
+            for (int i = 0; i < NUM_WARM_RUNS; i++) {
+                checkFound(multiSpi.findImplementations(Agent.class, loader).size(), 
+                        expectedImplementations);
+            }
+            long warmFindTime = System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            for (int i = 0; i < NUM_WARM_RUNS; i++) {
+                checkFound(multiSpi.loadImplementations(Agent.class, loader).size(), 
+                        expectedImplementations);
+            }
+            long warmLoadTime = System.nanoTime() - start;
+            
+            System.out.format("%-20s cold find: %8.2fms, cold load: %8.2fms, warm find: %8.3fms, warm load: %8.3fms, resources read per cold run: %d (%d bytes)%n",
+                    providerName, toMillis(coldFindTime, NUM_COLD_RUNS), 
+                    toMillis(coldLoadTime, NUM_COLD_RUNS), toMillis(warmFindTime, NUM_WARM_RUNS),
+                    toMillis(warmLoadTime, NUM_WARM_RUNS),
+                    coldSnapshot.getResourcesRead() / (2 * NUM_COLD_RUNS),
+                    coldSnapshot.getBytesRead() / (2 * NUM_COLD_RUNS));
+        } finally {
+            currentThread.setContextClassLoader(contextLoader);
+            gc();
+        }
+    }
+    
+    private static ClassLoader newLoader(URL[] jars) {
+        return new URLClassLoader(jars, MultiSpiBenchmark.class.getClassLoader());
+    }
+    
+    // make sure the compiler can't optimize this away
+    private static void checkFound(int numFound, int expectedImplementations) {
+        
+        // the test classpath may contain additional implementations
+        if (numFound < expectedImplementations) {
+            throw new AssertionError("Expected at least " + expectedImplementations 
+                    + " implementations, but found " + numFound);
+        }
+        
+    }
+    
+    private static double toMillis(long nanos, int numRuns) {
+        return (nanos / 1000000.0) / numRuns;
+    }
+    
+    private static void gc() {
+        System.gc();
+        System.gc();
+    }
+    
+    private static void writeJar(File jar, String packageName, int numImplementations) 
+            throws IOException {
+        String packagePath = packageName.replace('.', '/');
+        String[] implementationNames = new String[numImplementations];
+        for (int i = 0; i < numImplementations; i++) {
+            implementationNames[i] = packageName + ".Agent" + i;
+        }
+        
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE, packageName);
+        for (String implementationName : implementationNames) {
+            Attributes entryAttributes = new Attributes();
+            entryAttributes.putValue(Agent.class.getSimpleName(), "true");
+            manifest.getEntries().put(implementationName.replace('.', '/') + ".class", 
+                    entryAttributes);
+        }
+        
+        JarOutputStream jarStream = new JarOutputStream(new FileOutputStream(jar), manifest);
+        try {
+            // directory entries, required to find the package as a resource 
+            StringBuilder directory = new StringBuilder();
+            for (String directoryName : packagePath.split("/")) {
+                directory.append(directoryName).append('/');
+                jarStream.putNextEntry(new JarEntry(directory.toString()));
+            }
+            
+            StringBuilder providerFile = new StringBuilder("# generated by ")
+            .append(MultiSpiBenchmark.class.getSimpleName()).append('\n');
+            StringBuilder annotationIndex = new StringBuilder(providerFile);
+            for (String implementationName : implementationNames) {
+                jarStream.putNextEntry(new JarEntry(implementationName.replace('.', '/') + ".class"));
+                jarStream.write(agentClassFile(implementationName.replace('.', '/')));
+                providerFile.append(implementationName).append('\n');
+                annotationIndex.append(Agent.class.getName()).append(' ')
+                .append(implementationName).append('\n');
+            }
+            
+            writeEntry(jarStream, "META-INF/services/" + Agent.class.getName(), providerFile);
+            writeEntry(jarStream, AnnotationIndexProcessor.INDEX_RESOURCE_DIR + '/' 
+                    + LicenseToKill.class.getName(), annotationIndex);
+        } finally {
+            jarStream.close();
+        }
+    }
+    
+    private static void writeEntry(JarOutputStream jarStream, String name, 
+            CharSequence contents) throws IOException {
+        jarStream.putNextEntry(new JarEntry(name));
+        jarStream.write(contents.toString().getBytes("UTF-8"));
+    }
+    
+    /*
+     * The class file of
+     * 
+     * @LicenseToKill
+     * public class <className> implements Agent {}
+     */
+    private static byte[] agentClassFile(String internalClassName) throws IOException {
+        ByteArrayOutputStream classFile = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(classFile);
+        out.writeInt(0xCAFEBABE);
+        // Java 5
+        out.writeShort(0);
+        out.writeShort(49);
+        
+        // constant pool
+        out.writeShort(14);
+        writeUtf8(out, internalClassName);                            // 1
+        writeClass(out, 1);                                           // 2
+        writeUtf8(out, "java/lang/Object");                           // 3
+        writeClass(out, 3);                                           // 4
+        writeUtf8(out, Agent.class.getName().replace('.', '/'));      // 5
+        writeClass(out, 5);                                           // 6
+        writeUtf8(out, "<init>");                                     // 7
+        writeUtf8(out, "()V");                                        // 8
+        out.writeByte(12);                                            // 9: NameAndType
+        out.writeShort(7);
+        out.writeShort(8);
+        out.writeByte(10);                                            // 10: Methodref
+        out.writeShort(4);
+        out.writeShort(9);
+        writeUtf8(out, "Code");                                       // 11
+        writeUtf8(out, "RuntimeVisibleAnnotations");                  // 12
+        writeUtf8(out, 'L' + LicenseToKill.class.getName().replace('.', '/') + ';'); // 13
+        
+        // ACC_PUBLIC | ACC_SUPER, this class, superclass, interfaces
+        out.writeShort(0x0021);
+        out.writeShort(2);
+        out.writeShort(4);
+        out.writeShort(1);
+        out.writeShort(6);
+        
+        // no fields, public no-arg constructor
+        out.writeShort(0);
+        out.writeShort(1);
+        out.writeShort(0x0001);
+        out.writeShort(7);
+        out.writeShort(8);
+        out.writeShort(1);
+        out.writeShort(11);
+        out.writeInt(17);
+        // max stack, max locals
+        out.writeShort(1);
+        out.writeShort(1);
+        // aload_0, invokespecial Object.<init>, return
+        out.writeInt(5);
+        out.write(new byte[] { 0x2a, (byte) 0xb7, 0, 10, (byte) 0xb1 });
+        // no exception table, no attributes
+        out.writeShort(0);
+        out.writeShort(0);
+        
+        // @LicenseToKill
+        out.writeShort(1);
+        out.writeShort(12);
+        out.writeInt(6);
+        out.writeShort(1);
+        out.writeShort(13);
+        out.writeShort(0);
+        out.close();
+        return classFile.toByteArray();
+    }
+    
+    private static void writeUtf8(DataOutputStream out, String value) throws IOException {
+        out.writeByte(1);
+        out.writeUTF(value);
+    }
+    
+    private static void writeClass(DataOutputStream out, int nameIndex) throws IOException {
+        out.writeByte(7);
+        out.writeShort(nameIndex);
+    }
+}
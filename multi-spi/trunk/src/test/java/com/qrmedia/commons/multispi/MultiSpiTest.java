@@ -20,6 +20,7 @@
  */
 package com.qrmedia.commons.multispi;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
@@ -29,6 +30,11 @@ import static org.easymock.classextension.EasyMock.createNiceMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
@@ -37,6 +43,7 @@ import uk.gov.mi6.agent.JackGiddings;
 import uk.gov.mi6.agent.JamesBond;
 import uk.gov.mi6.agent.StuartThomas;
 
+import com.google.common.collect.ImmutableSet;
 import com.qrmedia.commons.multispi.MultiSpi.ClassLoaderSupplier;
 import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
 import com.qrmedia.commons.reflect.ReflectionUtils;
@@ -411,4 +418,143 @@ public class MultiSpiTest {
             throw new UnsupportedOperationException();
         }
     }
+    
+    @Test
+    public void cachesImplementationNamesPerClassLoader() {
+        ClassLoader classpathResourceLoader1 = createNiceMock(ClassLoader.class);
+        ClassLoader classpathResourceLoader2 = createNiceMock(ClassLoader.class);
+        ServiceImplementationProvider provider = createMock(ServiceImplementationProvider.class);
+        // expect only one call per class loader
+        expect(provider.findServiceImplementations(Agent.class, classpathResourceLoader1))
+        .andReturn(newHashSet(JamesBond.class.getName()));
+        expect(provider.findServiceImplementations(Agent.class, classpathResourceLoader2))
+        .andReturn(newHashSet(JackGiddings.class.getName()));
+        replay(provider);
+        
+        multiSpi = new MultiSpi(newHashSet(provider), true, false);
+        assertEquals(newHashSet(JamesBond.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader1));
+        assertEquals(newHashSet(JamesBond.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader1));
+        assertEquals(newHashSet(JackGiddings.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader2));
+        verify(provider);
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void returnsUnmodifiableCachedImplementationNames() {
+        ClassLoader classpathResourceLoader = createNiceMock(ClassLoader.class);
+        ServiceImplementationProvider provider = createMock(ServiceImplementationProvider.class);
+        expect(provider.findServiceImplementations(Agent.class, classpathResourceLoader))
+        .andReturn(newHashSet(JamesBond.class.getName()));
+        replay(provider);
+        
+        multiSpi = new MultiSpi(newHashSet(provider), true, false);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader).clear();
+    }
+    
+    @Test
+    public void requeriesProvidersAfterCacheInvalidation() {
+        ClassLoader classpathResourceLoader = createNiceMock(ClassLoader.class);
+        ServiceImplementationProvider provider = createMock(ServiceImplementationProvider.class);
+        expect(provider.findServiceImplementations(Agent.class, classpathResourceLoader))
+        .andReturn(newHashSet(JamesBond.class.getName())).times(4);
+        replay(provider);
+        
+        multiSpi = new MultiSpi(newHashSet(provider), true, false);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        multiSpi.invalidateCache();
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        multiSpi.invalidateCache(Agent.class);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        multiSpi.invalidateCache(classpathResourceLoader);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        // still cached
+        multiSpi.invalidateCache(String.class);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        verify(provider);
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void cachesInstancesIfRequested() throws Exception {
+        ClassLoader implementationLoader = createMock(ClassLoader.class);
+        ServiceImplementationProvider provider = createMock(ServiceImplementationProvider.class);
+        expect(provider.findServiceImplementations(Agent.class, implementationLoader))
+        .andReturn(newHashSet(JamesBond.class.getName()));
+        // hack generics
+        expect(implementationLoader.loadClass(JamesBond.class.getName()))
+        .andReturn((Class) JamesBond.class);
+        replay(provider, implementationLoader);
+        
+        multiSpi = new MultiSpi(newHashSet(provider), false, true);
+        Set<Agent> implementations = multiSpi.loadImplementations(Agent.class, implementationLoader);
+        assertSame(getOnlyElement(implementations), 
+                getOnlyElement(multiSpi.loadImplementations(Agent.class, implementationLoader)));
+        verify(provider, implementationLoader);
+    }
+    
+    // fails the first lookup, returning only James Bond
+    private static class IncompleteOnceExecutionStrategy implements ProviderExecutionStrategy {
+        private final AtomicInteger lookups = new AtomicInteger();
+        
+        public Set<String> findServiceImplementations(Iterable<? extends ServiceImplementationProvider> providers,
+                Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+            if (lookups.getAndIncrement() == 0) {
+                throw new IncompleteLookupException(serviceClass, 
+                        ImmutableSet.of(JamesBond.class.getName()));
+            }
+            return newHashSet(JamesBond.class.getName(), JackGiddings.class.getName());
+        }
+    }
+    
+    @Test
+    public void doesNotCacheIncompleteImplementationNames() {
+        ClassLoader classpathResourceLoader = createNiceMock(ClassLoader.class);
+        IncompleteOnceExecutionStrategy executionStrategy = new IncompleteOnceExecutionStrategy();
+        
+        multiSpi = new MultiSpi(ImmutableSet.<ServiceImplementationProvider>of(), true, false,
+                executionStrategy, new PublicNoargConstructorInstanceFactory());
+        assertEquals(newHashSet(JamesBond.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader));
+        assertEquals(newHashSet(JamesBond.class.getName(), JackGiddings.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader));
+        assertEquals(newHashSet(JamesBond.class.getName(), JackGiddings.class.getName()),
+                multiSpi.findImplementationNames(Agent.class, classpathResourceLoader));
+        assertEquals(2, executionStrategy.lookups.get());
+    }
+    
+    @Test
+    public void doesNotCacheInstancesOfIncompleteLookups() throws Exception {
+        IncompleteOnceExecutionStrategy executionStrategy = new IncompleteOnceExecutionStrategy();
+        
+        multiSpi = new MultiSpi(ImmutableSet.<ServiceImplementationProvider>of(), false, true,
+                executionStrategy, new PublicNoargConstructorInstanceFactory());
+        assertEquals(1, multiSpi.loadImplementations(Agent.class, 
+                getClass().getClassLoader()).size());
+        Set<Agent> implementations = 
+            multiSpi.loadImplementations(Agent.class, getClass().getClassLoader());
+        assertEquals(2, implementations.size());
+        assertSame(implementations, 
+                multiSpi.loadImplementations(Agent.class, getClass().getClassLoader()));
+        assertEquals(2, executionStrategy.lookups.get());
+    }
+    
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    @Test
+    public void createsNewInstancesByDefault() throws Exception {
+        ClassLoader implementationLoader = createMock(ClassLoader.class);
+        ServiceImplementationProvider provider = createMock(ServiceImplementationProvider.class);
+        expect(provider.findServiceImplementations(Agent.class, implementationLoader))
+        .andReturn(newHashSet(JamesBond.class.getName())).times(2);
+        // hack generics
+        expect(implementationLoader.loadClass(JamesBond.class.getName()))
+        .andReturn((Class) JamesBond.class).times(2);
+        replay(provider, implementationLoader);
+        
+        multiSpi = new MultiSpi(newHashSet(provider));
+        assertNotSame(getOnlyElement(multiSpi.loadImplementations(Agent.class, implementationLoader)), 
+                getOnlyElement(multiSpi.loadImplementations(Agent.class, implementationLoader)));
+        verify(provider, implementationLoader);
+    }
 }
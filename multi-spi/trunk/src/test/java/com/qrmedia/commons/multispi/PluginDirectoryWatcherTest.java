@@ -0,0 +1,248 @@
+/*
+ * @(#)PluginDirectoryWatcherTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.agent.Bill;
+
+import com.google.common.collect.Iterables;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import com.qrmedia.commons.multispi.provider.MetaInfServicesProvider;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Unit tests for the {@link PluginDirectoryWatcher}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class PluginDirectoryWatcherTest {
+    private static final URL MORE_AGENTS_JAR = 
+        PluginDirectoryWatcherTest.class.getResource("/uk/gov/mi6/more-agents/1.0/more-agents-1.0.jar");
+    
+    // does not see the more-agents JAR on the test classpath
+    private final ClassLoader parentLoader = new URLClassLoader(new URL[0], null);
+    private final MultiSpi multiSpi = new MultiSpi(
+            newHashSet((ServiceImplementationProvider) new MetaInfServicesProvider()), true, false);
+    private final RecordingListener listener = new RecordingListener();
+    private File pluginDirectory;
+    private PluginDirectoryWatcher watcher;
+    
+    @Before
+    public void prepareFixture() throws IOException {
+        pluginDirectory = File.createTempFile("plugins", "");
+        pluginDirectory.delete();
+        pluginDirectory.mkdir();
+        watcher = new PluginDirectoryWatcher(multiSpi, parentLoader, 
+                newHashSet(Agent.class, Runnable.class), newHashSet(pluginDirectory));
+        watcher.addListener(listener);
+    }
+    
+    @After
+    public void deletePluginDirectory() {
+        File[] files = pluginDirectory.listFiles();
+        // null if already deleted
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+            pluginDirectory.delete();
+        }
+    }
+    
+    @Test
+    public void reportsAddedImplementations() throws IOException {
+        File jar = addPlugin("more-agents.jar");
+        watcher.scan();
+        assertEquals(Arrays.asList("added " + Agent.class.getName() + ": [" + Bill.class.getName() + "]"), 
+                listener.events);
+        assertSame(listener.lastLoader, watcher.getPluginLoaders().get(jar.getAbsoluteFile()));
+    }
+    
+    @Test
+    public void ignoresUnchangedJarsAndOtherFiles() throws IOException {
+        addPlugin("more-agents.jar");
+        watcher.scan();
+        Files.write(new byte[0], new File(pluginDirectory, "more-agents.txt"));
+        watcher.scan();
+        assertEquals(1, listener.events.size());
+        assertEquals(1, watcher.getPluginLoaders().size());
+    }
+    
+    @Test
+    public void reportsRemovedImplementations() throws IOException {
+        File jar = addPlugin("more-agents.jar");
+        watcher.scan();
+        ClassLoader pluginLoader = listener.lastLoader;
+        
+        jar.delete();
+        watcher.scan();
+        assertEquals(Arrays.asList(
+                "added " + Agent.class.getName() + ": [" + Bill.class.getName() + "]",
+                "removed " + Agent.class.getName() + ": [" + Bill.class.getName() + "]"), 
+                listener.events);
+        assertSame(pluginLoader, listener.lastLoader);
+        assertTrue(watcher.getPluginLoaders().isEmpty());
+    }
+    
+    @Test
+    public void reloadsModifiedJars() throws IOException {
+        File jar = addPlugin("more-agents.jar");
+        watcher.scan();
+        ClassLoader pluginLoader = listener.lastLoader;
+        
+        jar.setLastModified(jar.lastModified() - 10000);
+        watcher.scan();
+        assertEquals(3, listener.events.size());
+        assertEquals("added " + Agent.class.getName() + ": [" + Bill.class.getName() + "]", 
+                Iterables.getLast(listener.events));
+        assertTrue(pluginLoader != listener.lastLoader);
+    }
+    
+    @Test
+    public void reportsImplementationsRemovedOnlyIfNoLongerProvided() throws IOException {
+        File jar = addPlugin("more-agents.jar");
+        File otherJar = addPlugin("more-agents-copy.jar");
+        watcher.scan();
+        assertEquals(2, listener.events.size());
+        
+        jar.delete();
+        watcher.scan();
+        assertEquals(2, listener.events.size());
+        
+        otherJar.delete();
+        watcher.scan();
+        assertEquals("removed " + Agent.class.getName() + ": [" + Bill.class.getName() + "]", 
+                Iterables.getLast(listener.events));
+        assertEquals(3, listener.events.size());
+    }
+    
+    @Test
+    public void readsOnlyResourcesOfAddedJars() throws IOException {
+        final AtomicInteger parentResourceReads = new AtomicInteger();
+        ClassLoader countingParentLoader = new URLClassLoader(new URL[0], null) {
+                @Override
+                public Enumeration<URL> getResources(String name) throws IOException {
+                    parentResourceReads.incrementAndGet();
+                    return super.getResources(name);
+                }
+            };
+        watcher = new PluginDirectoryWatcher(multiSpi, countingParentLoader, 
+                newHashSet(Agent.class), newHashSet(pluginDirectory));
+        watcher.addListener(listener);
+        addPlugin("more-agents.jar");
+        addPlugin("more-agents-copy.jar");
+        watcher.scan();
+        // only the (cached) lookup for the parent loader itself
+        assertEquals(1, parentResourceReads.get());
+        
+        // implementations are loaded from a child of the parent loader
+        assertSame(countingParentLoader, listener.lastLoader.getParent());
+    }
+    
+    @Test
+    public void ignoresImplementationsVisibleToTheParentLoader() throws IOException {
+        watcher = new PluginDirectoryWatcher(multiSpi, 
+                new URLClassLoader(new URL[] { MORE_AGENTS_JAR }, null), 
+                newHashSet(Agent.class), newHashSet(pluginDirectory));
+        watcher.addListener(listener);
+        addPlugin("more-agents.jar");
+        watcher.scan();
+        assertTrue(listener.events.isEmpty());
+        assertEquals(1, watcher.getPluginLoaders().size());
+    }
+    
+    @Test
+    public void reportsScanFailuresToDiscoveryListeners() throws IOException {
+        ServiceImplementationProvider failingProvider = new ServiceImplementationProvider() {
+                public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+                    throw new IllegalStateException();
+                }
+            };
+        MultiSpi failingMultiSpi = new MultiSpi(newHashSet(failingProvider));
+        DiscoveryStatistics statistics = new DiscoveryStatistics();
+        failingMultiSpi.addDiscoveryListener(statistics);
+        final List<RuntimeException> handledFailures = newArrayList();
+        PluginDirectoryWatcher failingWatcher = new PluginDirectoryWatcher(failingMultiSpi, 
+                parentLoader, newHashSet(Agent.class), newHashSet(pluginDirectory)) {
+                @Override
+                protected void handleScanFailure(RuntimeException exception) {
+                    handledFailures.add(exception);
+                }
+            };
+        addPlugin("more-agents.jar");
+        failingWatcher.run();
+        assertEquals(1, statistics.getSnapshot().getPluginScanFailures());
+        assertEquals(1, handledFailures.size());
+    }
+    
+    @Test
+    public void supportsMissingDirectories() {
+        deletePluginDirectory();
+        watcher.run();
+        assertTrue(listener.events.isEmpty());
+    }
+    
+    private File addPlugin(String name) throws IOException {
+        File jar = new File(pluginDirectory, name);
+        Files.write(Resources.toByteArray(MORE_AGENTS_JAR), jar);
+        return jar;
+    }
+    
+    private static class RecordingListener implements ImplementationChangeListener {
+        private final List<String> events = newArrayList();
+        private ClassLoader lastLoader;
+        
+        public void implementationsAdded(Class<?> serviceClass, Set<String> implementationNames, 
+                ClassLoader pluginLoader) {
+            events.add("added " + serviceClass.getName() + ": " + implementationNames);
+            lastLoader = pluginLoader;
+        }
+        
+        public void implementationsRemoved(Class<?> serviceClass, Set<String> implementationNames, 
+                ClassLoader pluginLoader) {
+            events.add("removed " + serviceClass.getName() + ": " + implementationNames);
+            lastLoader = pluginLoader;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * @(#)PublicNoargConstructorInstanceFactoryTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.Reference;
+import java.lang.reflect.Constructor;
+import java.util.Map;
+
+import org.junit.Test;
+
+import uk.gov.mi6.agent.JamesBond;
+
+import com.qrmedia.commons.reflect.ReflectionUtils;
+
+/**
+ * Unit tests for the {@link PublicNoargConstructorInstanceFactory}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class PublicNoargConstructorInstanceFactoryTest {
+    private final PublicNoargConstructorInstanceFactory instanceFactory = 
+        new PublicNoargConstructorInstanceFactory();
+    
+    @Test
+    public void createsNewInstances() throws InstantiationException {
+        JamesBond instance = instanceFactory.newInstance(JamesBond.class);
+        assertNotSame(instance, instanceFactory.newInstance(JamesBond.class));
+    }
+    
+    @Test
+    public void cachesConstructors() throws InstantiationException, IllegalAccessException {
+        instanceFactory.newInstance(JamesBond.class);
+        Map<Class<?>, Reference<Constructor<?>>> publicNoargConstructors = 
+            ReflectionUtils.getValue(instanceFactory, "publicNoargConstructors");
+        Constructor<?> publicNoargConstructor = publicNoargConstructors.get(JamesBond.class).get();
+        assertTrue(publicNoargConstructor.isAccessible());
+        
+        instanceFactory.newInstance(JamesBond.class);
+        assertSame(publicNoargConstructor, publicNoargConstructors.get(JamesBond.class).get());
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void throwsInstantiationExceptionOnNonPublicClass() throws InstantiationException {
+        instanceFactory.newInstance(NonPublicAgent.class);
+    }
+    
+    @Test
+    public void supportsPublicNestedClassesOfNonPublicClasses() throws InstantiationException {
+        assertEquals(NonPublicAgent.PublicAgent.class, 
+                instanceFactory.newInstance(NonPublicAgent.PublicAgent.class).getClass());
+    }
+    
+    static class NonPublicAgent {
+        public NonPublicAgent() {}
+        
+        public static class PublicAgent {
+            public PublicAgent() {}
+        }
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void throwsInstantiationExceptionOnMissingPublicNoargConstructor() throws InstantiationException {
+        instanceFactory.newInstance(AgentWithoutNoargConstructor.class);
+    }
+    
+    public static class AgentWithoutNoargConstructor {
+        public AgentWithoutNoargConstructor(Object arg) {}
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void throwsInstantiationExceptionOnExceptionInConstructor() throws InstantiationException {
+        instanceFactory.newInstance(AgentWithExceptionThrowingConstructor.class);
+    }
+    
+    public static class AgentWithExceptionThrowingConstructor {
+        public AgentWithExceptionThrowingConstructor() {
+            throw new IllegalStateException("Exception in constructor");
+        }
+    }
+    
+}
@@ -0,0 +1,128 @@
+/*
+ * @(#)ServiceImplementationTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.agent.JamesBond;
+
+import com.google.common.collect.ImmutableSet;
+import com.qrmedia.commons.multispi.provider.ServiceImplementationProvider;
+
+/**
+ * Unit tests for the {@link ServiceImplementation}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ServiceImplementationTest {
+    private final RecordingClassLoader implementationLoader = new RecordingClassLoader();
+    
+    private static class RecordingClassLoader extends ClassLoader {
+        private final List<String> loadedClassNames = newArrayList();
+        
+        private RecordingClassLoader() {
+            super(ServiceImplementationTest.class.getClassLoader());
+        }
+        
+        @Override
+        public Class<?> loadClass(String name) throws ClassNotFoundException {
+            loadedClassNames.add(name);
+            return super.loadClass(name);
+        }
+    }
+    
+    private static class StubProvider implements ServiceImplementationProvider {
+        private final Set<String> implementationNames;
+        
+        private StubProvider(String... implementationNames) {
+            this.implementationNames = ImmutableSet.copyOf(implementationNames);
+        }
+        
+        public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
+            return implementationNames;
+        }
+    }
+    
+    private Set<ServiceImplementation<Agent>> lazyLoadImplementations(String... implementationNames) {
+        return new MultiSpi(newHashSet((ServiceImplementationProvider) new StubProvider(implementationNames)))
+               .lazyLoadImplementations(Agent.class, implementationLoader);
+    }
+    
+    @Test
+    public void doesNotLoadClassesUntilRequested() throws Exception {
+        Set<ServiceImplementation<Agent>> implementations = 
+            lazyLoadImplementations(JamesBond.class.getName(), "uk.gov.mi6.agent.Moneypenny");
+        assertEquals(2, implementations.size());
+        assertTrue(implementationLoader.loadedClassNames.isEmpty());
+        
+        for (ServiceImplementation<Agent> implementation : implementations) {
+            if (implementation.getName().equals(JamesBond.class.getName())) {
+                assertEquals(JamesBond.class, implementation.getImplementationClass());
+            }
+        }
+        assertEquals(newArrayList(JamesBond.class.getName()), implementationLoader.loadedClassNames);
+    }
+    
+    @Test
+    public void memoisesImplementationClassAndInstance() throws Exception {
+        ServiceImplementation<Agent> implementation = 
+            getOnlyElement(lazyLoadImplementations(JamesBond.class.getName()));
+        Agent instance = implementation.getInstance();
+        assertTrue(instance instanceof JamesBond);
+        assertSame(instance, implementation.getInstance());
+        assertSame(instance, implementation.get());
+        implementation.getImplementationClass();
+        assertEquals(1, implementationLoader.loadedClassNames.size());
+    }
+    
+    @Test(expected = ClassCastException.class)
+    public void verifiesThatClassImplementsTheService() throws ClassNotFoundException {
+        getOnlyElement(lazyLoadImplementations(String.class.getName())).getImplementationClass();
+    }
+    
+    @Test(expected = InstantiationException.class)
+    public void convertsClassCastExceptionDuringInstantiation() throws Exception {
+        getOnlyElement(lazyLoadImplementations(String.class.getName())).getInstance();
+    }
+    
+    @Test(expected = ClassNotFoundException.class)
+    public void throwsClassNotFoundExceptionForMissingClass() throws Exception {
+        getOnlyElement(lazyLoadImplementations("uk.gov.mi6.agent.Moneypenny")).getInstance();
+    }
+    
+    @Test(expected = IllegalStateException.class)
+    public void supplierConvertsExceptions() {
+        getOnlyElement(lazyLoadImplementations("uk.gov.mi6.agent.Moneypenny")).get();
+    }
+}
@@ -24,17 +24,27 @@ import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Lists.newArrayList;
 import static java.lang.String.format;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
 import uk.gov.mi6.LicenseToKill;
 
+import com.qrmedia.commons.multispi.ConcurrentProviderExecutionStrategy;
+import com.qrmedia.commons.multispi.InstanceFactory;
+import com.qrmedia.commons.multispi.MultiSpi;
+import com.qrmedia.commons.multispi.ProviderExecutionStrategy;
+import com.qrmedia.commons.multispi.PublicNoargConstructorInstanceFactory;
+import com.qrmedia.commons.multispi.SequentialProviderExecutionStrategy;
 import com.qrmedia.commons.multispi.provider.AnnotationScanningProvider;
 import com.qrmedia.commons.multispi.provider.MetaInfServicesProvider;
 import com.qrmedia.commons.multispi.provider.ServiceClassnameAttributeProvider;
@@ -67,6 +77,60 @@ public class MultiSpiBuilderTest {
                 provider instanceof MetaInfServicesProvider);
     }
     
+    @Test
+    public void disablesCachingByDefault() throws IllegalAccessException {
+        MultiSpi multiSpi = new MultiSpiBuilder().withDefaults().build();
+        assertFalse(ReflectionUtils.<Boolean>getValue(multiSpi, "resultCaching"));
+        assertFalse(ReflectionUtils.<Boolean>getValue(multiSpi, "instanceCaching"));
+    }
+    
+    @Test
+    public void enablesCaching() throws IllegalAccessException {
+        MultiSpi multiSpi = new MultiSpiBuilder().withDefaults().withResultCaching()
+                            .withInstanceCaching().build();
+        assertTrue(ReflectionUtils.<Boolean>getValue(multiSpi, "resultCaching"));
+        assertTrue(ReflectionUtils.<Boolean>getValue(multiSpi, "instanceCaching"));
+    }
+    
+    @Test
+    public void executesProvidersSequentiallyByDefault() throws IllegalAccessException {
+        assertEquals(SequentialProviderExecutionStrategy.INSTANCE, ReflectionUtils.getValue(
+                new MultiSpiBuilder().withDefaults().build(), "executionStrategy"));
+    }
+    
+    @Test
+    public void supportsConcurrentProviderExecution() throws IllegalAccessException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ProviderExecutionStrategy executionStrategy = ReflectionUtils.getValue(
+                    new MultiSpiBuilder().withDefaults().withConcurrentProviderExecution(
+                            executor, 1, TimeUnit.SECONDS).build(), "executionStrategy");
+            assertTrue(format("Expected the execution strategy to be an instance of '%s' but was '%s'",
+                    ConcurrentProviderExecutionStrategy.class.getSimpleName(), executionStrategy),
+                    executionStrategy instanceof ConcurrentProviderExecutionStrategy);
+            assertEquals(executor, ReflectionUtils.getValue(executionStrategy, "executor"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+    
+    @Test
+    public void usesPublicNoargConstructorsByDefault() throws IllegalAccessException {
+        assertTrue(ReflectionUtils.getValue(new MultiSpiBuilder().withDefaults().build(), 
+                "instanceFactory") instanceof PublicNoargConstructorInstanceFactory);
+    }
+    
+    @Test
+    public void supportsCustomInstanceFactory() throws IllegalAccessException {
+        InstanceFactory instanceFactory = new InstanceFactory() {
+                public <T> T newInstance(Class<T> clazz) throws InstantiationException {
+                    throw new InstantiationException();
+                }
+            };
+        assertEquals(instanceFactory, ReflectionUtils.getValue(new MultiSpiBuilder().withDefaults()
+                .withInstanceFactory(instanceFactory).build(), "instanceFactory"));
+    }
+    
     private static class StubProvider implements ServiceImplementationProvider {
         public Set<String> findServiceImplementations(Class<?> serviceClass, ClassLoader classpathResourceLoader) {
             throw new UnsupportedOperationException("TODO Auto-generated method stub");
@@ -0,0 +1,71 @@
+/*
+ * @(#)AnnotationIndexProviderTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.LicenseToKill;
+import uk.gov.mi6.agent.JackGiddings;
+import uk.gov.mi6.agent.JamesBond;
+
+/**
+ * Unit tests for the {@link AnnotationIndexProvider}. Relies on the index of 
+ * {@link LicenseToKill} classes generated when compiling the test classes.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class AnnotationIndexProviderTest {
+    private final ClassLoader testLoader = AnnotationIndexProviderTest.class.getClassLoader();
+    
+    @Test
+    public void readsIndexedClassesInBasePackageAndSubpackages() {
+        assertEquals(newHashSet(JackGiddings.class.getName(), JamesBond.class.getName()), 
+                new AnnotationIndexProvider(LicenseToKill.class, "uk.gov")
+                .findServiceImplementations(Agent.class, testLoader));
+    }
+    
+    @Test
+    public void matchesAnnotationScanningProvider() {
+        assertEquals(new AnnotationScanningProvider(LicenseToKill.class, "uk.gov")
+                     .findServiceImplementations(Agent.class, testLoader), 
+                new AnnotationIndexProvider(LicenseToKill.class, "uk.gov")
+                .findServiceImplementations(Agent.class, testLoader));
+    }
+    
+    @Test
+    public void ignoresClassesOutsideBasePackage() {
+        assertTrue(new AnnotationIndexProvider(LicenseToKill.class, "uk.gov.mi5")
+                   .findServiceImplementations(Agent.class, testLoader).isEmpty());
+    }
+    
+    @Test
+    public void ignoresUnindexedServiceClasses() {
+        assertTrue(new AnnotationIndexProvider(LicenseToKill.class, "uk.gov")
+                   .findServiceImplementations(Runnable.class, testLoader).isEmpty());
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * @(#)ClasspathIndexTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
+import static java.util.Collections.enumeration;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.Attributes;
+
+import org.junit.Test;
+
+import uk.gov.mi6.Agent;
+import uk.gov.mi6.LicenseToKill;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Resources;
+import com.qrmedia.commons.multispi.DiscoveryStatistics;
+import com.qrmedia.commons.multispi.DiscoveryStatistics.Snapshot;
+import com.qrmedia.commons.multispi.MultiSpi;
+import com.qrmedia.commons.multispi.provider.ClasspathResourcesReadingProvider.IoFunction;
+
+/**
+ * Unit tests for the {@link ClasspathIndex}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ClasspathIndexTest {
+    private static final String CLASSPATH_RESOURCE_NAME = "agent-directory.xml";
+    
+    private final ClasspathIndex classpathIndex = new ClasspathIndex();
+    private final CountingClassLoader classpathResourceLoader;
+    private final IoFunction<URL, String> resourceReader = new IoFunction<URL, String>() {
+            public String apply(URL item) throws IOException {
+                return item.getHost();
+            }
+        };
+    
+    
+    public ClasspathIndexTest() throws MalformedURLException {
+        classpathResourceLoader = new CountingClassLoader(new URL("http://mi5.gov.uk"), 
+                new URL("http://mi6.gov.uk"));
+    }
+    
+    private static class CountingClassLoader extends ClassLoader {
+        private final List<URL> resources;
+        private int getResourcesCalls;
+        
+        private CountingClassLoader(URL... resources) {
+            this.resources = asList(resources);
+        }
+        
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            getResourcesCalls++;
+            return enumeration(resources);
+        }
+    }
+    
+    @Test
+    public void readsResourcesOncePerLoader() throws IOException {
+        List<String> resources = classpathIndex.getIndexedResources(classpathResourceLoader, 
+                Agent.class, CLASSPATH_RESOURCE_NAME, resourceReader);
+        assertEquals(newArrayList("mi5.gov.uk", "mi6.gov.uk"), resources);
+        assertSame(resources, classpathIndex.getIndexedResources(classpathResourceLoader, 
+                LicenseToKill.class, CLASSPATH_RESOURCE_NAME, resourceReader));
+        assertEquals(1, classpathResourceLoader.getResourcesCalls);
+        
+        // a different loader
+        classpathIndex.getIndexedResources(new CountingClassLoader(), Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        assertEquals(1, classpathResourceLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void indexesResourcesPerNameAndReader() throws IOException {
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                "agent-roster.xml", resourceReader);
+        assertEquals(newArrayList("http://mi5.gov.uk", "http://mi6.gov.uk"), 
+                classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                        CLASSPATH_RESOURCE_NAME, new IoFunction<URL, String>() {
+                            public String apply(URL item) throws IOException {
+                                return item.toString();
+                            }
+                        }));
+        assertEquals(3, classpathResourceLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void rereadsResourcesAfterInvalidation() throws IOException {
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        classpathIndex.invalidate(classpathResourceLoader);
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        classpathIndex.invalidateAll();
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        assertEquals(3, classpathResourceLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void rereadsResourcesOfServiceClassAfterInvalidation() throws IOException {
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        classpathIndex.getIndexedResources(classpathResourceLoader, LicenseToKill.class, 
+                "agent-roster.xml", resourceReader);
+        classpathIndex.invalidate(Agent.class);
+        classpathIndex.getIndexedResources(classpathResourceLoader, Agent.class, 
+                CLASSPATH_RESOURCE_NAME, resourceReader);
+        // still indexed
+        classpathIndex.getIndexedResources(classpathResourceLoader, LicenseToKill.class, 
+                "agent-roster.xml", resourceReader);
+        assertEquals(3, classpathResourceLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void readsManifestsOnceForAllManifestProviders() {
+        CountingClassLoader manifestLoader = new CountingClassLoader(
+                ClasspathIndexTest.class.getResource("/META-INF/MANIFEST.MF"));
+        ServiceImplementationProvider otherManifestProvider = new ManifestEntryProvider() {
+                @Override
+                protected boolean isManifestEntryOfImplementation(Attributes entryAttributes,
+                        Class<?> serviceClass) {
+                    return false;
+                }
+            };
+        MultiSpi multiSpi = new MultiSpi(newHashSet(otherManifestProvider, 
+                new ServiceClassnameAttributeProvider()), true, false);
+        multiSpi.findImplementationNames(Agent.class, manifestLoader);
+        multiSpi.findImplementationNames(LicenseToKill.class, manifestLoader);
+        assertEquals(1, manifestLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void readsResourcesForEveryLookupWithoutResultCaching() {
+        CountingClassLoader manifestLoader = new CountingClassLoader(
+                ClasspathIndexTest.class.getResource("/META-INF/MANIFEST.MF"));
+        MultiSpi multiSpi = new MultiSpi(newHashSet(
+                (ServiceImplementationProvider) new ServiceClassnameAttributeProvider()));
+        multiSpi.findImplementationNames(Agent.class, manifestLoader);
+        multiSpi.findImplementationNames(Agent.class, manifestLoader);
+        assertEquals(2, manifestLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void invalidatesOnlyIndexOfInstance() {
+        CountingClassLoader manifestLoader = new CountingClassLoader(
+                ClasspathIndexTest.class.getResource("/META-INF/MANIFEST.MF"));
+        Set<ServiceImplementationProvider> providers = newHashSet(
+                (ServiceImplementationProvider) new ServiceClassnameAttributeProvider());
+        MultiSpi multiSpi = new MultiSpi(providers, true, false);
+        MultiSpi otherMultiSpi = new MultiSpi(providers, true, false);
+        multiSpi.findImplementationNames(Agent.class, manifestLoader);
+        otherMultiSpi.findImplementationNames(LicenseToKill.class, manifestLoader);
+        assertEquals(2, manifestLoader.getResourcesCalls);
+        
+        multiSpi.invalidateCache();
+        multiSpi.findImplementationNames(LicenseToKill.class, manifestLoader);
+        // still indexed
+        otherMultiSpi.findImplementationNames(Agent.class, manifestLoader);
+        assertEquals(3, manifestLoader.getResourcesCalls);
+    }
+    
+    @Test
+    public void reportsIndexAccessesAndResourcesReadToCurrentListeners() {
+        ServiceImplementationProvider indexReadingProvider = new ResourceIoPerformingProvider() {
+                @Override
+                protected Set<String> findServiceImplementationsWithIo(Class<?> serviceClass,
+                        ClassLoader classpathResourceLoader) throws IOException {
+                    ClasspathIndex.getResources(classpathResourceLoader, serviceClass, 
+                            CLASSPATH_RESOURCE_NAME, resourceReader);
+                    ClasspathIndex.getResources(classpathResourceLoader, serviceClass, 
+                            CLASSPATH_RESOURCE_NAME, resourceReader);
+                    return ImmutableSet.of();
+                }
+            };
+        DiscoveryStatistics statistics = new DiscoveryStatistics();
+        MultiSpi multiSpi = new MultiSpi(newHashSet(indexReadingProvider), true, false);
+        multiSpi.addDiscoveryListener(statistics);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        
+        Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(1, snapshot.getClasspathIndexHits());
+        assertEquals(1, snapshot.getClasspathIndexMisses());
+        assertEquals(2, snapshot.getResourcesRead());
+    }
+    
+    @Test
+    public void reportsReadFailuresToCurrentListeners() {
+        final List<IOException> handledExceptions = newArrayList();
+        ServiceImplementationProvider failingProvider = new ResourceIoPerformingProvider() {
+                @Override
+                protected Set<String> findServiceImplementationsWithIo(Class<?> serviceClass,
+                        ClassLoader classpathResourceLoader) throws IOException {
+                    return ImmutableSet.copyOf(ClasspathIndex.getResources(classpathResourceLoader, 
+                            serviceClass, "agent-roster.xml", new IoFunction<URL, String>() {
+                                public String apply(URL item) throws IOException {
+                                    throw new IOException("Classified");
+                                }
+                            }));
+                }
+                
+                @Override
+                protected void handleIoException(IOException exception) {
+                    handledExceptions.add(exception);
+                }
+            };
+        DiscoveryStatistics statistics = new DiscoveryStatistics();
+        MultiSpi multiSpi = new MultiSpi(newHashSet(failingProvider));
+        multiSpi.addDiscoveryListener(statistics);
+        multiSpi.findImplementationNames(Agent.class, classpathResourceLoader);
+        
+        Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(1, snapshot.getProviderStatistics().get(failingProvider).getReadFailures());
+        assertEquals(0, snapshot.getResourcesRead());
+        assertEquals(1, handledExceptions.size());
+    }
+    
+    @Test
+    public void reportsBytesReadByManifestReader() throws IOException {
+        URL manifest = ClasspathIndexTest.class.getResource("/META-INF/MANIFEST.MF");
+        DiscoveryStatistics statistics = new DiscoveryStatistics();
+        MultiSpi multiSpi = new MultiSpi(newHashSet(
+                (ServiceImplementationProvider) new ServiceClassnameAttributeProvider()));
+        multiSpi.addDiscoveryListener(statistics);
+        multiSpi.findImplementationNames(Agent.class, new CountingClassLoader(manifest));
+        assertEquals(Resources.toByteArray(manifest).length, 
+                statistics.getSnapshot().getBytesRead());
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * @(#)ProviderConfigurationFileParserTest.java     18 Oct 2026
+ *
+ * Copyright © 2010 Andrew Phillips.
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or 
+ * implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+package com.qrmedia.commons.multispi.provider;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Test;
+
+import uk.gov.mi6.agent.Bill;
+import uk.gov.mi6.agent.JamesBond;
+import uk.gov.mi6.agent.StuartThomas;
+
+/**
+ * Unit tests for the {@link ProviderConfigurationFileParser}.
+ * 
+ * @author aphillips
+ * @since 18 Oct 2026
+ *
+ */
+public class ProviderConfigurationFileParserTest {
+    private static final String MORE_AGENTS_JAR = "/uk/gov/mi6/more-agents/1.0/more-agents-1.0.jar";
+    private static final String PROVIDER_FILE = "META-INF/services/uk.gov.mi6.Agent";
+    
+    @Test
+    public void ignoresCommentsWhitespaceAndBlankLines() throws IOException {
+        assertEquals(Arrays.asList("uk.gov.mi6.agent.JamesBond", "uk.gov.mi6.agent.StuartThomas"),
+                parse("\r\n uk.gov.mi6.agent.JamesBond\r\n\r\n#uk.gov.mi6.agent.JackGiddings # ignored\n"
+                      + "\tuk.gov.mi6.agent.StuartThomas \t# included"));
+    }
+    
+    @Test
+    public void retainsWhitespaceWithinNames() throws IOException {
+        assertEquals(Arrays.asList("uk.gov.mi6.agent.James Bond"), 
+                parse("  uk.gov.mi6.agent.James Bond  \n"));
+    }
+    
+    @Test
+    public void ignoresDuplicates() throws IOException {
+        assertEquals(Arrays.asList("uk.gov.mi6.agent.JamesBond"), 
+                parse("uk.gov.mi6.agent.JamesBond\ruk.gov.mi6.agent.JamesBond"));
+    }
+    
+    @Test
+    public void supportsEmptyFiles() throws IOException {
+        assertTrue(parse("").isEmpty());
+        assertTrue(parse("# only a comment").isEmpty());
+    }
+    
+    @Test
+    public void decodesNonAsciiNames() throws IOException {
+        assertEquals(Arrays.asList("uk.gov.mi6.agent.Mönch", "uk.gov.mi6.agent.Ωmega"), 
+                parse("uk.gov.mi6.agent.Mönch # ü\nuk.gov.mi6.agent.Ωmega"));
+    }
+    
+    @Test
+    public void supportsNamesLongerThanTheInitialBuffer() throws IOException {
+        StringBuilder longName = new StringBuilder("uk.gov.mi6.agent.");
+        while (longName.length() < 5000) {
+            longName.append("Bond");
+        }
+        assertEquals(Arrays.asList(longName.toString()), parse(longName.toString()));
+    }
+    
+    @Test
+    public void readsFileUrls() throws IOException {
+        URL providerFile = null;
+        // the more-agents jar also contains a provider file
+        for (URL url : Collections.list(ProviderConfigurationFileParserTest.class
+                .getClassLoader().getResources(PROVIDER_FILE))) {
+            if (url.getProtocol().equals("file")) {
+                providerFile = url;
+            }
+        }
+        assertEquals(Arrays.asList(JamesBond.class.getName(), StuartThomas.class.getName()),
+                newArrayList(ProviderConfigurationFileParser.parse(providerFile)));
+    }
+    
+    @Test
+    public void readsJarEntriesDirectly() throws IOException {
+        URL jarEntry = new URL("jar:" 
+                + ProviderConfigurationFileParserTest.class.getResource(MORE_AGENTS_JAR) 
+                + "!/" + PROVIDER_FILE);
+        assertEquals(Arrays.asList(Bill.class.getName()), 
+                newArrayList(ProviderConfigurationFileParser.parse(jarEntry)));
+    }
+    
+    @Test
+    public void readsEncodedJarEntriesFromCachedJar() throws IOException {
+        File jar = File.createTempFile("more agents", ".jar");
+        jar.deleteOnExit();
+        String providerFile = "META-INF/services/uk.gov.mi6.Ωmega";
+        JarOutputStream jarStream = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            jarStream.putNextEntry(new JarEntry(providerFile));
+            jarStream.write(Bill.class.getName().getBytes("UTF-8"));
+        } finally {
+            jarStream.close();
+        }
+        
+        // as for resources found by class loaders, the jar path and entry name are encoded
+        URL jarEntry = new URLClassLoader(new URL[] { jar.toURI().toURL() }, null)
+        .findResource(providerFile);
+        assertTrue(jarEntry.toString().contains("%"));
+        assertEquals(Arrays.asList(Bill.class.getName()), 
+                newArrayList(ProviderConfigurationFileParser.parse(jarEntry)));
+        
+        // the jar file shared by the connections to the jar is not closed
+        assertEquals(Arrays.asList(Bill.class.getName()), 
+                newArrayList(ProviderConfigurationFileParser.parse(jarEntry)));
+    }
+    
+    private static List<String> parse(String providerFile) throws IOException {
+        Set<String> names = ProviderConfigurationFileParser.parse(
+                new ByteArrayInputStream(providerFile.getBytes("UTF-8")));
+        return newArrayList(names);
+    }
+}